@@ -0,0 +1,19 @@
+package jb5n.benchmarks;
+
+import java.util.Date;
+
+import jb5n.api.Message;
+import jb5n.api.MessageResource;
+
+@MessageResource
+public interface BenchmarkMessages {
+
+    String title();
+
+    String greeting(String name, int count, Date date);
+
+    @Message(defaultMessage = "Default")
+    String missingWithDefault();
+
+    String missingWithoutDefault();
+}
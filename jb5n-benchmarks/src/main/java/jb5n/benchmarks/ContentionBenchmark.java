@@ -0,0 +1,88 @@
+package jb5n.benchmarks;
+
+import java.util.Date;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import jb5n.api.JB5n;
+import jb5n.api.JB5nConfiguration;
+import jb5n.api.LocaleContext;
+import jb5n.api.metrics.JB5nJmxMetrics;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the throughput of one MessageResource instance shared by several
+ * threads, with and without metrics. The number of threads can be changed with
+ * the JMH option -t.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class ContentionBenchmark {
+    @Param({"false", "true"})
+    public boolean metrics;
+    private final Date date = new Date(0);
+    private JB5nJmxMetrics jmxMetrics;
+    private BenchmarkMessages messages;
+    private BenchmarkMessages contextualMessages;
+
+    @Setup
+    public void setUp() {
+        JB5nConfiguration configuration = new JB5nConfiguration();
+        if (metrics) {
+            jmxMetrics = new JB5nJmxMetrics();
+            configuration.setMetrics(jmxMetrics);
+        }
+        JB5n.setConfiguration(configuration);
+        messages = JB5n.createInstance(BenchmarkMessages.class, Locale.GERMAN);
+        contextualMessages = JB5n.createContextualInstance(BenchmarkMessages.class, new LocaleContext() {
+            public Locale getLocale() {
+                return Locale.GERMAN;
+            }
+        });
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (jmxMetrics != null) {
+            jmxMetrics.unregister();
+        }
+    }
+
+    @Benchmark
+    public String noArguments() {
+        return messages.title();
+    }
+
+    @Benchmark
+    public String multipleArguments() {
+        return messages.greeting("Duke", 42, date);
+    }
+
+    @Benchmark
+    public String createInstance() {
+        return JB5n.createInstance(BenchmarkMessages.class, Locale.GERMAN).title();
+    }
+
+    @Benchmark
+    public String contextualInstance() {
+        return contextualMessages.title();
+    }
+}
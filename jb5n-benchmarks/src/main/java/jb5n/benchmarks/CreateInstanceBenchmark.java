@@ -0,0 +1,62 @@
+package jb5n.benchmarks;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import jb5n.api.JB5n;
+import jb5n.api.JB5nConfiguration;
+import jb5n.api.MessageResourceFactory;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link JB5n#createInstance(Class, Locale)} with and without the
+ * cache for MessageResource instances, compared to a kept
+ * {@link MessageResourceFactory}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CreateInstanceBenchmark {
+    @Param({"true", "false"})
+    public boolean cache;
+    @Param({Implementations.GENERATED, Implementations.BYTECODE, Implementations.PROXY})
+    public String implementation;
+    private MessageResourceFactory<BenchmarkMessages> factory;
+
+    @Setup
+    public void setUp() {
+        JB5nConfiguration configuration = Implementations.createConfiguration(implementation);
+        configuration.setCacheMessageResources(cache);
+        JB5n.setConfiguration(configuration);
+        factory = JB5n.factory(BenchmarkMessages.class);
+    }
+
+    @Benchmark
+    public BenchmarkMessages createInstance() {
+        return JB5n.createInstance(BenchmarkMessages.class, Locale.GERMAN);
+    }
+
+    @Benchmark
+    public InheritedBenchmarkMessages createInstanceOfInheritedInterface() {
+        return JB5n.createInstance(InheritedBenchmarkMessages.class, Locale.GERMAN);
+    }
+
+    @Benchmark
+    public BenchmarkMessages factory() {
+        return factory.get(Locale.GERMAN);
+    }
+}
@@ -0,0 +1,23 @@
+package jb5n.benchmarks;
+
+import jb5n.api.JB5nConfiguration;
+
+/**
+ * The implementations of MessageResource interfaces that are compared by the
+ * benchmarks.
+ */
+final class Implementations {
+    static final String GENERATED = "generated";
+    static final String BYTECODE = "bytecode";
+    static final String PROXY = "proxy";
+
+    private Implementations() {
+    }
+
+    static JB5nConfiguration createConfiguration(String implementation) {
+        JB5nConfiguration configuration = new JB5nConfiguration();
+        configuration.setUseGeneratedImplementations(GENERATED.equals(implementation));
+        configuration.setGenerateImplementationsAtRuntime(BYTECODE.equals(implementation));
+        return configuration;
+    }
+}
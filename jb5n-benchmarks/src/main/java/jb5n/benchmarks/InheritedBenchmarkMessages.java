@@ -0,0 +1,9 @@
+package jb5n.benchmarks;
+
+import jb5n.api.MessageResource;
+
+@MessageResource
+public interface InheritedBenchmarkMessages extends BenchmarkMessages {
+
+    String subtitle();
+}
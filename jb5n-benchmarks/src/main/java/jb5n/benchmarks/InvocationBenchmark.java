@@ -0,0 +1,75 @@
+package jb5n.benchmarks;
+
+import java.util.Date;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import jb5n.api.JB5n;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the invocation of the methods of a MessageResource instance. The
+ * results of {@link ResourceBundleBaselineBenchmark} show the cost of the
+ * same lookups without jb5n.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class InvocationBenchmark {
+    @Param({Implementations.GENERATED, Implementations.BYTECODE, Implementations.PROXY})
+    public String implementation;
+    private final Date date = new Date(0);
+    private BenchmarkMessages messages;
+    private InheritedBenchmarkMessages inheritedMessages;
+
+    @Setup
+    public void setUp() {
+        JB5n.setConfiguration(Implementations.createConfiguration(implementation));
+        messages = JB5n.createInstance(BenchmarkMessages.class, Locale.GERMAN);
+        inheritedMessages = JB5n.createInstance(InheritedBenchmarkMessages.class, Locale.GERMAN);
+    }
+
+    @Benchmark
+    public String noArguments() {
+        return messages.title();
+    }
+
+    @Benchmark
+    public String multipleArguments() {
+        return messages.greeting("Duke", 42, date);
+    }
+
+    @Benchmark
+    public String missingKeyWithDefaultMessage() {
+        return messages.missingWithDefault();
+    }
+
+    @Benchmark
+    public String missingKeyWithoutDefaultMessage() {
+        return messages.missingWithoutDefault();
+    }
+
+    @Benchmark
+    public String inheritedMethod() {
+        return inheritedMessages.title();
+    }
+
+    @Benchmark
+    public String methodOfInheritingInterface() {
+        return inheritedMessages.subtitle();
+    }
+}
@@ -0,0 +1,81 @@
+package jb5n.benchmarks;
+
+import java.text.MessageFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.MissingResourceException;
+import java.util.ResourceBundle;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The lookups of all benchmarks of {@link InvocationBenchmark} written by hand
+ * with {@link ResourceBundle#getString(String)} and {@link MessageFormat}. Like
+ * jb5n, the messages are formatted with the default locale, and an inherited
+ * method is looked up in the resource bundle of the interface declaring it.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ResourceBundleBaselineBenchmark {
+    private final Date date = new Date(0);
+    private ResourceBundle resourceBundle;
+    private ResourceBundle inheritedResourceBundle;
+
+    @Setup
+    public void setUp() {
+        resourceBundle = ResourceBundle.getBundle(BenchmarkMessages.class.getName(), Locale.GERMAN);
+        inheritedResourceBundle = ResourceBundle.getBundle(InheritedBenchmarkMessages.class.getName(), Locale.GERMAN);
+    }
+
+    @Benchmark
+    public String noArguments() {
+        return resourceBundle.getString("title");
+    }
+
+    @Benchmark
+    public String multipleArguments() {
+        return new MessageFormat(resourceBundle.getString("greeting"), Locale.getDefault()).format(new Object[]{"Duke", 42, date});
+    }
+
+    @Benchmark
+    public String missingKeyWithDefaultMessage() {
+        try {
+            return resourceBundle.getString("missingWithDefault");
+        } catch (MissingResourceException e) {
+            return "Default";
+        }
+    }
+
+    @Benchmark
+    public String missingKeyWithoutDefaultMessage() {
+        try {
+            return resourceBundle.getString("missingWithoutDefault");
+        } catch (MissingResourceException e) {
+            return "???missingWithoutDefault???";
+        }
+    }
+
+    @Benchmark
+    public String inheritedMethod() {
+        return resourceBundle.getString("title");
+    }
+
+    @Benchmark
+    public String methodOfInheritingInterface() {
+        return inheritedResourceBundle.getString("subtitle");
+    }
+}
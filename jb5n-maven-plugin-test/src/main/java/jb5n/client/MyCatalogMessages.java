@@ -0,0 +1,13 @@
+package jb5n.client;
+
+import jb5n.api.MessageResource;
+import jb5n.api.catalog.JB5nCatalogInvocationHandler;
+
+@MessageResource(invocationHandler = JB5nCatalogInvocationHandler.class)
+public interface MyCatalogMessages {
+    String yes();
+
+    String no();
+
+    String items(int count);
+}
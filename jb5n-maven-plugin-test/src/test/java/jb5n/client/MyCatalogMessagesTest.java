@@ -0,0 +1,29 @@
+package jb5n.client;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.junit.Assert.assertThat;
+
+import java.util.Locale;
+
+import jb5n.api.JB5n;
+
+import org.junit.Test;
+
+public class MyCatalogMessagesTest {
+
+	@Test
+	public void catalogsAreCompiled() {
+		ClassLoader classLoader = MyCatalogMessagesTest.class.getClassLoader();
+		assertThat(classLoader.getResource("jb5n/client/MyCatalogMessages.jb5n"), is(notNullValue()));
+		assertThat(classLoader.getResource("jb5n/client/MyCatalogMessages_de.jb5n"), is(notNullValue()));
+	}
+
+	@Test
+	public void messagesAreReadFromCatalog() {
+		MyCatalogMessages instance = JB5n.createInstance(MyCatalogMessages.class, Locale.GERMAN);
+		assertThat(instance.yes(), is("Ja"));
+		assertThat(instance.no(), is("No"));
+		assertThat(instance.items(3), is("Sie haben 3 Einträge."));
+	}
+}
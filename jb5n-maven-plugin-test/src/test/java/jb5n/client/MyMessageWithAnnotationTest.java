@@ -0,0 +1,27 @@
+package jb5n.client;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.Locale;
+
+import jb5n.api.JB5n;
+
+import org.junit.Test;
+
+public class MyMessageWithAnnotationTest {
+
+	@Test
+	public void generatedImplementationIsUsed() {
+		MyMessageWithAnnotation instance = JB5n.createInstance(MyMessageWithAnnotation.class, Locale.ENGLISH);
+		assertThat(instance.getClass().getName(), is("jb5n.client.MyMessageWithAnnotation_JB5n"));
+		assertThat(instance.cancel(), is("Cancel"));
+	}
+
+	@Test
+	public void proxyIsUsedWithoutAnnotation() {
+		MyMessages instance = JB5n.createInstance(MyMessages.class, Locale.ENGLISH);
+		assertThat(instance.getClass().getName().endsWith("_JB5n"), is(false));
+		assertThat(instance.ok(), is("OK"));
+	}
+}
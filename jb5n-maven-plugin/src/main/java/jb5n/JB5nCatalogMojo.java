@@ -0,0 +1,107 @@
+package jb5n;
+
+import jb5n.internal.catalog.BinaryCatalogWriter;
+import jb5n.internal.catalog.PropertiesCatalogLoader;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Goal which compiles the properties files of resource bundles into binary
+ * catalogs that can be memory mapped by the JB5nCatalogInvocationHandler.
+ * For each locale a catalog is written that already contains the messages of
+ * the parent bundles. The properties files are decoded like
+ * PropertyResourceBundle does: as UTF-8 or, if they are no valid UTF-8, as
+ * ISO-8859-1.
+ *
+ * @goal catalog
+ * @phase process-classes
+ */
+public class JB5nCatalogMojo extends AbstractMojo {
+
+    /**
+     * @parameter default-value="${project.build.outputDirectory}"
+     */
+    private File classesDirectory;
+
+    /**
+     * @parameter default-value="${project.build.outputDirectory}" alias="outputDirectory"
+     */
+    private File outputDirectory;
+
+    /**
+     * @parameter alias="resource-bundles"
+     */
+    private String[] resourceBundles;
+
+    /**
+     * @parameter alias="locales"
+     */
+    private String[] locales;
+
+    public void execute() throws MojoExecutionException {
+        if (resourceBundles == null || resourceBundles.length == 0) {
+            getLog().info("No resource bundles configured. Nothing to do.");
+            return;
+        }
+        URLClassLoader classLoader;
+        try {
+            classLoader = new URLClassLoader(new URL[]{classesDirectory.toURI().toURL()}, null);
+        } catch (MalformedURLException e) {
+            throw new MojoExecutionException(String.format("Failed to convert classes directory to URL: %s.", e.getMessage()));
+        }
+        PropertiesCatalogLoader loader = new PropertiesCatalogLoader();
+        BinaryCatalogWriter writer = new BinaryCatalogWriter();
+        for (String resourceBundle : resourceBundles) {
+            for (Locale locale : getLocales()) {
+                List<String> suffixes = PropertiesCatalogLoader.getCandidateSuffixes(locale);
+                String suffix = suffixes.isEmpty() ? "" : suffixes.get(0);
+                try {
+                    Map<String, String> messages = loader.loadMessages(resourceBundle, locale, classLoader);
+                    if (messages == null) {
+                        throw new MojoExecutionException(String.format("No properties file found for resource bundle '%s' and locale '%s'.", resourceBundle, locale));
+                    }
+                    File file = new File(outputDirectory, resourceBundle.replace('.', File.separatorChar) + suffix + BinaryCatalogWriter.FILE_SUFFIX);
+                    write(writer, messages, file);
+                    getLog().info(String.format("Compiled %d messages of resource bundle '%s' to '%s'.", messages.size(), resourceBundle, file));
+                } catch (IOException e) {
+                    throw new MojoExecutionException(String.format("Failed to compile resource bundle '%s' for locale '%s': %s.", resourceBundle, locale, e.getMessage()), e);
+                }
+            }
+        }
+    }
+
+    private List<Locale> getLocales() {
+        List<Locale> result = new ArrayList<Locale>();
+        result.add(new Locale(""));
+        if (locales != null) {
+            for (String locale : locales) {
+                String[] parts = locale.split("_", 3);
+                result.add(new Locale(parts[0], parts.length > 1 ? parts[1] : "", parts.length > 2 ? parts[2] : ""));
+            }
+        }
+        return result;
+    }
+
+    private void write(BinaryCatalogWriter writer, Map<String, String> messages, File file) throws IOException {
+        file.getParentFile().mkdirs();
+        OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(file));
+        try {
+            writer.write(messages, outputStream);
+        } finally {
+            outputStream.close();
+        }
+    }
+}
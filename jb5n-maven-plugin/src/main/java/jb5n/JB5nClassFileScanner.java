@@ -0,0 +1,256 @@
+package jb5n;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.lang.annotation.Annotation;
+
+/**
+ * Checks whether a class file is annotated with a given runtime annotation
+ * without loading the class. Only the constant pool and the attributes of
+ * the class are parsed; fields and methods are skipped. The class file is read
+ * into a buffer that is reused for the next class, so a scanner should be
+ * reused, but not shared between threads.
+ */
+public class JB5nClassFileScanner {
+    private static final int MAGIC = 0xcafebabe;
+    private static final int CONSTANT_UTF8 = 1;
+    private static final int CONSTANT_LONG = 5;
+    private static final int CONSTANT_DOUBLE = 6;
+    private final byte[] annotationDescriptor;
+    private final byte[] attributeName;
+    private byte[] buffer = new byte[8192];
+    private int length;
+    private int position;
+    private int[] utf8Offsets = new int[256];
+    private int constantPoolCount;
+
+    /**
+     * @param annotationType the annotation to look for; it must have runtime retention
+     */
+    public JB5nClassFileScanner(Class<? extends Annotation> annotationType) {
+        this.annotationDescriptor = toModifiedUtf8("L" + annotationType.getName().replace('.', '/') + ";");
+        this.attributeName = toModifiedUtf8("RuntimeVisibleAnnotations");
+    }
+
+    private static byte[] toModifiedUtf8(String value) {
+        try {
+            // identical to modified UTF-8 for names without null or supplementary characters
+            return value.getBytes("UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Reads the given class file and checks its annotations. The stream is
+     * read completely but not closed.
+     *
+     * @param inputStream the class file
+     * @return true if the class is annotated with the annotation of this scanner
+     * @throws IOException if the stream cannot be read or is no valid class file
+     */
+    public boolean isAnnotated(InputStream inputStream) throws IOException {
+        read(inputStream);
+        try {
+            return parse();
+        } catch (ArrayIndexOutOfBoundsException e) {
+            throw new IOException("Truncated class file.");
+        }
+    }
+
+    private void read(InputStream inputStream) throws IOException {
+        length = 0;
+        position = 0;
+        int count;
+        while ((count = inputStream.read(buffer, length, buffer.length - length)) >= 0) {
+            length += count;
+            if (length == buffer.length) {
+                byte[] newBuffer = new byte[2 * buffer.length];
+                System.arraycopy(buffer, 0, newBuffer, 0, length);
+                buffer = newBuffer;
+            }
+        }
+    }
+
+    private boolean parse() throws IOException {
+        if (readInt() != MAGIC) {
+            throw new IOException("Invalid magic number.");
+        }
+        // minor and major version
+        position += 4;
+        constantPoolCount = readUnsignedShort();
+        if (utf8Offsets.length < constantPoolCount) {
+            utf8Offsets = new int[constantPoolCount];
+        }
+        utf8Offsets[0] = -1;
+        for (int i = 1; i < constantPoolCount; i++) {
+            int tag = readUnsignedByte();
+            utf8Offsets[i] = -1;
+            switch (tag) {
+                case CONSTANT_UTF8:
+                    utf8Offsets[i] = position;
+                    position += 2 + readUnsignedShort(position);
+                    break;
+                case CONSTANT_LONG:
+                case CONSTANT_DOUBLE:
+                    position += 8;
+                    // takes two entries of the constant pool
+                    utf8Offsets[++i] = -1;
+                    break;
+                case 3: // Integer
+                case 4: // Float
+                case 9: // Fieldref
+                case 10: // Methodref
+                case 11: // InterfaceMethodref
+                case 12: // NameAndType
+                case 17: // Dynamic
+                case 18: // InvokeDynamic
+                    position += 4;
+                    break;
+                case 15: // MethodHandle
+                    position += 3;
+                    break;
+                case 7: // Class
+                case 8: // String
+                case 16: // MethodType
+                case 19: // Module
+                case 20: // Package
+                    position += 2;
+                    break;
+                default:
+                    throw new IOException(String.format("Invalid constant pool tag %d.", tag));
+            }
+        }
+        // access flags, this class, super class
+        position += 6;
+        int interfaceCount = readUnsignedShort();
+        position += 2 * interfaceCount;
+        skipMembers();
+        skipMembers();
+        // all attributes are checked, so that a truncated class file is never accepted
+        boolean annotated = false;
+        int attributeCount = readUnsignedShort();
+        for (int i = 0; i < attributeCount; i++) {
+            int nameIndex = readUnsignedShort();
+            int attributeLength = readInt();
+            int start = position;
+            skip(attributeLength);
+            if (!annotated && isUtf8(nameIndex, attributeName)) {
+                int end = position;
+                position = start;
+                annotated = containsAnnotation();
+                position = end;
+            }
+        }
+        return annotated;
+    }
+
+    private void skipMembers() {
+        int memberCount = readUnsignedShort();
+        for (int i = 0; i < memberCount; i++) {
+            // access flags, name, descriptor
+            position += 6;
+            int attributeCount = readUnsignedShort();
+            for (int j = 0; j < attributeCount; j++) {
+                position += 2;
+                skip(readInt());
+            }
+        }
+    }
+
+    private boolean containsAnnotation() {
+        int annotationCount = readUnsignedShort();
+        for (int i = 0; i < annotationCount; i++) {
+            if (isUtf8(readUnsignedShort(), annotationDescriptor)) {
+                return true;
+            }
+            skipElementValuePairs();
+        }
+        return false;
+    }
+
+    private void skipElementValuePairs() {
+        int pairCount = readUnsignedShort();
+        for (int i = 0; i < pairCount; i++) {
+            position += 2;
+            skipElementValue();
+        }
+    }
+
+    private void skipElementValue() {
+        int tag = readUnsignedByte();
+        switch (tag) {
+            case 'e':
+                position += 4;
+                break;
+            case '@':
+                position += 2;
+                skipElementValuePairs();
+                break;
+            case '[':
+                int valueCount = readUnsignedShort();
+                for (int i = 0; i < valueCount; i++) {
+                    skipElementValue();
+                }
+                break;
+            default:
+                // constant or class
+                position += 2;
+                break;
+        }
+    }
+
+    private boolean isUtf8(int index, byte[] value) {
+        int offset = index < constantPoolCount ? utf8Offsets[index] : -1;
+        if (offset < 0 || readUnsignedShort(offset) != value.length) {
+            return false;
+        }
+        offset += 2;
+        checkOffset(offset + value.length);
+        for (int i = 0; i < value.length; i++) {
+            if (buffer[offset + i] != value[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int readUnsignedByte() {
+        checkOffset(position + 1);
+        return buffer[position++] & 0xff;
+    }
+
+    private int readUnsignedShort() {
+        int value = readUnsignedShort(position);
+        position += 2;
+        return value;
+    }
+
+    private int readUnsignedShort(int offset) {
+        checkOffset(offset + 2);
+        return ((buffer[offset] & 0xff) << 8) | (buffer[offset + 1] & 0xff);
+    }
+
+    private int readInt() {
+        checkOffset(position + 4);
+        int value = ((buffer[position] & 0xff) << 24) | ((buffer[position + 1] & 0xff) << 16) | ((buffer[position + 2] & 0xff) << 8) | (buffer[position + 3] & 0xff);
+        position += 4;
+        return value;
+    }
+
+    private void skip(int count) {
+        if (count < 0) {
+            throw new ArrayIndexOutOfBoundsException(count);
+        }
+        checkOffset(position + count);
+        position += count;
+    }
+
+    private void checkOffset(int end) {
+        // the buffer may contain bytes of a previous class behind the end
+        if (end > length || end < 0) {
+            throw new ArrayIndexOutOfBoundsException(end);
+        }
+    }
+}
@@ -1,9 +1,8 @@
 package jb5n;
 
-import javassist.ClassPool;
-import javassist.CtClass;
 import jb5n.api.MessageResource;
 import jb5n.api.properties.JB5nPropertiesSync;
+import jb5n.internal.catalog.PropertiesCatalogLoader;
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.project.MavenProject;
@@ -11,8 +10,19 @@ import org.apache.maven.project.MavenProject;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
 import java.net.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 
@@ -24,6 +34,8 @@ import java.util.jar.JarFile;
  */
 public class JB5nPropertiesMojo extends AbstractMojo {
 
+    private static final int MIN_ENTRIES_PER_SCAN_TASK = 256;
+
     /**
      * @parameter default-value="${project}"
      */
@@ -44,80 +56,405 @@ public class JB5nPropertiesMojo extends AbstractMojo {
      */
     private String breakBuild;
 
+    /**
+     * The number of threads that verify the message resources. Defaults to
+     * the number of available processors.
+     *
+     * @parameter alias="threads"
+     */
+    private Integer threads;
+
+    /**
+     * If true, only the message resources and locales whose interfaces or
+     * resource bundles have changed since the last execution are verified.
+     *
+     * @parameter alias="incremental" default-value="true"
+     */
+    private boolean incremental;
+
+    /**
+     * The file that stores the fingerprints of the last execution.
+     *
+     * @parameter alias="stateFile" default-value="${project.build.directory}/jb5n-verify-state.properties"
+     */
+    private File stateFile;
+
+    /**
+     * The result of verifying one message resource for one locale.
+     */
+    private static class Verification implements Callable<Verification> {
+        private final Class<?> messageResource;
+        private final Locale locale;
+        private final ClassLoader classLoader;
+        private final String fingerprint;
+        private List<String> missingResourceKeys = Collections.emptyList();
+        private String error;
+
+        private Verification(Class<?> messageResource, Locale locale, ClassLoader classLoader, String fingerprint) {
+            this.messageResource = messageResource;
+            this.locale = locale;
+            this.classLoader = classLoader;
+            this.fingerprint = fingerprint;
+        }
+
+        public Verification call() {
+            try {
+                missingResourceKeys = JB5nPropertiesSync.sync(messageResource, locale, classLoader).getMissingResourceKeys();
+            } catch (RuntimeException e) {
+                error = e.getMessage();
+            }
+            return this;
+        }
+    }
+
+    /**
+     * Scans a part of the entries of the jar file with its own class file
+     * scanner.
+     */
+    private static class ScanTask implements Callable<ScanTask> {
+        private final JarFile jarFile;
+        private final List<JarEntry> jarEntries;
+        private final JB5nVerificationState state;
+        private final List<String> messageResources = new ArrayList<String>();
+        private final List<String> failures = new ArrayList<String>();
+
+        private ScanTask(JarFile jarFile, List<JarEntry> jarEntries, JB5nVerificationState state) {
+            this.jarFile = jarFile;
+            this.jarEntries = jarEntries;
+            this.state = state;
+        }
+
+        public ScanTask call() {
+            JB5nClassFileScanner scanner = new JB5nClassFileScanner(MessageResource.class);
+            for (JarEntry jarEntry : jarEntries) {
+                String jarEntryName = jarEntry.getName();
+                try {
+                    InputStream inputStream = jarFile.getInputStream(jarEntry);
+                    boolean messageResource;
+                    try {
+                        messageResource = scanner.isAnnotated(inputStream);
+                    } finally {
+                        inputStream.close();
+                    }
+                    if (messageResource) {
+                        messageResources.add(toClassName(jarEntryName));
+                    }
+                    if (jarEntry.getCrc() != -1) {
+                        state.setMessageResource(jarEntryName, jarEntry.getCrc(), messageResource);
+                    }
+                } catch (IOException e) {
+                    failures.add(String.format("Processing bytecode of class file '%s' failed: %s", jarEntryName, e.getMessage()));
+                }
+            }
+            return this;
+        }
+    }
+
+    private static class VerificationThreadFactory implements ThreadFactory {
+        private final AtomicInteger threadNumber = new AtomicInteger();
+
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "jb5n-verify-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
     public void execute() throws MojoExecutionException {
         File artifactFile = getArtifactFile();
         boolean breakBuildBoolean = getBreakBuild();
         List<String> messageResources = getMessageResources();
         if (locales != null) {
-            addMessageResourcesFromJarFile(artifactFile, messageResources);
-            processMessageResources(artifactFile, breakBuildBoolean, messageResources);
+            JB5nVerificationState state = loadState();
+            try {
+                addMessageResourcesFromJarFile(artifactFile, messageResources, state);
+                processMessageResources(artifactFile, breakBuildBoolean, messageResources, state);
+            } finally {
+                storeState(state);
+            }
         } else {
             logNothingToDo();
         }
     }
 
-    private void processMessageResources(File artifactFile, boolean breakBuildBoolean, List<String> messageResources) throws MojoExecutionException {
+    /**
+     * Verifies all message resources for all locales in parallel. All
+     * interfaces are loaded by one class loader, so that the resource bundles
+     * are only loaded once per execution and shared by all interfaces and
+     * locales that use them. The problems are reported together at the end.
+     * Pairs of interface and locale whose fingerprint has not changed since
+     * they have been verified without problems are skipped.
+     */
+    private void processMessageResources(File artifactFile, boolean breakBuildBoolean, List<String> messageResources, JB5nVerificationState state) throws MojoExecutionException {
         URI artifactUri = artifactFile.toURI();
+        JB5nPropertiesMojoClassLoader classLoader = new JB5nPropertiesMojoClassLoader(new URL[0], getParentClassLoader());
+        try {
+            classLoader.addUrl(artifactUri.toURL());
+        } catch (MalformedURLException e) {
+            throw new MojoExecutionException(String.format("Failed to convert artifact file to URL: %s.", e.getMessage()));
+        }
+        List<Verification> verifications = new ArrayList<Verification>();
+        Map<String, byte[]> resourceDigests = new HashMap<String, byte[]>();
+        int unchanged = 0;
         for (String messageInterface : messageResources) {
             getLog().info(String.format("Processing message resource '%s' for file '%s'.", messageInterface, artifactUri));
-            JB5nPropertiesMojoClassLoader classLoader = new JB5nPropertiesMojoClassLoader(new URL[0], getParentClassLoader());
+            Class<?> messageInterfaceClass;
             try {
-                classLoader.addUrl(artifactUri.toURL());
-                Class<?> messageInterfaceClass = classLoader.loadClass(messageInterface);
-                for (String localeString : locales) {
-                    Locale locale = new Locale(localeString);
-                    JB5nPropertiesSync.JB5nPropertiesSyncResult syncResult = JB5nPropertiesSync.sync(messageInterfaceClass, locale, classLoader);
-                    for (String missingResourceKey : syncResult.getMissingResourceKeys()) {
-                        String message = String.format("Missing resource key '%s' for message resource '%s'.", missingResourceKey, messageInterface);
-                        if (breakBuildBoolean) {
-                            throw new MojoExecutionException(message);
-                        } else {
-                            getLog().warn(message);
-                        }
-                    }
-                }
+                messageInterfaceClass = classLoader.loadClass(messageInterface);
             } catch (ClassNotFoundException e) {
                 throw new MojoExecutionException(String.format("Failed to load message-interface class %s from artifact file %s.", messageInterface, artifactFile.getAbsoluteFile()));
-            } catch (MalformedURLException e) {
-                throw new MojoExecutionException(String.format("Failed to convert artifact file to URL: %s.", e.getMessage()));
             }
+            for (String localeString : locales) {
+                Locale locale = new Locale(localeString);
+                String fingerprint = fingerprint(messageInterfaceClass, locale, classLoader, resourceDigests);
+                if (incremental && state.isVerified(messageInterface, locale, fingerprint)) {
+                    getLog().debug(String.format("Message resource '%s' for locale '%s' has not changed.", messageInterface, locale));
+                    unchanged++;
+                } else {
+                    verifications.add(new Verification(messageInterfaceClass, locale, classLoader, fingerprint));
+                }
+            }
+        }
+        if (unchanged > 0) {
+            getLog().info(String.format("Skipped %d unchanged combination(s) of message resource and locale.", unchanged));
+        }
+        verify(verifications);
+        report(verifications, breakBuildBoolean, state);
+    }
+
+    /**
+     * Computes a hash over everything the verification of the given interface
+     * and locale depends on: the class files of the interface and all its
+     * super-interfaces, the default locale and all candidate files of its
+     * resource bundle, including those that do not exist yet.
+     */
+    static String fingerprint(Class<?> messageResource, Locale locale, ClassLoader classLoader) throws MojoExecutionException {
+        return fingerprint(messageResource, locale, classLoader, new HashMap<String, byte[]>());
+    }
+
+    /**
+     * Like {@link #fingerprint(Class, Locale, ClassLoader)}, but with the
+     * digests of the resources that have already been read during this
+     * execution, as the interfaces and locales share most of their resources.
+     */
+    static String fingerprint(Class<?> messageResource, Locale locale, ClassLoader classLoader, Map<String, byte[]> resourceDigests) throws MojoExecutionException {
+        MessageDigest digest = createDigest();
+        Locale defaultLocale = Locale.getDefault();
+        update(digest, defaultLocale.toString());
+        Set<Class<?>> interfaces = new LinkedHashSet<Class<?>>();
+        addInterfaces(messageResource, interfaces);
+        for (Class<?> messageInterface : interfaces) {
+            String name = messageInterface.getName().replace('.', '/') + ".class";
+            update(digest, name);
+            digest.update(getResourceDigest(classLoader, name, resourceDigests));
+        }
+        String baseName = JB5nPropertiesSync.getResourceBundleName(messageResource).replace('.', '/');
+        List<String> suffixes = new ArrayList<String>(PropertiesCatalogLoader.getCandidateSuffixes(locale));
+        suffixes.addAll(PropertiesCatalogLoader.getCandidateSuffixes(defaultLocale));
+        suffixes.add("");
+        for (String suffix : suffixes) {
+            for (String extension : new String[]{".class", ".properties"}) {
+                String name = baseName + suffix + extension;
+                update(digest, name);
+                digest.update(getResourceDigest(classLoader, name, resourceDigests));
+            }
+        }
+        StringBuilder fingerprint = new StringBuilder();
+        for (byte b : digest.digest()) {
+            fingerprint.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return fingerprint.toString();
+    }
+
+    private static void addInterfaces(Class<?> messageInterface, Set<Class<?>> interfaces) {
+        if (interfaces.add(messageInterface)) {
+            for (Class<?> superInterface : messageInterface.getInterfaces()) {
+                addInterfaces(superInterface, interfaces);
+            }
+        }
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        try {
+            digest.update(value.getBytes("UTF-8"));
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
         }
+        digest.update((byte) 0);
     }
 
-    private void addMessageResourcesFromJarFile(File artifactFile, List<String> messageResources) throws MojoExecutionException {
+    private static MessageDigest createDigest() throws MojoExecutionException {
         try {
-            JarFile jarFile = new JarFile(artifactFile);
+            return MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new MojoExecutionException(String.format("Failed to compute fingerprint: %s.", e.getMessage()), e);
+        }
+    }
+
+    /**
+     * Returns the digest of the given resource, or an empty array if it does
+     * not exist. Each resource is only read once per execution.
+     */
+    private static byte[] getResourceDigest(ClassLoader classLoader, String name, Map<String, byte[]> resourceDigests) throws MojoExecutionException {
+        byte[] resourceDigest = resourceDigests.get(name);
+        if (resourceDigest != null) {
+            return resourceDigest;
+        }
+        InputStream inputStream = classLoader.getResourceAsStream(name);
+        if (inputStream == null) {
+            resourceDigest = new byte[0];
+        } else {
+            MessageDigest digest = createDigest();
+            try {
+                try {
+                    byte[] buffer = new byte[4096];
+                    int length;
+                    while ((length = inputStream.read(buffer)) >= 0) {
+                        digest.update(buffer, 0, length);
+                    }
+                } finally {
+                    inputStream.close();
+                }
+            } catch (IOException e) {
+                throw new MojoExecutionException(String.format("Failed to read resource '%s': %s.", name, e.getMessage()), e);
+            }
+            resourceDigest = digest.digest();
+        }
+        resourceDigests.put(name, resourceDigest);
+        return resourceDigest;
+    }
+
+    private JB5nVerificationState loadState() {
+        try {
+            return JB5nVerificationState.load(stateFile);
+        } catch (IOException e) {
+            getLog().warn(String.format("Failed to read verification state '%s': %s. Verifying all message resources.", stateFile, e.getMessage()));
+            return JB5nVerificationState.empty();
+        }
+    }
+
+    private void storeState(JB5nVerificationState state) {
+        try {
+            state.store(stateFile);
+        } catch (IOException e) {
+            getLog().warn(String.format("Failed to write verification state '%s': %s.", stateFile, e.getMessage()));
+        }
+    }
+
+    private void verify(List<Verification> verifications) throws MojoExecutionException {
+        invokeAll(verifications, "Verification of the message resources");
+    }
+
+    private <T> void invokeAll(List<? extends Callable<T>> tasks, String description) throws MojoExecutionException {
+        int threadCount = Math.max(1, Math.min(getThreads(), tasks.size()));
+        ExecutorService executorService = Executors.newFixedThreadPool(threadCount, new VerificationThreadFactory());
+        try {
+            for (Future<T> future : executorService.invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MojoExecutionException(String.format("%s was interrupted.", description));
+        } catch (ExecutionException e) {
+            throw new MojoExecutionException(String.format("%s failed: %s.", description, e.getCause().getMessage()), e.getCause());
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    private void report(List<Verification> verifications, boolean breakBuildBoolean, JB5nVerificationState state) throws MojoExecutionException {
+        int problems = 0;
+        for (Verification verification : verifications) {
+            List<String> messages = new ArrayList<String>();
+            if (verification.error != null) {
+                messages.add(String.format("Verification of message resource '%s' for locale '%s' failed: %s", verification.messageResource.getName(), verification.locale, verification.error));
+            }
+            for (String missingResourceKey : verification.missingResourceKeys) {
+                messages.add(String.format("Missing resource key '%s' for message resource '%s' and locale '%s'.", missingResourceKey, verification.messageResource.getName(), verification.locale));
+            }
+            for (String message : messages) {
+                if (breakBuildBoolean) {
+                    getLog().error(message);
+                } else {
+                    getLog().warn(message);
+                }
+            }
+            if (messages.isEmpty()) {
+                state.setVerified(verification.messageResource.getName(), verification.locale, verification.fingerprint);
+            }
+            problems += messages.size();
+        }
+        String summary = String.format("Verified %d combination(s) of message resource and locale: %d problem(s) found.", verifications.size(), problems);
+        if (problems > 0 && breakBuildBoolean) {
+            throw new MojoExecutionException(summary);
+        }
+        getLog().info(summary);
+    }
+
+    /**
+     * Adds the classes of the jar file that are annotated with
+     * {@link MessageResource}. Entries that have not changed since the last
+     * execution are looked up in the state, the others are parsed in parallel
+     * without loading them.
+     */
+    void addMessageResourcesFromJarFile(File artifactFile, List<String> messageResources, JB5nVerificationState state) throws MojoExecutionException {
+        JarFile jarFile;
+        try {
+            jarFile = new JarFile(artifactFile);
+        } catch (IOException e) {
+            throw new MojoExecutionException(String.format("The file '%s' is no jar file. Please apply this plugin only for artifacts with packaging types that can be access as jar file.", artifactFile), e);
+        }
+        try {
+            List<JarEntry> changedEntries = new ArrayList<JarEntry>();
             Enumeration<JarEntry> entries = jarFile.entries();
-            ClassPool classPool = ClassPool.getDefault();
             while(entries.hasMoreElements()) {
                 JarEntry jarEntry = entries.nextElement();
                 String jarEntryName = jarEntry.getName();
                 if(jarEntryName != null && jarEntryName.endsWith(".class")) {
-                    getLog().debug(String.format("Processing jar file entry '%s'.", jarEntryName));
-                    try {
-                        CtClass ctClass = classPool.makeClass(jarFile.getInputStream(jarEntry));
-                        Object annotation = ctClass.getAnnotation(MessageResource.class);
-                        if(annotation != null) {
-                            jarEntryName = jarEntryName.replace("/", ".");
-                            jarEntryName = jarEntryName.replaceAll("\\.class$", "");
-                            messageResources.add(jarEntryName);
-                        }
-                    } catch (Throwable e) {
-                        getLog().warn(String.format("Processing bytecode of class file '%s' failed: %s.", jarEntryName, e.getMessage()));
+                    Boolean messageResource = incremental && jarEntry.getCrc() != -1 ? state.isMessageResource(jarEntryName, jarEntry.getCrc()) : null;
+                    if (messageResource == null) {
+                        changedEntries.add(jarEntry);
+                    } else if (messageResource) {
+                        messageResources.add(toClassName(jarEntryName));
                     }
                 }
             }
-        } catch (IOException e) {
-            throw new MojoExecutionException(String.format("The file '%s' is no jar file. Please apply this plugin only for artifacts with packaging types that can be access as jar file."), e);
+            scanJarEntries(jarFile, changedEntries, messageResources, state);
+        } finally {
+            try {
+                jarFile.close();
+            } catch (IOException e) {
+                getLog().debug(String.format("Failed to close jar file '%s': %s.", artifactFile, e.getMessage()));
+            }
         }
     }
 
-    private URLClassLoader getParentClassLoader() {
-        ClassLoader classLoader = this.getClass().getClassLoader();
-        if(classLoader instanceof URLClassLoader) {
-            return (URLClassLoader) classLoader;
+    private void scanJarEntries(JarFile jarFile, List<JarEntry> jarEntries, List<String> messageResources, JB5nVerificationState state) throws MojoExecutionException {
+        int taskCount = Math.max(1, Math.min(getThreads(), jarEntries.size() / MIN_ENTRIES_PER_SCAN_TASK));
+        int entriesPerTask = (jarEntries.size() + taskCount - 1) / taskCount;
+        List<ScanTask> scanTasks = new ArrayList<ScanTask>(taskCount);
+        for (int start = 0; start < jarEntries.size(); start += entriesPerTask) {
+            scanTasks.add(new ScanTask(jarFile, jarEntries.subList(start, Math.min(start + entriesPerTask, jarEntries.size())), state));
+        }
+        if (scanTasks.size() == 1) {
+            scanTasks.get(0).call();
+        } else if (scanTasks.size() > 1) {
+            invokeAll(scanTasks, "Scanning the jar file");
+        }
+        for (ScanTask scanTask : scanTasks) {
+            messageResources.addAll(scanTask.messageResources);
+            for (String failure : scanTask.failures) {
+                getLog().warn(failure);
+            }
         }
-        return null;
+    }
+
+    private static String toClassName(String jarEntryName) {
+        return jarEntryName.replace("/", ".").replaceAll("\\.class$", "");
+    }
+
+    private ClassLoader getParentClassLoader() {
+        return this.getClass().getClassLoader();
     }
 
     private List<String> getMessageResources() {
@@ -135,6 +472,13 @@ public class JB5nPropertiesMojo extends AbstractMojo {
         return file;
     }
 
+    private int getThreads() {
+        if (threads != null && threads > 0) {
+            return threads;
+        }
+        return Runtime.getRuntime().availableProcessors();
+    }
+
     private boolean getBreakBuild() {
         boolean breakBuildBoolean = false;
         if (breakBuild != null) {
@@ -5,7 +5,7 @@ import java.net.URLClassLoader;
 
 public class JB5nPropertiesMojoClassLoader extends URLClassLoader {
 
-    public JB5nPropertiesMojoClassLoader(URL[] urls, URLClassLoader parent) {
+    public JB5nPropertiesMojoClassLoader(URL[] urls, ClassLoader parent) {
         super(urls, parent);
     }
 
@@ -0,0 +1,145 @@
+package jb5n;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.Properties;
+
+/**
+ * The state of the previous execution of the verify goal, stored in a small
+ * properties file in the build directory. It remembers which jar entries are
+ * message resources and the fingerprints of all (interface, locale) pairs that
+ * were verified without problems. Entries that are not used again during an
+ * execution are dropped when the state is stored. The state is versioned
+ * with the version of the plugin, which is released together with jb5n, so
+ * that a new version verifies everything again.
+ */
+public class JB5nVerificationState {
+    private static final String FORMAT_VERSION = "1";
+    private static final String PLUGIN_PROPERTIES = "jb5n-maven-plugin.properties";
+    static final String VERSION = FORMAT_VERSION + "/" + getPluginVersion();
+    private static final String VERSION_KEY = "version";
+    private static final String SCAN_PREFIX = "scan.";
+    private static final String VERIFIED_PREFIX = "verified.";
+    private final Properties previousState;
+    private final Properties state = new Properties();
+
+    private JB5nVerificationState(Properties previousState) {
+        this.previousState = previousState;
+        state.setProperty(VERSION_KEY, VERSION);
+    }
+
+    /**
+     * Loads the state from the given file. An empty state is returned if the
+     * file does not exist or has been written by another version.
+     *
+     * @param file the state file
+     * @return the state
+     * @throws IOException if the file cannot be read
+     */
+    public static JB5nVerificationState load(File file) throws IOException {
+        Properties properties = new Properties();
+        if (file.isFile()) {
+            InputStream inputStream = new BufferedInputStream(new FileInputStream(file));
+            try {
+                properties.load(inputStream);
+            } finally {
+                inputStream.close();
+            }
+            if (!VERSION.equals(properties.getProperty(VERSION_KEY))) {
+                properties.clear();
+            }
+        }
+        return new JB5nVerificationState(properties);
+    }
+
+    private static String getPluginVersion() {
+        Properties properties = new Properties();
+        InputStream inputStream = JB5nVerificationState.class.getResourceAsStream(PLUGIN_PROPERTIES);
+        if (inputStream != null) {
+            try {
+                try {
+                    properties.load(inputStream);
+                } finally {
+                    inputStream.close();
+                }
+            } catch (IOException e) {
+                // verify everything again, as if the version had changed
+            }
+        }
+        return properties.getProperty("version", "unknown");
+    }
+
+    public static JB5nVerificationState empty() {
+        return new JB5nVerificationState(new Properties());
+    }
+
+    /**
+     * Returns whether the jar entry with the given name and checksum has been
+     * found to be a message resource before.
+     *
+     * @param entryName the name of the class file in the jar
+     * @param crc       the CRC-32 of the class file
+     * @return the result of the previous scan or null if the entry is new or has changed
+     */
+    public synchronized Boolean isMessageResource(String entryName, long crc) {
+        String value = previousState.getProperty(SCAN_PREFIX + entryName);
+        if (value == null) {
+            return null;
+        }
+        int separator = value.indexOf(':');
+        if (separator < 0 || !value.substring(0, separator).equals(Long.toString(crc))) {
+            return null;
+        }
+        state.setProperty(SCAN_PREFIX + entryName, value);
+        return Boolean.valueOf(value.substring(separator + 1));
+    }
+
+    public synchronized void setMessageResource(String entryName, long crc, boolean messageResource) {
+        state.setProperty(SCAN_PREFIX + entryName, crc + ":" + messageResource);
+    }
+
+    /**
+     * Returns whether the given message resource has been verified for the
+     * given locale without problems and with the same fingerprint before.
+     *
+     * @param messageResource the name of the interface
+     * @param locale          the locale
+     * @param fingerprint     the fingerprint of the interface and its resource bundles
+     * @return true if the pair does not need to be verified again
+     */
+    public synchronized boolean isVerified(String messageResource, Locale locale, String fingerprint) {
+        String key = VERIFIED_PREFIX + messageResource + "|" + locale;
+        if (fingerprint.equals(previousState.getProperty(key))) {
+            state.setProperty(key, fingerprint);
+            return true;
+        }
+        return false;
+    }
+
+    public synchronized void setVerified(String messageResource, Locale locale, String fingerprint) {
+        state.setProperty(VERIFIED_PREFIX + messageResource + "|" + locale, fingerprint);
+    }
+
+    /**
+     * Stores the entries used during this execution into the given file.
+     *
+     * @param file the state file
+     * @throws IOException if the file cannot be written
+     */
+    public synchronized void store(File file) throws IOException {
+        file.getParentFile().mkdirs();
+        OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(file));
+        try {
+            state.store(outputStream, "jb5n verification state");
+        } finally {
+            outputStream.close();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package jb5n;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Locale;
+import java.util.ResourceBundle;
+
+import jb5n.internal.catalog.BinaryCatalog;
+import jb5n.internal.catalog.BinaryCatalogLoader;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class JB5nCatalogMojoTest {
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@Test
+	public void utf8PropertiesFilesAreCompiledLikeResourceBundle() throws Exception {
+		File classesDirectory = temporaryFolder.newFolder("classes");
+		write(classesDirectory, "catalog/Messages.properties", "greeting=Grüße\njapanese=日本", "UTF-8");
+		write(classesDirectory, "catalog/Messages_de.properties", "farewell=Tschüss", "UTF-8");
+		write(classesDirectory, "catalog/Latin1.properties", "greeting=Grüße", "ISO-8859-1");
+		JB5nCatalogMojo mojo = new JB5nCatalogMojo();
+		mojo.setLog(new SystemStreamLog());
+		JB5nPropertiesMojoTest.setField(mojo, "classesDirectory", classesDirectory);
+		JB5nPropertiesMojoTest.setField(mojo, "outputDirectory", classesDirectory);
+		JB5nPropertiesMojoTest.setField(mojo, "resourceBundles", new String[]{"catalog.Messages", "catalog.Latin1"});
+		JB5nPropertiesMojoTest.setField(mojo, "locales", new String[]{"de"});
+		mojo.execute();
+		URLClassLoader classLoader = new URLClassLoader(new URL[]{classesDirectory.toURI().toURL()}, null);
+		BinaryCatalog catalog = new BinaryCatalogLoader().load("catalog.Messages", Locale.GERMAN, classLoader, null);
+		ResourceBundle resourceBundle = ResourceBundle.getBundle("catalog.Messages", Locale.GERMAN, classLoader);
+		assertThat(catalog.getMessage("greeting"), is("Grüße"));
+		for (String key : new String[]{"greeting", "japanese", "farewell"}) {
+			assertThat(catalog.getMessage(key), is(resourceBundle.getString(key)));
+		}
+		BinaryCatalog latin1Catalog = new BinaryCatalogLoader().load("catalog.Latin1", Locale.GERMAN, classLoader, null);
+		assertThat(latin1Catalog.getMessage("greeting"), is(ResourceBundle.getBundle("catalog.Latin1", Locale.GERMAN, classLoader).getString("greeting")));
+	}
+
+	private static void write(File directory, String name, String content, String encoding) throws IOException {
+		File file = new File(directory, name);
+		file.getParentFile().mkdirs();
+		OutputStream outputStream = new FileOutputStream(file);
+		try {
+			outputStream.write(content.getBytes(encoding));
+		} finally {
+			outputStream.close();
+		}
+	}
+}
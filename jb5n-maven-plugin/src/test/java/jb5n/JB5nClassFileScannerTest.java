@@ -0,0 +1,154 @@
+package jb5n;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.Arrays;
+
+import jb5n.api.Message;
+import jb5n.api.MessageResource;
+
+import org.junit.Test;
+
+public class JB5nClassFileScannerTest {
+	private final JB5nClassFileScanner scanner = new JB5nClassFileScanner(MessageResource.class);
+
+	@MessageResource
+	public interface Annotated {
+		String ok();
+	}
+
+	public interface NotAnnotated {
+		String ok();
+	}
+
+	@MessageResource
+	public interface WithWideConstants {
+		long LONG = 1234567890123L;
+		double DOUBLE = 3.14;
+		String STRING = "text";
+
+		@Message(key = "ok")
+		String ok();
+	}
+
+	@Retention(RetentionPolicy.CLASS)
+	public @interface Invisible {
+	}
+
+	@Invisible
+	public interface InvisiblyAnnotated {
+		String ok();
+	}
+
+	@Retention(RetentionPolicy.RUNTIME)
+	public @interface Visible {
+		String value();
+	}
+
+	@Retention(RetentionPolicy.RUNTIME)
+	public @interface Complex {
+		Visible[] nested();
+
+		Visible single();
+
+		ElementType kind();
+
+		Class<?> type();
+
+		String[] names();
+
+		int number();
+	}
+
+	@Complex(nested = {@Visible("a"), @Visible("b")}, single = @Visible("c"), kind = ElementType.TYPE, type = String.class, names = {"x", "y"}, number = 7)
+	@MessageResource
+	public interface ComplexlyAnnotated {
+		String ok();
+	}
+
+	@Complex(nested = {@Visible("a")}, single = @Visible("c"), kind = ElementType.METHOD, type = Object.class, names = {}, number = 1)
+	public interface OnlyComplexlyAnnotated {
+		String ok();
+	}
+
+	@MessageResource
+	public static abstract class AnnotatedClass {
+		private final long count = System.currentTimeMillis();
+
+		public long count() {
+			return count > 0 ? count : -count;
+		}
+	}
+
+	@Test
+	public void annotatedInterfaceIsFound() throws IOException {
+		assertThat(isAnnotated(Annotated.class), is(true));
+		assertThat(isAnnotated(AnnotatedClass.class), is(true));
+	}
+
+	@Test
+	public void interfaceWithoutAnnotationIsNotFound() throws IOException {
+		assertThat(isAnnotated(NotAnnotated.class), is(false));
+		assertThat(isAnnotated(JB5nClassFileScannerTest.class), is(false));
+	}
+
+	@Test
+	public void wideConstantsTakeTwoEntriesOfTheConstantPool() throws IOException {
+		assertThat(isAnnotated(WithWideConstants.class), is(true));
+	}
+
+	@Test
+	public void annotationsWithClassRetentionAreIgnored() throws IOException {
+		assertThat(isAnnotated(InvisiblyAnnotated.class), is(false));
+		assertThat(new JB5nClassFileScanner(Invisible.class).isAnnotated(new ByteArrayInputStream(JB5nPropertiesMojoTest.readClassFile(InvisiblyAnnotated.class))), is(false));
+	}
+
+	@Test
+	public void nestedElementValuesAreSkipped() throws IOException {
+		assertThat(isAnnotated(ComplexlyAnnotated.class), is(true));
+		assertThat(isAnnotated(OnlyComplexlyAnnotated.class), is(false));
+		assertThat(new JB5nClassFileScanner(Complex.class).isAnnotated(new ByteArrayInputStream(JB5nPropertiesMojoTest.readClassFile(OnlyComplexlyAnnotated.class))), is(true));
+	}
+
+	@Test
+	public void truncatedClassFilesAreRejected() throws IOException {
+		for (Class<?> clazz : Arrays.asList(Annotated.class, NotAnnotated.class, WithWideConstants.class, ComplexlyAnnotated.class, AnnotatedClass.class)) {
+			byte[] classFile = JB5nPropertiesMojoTest.readClassFile(clazz);
+			for (int length = 0; length < classFile.length; length++) {
+				// the scanner is reused, so that bytes of the complete class file remain in its buffer
+				assertThat(scanner.isAnnotated(new ByteArrayInputStream(classFile)), is(clazz != NotAnnotated.class));
+				boolean exceptionThrown = false;
+				try {
+					scanner.isAnnotated(new ByteArrayInputStream(classFile, 0, length));
+				} catch (IOException e) {
+					exceptionThrown = true;
+				}
+				assertThat(clazz.getName() + " " + length, exceptionThrown, is(true));
+			}
+		}
+	}
+
+	@Test
+	public void invalidMagicNumberIsRejected() throws IOException {
+		byte[] classFile = JB5nPropertiesMojoTest.readClassFile(Annotated.class);
+		classFile[0] = 0;
+		boolean exceptionThrown = false;
+		try {
+			scanner.isAnnotated(new ByteArrayInputStream(classFile));
+		} catch (IOException e) {
+			exceptionThrown = true;
+			assertThat(e.getMessage(), is("Invalid magic number."));
+		}
+		assertThat(exceptionThrown, is(true));
+	}
+
+	private boolean isAnnotated(Class<?> clazz) throws IOException {
+		return scanner.isAnnotated(new ByteArrayInputStream(JB5nPropertiesMojoTest.readClassFile(clazz)));
+	}
+}
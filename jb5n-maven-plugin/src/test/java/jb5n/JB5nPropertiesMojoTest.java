@@ -0,0 +1,335 @@
+package jb5n;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Field;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.jar.JarOutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+
+import jb5n.api.MessageResource;
+
+import org.apache.maven.artifact.DefaultArtifact;
+import org.apache.maven.artifact.handler.DefaultArtifactHandler;
+import org.apache.maven.artifact.versioning.VersionRange;
+import org.apache.maven.model.Model;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.apache.maven.project.MavenProject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class JB5nPropertiesMojoTest {
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+	private Locale defaultLocale;
+
+	@MessageResource(resourceBundleName = "mojotest.First")
+	public interface First {
+		String ok();
+
+		String cancel();
+	}
+
+	@MessageResource(resourceBundleName = "mojotest.Second")
+	public interface Second {
+		String title();
+
+		String greeting();
+	}
+
+	@MessageResource(resourceBundleName = "mojotest.Missing")
+	public interface Missing {
+		String ok();
+	}
+
+	public interface Base {
+		String ok();
+	}
+
+	@MessageResource(resourceBundleName = "mojotest.Derived")
+	public interface Derived extends Base {
+		String cancel();
+	}
+
+	private static class RecordingLog extends SystemStreamLog {
+		private final List<String> infos = new ArrayList<String>();
+		private final List<String> warnings = new ArrayList<String>();
+		private final List<String> errors = new ArrayList<String>();
+
+		@Override
+		public void info(CharSequence content) {
+			infos.add(content.toString());
+		}
+
+		@Override
+		public void warn(CharSequence content) {
+			warnings.add(content.toString());
+		}
+
+		@Override
+		public void error(CharSequence content) {
+			errors.add(content.toString());
+		}
+
+		@Override
+		public boolean isDebugEnabled() {
+			return false;
+		}
+	}
+
+	@Before
+	public void before() {
+		defaultLocale = Locale.getDefault();
+		Locale.setDefault(Locale.GERMAN);
+	}
+
+	@After
+	public void after() {
+		Locale.setDefault(defaultLocale);
+	}
+
+	@Test
+	public void allProblemsAreReportedBeforeTheBuildFails() throws Exception {
+		RecordingLog log = new RecordingLog();
+		JB5nPropertiesMojo mojo = createMojo(log, "true");
+		boolean exceptionThrown = false;
+		try {
+			mojo.execute();
+		} catch (MojoExecutionException e) {
+			exceptionThrown = true;
+			assertThat(e.getMessage(), is("Verified 6 combination(s) of message resource and locale: 5 problem(s) found."));
+		}
+		assertThat(exceptionThrown, is(true));
+		assertThat(log.warnings.isEmpty(), is(true));
+		assertThat(log.errors.size(), is(5));
+		assertThat(log.errors.contains("Missing resource key 'cancel' for message resource 'jb5n.JB5nPropertiesMojoTest$First' and locale 'de'."), is(true));
+		assertThat(log.errors.contains("Missing resource key 'greeting' for message resource 'jb5n.JB5nPropertiesMojoTest$Second' and locale 'de'."), is(true));
+		assertThat(log.errors.contains("Missing resource key 'greeting' for message resource 'jb5n.JB5nPropertiesMojoTest$Second' and locale 'en'."), is(true));
+		assertThat(countStartingWith(log.errors, "Verification of message resource 'jb5n.JB5nPropertiesMojoTest$Missing' for locale 'de' failed: "), is(1));
+		assertThat(countStartingWith(log.errors, "Verification of message resource 'jb5n.JB5nPropertiesMojoTest$Missing' for locale 'en' failed: "), is(1));
+	}
+
+	@Test
+	public void problemsAreOnlyWarningsWithoutBreakBuild() throws Exception {
+		RecordingLog log = new RecordingLog();
+		createMojo(log, null).execute();
+		assertThat(log.warnings.size(), is(5));
+		assertThat(log.errors.isEmpty(), is(true));
+	}
+
+	@Test
+	public void nothingIsReportedWithoutProblems() throws Exception {
+		RecordingLog log = new RecordingLog();
+		JB5nPropertiesMojo mojo = createMojo(log, "true");
+		setField(mojo, "messageIntefaces", new String[]{First.class.getName()});
+		setField(mojo, "locales", new String[]{"en"});
+		mojo.execute();
+		assertThat(log.warnings.isEmpty(), is(true));
+		assertThat(log.errors.isEmpty(), is(true));
+	}
+
+	@Test
+	public void pairsWithProblemsAreVerifiedAgain() throws Exception {
+		RecordingLog log = new RecordingLog();
+		JB5nPropertiesMojo mojo = createMojo(log, null);
+		setField(mojo, "incremental", true);
+		mojo.execute();
+		assertThat(log.warnings.size(), is(5));
+		assertThat(log.infos.contains("Verified 6 combination(s) of message resource and locale: 5 problem(s) found."), is(true));
+		log.infos.clear();
+		log.warnings.clear();
+		mojo.execute();
+		assertThat(log.warnings.size(), is(5));
+		assertThat(log.infos.contains("Skipped 1 unchanged combination(s) of message resource and locale."), is(true));
+		assertThat(log.infos.contains("Verified 5 combination(s) of message resource and locale: 5 problem(s) found."), is(true));
+		Properties state = new Properties();
+		InputStream inputStream = new FileInputStream(new File(temporaryFolder.getRoot(), "state.properties"));
+		try {
+			state.load(inputStream);
+		} finally {
+			inputStream.close();
+		}
+		assertThat(state.containsKey("verified.jb5n.JB5nPropertiesMojoTest$First|en"), is(true));
+		assertThat(state.containsKey("verified.jb5n.JB5nPropertiesMojoTest$First|de"), is(false));
+		assertThat(state.containsKey("verified.jb5n.JB5nPropertiesMojoTest$Second|en"), is(false));
+		assertThat(state.containsKey("verified.jb5n.JB5nPropertiesMojoTest$Missing|en"), is(false));
+	}
+
+	@Test
+	public void changedClassFilesAreScannedAgain() throws Exception {
+		JB5nPropertiesMojo mojo = createMojo(new RecordingLog(), null);
+		setField(mojo, "incremental", true);
+		byte[] messageResource = readClassFile(First.class);
+		File stateFile = new File(temporaryFolder.getRoot(), "scan.properties");
+		JB5nVerificationState state = JB5nVerificationState.empty();
+		state.setMessageResource("mojotest/Scanned.class", crc(messageResource), false);
+		state.store(stateFile);
+		File unchangedJar = writeJar("unchanged.jar", Collections.singletonMap("mojotest/Scanned.class", messageResource));
+		List<String> messageResources = new ArrayList<String>();
+		mojo.addMessageResourcesFromJarFile(unchangedJar, messageResources, JB5nVerificationState.load(stateFile));
+		assertThat(messageResources.isEmpty(), is(true));
+		File changedJar = writeJar("changed.jar", Collections.singletonMap("mojotest/Scanned.class", readClassFile(Second.class)));
+		mojo.addMessageResourcesFromJarFile(changedJar, messageResources, JB5nVerificationState.load(stateFile));
+		assertThat(messageResources, is(Collections.singletonList("mojotest.Scanned")));
+	}
+
+	@Test
+	public void fingerprintChangesWithTheSuperInterface() throws Exception {
+		URLClassLoader classLoader = new URLClassLoader(new URL[]{temporaryFolder.getRoot().toURI().toURL()}, null);
+		write("jb5n/JB5nPropertiesMojoTest$Derived.class", readClassFile(Derived.class));
+		write("jb5n/JB5nPropertiesMojoTest$Base.class", readClassFile(Base.class));
+		String fingerprint = JB5nPropertiesMojo.fingerprint(Derived.class, Locale.GERMAN, classLoader);
+		assertThat(JB5nPropertiesMojo.fingerprint(Derived.class, Locale.GERMAN, classLoader), is(fingerprint));
+		write("jb5n/JB5nPropertiesMojoTest$Base.class", readClassFile(First.class));
+		assertThat(JB5nPropertiesMojo.fingerprint(Derived.class, Locale.GERMAN, classLoader).equals(fingerprint), is(false));
+	}
+
+	@Test
+	public void fingerprintChangesWithNewCandidateFiles() throws Exception {
+		URLClassLoader classLoader = new URLClassLoader(new URL[]{temporaryFolder.getRoot().toURI().toURL()}, null);
+		write("mojotest/Derived.properties", "ok=OK\ncancel=Cancel\n".getBytes("ISO-8859-1"));
+		String fingerprint = JB5nPropertiesMojo.fingerprint(Derived.class, Locale.FRENCH, classLoader);
+		write("mojotest/Derived_it.properties", "ok=OK\n".getBytes("ISO-8859-1"));
+		assertThat(JB5nPropertiesMojo.fingerprint(Derived.class, Locale.FRENCH, classLoader), is(fingerprint));
+		write("mojotest/Derived_fr.properties", "ok=OK\n".getBytes("ISO-8859-1"));
+		String frenchFingerprint = JB5nPropertiesMojo.fingerprint(Derived.class, Locale.FRENCH, classLoader);
+		assertThat(frenchFingerprint.equals(fingerprint), is(false));
+		write("mojotest/Derived_fr_CA.properties", "ok=OK\n".getBytes("ISO-8859-1"));
+		assertThat(JB5nPropertiesMojo.fingerprint(Derived.class, Locale.FRENCH, classLoader), is(frenchFingerprint));
+		assertThat(JB5nPropertiesMojo.fingerprint(Derived.class, Locale.CANADA_FRENCH, classLoader).equals(frenchFingerprint), is(false));
+	}
+
+	@Test
+	public void resourcesAreReadOncePerExecution() throws Exception {
+		final List<String> readResources = new ArrayList<String>();
+		URLClassLoader classLoader = new URLClassLoader(new URL[]{temporaryFolder.getRoot().toURI().toURL()}, null) {
+			@Override
+			public InputStream getResourceAsStream(String name) {
+				readResources.add(name);
+				return super.getResourceAsStream(name);
+			}
+		};
+		write("jb5n/JB5nPropertiesMojoTest$Derived.class", readClassFile(Derived.class));
+		write("jb5n/JB5nPropertiesMojoTest$Base.class", readClassFile(Base.class));
+		write("mojotest/Derived.properties", "ok=OK\ncancel=Cancel\n".getBytes("ISO-8859-1"));
+		Map<String, byte[]> resourceDigests = new HashMap<String, byte[]>();
+		String fingerprint = JB5nPropertiesMojo.fingerprint(Derived.class, Locale.GERMAN, classLoader, resourceDigests);
+		int readCount = readResources.size();
+		assertThat(JB5nPropertiesMojo.fingerprint(Derived.class, Locale.GERMAN, classLoader, resourceDigests), is(fingerprint));
+		assertThat(JB5nPropertiesMojo.fingerprint(Derived.class, Locale.GERMAN, classLoader), is(fingerprint));
+		assertThat(readResources.size(), is(2 * readCount));
+		JB5nPropertiesMojo.fingerprint(Derived.class, Locale.FRENCH, classLoader, resourceDigests);
+		assertThat(readResources.size(), is(2 * readCount + 2));
+		assertThat(new HashSet<String>(readResources).size(), is(readCount + 2));
+	}
+
+	private JB5nPropertiesMojo createMojo(RecordingLog log, String breakBuild) throws IOException {
+		Map<String, byte[]> entries = new TreeMap<String, byte[]>();
+		entries.put("mojotest/First.properties", "ok=OK\n".getBytes("ISO-8859-1"));
+		entries.put("mojotest/First_en.properties", "cancel=Cancel\n".getBytes("ISO-8859-1"));
+		entries.put("mojotest/Second.properties", "title=Title\n".getBytes("ISO-8859-1"));
+		DefaultArtifact artifact = new DefaultArtifact("jb5n", "mojotest", VersionRange.createFromVersion("1.0"), "compile", "jar", null, new DefaultArtifactHandler("jar"));
+		artifact.setFile(writeJar("mojotest.jar", entries));
+		MavenProject mavenProject = new MavenProject(new Model());
+		mavenProject.setArtifact(artifact);
+		JB5nPropertiesMojo mojo = new JB5nPropertiesMojo();
+		mojo.setLog(log);
+		setField(mojo, "mavenProject", mavenProject);
+		setField(mojo, "messageIntefaces", new String[]{First.class.getName(), Second.class.getName(), Missing.class.getName()});
+		setField(mojo, "locales", new String[]{"de", "en"});
+		setField(mojo, "breakBuild", breakBuild);
+		setField(mojo, "threads", 2);
+		setField(mojo, "stateFile", new File(temporaryFolder.getRoot(), "state.properties"));
+		return mojo;
+	}
+
+	private File writeJar(String name, Map<String, byte[]> entries) throws IOException {
+		File file = temporaryFolder.newFile(name);
+		JarOutputStream outputStream = new JarOutputStream(new FileOutputStream(file));
+		try {
+			for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+				outputStream.putNextEntry(new ZipEntry(entry.getKey()));
+				outputStream.write(entry.getValue());
+				outputStream.closeEntry();
+			}
+		} finally {
+			outputStream.close();
+		}
+		return file;
+	}
+
+	private void write(String name, byte[] content) throws IOException {
+		File file = new File(temporaryFolder.getRoot(), name);
+		file.getParentFile().mkdirs();
+		OutputStream outputStream = new FileOutputStream(file);
+		try {
+			outputStream.write(content);
+		} finally {
+			outputStream.close();
+		}
+	}
+
+	static byte[] readClassFile(Class<?> clazz) throws IOException {
+		InputStream inputStream = clazz.getResourceAsStream(clazz.getName().substring(clazz.getName().lastIndexOf('.') + 1) + ".class");
+		try {
+			ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+			byte[] buffer = new byte[4096];
+			int length;
+			while ((length = inputStream.read(buffer)) >= 0) {
+				outputStream.write(buffer, 0, length);
+			}
+			return outputStream.toByteArray();
+		} finally {
+			inputStream.close();
+		}
+	}
+
+	private static long crc(byte[] content) {
+		CRC32 crc = new CRC32();
+		crc.update(content);
+		return crc.getValue();
+	}
+
+	private static int countStartingWith(List<String> messages, String prefix) {
+		int count = 0;
+		for (String message : messages) {
+			if (message.startsWith(prefix)) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	static void setField(Object object, String name, Object value) {
+		try {
+			Field field = object.getClass().getDeclaredField(name);
+			field.setAccessible(true);
+			field.set(object, value);
+		} catch (Exception e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -0,0 +1,118 @@
+package jb5n;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.Properties;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class JB5nVerificationStateTest {
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@Test
+	public void storedStateIsLoaded() throws IOException {
+		File file = new File(temporaryFolder.getRoot(), "target/state.properties");
+		JB5nVerificationState state = JB5nVerificationState.empty();
+		state.setMessageResource("a/Message.class", 42, true);
+		state.setMessageResource("a/Other.class", 43, false);
+		state.setVerified("a.Message", Locale.GERMAN, "f1");
+		state.store(file);
+		JB5nVerificationState loadedState = JB5nVerificationState.load(file);
+		assertThat(loadedState.isMessageResource("a/Message.class", 42), is(Boolean.TRUE));
+		assertThat(loadedState.isMessageResource("a/Other.class", 43), is(Boolean.FALSE));
+		assertThat(loadedState.isMessageResource("a/New.class", 44), is(nullValue()));
+		assertThat(loadedState.isVerified("a.Message", Locale.GERMAN, "f1"), is(true));
+		assertThat(loadedState.isVerified("a.Message", Locale.ENGLISH, "f1"), is(false));
+		assertThat(loadedState.isVerified("a.Other", Locale.GERMAN, "f1"), is(false));
+	}
+
+	@Test
+	public void changedEntriesAreScannedAndVerifiedAgain() throws IOException {
+		File file = temporaryFolder.newFile("state.properties");
+		JB5nVerificationState state = JB5nVerificationState.empty();
+		state.setMessageResource("a/Message.class", 42, true);
+		state.setVerified("a.Message", Locale.GERMAN, "f1");
+		state.store(file);
+		JB5nVerificationState loadedState = JB5nVerificationState.load(file);
+		assertThat(loadedState.isMessageResource("a/Message.class", 43), is(nullValue()));
+		assertThat(loadedState.isVerified("a.Message", Locale.GERMAN, "f2"), is(false));
+	}
+
+	@Test
+	public void stateOfAnotherVersionIsIgnored() throws IOException {
+		File file = temporaryFolder.newFile("state.properties");
+		OutputStream outputStream = new FileOutputStream(file);
+		try {
+			outputStream.write("version=0\nscan.a/Message.class=42:true\nverified.a.Message|de=f1\n".getBytes("ISO-8859-1"));
+		} finally {
+			outputStream.close();
+		}
+		JB5nVerificationState loadedState = JB5nVerificationState.load(file);
+		assertThat(loadedState.isMessageResource("a/Message.class", 42), is(nullValue()));
+		assertThat(loadedState.isVerified("a.Message", Locale.GERMAN, "f1"), is(false));
+	}
+
+	@Test
+	public void stateOfAnotherPluginVersionIsIgnored() throws IOException {
+		assertThat(JB5nVerificationState.VERSION.startsWith("1/"), is(true));
+		assertThat(JB5nVerificationState.VERSION.contains("${"), is(false));
+		File file = temporaryFolder.newFile("state.properties");
+		JB5nVerificationState state = JB5nVerificationState.empty();
+		state.setVerified("a.Message", Locale.GERMAN, "f1");
+		state.store(file);
+		Properties properties = new Properties();
+		InputStream inputStream = new FileInputStream(file);
+		try {
+			properties.load(inputStream);
+		} finally {
+			inputStream.close();
+		}
+		assertThat(properties.getProperty("version"), is(JB5nVerificationState.VERSION));
+		properties.setProperty("version", "1/0.0.1");
+		OutputStream outputStream = new FileOutputStream(file);
+		try {
+			properties.store(outputStream, null);
+		} finally {
+			outputStream.close();
+		}
+		assertThat(JB5nVerificationState.load(file).isVerified("a.Message", Locale.GERMAN, "f1"), is(false));
+	}
+
+	@Test
+	public void missingFileGivesEmptyState() throws IOException {
+		JB5nVerificationState loadedState = JB5nVerificationState.load(new File(temporaryFolder.getRoot(), "missing.properties"));
+		assertThat(loadedState.isMessageResource("a/Message.class", 42), is(nullValue()));
+	}
+
+	@Test
+	public void unusedEntriesAreDropped() throws IOException {
+		File file = temporaryFolder.newFile("state.properties");
+		JB5nVerificationState state = JB5nVerificationState.empty();
+		state.setMessageResource("a/Message.class", 42, true);
+		state.setMessageResource("a/Removed.class", 43, true);
+		state.setVerified("a.Message", Locale.GERMAN, "f1");
+		state.setVerified("a.Message", Locale.ENGLISH, "f2");
+		state.store(file);
+		JB5nVerificationState usedState = JB5nVerificationState.load(file);
+		assertThat(usedState.isMessageResource("a/Message.class", 42), is(Boolean.TRUE));
+		assertThat(usedState.isVerified("a.Message", Locale.GERMAN, "f1"), is(true));
+		usedState.store(file);
+		JB5nVerificationState loadedState = JB5nVerificationState.load(file);
+		assertThat(loadedState.isMessageResource("a/Message.class", 42), is(Boolean.TRUE));
+		assertThat(loadedState.isMessageResource("a/Removed.class", 43), is(nullValue()));
+		assertThat(loadedState.isVerified("a.Message", Locale.GERMAN, "f1"), is(true));
+		assertThat(loadedState.isVerified("a.Message", Locale.ENGLISH, "f2"), is(false));
+	}
+}
@@ -0,0 +1,245 @@
+package jb5n.processor;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic.Kind;
+import javax.tools.JavaFileObject;
+
+import jb5n.api.Message;
+import jb5n.api.MessageResource;
+import jb5n.api.properties.JB5nPropertiesInvocationHandler;
+import jb5n.internal.GeneratedImplementations;
+
+/**
+ * Generates a final class for each interface annotated with @see
+ * MessageResource that uses the default {@link JB5nPropertiesInvocationHandler}.
+ * The generated methods pass a precomputed descriptor directly to the handler,
+ * so that {@link jb5n.api.JB5n#createInstance(Class)} does not need to create a
+ * proxy for the interface.
+ */
+@SupportedAnnotationTypes("jb5n.api.MessageResource")
+public class MessageResourceProcessor extends AbstractProcessor {
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (Element element : roundEnv.getElementsAnnotatedWith(MessageResource.class)) {
+            if (element.getKind() == ElementKind.INTERFACE) {
+                TypeElement typeElement = (TypeElement) element;
+                if (isGenerationSupported(typeElement)) {
+                    generateImplementation(typeElement);
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean isGenerationSupported(TypeElement typeElement) {
+        String invocationHandler = getInvocationHandler(typeElement);
+        if (invocationHandler != null && !invocationHandler.equals(JB5nPropertiesInvocationHandler.class.getName())) {
+            return false;
+        }
+        if (!typeElement.getTypeParameters().isEmpty()) {
+            note(typeElement, "generic interfaces are not supported");
+            return false;
+        }
+        Element enclosingElement = typeElement;
+        while (enclosingElement.getKind() != ElementKind.PACKAGE) {
+            if (enclosingElement.getModifiers().contains(Modifier.PRIVATE)) {
+                note(typeElement, "the interface is not accessible from its package");
+                return false;
+            }
+            enclosingElement = enclosingElement.getEnclosingElement();
+        }
+        return true;
+    }
+
+    private String getInvocationHandler(TypeElement typeElement) {
+        for (AnnotationMirror annotationMirror : typeElement.getAnnotationMirrors()) {
+            TypeElement annotationType = (TypeElement) annotationMirror.getAnnotationType().asElement();
+            if (annotationType.getQualifiedName().contentEquals(MessageResource.class.getName())) {
+                for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : annotationMirror.getElementValues().entrySet()) {
+                    if (entry.getKey().getSimpleName().contentEquals("invocationHandler")) {
+                        return entry.getValue().getValue().toString();
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    private void generateImplementation(TypeElement typeElement) {
+        List<ExecutableElement> methods = getMethods(typeElement);
+        for (ExecutableElement method : methods) {
+            if (!method.getReturnType().toString().equals(String.class.getName())) {
+                processingEnv.getMessager().printMessage(Kind.ERROR, String.format("The method '%s' of class '%s' does not return a value of type String.",
+                        method.getSimpleName(), typeElement.getQualifiedName()), method);
+                return;
+            }
+            if (!method.getTypeParameters().isEmpty()) {
+                note(typeElement, "generic methods are not supported");
+                return;
+            }
+        }
+        PackageElement packageElement = processingEnv.getElementUtils().getPackageOf(typeElement);
+        String interfaceName = processingEnv.getElementUtils().getBinaryName(typeElement).toString();
+        String implementationName = GeneratedImplementations.getImplementationClassName(interfaceName);
+        String implementationSimpleName = implementationName.substring(implementationName.lastIndexOf('.') + 1);
+        try {
+            JavaFileObject sourceFile = processingEnv.getFiler().createSourceFile(implementationName, typeElement);
+            PrintWriter writer = new PrintWriter(sourceFile.openWriter());
+            try {
+                writeImplementation(writer, packageElement, typeElement, implementationSimpleName, methods);
+            } finally {
+                writer.close();
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Kind.ERROR, String.format("Failed to generate class %s: %s", implementationName, e.getMessage()), typeElement);
+        }
+    }
+
+    private List<ExecutableElement> getMethods(TypeElement typeElement) {
+        Map<String, ExecutableElement> methods = new LinkedHashMap<String, ExecutableElement>();
+        for (Element member : processingEnv.getElementUtils().getAllMembers(typeElement)) {
+            if (member.getKind() == ElementKind.METHOD && member.getEnclosingElement().getKind() == ElementKind.INTERFACE
+                    && member.getModifiers().contains(Modifier.ABSTRACT)) {
+                ExecutableElement method = (ExecutableElement) member;
+                String signature = method.getSimpleName() + processingEnv.getTypeUtils().erasure(method.asType()).toString();
+                if (!methods.containsKey(signature)) {
+                    methods.put(signature, method);
+                }
+            }
+        }
+        return new ArrayList<ExecutableElement>(methods.values());
+    }
+
+    private void writeImplementation(PrintWriter writer, PackageElement packageElement, TypeElement typeElement, String implementationSimpleName,
+                                     List<ExecutableElement> methods) {
+        if (!packageElement.isUnnamed()) {
+            writer.printf("package %s;%n%n", packageElement.getQualifiedName());
+        }
+        writer.printf("import %s;%n", JB5nPropertiesInvocationHandler.class.getName());
+        writer.printf("import %s;%n%n", jb5n.api.properties.MethodDescriptor.class.getName());
+        writer.printf("/**%n * Generated by %s for %s.%n */%n", getClass().getName(), typeElement.getQualifiedName());
+        writer.printf("public final class %s implements %s {%n", implementationSimpleName, typeElement.getQualifiedName());
+        writer.printf("    private static final MethodDescriptor[] METHODS = MethodDescriptor.forMessageResource(%s%s%n",
+                literal(processingEnv.getElementUtils().getBinaryName(typeElement).toString()), methods.isEmpty() ? ");" : ",");
+        for (int i = 0; i < methods.size(); i++) {
+            ExecutableElement method = methods.get(i);
+            TypeElement declaringElement = (TypeElement) method.getEnclosingElement();
+            Message messageAnnotation = method.getAnnotation(Message.class);
+            String methodName = method.getSimpleName().toString();
+            String resourceKey = methodName;
+            String defaultMessage = null;
+            if (messageAnnotation != null) {
+                if (messageAnnotation.key().trim().length() > 0) {
+                    resourceKey = messageAnnotation.key();
+                }
+                defaultMessage = messageAnnotation.defaultMessage();
+            }
+            writer.printf("            new MethodDescriptor(%s, %s, %s, %s, %d)%s%n", literal(methodName), literal(deriveResourceBundleName(declaringElement)),
+                    literal(resourceKey), literal(defaultMessage), method.getParameters().size(), i < methods.size() - 1 ? "," : ");");
+        }
+        for (int i = 0; i < methods.size(); i++) {
+            writer.printf("    private static final MethodDescriptor METHOD_%d = METHODS[%d];%n", i, i);
+        }
+        writer.printf("    private final JB5nPropertiesInvocationHandler handler;%n%n");
+        writer.printf("    public %s(JB5nPropertiesInvocationHandler handler) {%n", implementationSimpleName);
+        writer.printf("        this.handler = handler;%n");
+        writer.printf("    }%n");
+        for (int i = 0; i < methods.size(); i++) {
+            ExecutableElement method = methods.get(i);
+            StringBuilder parameters = new StringBuilder();
+            StringBuilder arguments = new StringBuilder();
+            List<? extends VariableElement> methodParameters = method.getParameters();
+            for (int j = 0; j < methodParameters.size(); j++) {
+                TypeMirror parameterType = methodParameters.get(j).asType();
+                if (j > 0) {
+                    parameters.append(", ");
+                    arguments.append(", ");
+                }
+                parameters.append(parameterType.toString()).append(" arg").append(j);
+                arguments.append("arg").append(j);
+            }
+            writer.printf("%n    public String %s(%s) {%n", method.getSimpleName(), parameters);
+            if (methodParameters.isEmpty()) {
+                writer.printf("        return handler.getMessage(METHOD_%d, null);%n", i);
+            } else {
+                writer.printf("        return handler.getMessage(METHOD_%d, new Object[]{%s});%n", i, arguments);
+            }
+            writer.printf("    }%n");
+        }
+        writer.printf("}%n");
+    }
+
+    private String deriveResourceBundleName(TypeElement typeElement) {
+        MessageResource messageResource = typeElement.getAnnotation(MessageResource.class);
+        if (messageResource != null && messageResource.resourceBundleName().trim().length() > 0) {
+            return messageResource.resourceBundleName();
+        }
+        return processingEnv.getElementUtils().getBinaryName(typeElement).toString();
+    }
+
+    private static String literal(String value) {
+        if (value == null) {
+            return "null";
+        }
+        StringBuilder literal = new StringBuilder("\"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    literal.append("\\\"");
+                    break;
+                case '\\':
+                    literal.append("\\\\");
+                    break;
+                case '\n':
+                    literal.append("\\n");
+                    break;
+                case '\r':
+                    literal.append("\\r");
+                    break;
+                case '\t':
+                    literal.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20 || c > 0x7e) {
+                        literal.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        literal.append(c);
+                    }
+            }
+        }
+        return literal.append('"').toString();
+    }
+
+    private void note(TypeElement typeElement, String reason) {
+        processingEnv.getMessager().printMessage(Kind.NOTE, String.format("No implementation generated for %s, a proxy is used instead: %s.",
+                typeElement.getQualifiedName(), reason), typeElement);
+    }
+}
@@ -1,17 +1,38 @@
 package jb5n.api;
 
+import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Locale;
 
 import jb5n.api.JB5nException.Reason;
+import jb5n.api.metrics.JB5nMetrics;
 import jb5n.api.properties.JB5nPropertiesInvocationHandler;
+import jb5n.internal.BytecodeImplementations;
+import jb5n.internal.ClassValueMap;
+import jb5n.internal.ContextualHandlers;
+import jb5n.internal.ContextualInvocationHandler;
+import jb5n.internal.ContextualPropertiesInvocationHandler;
+import jb5n.internal.GeneratedImplementations;
+import jb5n.internal.MessageResourcePreloader;
 import jb5n.internal.MessageResourceVerification;
 import jb5n.internal.ProxyCache;
 import jb5n.internal.ProxyCache.ProxyKey;
+import jb5n.internal.catalog.MessageCatalog;
+import jb5n.internal.catalog.MessageCatalogReference;
+import jb5n.internal.catalog.MessageCatalogRepository;
 
 public class JB5n {
     private static JB5nConfiguration configuration = new JB5nConfiguration();
     private static ProxyCache proxyCache = new ProxyCache();
+    private static final ClassValueMap<MessageResourceFactory<?>> factories = new ClassValueMap<MessageResourceFactory<?>>() {
+        @Override
+        protected MessageResourceFactory<?> computeValue(Class<?> type) {
+            return createFactory(type, type.getClassLoader());
+        }
+    };
 
     /**
      * Creates an instance of the given class that represents a MessageResource.
@@ -25,25 +46,269 @@ public class JB5n {
     @SuppressWarnings("unchecked")
     public static <T> T createInstance(Class<T> clazz, Locale locale, ClassLoader loader) {
         MessageResourceVerification.verify(clazz, locale, loader);
+        ProxyKey key = null;
         if (configuration.isCacheMessageResources()) {
-            ProxyKey key = new ProxyKey(clazz, locale, loader);
-            Object proxyFromCache = proxyCache.get(key);
+            key = new ProxyKey(clazz, locale, loader);
+            Object proxyFromCache = proxyCache.get(key, configuration);
+            JB5nMetrics metrics = configuration.getMetrics();
+            if (metrics != null) {
+                metrics.messageResourceCacheAccessed(clazz, locale, proxyFromCache != null);
+            }
             if (proxyFromCache != null) {
                 return (T) proxyFromCache;
             }
         }
-        Class<? extends JB5nInvocationHandler> invocationHandlerClass = determineInvocationHandler(clazz);
+        T proxy = newInstance(clazz, determineInvocationHandler(clazz), locale, loader);
+        if (key != null) {
+            proxyCache.put(key, proxy, configuration);
+        }
+        return proxy;
+    }
+
+    /**
+     * Creates a new instance of an already verified MessageResource without
+     * using the cache.
+     */
+    static <T> T newInstance(Class<T> clazz, Class<? extends JB5nInvocationHandler> invocationHandlerClass, Locale locale, ClassLoader loader) {
         JB5nInvocationHandler invocationHandler = createInstanceOfInvocationHandler(invocationHandlerClass);
         invocationHandler.setLocale(locale);
         invocationHandler.setClassLoader(loader);
-        T proxy = createProxy(clazz, invocationHandler);
-        if (configuration.isCacheMessageResources()) {
-            ProxyKey key = new ProxyKey(clazz, locale, loader);
-            proxyCache.put(key, proxy);
+        T proxy = null;
+        if (configuration.isUseGeneratedImplementations() && invocationHandler.getClass() == JB5nPropertiesInvocationHandler.class) {
+            proxy = GeneratedImplementations.newInstance(clazz, (JB5nPropertiesInvocationHandler) invocationHandler);
+        }
+        if (proxy == null && configuration.isGenerateImplementationsAtRuntime()) {
+            proxy = createBytecodeImplementation(clazz, invocationHandler);
+        }
+        if (proxy == null) {
+            proxy = createProxy(clazz, invocationHandler);
         }
         return proxy;
     }
 
+    /**
+     * Returns the factory for the instances of the given MessageResource
+     * using the ClassLoader of the interface. The interface is verified on
+     * the first call; later calls return the same factory as long as it is
+     * referenced.
+     *
+     * @param clazz an interface that is annotated with @see MessageResource.
+     * @return the factory
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> MessageResourceFactory<T> factory(Class<T> clazz) {
+        if (clazz == null) {
+            throw new JB5nException(Reason.InvalidArgument, "Argument clazz should not be null.");
+        }
+        return (MessageResourceFactory<T>) factories.get(clazz);
+    }
+
+    /**
+     * Creates a factory for the instances of the given MessageResource that
+     * use the given ClassLoader. Unlike {@link #factory(Class)} every call
+     * verifies the interface and returns a new factory; keep it.
+     *
+     * @param clazz  an interface that is annotated with @see MessageResource.
+     * @param loader the ClassLoader used to load e.g. the ResourceBundle
+     * @return the factory
+     */
+    public static <T> MessageResourceFactory<T> factory(Class<T> clazz, ClassLoader loader) {
+        return createFactory(clazz, loader);
+    }
+
+    private static <T> MessageResourceFactory<T> createFactory(Class<T> clazz, ClassLoader loader) {
+        MessageResourceVerification.verify(clazz, Locale.getDefault(), loader);
+        return new MessageResourceFactory<T>(clazz, loader, determineInvocationHandler(clazz));
+    }
+
+    /**
+     * Creates an instance of the given class that represents a MessageResource
+     * for all locales. On each method call the locale is retrieved from the
+     * given context, so that a single instance can be shared e.g. by all
+     * requests of a web application. The instance is not cached; create it
+     * once and keep it.
+     *
+     * @param clazz         an interface that is annotated with @see MessageResource.
+     * @param localeContext the context that supplies the locale for each call
+     * @param loader        the ClassLoader used to load e.g. the ResourceBundle
+     * @return an instance of the given class
+     */
+    public static <T> T createContextualInstance(Class<T> clazz, LocaleContext localeContext, ClassLoader loader) {
+        MessageResourceVerification.verify(clazz, Locale.getDefault(), loader);
+        if (localeContext == null) {
+            throw new JB5nException(Reason.InvalidArgument, "Argument localeContext should not be null.");
+        }
+        Class<? extends JB5nInvocationHandler> invocationHandlerClass = determineInvocationHandler(clazz);
+        ContextualHandlers contextualHandlers = new ContextualHandlers(invocationHandlerClass, loader, localeContext);
+        if (!GeneratedImplementations.callsGetMessage(invocationHandlerClass)) {
+            return createProxy(clazz, new ContextualInvocationHandler(contextualHandlers));
+        }
+        return newInstance(clazz, new ContextualPropertiesInvocationHandler(contextualHandlers));
+    }
+
+    /**
+     * Creates an instance of an already verified MessageResource that calls
+     * the given handler, preferring generated implementations.
+     */
+    static <T> T newInstance(Class<T> clazz, JB5nPropertiesInvocationHandler invocationHandler) {
+        T instance = null;
+        if (configuration.isUseGeneratedImplementations()) {
+            instance = GeneratedImplementations.newInstance(clazz, invocationHandler);
+        }
+        if (instance == null && configuration.isGenerateImplementationsAtRuntime()) {
+            instance = createBytecodeImplementation(clazz, invocationHandler);
+        }
+        if (instance == null) {
+            instance = createProxy(clazz, invocationHandler);
+        }
+        return instance;
+    }
+
+    /**
+     * Like {@link #createContextualInstance(Class, LocaleContext, ClassLoader)}
+     * using the ClassLoader of the given interface.
+     *
+     * @param clazz         an interface that is annotated with @see MessageResource.
+     * @param localeContext the context that supplies the locale for each call
+     * @return an instance of the given class
+     */
+    public static <T> T createContextualInstance(Class<T> clazz, LocaleContext localeContext) {
+        ClassLoader classLoader = JB5n.class.getClassLoader();
+        if (clazz != null) {
+            classLoader = clazz.getClassLoader();
+        }
+        return createContextualInstance(clazz, localeContext, classLoader);
+    }
+
+    /**
+     * Creates a batch that renders many messages of the given MessageResource
+     * in one call. The resource bundles are resolved once for the batch.
+     *
+     * @param clazz  an interface that is annotated with @see MessageResource.
+     * @param locale the Locale used for retrieving the messages
+     * @param loader the ClassLoader used to load e.g. the ResourceBundle
+     * @return the empty batch
+     */
+    public static MessageBatch createBatch(Class<?> clazz, Locale locale, ClassLoader loader) {
+        MessageResourceVerification.verify(clazz, locale, loader);
+        Class<? extends JB5nInvocationHandler> invocationHandlerClass = determineInvocationHandler(clazz);
+        if (!GeneratedImplementations.callsGetMessage(invocationHandlerClass)) {
+            return new MessageBatch(clazz, null, createInstance(clazz, locale, loader));
+        }
+        JB5nInvocationHandler invocationHandler = createInstanceOfInvocationHandler(invocationHandlerClass);
+        invocationHandler.setLocale(locale);
+        invocationHandler.setClassLoader(loader);
+        return new MessageBatch(clazz, (JB5nPropertiesInvocationHandler) invocationHandler, null);
+    }
+
+    /**
+     * Like {@link #createBatch(Class, Locale, ClassLoader)} using the
+     * ClassLoader of the given interface.
+     *
+     * @param clazz  an interface that is annotated with @see MessageResource.
+     * @param locale the Locale used for retrieving the messages
+     * @return the empty batch
+     */
+    public static MessageBatch createBatch(Class<?> clazz, Locale locale) {
+        ClassLoader classLoader = JB5n.class.getClassLoader();
+        if (clazz != null) {
+            classLoader = clazz.getClassLoader();
+        }
+        return createBatch(clazz, locale, classLoader);
+    }
+
+    /**
+     * Creates a fan-out that renders the messages of the given
+     * MessageResource for all given locales in one call, e.g. to send a
+     * notification to users with different languages.
+     *
+     * @param clazz   an interface that is annotated with @see MessageResource.
+     * @param locales the Locales of the rendered messages in the order of the results
+     * @param loader  the ClassLoader used to load e.g. the ResourceBundle
+     * @return the fan-out
+     */
+    public static MessageFanOut createFanOut(Class<?> clazz, Collection<Locale> locales, ClassLoader loader) {
+        Locale[] localeArray = MessageFanOut.toArray(locales);
+        for (Locale locale : localeArray) {
+            MessageResourceVerification.verify(clazz, locale, loader);
+        }
+        Class<? extends JB5nInvocationHandler> invocationHandlerClass = determineInvocationHandler(clazz);
+        if (!GeneratedImplementations.callsGetMessage(invocationHandlerClass)) {
+            Object[] instances = new Object[localeArray.length];
+            for (int i = 0; i < localeArray.length; i++) {
+                instances[i] = createInstance(clazz, localeArray[i], loader);
+            }
+            return new MessageFanOut(clazz, localeArray, null, instances);
+        }
+        JB5nPropertiesInvocationHandler[] invocationHandlers = new JB5nPropertiesInvocationHandler[localeArray.length];
+        for (int i = 0; i < localeArray.length; i++) {
+            JB5nInvocationHandler invocationHandler = createInstanceOfInvocationHandler(invocationHandlerClass);
+            invocationHandler.setLocale(localeArray[i]);
+            invocationHandler.setClassLoader(loader);
+            invocationHandlers[i] = (JB5nPropertiesInvocationHandler) invocationHandler;
+        }
+        return new MessageFanOut(clazz, localeArray, invocationHandlers, null);
+    }
+
+    /**
+     * Like {@link #createFanOut(Class, Collection, ClassLoader)} using the
+     * ClassLoader of the given interface.
+     *
+     * @param clazz   an interface that is annotated with @see MessageResource.
+     * @param locales the Locales of the rendered messages in the order of the results
+     * @return the fan-out
+     */
+    public static MessageFanOut createFanOut(Class<?> clazz, Collection<Locale> locales) {
+        ClassLoader classLoader = JB5n.class.getClassLoader();
+        if (clazz != null) {
+            classLoader = clazz.getClassLoader();
+        }
+        return createFanOut(clazz, locales, classLoader);
+    }
+
+    /**
+     * Creates an export of the messages of all methods of the given
+     * MessageResource, e.g. to deliver them to a client-side application.
+     *
+     * @param clazz  an interface that is annotated with @see MessageResource.
+     * @param locale the Locale of the exported messages
+     * @param format the format of the export
+     * @param loader the ClassLoader used to load e.g. the ResourceBundle
+     * @return the export
+     */
+    public static MessageExport createExport(Class<?> clazz, Locale locale, MessageExport.Format format, ClassLoader loader) {
+        MessageResourceVerification.verify(clazz, locale, loader);
+        if (format == null) {
+            throw new JB5nException(Reason.InvalidArgument, "Argument format should not be null.");
+        }
+        Class<? extends JB5nInvocationHandler> invocationHandlerClass = determineInvocationHandler(clazz);
+        if (!JB5nPropertiesInvocationHandler.class.isAssignableFrom(invocationHandlerClass)) {
+            throw new JB5nException(Reason.InvalidArgument, String.format("The messages of %s cannot be exported, as its invocation handler %s does not read resource bundles.",
+                    clazz.getName(), invocationHandlerClass.getSimpleName()));
+        }
+        JB5nInvocationHandler invocationHandler = createInstanceOfInvocationHandler(invocationHandlerClass);
+        invocationHandler.setLocale(locale);
+        invocationHandler.setClassLoader(loader);
+        return new MessageExport(clazz, (JB5nPropertiesInvocationHandler) invocationHandler, format);
+    }
+
+    /**
+     * Like {@link #createExport(Class, Locale, MessageExport.Format, ClassLoader)}
+     * using the ClassLoader of the given interface.
+     *
+     * @param clazz  an interface that is annotated with @see MessageResource.
+     * @param locale the Locale of the exported messages
+     * @param format the format of the export
+     * @return the export
+     */
+    public static MessageExport createExport(Class<?> clazz, Locale locale, MessageExport.Format format) {
+        ClassLoader classLoader = JB5n.class.getClassLoader();
+        if (clazz != null) {
+            classLoader = clazz.getClassLoader();
+        }
+        return createExport(clazz, locale, format, classLoader);
+    }
+
     /**
      * Creates an instance of the given class that represents a MessageResource
      * using the default locale and the ClassLoader of the given interface.
@@ -73,8 +338,38 @@ public class JB5n {
         return createInstance(clazz, Locale.getDefault(), classLoader);
     }
 
+    /**
+     * Creates the instances of the given MessageResources for all given locales
+     * and loads the messages of all their methods in parallel, so that the first
+     * calls after startup do not have to load the resource bundles. The
+     * returned report lists the missing resource keys and can be used e.g. in
+     * a readiness probe.
+     *
+     * @param classes the interfaces that are annotated with @see MessageResource.
+     * @param locales the Locales to preload
+     * @param loader  the ClassLoader used to load e.g. the ResourceBundle
+     * @return the report
+     */
+    public static JB5nPreloadReport preload(Collection<Class<?>> classes, Collection<Locale> locales, ClassLoader loader) {
+        return preload(classes, locales, loader, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Like {@link #preload(Collection, Collection, ClassLoader)} but with the
+     * given number of threads.
+     *
+     * @param classes     the interfaces that are annotated with @see MessageResource.
+     * @param locales     the Locales to preload
+     * @param loader      the ClassLoader used to load e.g. the ResourceBundle
+     * @param parallelism the number of threads used to preload
+     * @return the report
+     */
+    public static JB5nPreloadReport preload(Collection<Class<?>> classes, Collection<Locale> locales, ClassLoader loader, int parallelism) {
+        return new MessageResourcePreloader(parallelism).preload(classes, locales, loader);
+    }
+
     @SuppressWarnings("unchecked")
-    private static <T> T createProxy(Class<T> clazz, JB5nInvocationHandler invocationHandler) {
+    private static <T> T createProxy(Class<T> clazz, InvocationHandler invocationHandler) {
         try {
             Object proxyObject = Proxy.newProxyInstance(clazz.getClassLoader(), new Class<?>[]{clazz}, invocationHandler);
             return (T) proxyObject;
@@ -84,6 +379,14 @@ public class JB5n {
         }
     }
 
+    private static <T> T createBytecodeImplementation(Class<T> clazz, JB5nInvocationHandler invocationHandler) {
+        try {
+            return BytecodeImplementations.newInstance(clazz, invocationHandler);
+        } catch (NoClassDefFoundError e) {
+            throw new JB5nException(Reason.InvalidArgument, String.format("Generating implementations at runtime requires javassist on the classpath: %s", e.getMessage()), e);
+        }
+    }
+
     private static JB5nInvocationHandler createInstanceOfInvocationHandler(Class<? extends JB5nInvocationHandler> invocationHandlerClass) {
         JB5nInvocationHandler invocationHandler;
         try {
@@ -94,7 +397,7 @@ public class JB5n {
         return invocationHandler;
     }
 
-    private static <T> Class<? extends JB5nInvocationHandler> determineInvocationHandler(Class<T> clazz) {
+    static <T> Class<? extends JB5nInvocationHandler> determineInvocationHandler(Class<T> clazz) {
         MessageResource messageResourceAnnotation = clazz.getAnnotation(MessageResource.class);
         Class<? extends JB5nInvocationHandler> invocationHandlerClass = JB5nPropertiesInvocationHandler.class;
         if (messageResourceAnnotation != null) {
@@ -126,4 +429,30 @@ public class JB5n {
     public static JB5nConfiguration getConfiguration() {
         return configuration;
     }
+
+    /**
+     * Returns the hit, miss and eviction counters of the cache for
+     * MessageResource instances.
+     *
+     * @return the statistics
+     */
+    public static JB5nCacheStatistics getCacheStatistics() {
+        return proxyCache.getStatistics();
+    }
+
+    /**
+     * Returns for each loaded resource bundle how many of its keys and
+     * messages are shared with other resource bundles and the estimated
+     * number of bytes saved by this.
+     *
+     * @return the statistics per resource bundle and locale
+     */
+    public static List<JB5nDeduplicationStatistics> getDeduplicationStatistics() {
+        List<JB5nDeduplicationStatistics> statistics = new ArrayList<JB5nDeduplicationStatistics>();
+        for (MessageCatalogReference reference : MessageCatalogRepository.getInstance().getCatalogs()) {
+            MessageCatalog catalog = reference.get();
+            statistics.add(new JB5nDeduplicationStatistics(reference.getResourceBundleName(), reference.getLocale(), catalog.getDeduplicatedCount(), catalog.getBytesSaved()));
+        }
+        return statistics;
+    }
 }
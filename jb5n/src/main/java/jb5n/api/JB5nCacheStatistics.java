@@ -0,0 +1,55 @@
+package jb5n.api;
+
+/**
+ * Snapshot of the counters of the cache for MessageResource instances.
+ */
+public class JB5nCacheStatistics {
+    private final long hitCount;
+    private final long missCount;
+    private final long evictionCount;
+    private final int size;
+
+    public JB5nCacheStatistics(long hitCount, long missCount, long evictionCount, int size) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.evictionCount = evictionCount;
+        this.size = size;
+    }
+
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    public long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Returns the number of entries that were removed by the eviction policy
+     * or because their class or class loader has been garbage collected.
+     *
+     * @return the number of evicted entries
+     */
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Returns the ratio of lookups that were served from the cache.
+     *
+     * @return the hit rate between 0.0 and 1.0
+     */
+    public double getHitRate() {
+        long requestCount = hitCount + missCount;
+        return requestCount == 0 ? 1.0 : (double) hitCount / requestCount;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("JB5nCacheStatistics[hitCount=%d, missCount=%d, evictionCount=%d, size=%d]", hitCount, missCount, evictionCount, size);
+    }
+}
@@ -1,8 +1,18 @@
 package jb5n.api;
 
+import jb5n.api.metrics.JB5nMetrics;
+
 public class JB5nConfiguration {
     private boolean raiseExceptionForMissingResource = false;
     private boolean cacheMessageResources = true;
+    private int messageResourceCacheMaximumSize = 0;
+    private long messageResourceCacheExpireAfterAccessMillis = 0;
+    private boolean useGeneratedImplementations = true;
+    private boolean generateImplementationsAtRuntime = false;
+    private boolean reloadResourceBundles = false;
+    private long resourceBundleReloadIntervalMillis = 2000;
+    private boolean deduplicateMessages = false;
+    private JB5nMetrics metrics = null;
 
     public boolean isRaiseExceptionForMissingResource() {
         return raiseExceptionForMissingResource;
@@ -19,4 +29,125 @@ public class JB5nConfiguration {
     public void setCacheMessageResources(boolean cacheMessageResources) {
         this.cacheMessageResources = cacheMessageResources;
     }
+
+    public int getMessageResourceCacheMaximumSize() {
+        return messageResourceCacheMaximumSize;
+    }
+
+    /**
+     * Sets the maximum number of cached MessageResource instances. If the cache
+     * grows beyond this size, the least recently used instances are evicted.
+     *
+     * @param messageResourceCacheMaximumSize the maximum size or 0 for an unbounded cache
+     */
+    public void setMessageResourceCacheMaximumSize(int messageResourceCacheMaximumSize) {
+        this.messageResourceCacheMaximumSize = messageResourceCacheMaximumSize;
+    }
+
+    public long getMessageResourceCacheExpireAfterAccessMillis() {
+        return messageResourceCacheExpireAfterAccessMillis;
+    }
+
+    /**
+     * Sets the time after which a cached MessageResource instance that has not
+     * been requested is evicted.
+     *
+     * @param messageResourceCacheExpireAfterAccessMillis the idle time in milliseconds or 0 to never expire instances
+     */
+    public void setMessageResourceCacheExpireAfterAccessMillis(long messageResourceCacheExpireAfterAccessMillis) {
+        this.messageResourceCacheExpireAfterAccessMillis = messageResourceCacheExpireAfterAccessMillis;
+    }
+
+    public boolean isUseGeneratedImplementations() {
+        return useGeneratedImplementations;
+    }
+
+    /**
+     * Defines whether the classes generated by the jb5n annotation processor
+     * are used instead of a proxy when they are available.
+     *
+     * @param useGeneratedImplementations true to use the generated classes
+     */
+    public void setUseGeneratedImplementations(boolean useGeneratedImplementations) {
+        this.useGeneratedImplementations = useGeneratedImplementations;
+    }
+
+    public boolean isGenerateImplementationsAtRuntime() {
+        return generateImplementationsAtRuntime;
+    }
+
+    /**
+     * Defines whether an implementation class is generated at runtime for
+     * interfaces without a class generated by the annotation processor. The
+     * generated class is used instead of a proxy. This requires javassist on the
+     * classpath.
+     *
+     * @param generateImplementationsAtRuntime true to generate implementation classes at runtime
+     */
+    public void setGenerateImplementationsAtRuntime(boolean generateImplementationsAtRuntime) {
+        this.generateImplementationsAtRuntime = generateImplementationsAtRuntime;
+    }
+
+    public boolean isReloadResourceBundles() {
+        return reloadResourceBundles;
+    }
+
+    /**
+     * Defines whether the properties files of the resource bundles are checked
+     * for modifications and reloaded while the application is running. Only
+     * resource bundles loaded after this option has been enabled are reloaded,
+     * and only properties files located in the file system are checked.
+     *
+     * @param reloadResourceBundles true to reload modified resource bundles
+     */
+    public void setReloadResourceBundles(boolean reloadResourceBundles) {
+        this.reloadResourceBundles = reloadResourceBundles;
+    }
+
+    public long getResourceBundleReloadIntervalMillis() {
+        return resourceBundleReloadIntervalMillis;
+    }
+
+    /**
+     * Sets the interval in which the properties files are checked for
+     * modifications if {@link #setReloadResourceBundles(boolean)} is enabled.
+     *
+     * @param resourceBundleReloadIntervalMillis the interval in milliseconds
+     */
+    public void setResourceBundleReloadIntervalMillis(long resourceBundleReloadIntervalMillis) {
+        this.resourceBundleReloadIntervalMillis = resourceBundleReloadIntervalMillis;
+    }
+
+    public boolean isDeduplicateMessages() {
+        return deduplicateMessages;
+    }
+
+    /**
+     * Defines whether equal keys and messages of different resource bundles
+     * and locales share the same string instance. If enabled, the properties
+     * files are loaded by jb5n instead of {@link java.util.ResourceBundle}.
+     * This reduces the heap usage of many locales with similar messages (e.g.
+     * de_DE, de_AT and de_CH). Only resource bundles loaded after this option
+     * has been enabled are deduplicated.
+     *
+     * @param deduplicateMessages true to deduplicate keys and messages
+     */
+    public void setDeduplicateMessages(boolean deduplicateMessages) {
+        this.deduplicateMessages = deduplicateMessages;
+    }
+
+    public JB5nMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Sets the receiver of the invocation, cache and loading events of jb5n,
+     * e.g. {@link jb5n.api.metrics.JB5nJmxMetrics}. Without metrics no
+     * timestamps are taken when a message is retrieved.
+     *
+     * @param metrics the metrics or null to disable the instrumentation
+     */
+    public void setMetrics(JB5nMetrics metrics) {
+        this.metrics = metrics;
+    }
 }
@@ -0,0 +1,55 @@
+package jb5n.api;
+
+import java.util.Locale;
+
+/**
+ * Reports how many keys and messages of a loaded resource bundle share their
+ * string instance with other resource bundles (see
+ * {@link JB5nConfiguration#setDeduplicateMessages(boolean)}).
+ */
+public class JB5nDeduplicationStatistics {
+    private final String resourceBundleName;
+    private final Locale locale;
+    private final int deduplicatedCount;
+    private final long bytesSaved;
+
+    public JB5nDeduplicationStatistics(String resourceBundleName, Locale locale, int deduplicatedCount, long bytesSaved) {
+        this.resourceBundleName = resourceBundleName;
+        this.locale = locale;
+        this.deduplicatedCount = deduplicatedCount;
+        this.bytesSaved = bytesSaved;
+    }
+
+    public String getResourceBundleName() {
+        return resourceBundleName;
+    }
+
+    public Locale getLocale() {
+        return locale;
+    }
+
+    /**
+     * Returns the number of keys and messages that have been replaced by an
+     * equal string that was already loaded.
+     *
+     * @return the number of deduplicated strings
+     */
+    public int getDeduplicatedCount() {
+        return deduplicatedCount;
+    }
+
+    /**
+     * Returns the estimated number of bytes on the heap the deduplication
+     * saves for this resource bundle.
+     *
+     * @return the estimated number of bytes saved
+     */
+    public long getBytesSaved() {
+        return bytesSaved;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("JB5nDeduplicationStatistics[resourceBundleName=%s, locale=%s, deduplicatedCount=%d, bytesSaved=%d]", resourceBundleName, locale, deduplicatedCount, bytesSaved);
+    }
+}
@@ -0,0 +1,95 @@
+package jb5n.api;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Result of {@link JB5n#preload(java.util.Collection, java.util.Collection, ClassLoader)}.
+ */
+public class JB5nPreloadReport {
+    private final long durationMillis;
+    private final int preloadedCount;
+    private final List<MissingResource> missingResources;
+    private final List<JB5nException> errors;
+
+    public static class MissingResource {
+        private final Class<?> messageResource;
+        private final Locale locale;
+        private final String resourceKey;
+
+        public MissingResource(Class<?> messageResource, Locale locale, String resourceKey) {
+            this.messageResource = messageResource;
+            this.locale = locale;
+            this.resourceKey = resourceKey;
+        }
+
+        public Class<?> getMessageResource() {
+            return messageResource;
+        }
+
+        public Locale getLocale() {
+            return locale;
+        }
+
+        public String getResourceKey() {
+            return resourceKey;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Missing resource key '%s' for message resource '%s' and locale '%s'.", resourceKey, messageResource.getName(), locale);
+        }
+    }
+
+    public JB5nPreloadReport(long durationMillis, int preloadedCount, List<MissingResource> missingResources, List<JB5nException> errors) {
+        this.durationMillis = durationMillis;
+        this.preloadedCount = preloadedCount;
+        this.missingResources = Collections.unmodifiableList(missingResources);
+        this.errors = Collections.unmodifiableList(errors);
+    }
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    /**
+     * Returns the number of combinations of MessageResource and locale that
+     * have been preloaded successfully.
+     *
+     * @return the number of preloaded instances
+     */
+    public int getPreloadedCount() {
+        return preloadedCount;
+    }
+
+    public List<MissingResource> getMissingResources() {
+        return missingResources;
+    }
+
+    /**
+     * Returns the errors that occurred, e.g. because an interface does not
+     * adhere to the restrictions of a MessageResource.
+     *
+     * @return the errors
+     */
+    public List<JB5nException> getErrors() {
+        return errors;
+    }
+
+    /**
+     * Returns true if all MessageResources have been preloaded and no resource
+     * key is missing.
+     *
+     * @return true if the preload was successful
+     */
+    public boolean isSuccessful() {
+        return missingResources.isEmpty() && errors.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("JB5nPreloadReport[durationMillis=%d, preloadedCount=%d, missingResources=%d, errors=%d]", durationMillis,
+                preloadedCount, missingResources.size(), errors.size());
+    }
+}
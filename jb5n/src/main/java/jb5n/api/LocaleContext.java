@@ -0,0 +1,19 @@
+package jb5n.api;
+
+import java.util.Locale;
+
+/**
+ * Supplies the locale for instances created by
+ * {@link JB5n#createContextualInstance(Class, LocaleContext)}. The locale is
+ * requested on each method call, e.g. from a thread local variable that is
+ * set for each request of a web application.
+ */
+public interface LocaleContext {
+
+    /**
+     * Returns the locale of the current context.
+     *
+     * @return the locale or null to use the default locale
+     */
+    Locale getLocale();
+}
@@ -0,0 +1,165 @@
+package jb5n.api;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
+import jb5n.api.properties.JB5nPropertiesInvocationHandler;
+import jb5n.api.properties.MethodDescriptor;
+
+/**
+ * Renders many messages of one MessageResource interface and locale in one
+ * call, e.g. all texts of a report. The resource bundles are resolved once
+ * for the batch and all messages are rendered into a single buffer that is
+ * reused by the next call, so that a batch should be kept and cleared instead
+ * of created per document. A batch is not thread-safe.
+ */
+public class MessageBatch {
+    private static final Object[] NO_ARGS = new Object[0];
+    private final Class<?> messageResource;
+    private final JB5nPropertiesInvocationHandler invocationHandler;
+    private final Object instance;
+    private final MessageResourceMethods methods;
+    private final List<Entry> entries = new ArrayList<Entry>();
+    private final StringBuffer buffer = new StringBuffer(256);
+    private int[] segmentEnds = new int[16];
+    private char[] writeBuffer;
+
+    private static class Entry {
+        private final Method method;
+        private final MethodDescriptor methodDescriptor;
+        private final Object[] args;
+
+        private Entry(Method method, MethodDescriptor methodDescriptor, Object[] args) {
+            this.method = method;
+            this.methodDescriptor = methodDescriptor;
+            this.args = args;
+        }
+    }
+
+    /**
+     * @param messageResource   the MessageResource interface
+     * @param invocationHandler the handler that renders the messages or null to call the methods of the given instance
+     * @param instance          the instance of the interface, if no handler is given
+     */
+    MessageBatch(Class<?> messageResource, JB5nPropertiesInvocationHandler invocationHandler, Object instance) {
+        this.messageResource = messageResource;
+        this.invocationHandler = invocationHandler;
+        this.instance = instance;
+        this.methods = new MessageResourceMethods(messageResource);
+    }
+
+    /**
+     * Adds the message of the method with the given name or resource key.
+     * Overloaded methods are distinguished by the number of arguments.
+     *
+     * @param methodNameOrKey the name of the method or the key of its message
+     * @param args            the arguments of the method
+     * @return this batch
+     */
+    public MessageBatch add(String methodNameOrKey, Object... args) {
+        if (args == null) {
+            args = NO_ARGS;
+        }
+        return addEntry(methods.getMethod(methodNameOrKey, args.length), args);
+    }
+
+    /**
+     * Adds the message of the given method.
+     *
+     * @param method a method of the MessageResource interface
+     * @param args   the arguments of the method
+     * @return this batch
+     */
+    public MessageBatch add(Method method, Object... args) {
+        if (args == null) {
+            args = NO_ARGS;
+        }
+        return addEntry(methods.checkMethod(method, args.length), args);
+    }
+
+    private MessageBatch addEntry(Method method, Object[] args) {
+        MethodDescriptor methodDescriptor = invocationHandler != null ? invocationHandler.getMethodDescriptor(messageResource, method) : null;
+        entries.add(new Entry(method, methodDescriptor, args));
+        return this;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Removes all entries. The buffer is kept for the next call.
+     */
+    public void clear() {
+        entries.clear();
+    }
+
+    /**
+     * Renders all entries.
+     *
+     * @return the messages in the order of the entries
+     */
+    public List<String> render() {
+        renderEntries(null);
+        List<String> segments = new ArrayList<String>(entries.size());
+        int start = 0;
+        for (int i = 0; i < entries.size(); i++) {
+            segments.add(buffer.substring(start, segmentEnds[i]));
+            start = segmentEnds[i];
+        }
+        return segments;
+    }
+
+    /**
+     * Renders all entries into one document.
+     *
+     * @param separator the text between two messages, e.g. a line separator
+     * @return the document
+     */
+    public String renderDocument(String separator) {
+        renderEntries(separator);
+        return buffer.toString();
+    }
+
+    /**
+     * Renders all entries into one document and writes it to the given
+     * writer without creating a string for the whole document.
+     *
+     * @param separator the text between two messages, e.g. a line separator
+     * @param writer    the writer
+     * @throws IOException if writing fails
+     */
+    public void renderDocument(String separator, Writer writer) throws IOException {
+        renderEntries(separator);
+        if (writeBuffer == null) {
+            writeBuffer = new char[4096];
+        }
+        for (int start = 0; start < buffer.length(); start += writeBuffer.length) {
+            int end = Math.min(start + writeBuffer.length, buffer.length());
+            buffer.getChars(start, end, writeBuffer, 0);
+            writer.write(writeBuffer, 0, end - start);
+        }
+    }
+
+    private void renderEntries(String separator) {
+        buffer.setLength(0);
+        if (segmentEnds.length < entries.size()) {
+            segmentEnds = new int[Math.max(entries.size(), 2 * segmentEnds.length)];
+        }
+        for (int i = 0; i < entries.size(); i++) {
+            if (separator != null && i > 0) {
+                buffer.append(separator);
+            }
+            Entry entry = entries.get(i);
+            if (invocationHandler != null) {
+                invocationHandler.appendMessage(entry.methodDescriptor, entry.args, buffer);
+            } else {
+                buffer.append(MessageResourceMethods.invoke(instance, entry.method, entry.args));
+            }
+            segmentEnds[i] = buffer.length();
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package jb5n.api;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Comparator;
+
+import jb5n.api.properties.JB5nPropertiesInvocationHandler;
+import jb5n.api.properties.MethodDescriptor;
+
+/**
+ * Exports the unformatted messages of all methods of a MessageResource
+ * interface, including the inherited ones, for one locale, e.g. to deliver
+ * them to a client-side application. The keys are derived like the keys used
+ * by the methods and are written in sorted order. Methods whose key is missing
+ * are exported with their default message or omitted if they have none. The
+ * messages are written directly to the output; the export can be reused and
+ * reflects reloaded resource bundles.
+ */
+public class MessageExport {
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+    private final JB5nPropertiesInvocationHandler invocationHandler;
+    private final Format format;
+    private final MethodDescriptor[] methodDescriptors;
+
+    public enum Format {
+        /**
+         * A JSON object with the keys as property names, encoded in UTF-8.
+         */
+        JSON("application/json; charset=UTF-8", "UTF-8"),
+        /**
+         * The format of {@link java.util.Properties#store(OutputStream, String)}
+         * without comments, encoded in ISO-8859-1 with all other characters as
+         * unicode escapes.
+         */
+        PROPERTIES("text/plain; charset=ISO-8859-1", "ISO-8859-1");
+
+        private final String contentType;
+        private final String encoding;
+
+        private Format(String contentType, String encoding) {
+            this.contentType = contentType;
+            this.encoding = encoding;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getEncoding() {
+            return encoding;
+        }
+    }
+
+    MessageExport(Class<?> messageResource, JB5nPropertiesInvocationHandler invocationHandler, Format format) {
+        this.invocationHandler = invocationHandler;
+        this.format = format;
+        Method[] methods = messageResource.getMethods();
+        methodDescriptors = new MethodDescriptor[methods.length];
+        for (int i = 0; i < methods.length; i++) {
+            methodDescriptors[i] = invocationHandler.getMethodDescriptor(messageResource, methods[i]);
+        }
+        Arrays.sort(methodDescriptors, new Comparator<MethodDescriptor>() {
+            public int compare(MethodDescriptor descriptor1, MethodDescriptor descriptor2) {
+                return descriptor1.getResourceKey().compareTo(descriptor2.getResourceKey());
+            }
+        });
+    }
+
+    public Format getFormat() {
+        return format;
+    }
+
+    /**
+     * Returns a hash of the exported content in the syntax of an HTTP ETag
+     * (including the quotes). It changes whenever a message is changed, so
+     * that it can be compared to the If-None-Match header of a request before
+     * the messages are written.
+     *
+     * @return the entity tag
+     */
+    public String getETag() {
+        // 64 bit FNV-1a over the format and all keys and messages
+        long hash = 0xcbf29ce484222325L;
+        hash = (hash ^ format.ordinal()) * 0x100000001b3L;
+        String previousKey = null;
+        for (MethodDescriptor methodDescriptor : methodDescriptors) {
+            String key = methodDescriptor.getResourceKey();
+            String message = key.equals(previousKey) ? null : invocationHandler.getPattern(methodDescriptor);
+            if (message != null) {
+                hash = hash(hash(hash, key), message);
+                previousKey = key;
+            }
+        }
+        char[] eTag = new char[18];
+        eTag[0] = '"';
+        for (int i = 16; i > 0; i--) {
+            eTag[i] = HEX_DIGITS[(int) (hash & 0xf)];
+            hash >>>= 4;
+        }
+        eTag[17] = '"';
+        return new String(eTag);
+    }
+
+    private static long hash(long hash, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            hash = (hash ^ value.charAt(i)) * 0x100000001b3L;
+        }
+        // separates the value from the next one
+        return (hash ^ 0xffff) * 0x100000001b3L;
+    }
+
+    /**
+     * Writes the messages to the given stream in the encoding of the format.
+     * The stream is flushed but not closed.
+     *
+     * @param outputStream the stream
+     * @throws IOException if writing fails
+     */
+    public void writeTo(OutputStream outputStream) throws IOException {
+        Writer writer = new OutputStreamWriter(outputStream, format.getEncoding());
+        writeTo(writer);
+        writer.flush();
+    }
+
+    /**
+     * Writes the messages to the given writer. The writer is not flushed.
+     *
+     * @param writer the writer
+     * @throws IOException if writing fails
+     */
+    public void writeTo(Writer writer) throws IOException {
+        boolean json = format == Format.JSON;
+        if (json) {
+            writer.write('{');
+        }
+        String previousKey = null;
+        for (MethodDescriptor methodDescriptor : methodDescriptors) {
+            String key = methodDescriptor.getResourceKey();
+            String message = key.equals(previousKey) ? null : invocationHandler.getPattern(methodDescriptor);
+            if (message == null) {
+                continue;
+            }
+            if (json) {
+                if (previousKey != null) {
+                    writer.write(',');
+                }
+                writeJsonString(writer, key);
+                writer.write(':');
+                writeJsonString(writer, message);
+            } else {
+                writeProperty(writer, key, true);
+                writer.write('=');
+                writeProperty(writer, message, false);
+                writer.write('\n');
+            }
+            previousKey = key;
+        }
+        if (json) {
+            writer.write('}');
+        }
+    }
+
+    private static void writeJsonString(Writer writer, String value) throws IOException {
+        writer.write('"');
+        int start = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char ch = value.charAt(i);
+            // U+2028 and U+2029 are escaped, as they end a line in JavaScript
+            if (ch >= 0x20 && ch != '"' && ch != '\\' && ch != '\u2028' && ch != '\u2029') {
+                continue;
+            }
+            writer.write(value, start, i - start);
+            start = i + 1;
+            switch (ch) {
+                case '"':
+                    writer.write("\\\"");
+                    break;
+                case '\\':
+                    writer.write("\\\\");
+                    break;
+                case '\n':
+                    writer.write("\\n");
+                    break;
+                case '\r':
+                    writer.write("\\r");
+                    break;
+                case '\t':
+                    writer.write("\\t");
+                    break;
+                default:
+                    writeUnicodeEscape(writer, ch);
+                    break;
+            }
+        }
+        writer.write(value, start, value.length() - start);
+        writer.write('"');
+    }
+
+    private static void writeProperty(Writer writer, String value, boolean key) throws IOException {
+        int start = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char ch = value.charAt(i);
+            boolean escapeSpace = ch == ' ' && (key || i == 0);
+            if (ch > 0x20 && ch < 0x7f && "\\=:#!".indexOf(ch) < 0 || ch == ' ' && !escapeSpace) {
+                continue;
+            }
+            writer.write(value, start, i - start);
+            start = i + 1;
+            switch (ch) {
+                case '\n':
+                    writer.write("\\n");
+                    break;
+                case '\r':
+                    writer.write("\\r");
+                    break;
+                case '\t':
+                    writer.write("\\t");
+                    break;
+                case '\f':
+                    writer.write("\\f");
+                    break;
+                default:
+                    if (ch < 0x20 || ch >= 0x7f) {
+                        writeUnicodeEscape(writer, ch);
+                    } else {
+                        writer.write('\\');
+                        writer.write(ch);
+                    }
+                    break;
+            }
+        }
+        writer.write(value, start, value.length() - start);
+    }
+
+    private static void writeUnicodeEscape(Writer writer, char ch) throws IOException {
+        writer.write("\\u");
+        writer.write(HEX_DIGITS[(ch >> 12) & 0xf]);
+        writer.write(HEX_DIGITS[(ch >> 8) & 0xf]);
+        writer.write(HEX_DIGITS[(ch >> 4) & 0xf]);
+        writer.write(HEX_DIGITS[ch & 0xf]);
+    }
+}
@@ -0,0 +1,211 @@
+package jb5n.api;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import jb5n.api.JB5nException.Reason;
+import jb5n.api.properties.JB5nPropertiesInvocationHandler;
+import jb5n.api.properties.MethodDescriptor;
+import jb5n.internal.format.MessageTemplate;
+
+/**
+ * Renders one message of a MessageResource interface with the same arguments
+ * for many locales, e.g. a notification for users with different languages.
+ * The handlers for the locales are created once with the fan-out, and the
+ * method and the arguments are resolved and converted once per call for all
+ * locales. If an executor service is set, large sets of locales are split
+ * into tasks that are rendered in parallel. A fan-out is thread-safe and
+ * should be kept.
+ */
+public class MessageFanOut {
+    private static final Object[] NO_ARGS = new Object[0];
+    private static final int MINIMUM_LOCALES_PER_TASK = 16;
+    private final Class<?> messageResource;
+    private final Locale[] locales;
+    private final JB5nPropertiesInvocationHandler[] invocationHandlers;
+    private final Object[] instances;
+    private final MessageResourceMethods methods;
+    private volatile ExecutorService executorService;
+
+    /**
+     * @param messageResource    the MessageResource interface
+     * @param locales            the locales
+     * @param invocationHandlers the handlers that render the messages per locale or null to call the methods of the given instances
+     * @param instances          the instances of the interface per locale, if no handlers are given
+     */
+    MessageFanOut(Class<?> messageResource, Locale[] locales, JB5nPropertiesInvocationHandler[] invocationHandlers, Object[] instances) {
+        this.messageResource = messageResource;
+        this.locales = locales;
+        this.invocationHandlers = invocationHandlers;
+        this.instances = instances;
+        this.methods = new MessageResourceMethods(messageResource);
+    }
+
+    public List<Locale> getLocales() {
+        List<Locale> result = new ArrayList<Locale>(locales.length);
+        Collections.addAll(result, locales);
+        return result;
+    }
+
+    public ExecutorService getExecutorService() {
+        return executorService;
+    }
+
+    /**
+     * Sets the executor service that renders large sets of locales in
+     * parallel. The executor service is not shut down by the fan-out.
+     *
+     * @param executorService the executor service or null to render all locales in the calling thread
+     */
+    public void setExecutorService(ExecutorService executorService) {
+        this.executorService = executorService;
+    }
+
+    /**
+     * Renders the message of the method with the given name or resource key
+     * for all locales. Overloaded methods are distinguished by the number of
+     * arguments.
+     *
+     * @param methodNameOrKey the name of the method or the key of its message
+     * @param args            the arguments of the method
+     * @return the messages by locale in the order of the locales of the fan-out
+     */
+    public Map<Locale, String> render(String methodNameOrKey, Object... args) {
+        if (args == null) {
+            args = NO_ARGS;
+        }
+        return renderMethod(methods.getMethod(methodNameOrKey, args.length), args);
+    }
+
+    /**
+     * Renders the message of the given method for all locales.
+     *
+     * @param method a method of the MessageResource interface
+     * @param args   the arguments of the method
+     * @return the messages by locale in the order of the locales of the fan-out
+     */
+    public Map<Locale, String> render(Method method, Object... args) {
+        if (args == null) {
+            args = NO_ARGS;
+        }
+        return renderMethod(methods.checkMethod(method, args.length), args);
+    }
+
+    private Map<Locale, String> renderMethod(Method method, Object[] args) {
+        String[] messages = new String[locales.length];
+        Rendering rendering;
+        if (invocationHandlers != null) {
+            MethodDescriptor methodDescriptor = invocationHandlers[0].getMethodDescriptor(messageResource, method);
+            // like the handlers, the arguments are formatted with the default locale
+            String[] convertedArguments = methodDescriptor.isFormatted() && args.length > 0 ? MessageTemplate.convertArguments(args, Locale.getDefault()) : null;
+            rendering = new Rendering(methodDescriptor, method, args, convertedArguments, messages);
+        } else {
+            rendering = new Rendering(null, method, args, null, messages);
+        }
+        ExecutorService executor = executorService;
+        int taskCount = locales.length / MINIMUM_LOCALES_PER_TASK;
+        if (executor == null || taskCount < 2) {
+            rendering.render(0, locales.length);
+        } else {
+            renderInParallel(executor, rendering, taskCount);
+        }
+        Map<Locale, String> result = new LinkedHashMap<Locale, String>(locales.length * 4 / 3 + 1);
+        for (int i = 0; i < locales.length; i++) {
+            result.put(locales[i], messages[i]);
+        }
+        return result;
+    }
+
+    private void renderInParallel(ExecutorService executor, final Rendering rendering, int taskCount) {
+        int localesPerTask = (locales.length + taskCount - 1) / taskCount;
+        List<Future<Object>> futures = new ArrayList<Future<Object>>(taskCount);
+        // the calling thread renders the first part itself
+        for (int start = localesPerTask; start < locales.length; start += localesPerTask) {
+            final int from = start;
+            final int to = Math.min(start + localesPerTask, locales.length);
+            futures.add(executor.submit(new Callable<Object>() {
+                public Object call() {
+                    rendering.render(from, to);
+                    return null;
+                }
+            }));
+        }
+        try {
+            rendering.render(0, localesPerTask);
+            for (Future<Object> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new JB5nException(Reason.InternalError, "Rendering the messages was interrupted.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new JB5nException(Reason.InternalError, String.format("Rendering the messages failed: %s", e.getCause().getMessage()), e.getCause());
+        } finally {
+            for (Future<Object> future : futures) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * Renders one call into the messages of a range of locales.
+     */
+    private class Rendering {
+        private final MethodDescriptor methodDescriptor;
+        private final Method method;
+        private final Object[] args;
+        private final String[] convertedArguments;
+        private final String[] messages;
+
+        private Rendering(MethodDescriptor methodDescriptor, Method method, Object[] args, String[] convertedArguments, String[] messages) {
+            this.methodDescriptor = methodDescriptor;
+            this.method = method;
+            this.args = args;
+            this.convertedArguments = convertedArguments;
+            this.messages = messages;
+        }
+
+        private void render(int from, int to) {
+            if (methodDescriptor == null) {
+                for (int i = from; i < to; i++) {
+                    messages[i] = (String) MessageResourceMethods.invoke(instances[i], method, args);
+                }
+                return;
+            }
+            StringBuffer buffer = new StringBuffer(64);
+            for (int i = from; i < to; i++) {
+                buffer.setLength(0);
+                invocationHandlers[i].appendMessage(methodDescriptor, args, convertedArguments, buffer);
+                messages[i] = buffer.toString();
+            }
+        }
+    }
+
+    static Locale[] toArray(Collection<Locale> locales) {
+        if (locales == null || locales.isEmpty()) {
+            throw new JB5nException(Reason.InvalidArgument, "Argument locales should contain at least one locale.");
+        }
+        Locale[] result = new Locale[locales.size()];
+        int i = 0;
+        for (Locale locale : locales) {
+            if (locale == null) {
+                throw new JB5nException(Reason.InvalidArgument, "Argument locales should not contain null.");
+            }
+            result[i++] = locale;
+        }
+        return result;
+    }
+}
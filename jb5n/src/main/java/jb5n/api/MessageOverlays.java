@@ -0,0 +1,241 @@
+package jb5n.api;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import jb5n.api.JB5nException.Reason;
+import jb5n.api.properties.JB5nPropertiesInvocationHandler;
+import jb5n.api.properties.JB5nPropertiesSync;
+import jb5n.internal.MessageResourceVerification;
+import jb5n.internal.OverlayPropertiesInvocationHandler;
+import jb5n.internal.ProxyCache;
+import jb5n.internal.ProxyCache.ProxyKey;
+import jb5n.internal.catalog.OverlayLayer;
+
+/**
+ * Layers of message overrides on top of the resource bundles, e.g. for the
+ * tenants of an application and their users. A layer is addressed by the ids
+ * of its path: no ids for the overrides of all tenants, one id for a tenant,
+ * two ids for a user of a tenant, and so on. Each layer overrides the
+ * messages of the resource bundles and of its parent layers:
+ * <pre>
+ * MessageOverlays overlays = new MessageOverlays();
+ * overlays.setOverrides(MyMessageResource.class, Locale.GERMAN, acmeMessages, "acme");
+ * MyMessageResource messages = overlays.getInstance(MyMessageResource.class, locale, "acme", userId);
+ * </pre>
+ * Layers are only created by setting overrides. An instance belongs to the
+ * deepest layer of its path that exists, so that e.g. all users of a tenant
+ * without overrides of their own share the instance of the tenant. Instances
+ * see later updates of their layer and its parents, but not a sub-layer that
+ * is created later; get the instance per use (e.g. per request) instead of
+ * keeping it. The merged messages of a layer are built on the first request
+ * for a resource bundle and locale and only hold the overrides; all other
+ * messages are shared with the resource bundles. Updating the overrides of a
+ * layer only discards the merged messages of that layer and of its
+ * sub-layers. Overlays are only supported for MessageResources that use the
+ * default invocation handler.
+ */
+public class MessageOverlays {
+    private final OverlayLayer root = new OverlayLayer(null, null);
+    // the instances of each layer, cached like the ones of JB5n.createInstance()
+    private final ConcurrentMap<OverlayLayer, ProxyCache> instances = new ConcurrentHashMap<OverlayLayer, ProxyCache>();
+
+    /**
+     * Replaces the overrides of the given layer for the resource bundle of the
+     * given MessageResource. Messages of inherited methods are overridden via
+     * the resource bundle of the interface that declares them.
+     *
+     * @param clazz    an interface that is annotated with @see MessageResource.
+     * @param locale   the locale; the overrides also apply to more specific locales
+     * @param messages the messages by key; an empty map removes the overrides
+     * @param layers   the ids of the path of the layer
+     */
+    public void setOverrides(Class<?> clazz, Locale locale, Map<String, String> messages, String... layers) {
+        if (clazz == null) {
+            throw new JB5nException(Reason.InvalidArgument, "Argument clazz should not be null.");
+        }
+        setOverrides(JB5nPropertiesSync.getResourceBundleName(clazz), locale, messages, layers);
+    }
+
+    /**
+     * Replaces the overrides of the given layer for the given resource bundle.
+     *
+     * @param resourceBundleName the base name of the resource bundle
+     * @param locale             the locale; the overrides also apply to more specific locales
+     * @param messages           the messages by key; an empty map removes the overrides
+     * @param layers             the ids of the path of the layer
+     */
+    public void setOverrides(String resourceBundleName, Locale locale, Map<String, String> messages, String... layers) {
+        if (resourceBundleName == null) {
+            throw new JB5nException(Reason.InvalidArgument, "Argument resourceBundleName should not be null.");
+        }
+        if (locale == null) {
+            throw new JB5nException(Reason.InvalidArgument, "Argument locale should not be null.");
+        }
+        if (messages == null) {
+            throw new JB5nException(Reason.InvalidArgument, "Argument messages should not be null.");
+        }
+        for (Map.Entry<String, String> entry : messages.entrySet()) {
+            if (entry.getKey() == null || entry.getValue() == null) {
+                throw new JB5nException(Reason.InvalidArgument, String.format("Argument messages should not contain null, but contains '%s'='%s'.", entry.getKey(), entry.getValue()));
+            }
+        }
+        OverlayLayer layer = getLayer(layers, !messages.isEmpty());
+        if (layer != null) {
+            layer.setOverrides(resourceBundleName, locale, messages);
+        }
+    }
+
+    /**
+     * Returns the overrides of the given layer, without the ones of its parent
+     * layers.
+     *
+     * @param resourceBundleName the base name of the resource bundle
+     * @param locale             the locale
+     * @param layers             the ids of the path of the layer
+     * @return the messages by key, an empty map if there are no overrides
+     */
+    public Map<String, String> getOverrides(String resourceBundleName, Locale locale, String... layers) {
+        OverlayLayer layer = getLayer(layers, false);
+        if (layer == null) {
+            return Collections.emptyMap();
+        }
+        return layer.getOverrides(resourceBundleName, locale);
+    }
+
+    /**
+     * Removes the given layer, e.g. of a deleted tenant, and its sub-layers.
+     * Instances of the layer that are still referenced return the messages of
+     * the parent layer.
+     *
+     * @param layers the ids of the path of the layer, at least one
+     */
+    public void removeLayer(String... layers) {
+        if (layers == null || layers.length == 0) {
+            throw new JB5nException(Reason.InvalidArgument, "Argument layers should contain at least one id.");
+        }
+        String[] parentLayers = new String[layers.length - 1];
+        System.arraycopy(layers, 0, parentLayers, 0, parentLayers.length);
+        OverlayLayer parentLayer = getLayer(parentLayers, false);
+        OverlayLayer removedLayer = parentLayer != null ? parentLayer.removeChild(layers[layers.length - 1]) : null;
+        if (removedLayer == null) {
+            return;
+        }
+        for (Iterator<OverlayLayer> iterator = instances.keySet().iterator(); iterator.hasNext(); ) {
+            for (OverlayLayer layer = iterator.next(); layer != null; layer = layer.getParent()) {
+                if (layer == removedLayer) {
+                    iterator.remove();
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the instance of the given MessageResource for the given layer
+     * using the ClassLoader of the interface.
+     *
+     * @param clazz  an interface that is annotated with @see MessageResource.
+     * @param locale the Locale used for retrieving the messages
+     * @param layers the ids of the path of the layer
+     * @return the instance
+     */
+    public <T> T getInstance(Class<T> clazz, Locale locale, String... layers) {
+        ClassLoader classLoader = JB5n.class.getClassLoader();
+        if (clazz != null) {
+            classLoader = clazz.getClassLoader();
+        }
+        return getInstance(clazz, locale, classLoader, layers);
+    }
+
+    /**
+     * Returns the instance of the given MessageResource for the deepest
+     * existing layer of the given path. The instances of a layer are cached
+     * like the ones of {@link JB5n#createInstance(Class, Locale, ClassLoader)},
+     * so that they do not keep their class loader from being unloaded.
+     *
+     * @param clazz  an interface that is annotated with @see MessageResource.
+     * @param locale the Locale used for retrieving the messages
+     * @param loader the ClassLoader used to load e.g. the ResourceBundle
+     * @param layers the ids of the path of the layer
+     * @return the instance
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T getInstance(Class<T> clazz, Locale locale, ClassLoader loader, String... layers) {
+        MessageResourceVerification.verify(clazz, locale, loader);
+        JB5nConfiguration configuration = JB5n.getConfiguration();
+        OverlayLayer layer = getDeepestLayer(layers);
+        ProxyCache proxyCache = instances.get(layer);
+        if (proxyCache == null) {
+            proxyCache = new ProxyCache();
+            ProxyCache existingProxyCache = instances.putIfAbsent(layer, proxyCache);
+            if (existingProxyCache != null) {
+                proxyCache = existingProxyCache;
+            }
+        }
+        ProxyKey key = new ProxyKey(clazz, locale, loader);
+        Object instance = proxyCache.get(key, configuration);
+        if (instance != null) {
+            return (T) instance;
+        }
+        Class<? extends JB5nInvocationHandler> invocationHandlerClass = JB5n.determineInvocationHandler(clazz);
+        if (invocationHandlerClass != JB5nPropertiesInvocationHandler.class) {
+            throw new JB5nException(Reason.InvalidArgument, String.format("The messages of %s cannot be overridden, as it uses the invocation handler %s.",
+                    clazz.getName(), invocationHandlerClass.getSimpleName()));
+        }
+        OverlayPropertiesInvocationHandler invocationHandler = new OverlayPropertiesInvocationHandler(layer);
+        invocationHandler.setLocale(locale);
+        invocationHandler.setClassLoader(loader);
+        T newInstance = JB5n.newInstance(clazz, invocationHandler);
+        proxyCache.put(key, newInstance, configuration);
+        return newInstance;
+    }
+
+    /**
+     * Returns the layer of the given path.
+     *
+     * @param layers the ids of the path of the layer
+     * @param create true to create missing layers
+     * @return the layer or null if it does not exist and create is false
+     */
+    private OverlayLayer getLayer(String[] layers, boolean create) {
+        OverlayLayer layer = root;
+        if (layers == null) {
+            return layer;
+        }
+        for (String id : layers) {
+            checkId(id);
+            layer = layer.getChild(id, create);
+            if (layer == null) {
+                return null;
+            }
+        }
+        return layer;
+    }
+
+    private OverlayLayer getDeepestLayer(String[] layers) {
+        OverlayLayer layer = root;
+        if (layers == null) {
+            return layer;
+        }
+        for (String id : layers) {
+            checkId(id);
+            OverlayLayer child = layer.getChild(id, false);
+            if (child == null) {
+                break;
+            }
+            layer = child;
+        }
+        return layer;
+    }
+
+    private static void checkId(String id) {
+        if (id == null) {
+            throw new JB5nException(Reason.InvalidArgument, "Argument layers should not contain null.");
+        }
+    }
+}
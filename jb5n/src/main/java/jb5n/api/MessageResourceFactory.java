@@ -0,0 +1,118 @@
+package jb5n.api;
+
+import java.util.Locale;
+
+import jb5n.api.JB5nException.Reason;
+
+/**
+ * A handle to the instances of one MessageResource interface for one class
+ * loader, one instance per locale. The interface is verified once when the
+ * factory is obtained via {@link JB5n#factory(Class)}. Looking up an instance
+ * that has already been created neither locks nor allocates, so code that
+ * resolves instances per request should keep the factory, e.g. in a static
+ * field, instead of calling {@link JB5n#createInstance(Class, Locale)}.
+ * <p>
+ * The instances are created with the global configuration and created again
+ * after {@link JB5n#setConfiguration(JB5nConfiguration)} has been called.
+ * They are held independently of the cache for MessageResource instances.
+ *
+ * @param <T> the MessageResource interface
+ */
+public final class MessageResourceFactory<T> {
+    private static final Locale[] NO_LOCALES = new Locale[0];
+    private static final Object[] NO_INSTANCES = new Object[0];
+    private final Class<T> messageResource;
+    private final ClassLoader classLoader;
+    private final Class<? extends JB5nInvocationHandler> invocationHandlerClass;
+    private volatile Instances instances = new Instances(null, NO_LOCALES, NO_INSTANCES);
+
+    /**
+     * The instances created with one configuration. The arrays are never
+     * modified; a new table is published for each new instance.
+     */
+    private static class Instances {
+        private final JB5nConfiguration configuration;
+        private final Locale[] locales;
+        private final Object[] instances;
+
+        private Instances(JB5nConfiguration configuration, Locale[] locales, Object[] instances) {
+            this.configuration = configuration;
+            this.locales = locales;
+            this.instances = instances;
+        }
+
+        private Object get(Locale locale) {
+            for (int i = 0; i < locales.length; i++) {
+                if (locales[i] == locale) {
+                    return instances[i];
+                }
+            }
+            for (int i = 0; i < locales.length; i++) {
+                if (locales[i].equals(locale)) {
+                    return instances[i];
+                }
+            }
+            return null;
+        }
+    }
+
+    MessageResourceFactory(Class<T> messageResource, ClassLoader classLoader, Class<? extends JB5nInvocationHandler> invocationHandlerClass) {
+        this.messageResource = messageResource;
+        this.classLoader = classLoader;
+        this.invocationHandlerClass = invocationHandlerClass;
+    }
+
+    public Class<T> getMessageResource() {
+        return messageResource;
+    }
+
+    public ClassLoader getClassLoader() {
+        return classLoader;
+    }
+
+    /**
+     * Returns the instance for the given locale and creates it on the first
+     * call.
+     *
+     * @param locale the Locale used for retrieving the messages
+     * @return the instance of the MessageResource interface
+     */
+    @SuppressWarnings("unchecked")
+    public T get(Locale locale) {
+        Instances current = instances;
+        if (current.configuration == JB5n.getConfiguration()) {
+            Object instance = current.get(locale);
+            if (instance != null) {
+                return (T) instance;
+            }
+        }
+        return create(locale);
+    }
+
+    @SuppressWarnings("unchecked")
+    private synchronized T create(Locale locale) {
+        if (locale == null) {
+            throw new JB5nException(Reason.InvalidArgument, "Argument locale should not be null.");
+        }
+        JB5nConfiguration configuration = JB5n.getConfiguration();
+        Instances current = instances;
+        if (current.configuration != configuration) {
+            current = new Instances(configuration, NO_LOCALES, NO_INSTANCES);
+        } else {
+            Object instance = current.get(locale);
+            if (instance != null) {
+                return (T) instance;
+            }
+        }
+        T instance = JB5n.newInstance(messageResource, invocationHandlerClass, locale, classLoader);
+        int size = current.locales.length;
+        Locale[] locales = new Locale[size + 1];
+        Object[] instances = new Object[size + 1];
+        System.arraycopy(current.locales, 0, locales, 0, size);
+        System.arraycopy(current.instances, 0, instances, 0, size);
+        locales[size] = locale;
+        instances[size] = instance;
+        this.instances = new Instances(configuration, locales, instances);
+        return instance;
+    }
+}
@@ -0,0 +1,102 @@
+package jb5n.api;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import jb5n.api.JB5nException.Reason;
+import jb5n.api.properties.MethodDescriptor;
+
+/**
+ * Resolves the methods of a MessageResource interface by their name or the
+ * key of their message, for APIs that address messages without calling the
+ * interface.
+ */
+class MessageResourceMethods {
+    private final Class<?> messageResource;
+    private final Map<String, List<Method>> methodsByName = new HashMap<String, List<Method>>();
+    private final Map<String, List<Method>> methodsByKey = new HashMap<String, List<Method>>();
+
+    MessageResourceMethods(Class<?> messageResource) {
+        this.messageResource = messageResource;
+        for (Method method : messageResource.getMethods()) {
+            addMethod(methodsByName, method.getName(), method);
+            addMethod(methodsByKey, MethodDescriptor.forMethod(method).getResourceKey(), method);
+        }
+    }
+
+    private static void addMethod(Map<String, List<Method>> methods, String name, Method method) {
+        List<Method> methodsWithName = methods.get(name);
+        if (methodsWithName == null) {
+            methodsWithName = new LinkedList<Method>();
+            methods.put(name, methodsWithName);
+        }
+        methodsWithName.add(method);
+    }
+
+    /**
+     * Returns the method with the given name or resource key. Overloaded
+     * methods are distinguished by the number of arguments.
+     *
+     * @param methodNameOrKey the name of the method or the key of its message
+     * @param argumentCount   the number of arguments
+     * @return the method
+     */
+    Method getMethod(String methodNameOrKey, int argumentCount) {
+        List<Method> methods = methodsByName.get(methodNameOrKey);
+        if (methods == null) {
+            methods = methodsByKey.get(methodNameOrKey);
+        }
+        if (methods == null) {
+            throw new JB5nException(Reason.InvalidArgument, String.format("Interface %s has no method or key '%s'.", messageResource.getName(), methodNameOrKey));
+        }
+        for (Method method : methods) {
+            if (method.getParameterTypes().length == argumentCount) {
+                return method;
+            }
+        }
+        throw new JB5nException(Reason.InvalidArgument, String.format("Interface %s has no method '%s' with %d arguments.", messageResource.getName(), methodNameOrKey, argumentCount));
+    }
+
+    /**
+     * Checks that the given method belongs to the interface and takes the
+     * given number of arguments.
+     *
+     * @param method        the method
+     * @param argumentCount the number of arguments
+     * @return the method
+     */
+    Method checkMethod(Method method, int argumentCount) {
+        if (method == null || !method.getDeclaringClass().isAssignableFrom(messageResource)) {
+            throw new JB5nException(Reason.InvalidArgument, String.format("Method %s is not a method of interface %s.", method, messageResource.getName()));
+        }
+        if (method.getParameterTypes().length != argumentCount) {
+            throw new JB5nException(Reason.InvalidArgument, String.format("Method %s expects %d arguments instead of %d.", method.getName(), method.getParameterTypes().length, argumentCount));
+        }
+        return method;
+    }
+
+    /**
+     * Calls the given method of an instance of the interface.
+     *
+     * @param instance the instance
+     * @param method   the method
+     * @param args     the arguments
+     * @return the message
+     */
+    static Object invoke(Object instance, Method method, Object[] args) {
+        try {
+            return method.invoke(instance, args);
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new JB5nException(Reason.InternalError, String.format("Calling %s() failed: %s", method.getName(), e.getCause().getMessage()), e.getCause());
+        } catch (IllegalAccessException e) {
+            throw new JB5nException(Reason.InternalError, String.format("Calling %s() failed: %s", method.getName(), e.getMessage()), e);
+        }
+    }
+}
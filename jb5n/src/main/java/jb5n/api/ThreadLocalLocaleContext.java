@@ -0,0 +1,27 @@
+package jb5n.api;
+
+import java.util.Locale;
+
+/**
+ * {@link LocaleContext} that holds the locale per thread. Threads without a
+ * locale use the default locale.
+ */
+public class ThreadLocalLocaleContext implements LocaleContext {
+    private final ThreadLocal<Locale> locale = new ThreadLocal<Locale>();
+
+    public Locale getLocale() {
+        return locale.get();
+    }
+
+    public void setLocale(Locale locale) {
+        this.locale.set(locale);
+    }
+
+    /**
+     * Removes the locale of the current thread, e.g. at the end of a request,
+     * so that pooled threads do not keep it.
+     */
+    public void clear() {
+        locale.remove();
+    }
+}
@@ -0,0 +1,27 @@
+package jb5n.api.catalog;
+
+import java.util.Locale;
+
+import jb5n.api.properties.JB5nPropertiesInvocationHandler;
+import jb5n.internal.catalog.MessageCatalogReference;
+import jb5n.internal.catalog.MessageCatalogRepository;
+
+/**
+ * Invocation handler that reads the messages from the binary catalogs
+ * compiled by the goal "catalog" of the jb5n maven plugin. The catalogs are
+ * memory mapped, so the messages do not have to be loaded into the heap and
+ * the operating system can share the pages between processes. Resource
+ * bundles without a binary catalog are read from their properties files.
+ * <p>
+ * Use the handler via the @MessageResource annotation:
+ * <pre>
+ * &#064;MessageResource(invocationHandler = JB5nCatalogInvocationHandler.class)
+ * </pre>
+ */
+public class JB5nCatalogInvocationHandler extends JB5nPropertiesInvocationHandler {
+
+    @Override
+    protected MessageCatalogReference lookupCatalog(String resourceBundleName, Locale locale, ClassLoader classLoader) {
+        return MessageCatalogRepository.getInstance().getBinaryCatalog(resourceBundleName, locale, classLoader);
+    }
+}
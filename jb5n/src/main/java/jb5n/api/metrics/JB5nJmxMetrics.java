@@ -0,0 +1,166 @@
+package jb5n.api.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Hashtable;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+
+import jb5n.api.JB5nException;
+import jb5n.api.JB5nException.Reason;
+import jb5n.internal.metrics.CacheMetrics;
+import jb5n.internal.metrics.CacheMetricsMBean;
+import jb5n.internal.metrics.MessageResourceMetrics;
+import jb5n.internal.metrics.MessageResourceMetricsMBean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Collects the metrics of jb5n and registers them as MBeans: one MBean
+ * <code>&lt;domain&gt;:type=Caches</code> for the caches and the loading of
+ * resource bundles and one MBean
+ * <code>&lt;domain&gt;:type=MessageResource,name=&lt;interface&gt;,locale=&lt;locale&gt;</code>
+ * per MessageResource interface and locale. The counters are striped across
+ * threads, so that recording an invocation does not contend with other
+ * threads. Call {@link #unregister()} before the class loader of jb5n is
+ * discarded, e.g. when a web application is undeployed.
+ */
+public class JB5nJmxMetrics implements JB5nMetrics {
+    public static final String DEFAULT_DOMAIN = "jb5n";
+    private static final Logger logger = LoggerFactory.getLogger(JB5nJmxMetrics.class);
+    private static final Locale ROOT_LOCALE = new Locale("");
+    private final MBeanServer mBeanServer;
+    private final String domain;
+    private final CacheMetrics cacheMetrics = new CacheMetrics();
+    private final ConcurrentMap<String, ConcurrentMap<Locale, MessageResourceMetrics>> messageResourceMetrics = new ConcurrentHashMap<String, ConcurrentMap<Locale, MessageResourceMetrics>>();
+    private final ConcurrentMap<ObjectName, Object> registeredMBeans = new ConcurrentHashMap<ObjectName, Object>();
+
+    /**
+     * Registers the MBeans in the platform MBeanServer under the domain
+     * {@link #DEFAULT_DOMAIN}.
+     */
+    public JB5nJmxMetrics() {
+        this(ManagementFactory.getPlatformMBeanServer(), DEFAULT_DOMAIN);
+    }
+
+    /**
+     * @param mBeanServer the server to register the MBeans in
+     * @param domain      the domain of the names of the MBeans
+     */
+    public JB5nJmxMetrics(MBeanServer mBeanServer, String domain) {
+        if (mBeanServer == null || domain == null) {
+            throw new JB5nException(Reason.InvalidArgument, "Arguments mBeanServer and domain should not be null.");
+        }
+        this.mBeanServer = mBeanServer;
+        this.domain = domain;
+        Hashtable<String, String> properties = new Hashtable<String, String>();
+        properties.put("type", "Caches");
+        register(properties, cacheMetrics);
+    }
+
+    public void messageRetrieved(String messageResource, Locale locale, long lookupNanos, long formatNanos) {
+        getOrCreateMetrics(messageResource, locale).recordInvocation(lookupNanos, formatNanos);
+    }
+
+    public void messageMissing(String messageResource, Locale locale, String resourceKey, boolean defaultMessageUsed) {
+        getOrCreateMetrics(messageResource, locale).recordMissingMessage(defaultMessageUsed);
+    }
+
+    public void messageResourceCacheAccessed(Class<?> messageResource, Locale locale, boolean hit) {
+        cacheMetrics.recordMessageResourceCacheAccess(hit);
+    }
+
+    public void resourceBundleCacheAccessed(String resourceBundleName, Locale locale, boolean hit) {
+        cacheMetrics.recordResourceBundleCacheAccess(hit);
+    }
+
+    public void resourceBundleLoaded(String resourceBundleName, Locale locale, long loadNanos) {
+        cacheMetrics.recordResourceBundleLoad(loadNanos);
+    }
+
+    /**
+     * Returns the metrics of the given MessageResource interface and locale.
+     *
+     * @param messageResource the binary name of the interface
+     * @param locale          the locale
+     * @return the metrics or null if no message has been retrieved yet
+     */
+    public MessageResourceMetricsMBean getMessageResourceMetrics(String messageResource, Locale locale) {
+        ConcurrentMap<Locale, MessageResourceMetrics> metricsPerLocale = messageResourceMetrics.get(messageResource);
+        return metricsPerLocale != null ? metricsPerLocale.get(locale != null ? locale : ROOT_LOCALE) : null;
+    }
+
+    public CacheMetricsMBean getCacheMetrics() {
+        return cacheMetrics;
+    }
+
+    /**
+     * Unregisters all MBeans registered by this instance.
+     */
+    public void unregister() {
+        for (ObjectName objectName : registeredMBeans.keySet()) {
+            try {
+                mBeanServer.unregisterMBean(objectName);
+            } catch (JMException e) {
+                logger.warn(String.format("Failed to unregister MBean '%s': %s", objectName, e.getMessage()));
+            }
+            registeredMBeans.remove(objectName);
+        }
+    }
+
+    private MessageResourceMetrics getOrCreateMetrics(String messageResource, Locale locale) {
+        if (locale == null) {
+            locale = ROOT_LOCALE;
+        }
+        ConcurrentMap<Locale, MessageResourceMetrics> metricsPerLocale = messageResourceMetrics.get(messageResource);
+        if (metricsPerLocale == null) {
+            metricsPerLocale = new ConcurrentHashMap<Locale, MessageResourceMetrics>();
+            ConcurrentMap<Locale, MessageResourceMetrics> existingMetricsPerLocale = messageResourceMetrics.putIfAbsent(messageResource, metricsPerLocale);
+            if (existingMetricsPerLocale != null) {
+                metricsPerLocale = existingMetricsPerLocale;
+            }
+        }
+        MessageResourceMetrics metrics = metricsPerLocale.get(locale);
+        if (metrics == null) {
+            metrics = new MessageResourceMetrics();
+            MessageResourceMetrics existingMetrics = metricsPerLocale.putIfAbsent(locale, metrics);
+            if (existingMetrics != null) {
+                metrics = existingMetrics;
+            } else {
+                Hashtable<String, String> properties = new Hashtable<String, String>();
+                properties.put("type", "MessageResource");
+                properties.put("name", quoteIfNecessary(messageResource));
+                properties.put("locale", locale.toString().length() > 0 ? locale.toString() : "root");
+                register(properties, metrics);
+            }
+        }
+        return metrics;
+    }
+
+    private void register(Hashtable<String, String> properties, Object mBean) {
+        try {
+            ObjectName objectName = new ObjectName(domain, properties);
+            mBeanServer.registerMBean(mBean, objectName);
+            registeredMBeans.put(objectName, mBean);
+        } catch (MalformedObjectNameException e) {
+            throw new JB5nException(Reason.InvalidArgument, String.format("Invalid MBean name for domain '%s': %s", domain, e.getMessage()), e);
+        } catch (JMException e) {
+            logger.warn(String.format("Failed to register MBean %s in domain '%s': %s", properties, domain, e.getMessage()));
+        }
+    }
+
+    private static String quoteIfNecessary(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (",=:\"*?\n".indexOf(value.charAt(i)) >= 0) {
+                return ObjectName.quote(value);
+            }
+        }
+        return value;
+    }
+}
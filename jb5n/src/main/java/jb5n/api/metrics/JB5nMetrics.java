@@ -0,0 +1,63 @@
+package jb5n.api.metrics;
+
+import java.util.Locale;
+
+/**
+ * Receives the events of jb5n that are relevant for monitoring. An
+ * implementation is set with
+ * {@link jb5n.api.JB5nConfiguration#setMetrics(JB5nMetrics)}; the methods are
+ * called on the thread that triggered the event, so they should return
+ * quickly and must be thread-safe. {@link JB5nJmxMetrics} publishes the events
+ * as JMX MBeans.
+ */
+public interface JB5nMetrics {
+
+    /**
+     * Called after the message of a method has been retrieved.
+     *
+     * @param messageResource the binary name of the MessageResource interface or the name of the resource bundle if the interface is unknown
+     * @param locale          the locale of the message
+     * @param lookupNanos     the time to look up the message
+     * @param formatNanos     the time to format the message or -1 if it has not been formatted
+     */
+    void messageRetrieved(String messageResource, Locale locale, long lookupNanos, long formatNanos);
+
+    /**
+     * Called if the key or the resource bundle of a method is missing.
+     *
+     * @param messageResource    the binary name of the MessageResource interface or the name of the resource bundle if the interface is unknown
+     * @param locale             the locale of the message
+     * @param resourceKey        the missing key
+     * @param defaultMessageUsed true if the default message of the method is returned instead
+     */
+    void messageMissing(String messageResource, Locale locale, String resourceKey, boolean defaultMessageUsed);
+
+    /**
+     * Called if a MessageResource instance is requested while the cache for
+     * MessageResource instances is enabled.
+     *
+     * @param messageResource the MessageResource interface
+     * @param locale          the requested locale
+     * @param hit             true if the instance has been found in the cache
+     */
+    void messageResourceCacheAccessed(Class<?> messageResource, Locale locale, boolean hit);
+
+    /**
+     * Called if a resource bundle is requested from the cache of loaded
+     * resource bundles.
+     *
+     * @param resourceBundleName the base name of the resource bundle
+     * @param locale             the requested locale
+     * @param hit                true if the resource bundle has already been loaded
+     */
+    void resourceBundleCacheAccessed(String resourceBundleName, Locale locale, boolean hit);
+
+    /**
+     * Called after a resource bundle has been loaded or reloaded.
+     *
+     * @param resourceBundleName the base name of the resource bundle
+     * @param locale             the requested locale
+     * @param loadNanos          the time to load the resource bundle
+     */
+    void resourceBundleLoaded(String resourceBundleName, Locale locale, long loadNanos);
+}
@@ -1,62 +1,422 @@
 package jb5n.api.properties;
 
 import java.lang.reflect.Method;
-import java.text.MessageFormat;
 import java.util.Locale;
-import java.util.MissingResourceException;
-import java.util.ResourceBundle;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import jb5n.api.JB5n;
+import jb5n.api.JB5nConfiguration;
 import jb5n.api.JB5nException;
 import jb5n.api.JB5nException.Reason;
 import jb5n.api.JB5nInvocationHandler;
 import jb5n.api.Message;
 import jb5n.api.MessageResource;
+import jb5n.api.metrics.JB5nMetrics;
+import jb5n.internal.catalog.MessageCatalog;
+import jb5n.internal.catalog.MessageCatalogReference;
+import jb5n.internal.catalog.MessageCatalogRepository;
+import jb5n.internal.catalog.MessageTablePool;
+import jb5n.internal.format.MessageTemplate;
+import jb5n.internal.format.MessageTemplateCache;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 public class JB5nPropertiesInvocationHandler implements JB5nInvocationHandler {
     private static final Logger logger = LoggerFactory.getLogger(JB5nPropertiesInvocationHandler.class);
+    private static final MessageTemplateCache messageTemplateCache = new MessageTemplateCache();
+    private final ConcurrentMap<Method, MethodDescriptor> methodDescriptors = new ConcurrentHashMap<Method, MethodDescriptor>();
+    private final ConcurrentMap<String, MessageCatalogReference> catalogs = new ConcurrentHashMap<String, MessageCatalogReference>();
+    private final ConcurrentMap<MethodDescriptor, MissingMessage> missingMessages = new ConcurrentHashMap<MethodDescriptor, MissingMessage>();
+    private volatile MessageTable messageTable;
     private Locale locale;
     private ClassLoader classLoader;
 
+    /**
+     * The resolved messages of all methods of a MessageResource interface for
+     * the locale of this handler, indexed by the ordinal of the method. It is
+     * only valid as long as the generation of the handler has not changed and
+     * the configuration has not been replaced.
+     */
+    private static class MessageTable {
+        private final MethodDescriptor[] messageResourceMethods;
+        private final long generation;
+        private final JB5nConfiguration configuration;
+        private final MessageTablePool.Messages messages;
+        // the default messages of methods without arguments whose key is missing
+        private final String[] constants;
+        // the compiled templates of the formatted messages
+        private final MessageTemplate[] templates;
+
+        private MessageTable(MethodDescriptor[] messageResourceMethods, long generation, JB5nConfiguration configuration, MessageTablePool.Messages messages) {
+            this.messageResourceMethods = messageResourceMethods;
+            this.generation = generation;
+            this.configuration = configuration;
+            this.messages = messages;
+            this.constants = new String[messageResourceMethods.length];
+            this.templates = new MessageTemplate[messageResourceMethods.length];
+        }
+
+        private boolean isValid(MethodDescriptor[] messageResourceMethods, long generation) {
+            return this.messageResourceMethods == messageResourceMethods && this.generation == generation && configuration == JB5n.getConfiguration();
+        }
+    }
+
+    /**
+     * The value returned for a method whose key or resource bundle is missing.
+     * It is only valid as long as the catalog has not been reloaded.
+     */
+    private static class MissingMessage {
+        private final MessageCatalog catalog;
+        private final String fallbackMessage;
+
+        private MissingMessage(MessageCatalog catalog, String fallbackMessage) {
+            this.catalog = catalog;
+            this.fallbackMessage = fallbackMessage;
+        }
+    }
+
     public Object invoke(Object proxy, Method method, Object[] methodArgs) throws Throwable {
-        String returnValue = "";
-        String methodName = method.getName();
-        Class<?> declaringClass = method.getDeclaringClass();
-        logInvoke(proxy, methodName);
-        String resourceBundleName = deriveResourceBundleName(declaringClass);
-        Message messageAnnotationFromMethod = getMessageAnnotationFromMethod(method, methodArgs);
-        ResourceBundle resourceBundle = null;
-        try {
-            resourceBundle = ResourceBundle.getBundle(resourceBundleName, locale, classLoader);
-        } catch (MissingResourceException e) {
-            returnValue = handleMissingResourceException(methodName, messageAnnotationFromMethod,
-                    String.format("Missing resource bundle '%s' for locale '%s'.", resourceBundleName, locale));
-        }
-        returnValue = retrieveMessageFromResourceBundle(methodArgs, returnValue, methodName, resourceBundleName, messageAnnotationFromMethod, locale, resourceBundle);
-        return returnValue;
+        MethodDescriptor methodDescriptor = methodDescriptors.get(method);
+        if (methodDescriptor == null) {
+            Class<?>[] interfaces = proxy.getClass().getInterfaces();
+            methodDescriptor = getMethodDescriptor(interfaces.length == 1 ? interfaces[0] : null, method);
+        }
+        logInvoke(proxy, methodDescriptor.getMethodName());
+        return getMessage(methodDescriptor, methodArgs);
     }
 
-    private String retrieveMessageFromResourceBundle(Object[] methodArgs, String returnValue, String methodName, String resourceBundleName, Message messageAnnotationFromMethod,
-                                                     Locale defaultLocale, ResourceBundle resourceBundle) {
-        if (resourceBundle != null) {
-            String resourceKey = deriveResourceKey(methodName, messageAnnotationFromMethod);
-            try {
-                returnValue = resourceBundle.getString(resourceKey);
-            } catch (MissingResourceException e) {
-                returnValue = handleMissingResourceException(methodName, messageAnnotationFromMethod,
-                        String.format("Missing key '%s' in resource bundle '%s' for locale '%s'.", resourceKey, resourceBundleName, defaultLocale));
+    /**
+     * Returns the message for the given method descriptor formatted with the
+     * given arguments.
+     *
+     * @param methodDescriptor the descriptor of the called method
+     * @param methodArgs       the arguments of the method call or null
+     * @return the message
+     */
+    public String getMessage(MethodDescriptor methodDescriptor, Object[] methodArgs) {
+        JB5nMetrics metrics = JB5n.getConfiguration().getMetrics();
+        if (metrics != null) {
+            return getMessage(methodDescriptor, methodArgs, metrics);
+        }
+        if (methodDescriptor.getParameterCount() == 0) {
+            String constant = getConstant(methodDescriptor);
+            if (constant != null) {
+                return constant;
             }
         }
-        if (methodArgs != null && methodArgs.length > 0) {
-            MessageFormat messageFormat = new MessageFormat(returnValue);
-            returnValue = messageFormat.format(methodArgs);
+        String returnValue = lookupMessage(methodDescriptor, null);
+        if (isFormatted(methodDescriptor, methodArgs)) {
+            returnValue = format(methodDescriptor, returnValue, methodArgs);
+        }
+        return returnValue;
+    }
+
+    /**
+     * Returns the message of a method without arguments if it has already
+     * been resolved by the current message table, including the default
+     * message of a missing key. The error value of a missing key is not
+     * served from the table, as it depends on the configuration.
+     *
+     * @return the message or null if it has to be looked up
+     */
+    private String getConstant(MethodDescriptor methodDescriptor) {
+        MessageTable table = messageTable;
+        if (table == null || !table.isValid(methodDescriptor.getMessageResourceMethods(), getGeneration())) {
+            return null;
+        }
+        int ordinal = methodDescriptor.getOrdinal();
+        String message = table.messages.get(ordinal);
+        return message != null ? message : table.constants[ordinal];
+    }
+
+    /**
+     * Like {@link #getMessage(MethodDescriptor, Object[])}, but appends the
+     * message to the given buffer, so that formatted messages are not copied
+     * into a string of their own.
+     *
+     * @param methodDescriptor the descriptor of the called method
+     * @param methodArgs       the arguments of the method call or null
+     * @param result           the buffer the message is appended to
+     */
+    public void appendMessage(MethodDescriptor methodDescriptor, Object[] methodArgs, StringBuffer result) {
+        appendMessage(methodDescriptor, methodArgs, null, result);
+    }
+
+    /**
+     * Like {@link #appendMessage(MethodDescriptor, Object[], StringBuffer)},
+     * but with the arguments already converted by
+     * {@link MessageTemplate#convertArguments(Object[], Locale)} for the
+     * default locale, so that the same arguments can be formatted into the
+     * messages of several handlers without converting them again.
+     *
+     * @param methodDescriptor   the descriptor of the called method
+     * @param methodArgs         the arguments of the method call or null
+     * @param convertedArguments the converted arguments or null
+     * @param result             the buffer the message is appended to
+     */
+    public void appendMessage(MethodDescriptor methodDescriptor, Object[] methodArgs, String[] convertedArguments, StringBuffer result) {
+        if (JB5n.getConfiguration().getMetrics() != null) {
+            result.append(getMessage(methodDescriptor, methodArgs));
+            return;
+        }
+        String message = lookupMessage(methodDescriptor, null);
+        if (isFormatted(methodDescriptor, methodArgs)) {
+            MessageTemplate messageTemplate = getTableTemplate(methodDescriptor, message);
+            messageTemplate.format(methodArgs, convertedArguments, Locale.getDefault(), result);
+        } else {
+            result.append(message);
+        }
+    }
+
+    private String getMessage(MethodDescriptor methodDescriptor, Object[] methodArgs, JB5nMetrics metrics) {
+        long start = System.nanoTime();
+        String returnValue = lookupMessage(methodDescriptor, metrics);
+        long lookedUp = System.nanoTime();
+        long formatNanos = -1;
+        if (isFormatted(methodDescriptor, methodArgs)) {
+            returnValue = format(methodDescriptor, returnValue, methodArgs);
+            formatNanos = System.nanoTime() - lookedUp;
         }
+        metrics.messageRetrieved(getMessageResourceName(methodDescriptor), locale, lookedUp - start, formatNanos);
         return returnValue;
     }
 
+    private static boolean isFormatted(MethodDescriptor methodDescriptor, Object[] methodArgs) {
+        return methodDescriptor.isFormatted() && methodArgs != null && methodArgs.length > 0;
+    }
+
+    private String format(MethodDescriptor methodDescriptor, String message, Object[] methodArgs) {
+        MessageTemplate messageTemplate = getTableTemplate(methodDescriptor, message);
+        // like new MessageFormat(pattern) the arguments are formatted with the default locale
+        return messageTemplate.format(methodArgs, Locale.getDefault());
+    }
+
+    /**
+     * Returns the compiled template of the given message. Numbered
+     * descriptors keep the template next to their message in the message
+     * table, so that it is not looked up in the template cache on every call.
+     * A kept template is only used if it was compiled from the same message.
+     */
+    private MessageTemplate getTableTemplate(MethodDescriptor methodDescriptor, String message) {
+        MessageTable table = messageTable;
+        if (table == null || table.messageResourceMethods != methodDescriptor.getMessageResourceMethods()) {
+            return getMessageTemplate(methodDescriptor, message);
+        }
+        int ordinal = methodDescriptor.getOrdinal();
+        MessageTemplate messageTemplate = table.templates[ordinal];
+        if (messageTemplate == null || !message.equals(messageTemplate.getPattern())) {
+            messageTemplate = getMessageTemplate(methodDescriptor, message);
+            table.templates[ordinal] = messageTemplate;
+        }
+        return messageTemplate;
+    }
+
+    private static String getMessageResourceName(MethodDescriptor methodDescriptor) {
+        String messageResourceName = methodDescriptor.getMessageResourceName();
+        return messageResourceName != null ? messageResourceName : methodDescriptor.getResourceBundleName();
+    }
+
+    /**
+     * Looks up the message of the given method. Numbered descriptors are
+     * resolved via the message table of their interface, others via the
+     * catalog of their resource bundle.
+     */
+    private String lookupMessage(MethodDescriptor methodDescriptor, JB5nMetrics metrics) {
+        MethodDescriptor[] messageResourceMethods = methodDescriptor.getMessageResourceMethods();
+        MessageTable table = null;
+        if (messageResourceMethods != null) {
+            table = getMessageTable(messageResourceMethods);
+            String message = table.messages.get(methodDescriptor.getOrdinal());
+            if (message != null) {
+                return message;
+            }
+        }
+        MessageCatalog catalog = getCatalog(methodDescriptor.getResourceBundleName());
+        String message = catalog.getMessage(methodDescriptor.getResourceKey());
+        if (message == null) {
+            if (metrics != null) {
+                metrics.messageMissing(getMessageResourceName(methodDescriptor), locale, methodDescriptor.getResourceKey(), methodDescriptor.hasDefaultMessage());
+            }
+            message = getFallbackMessage(methodDescriptor, catalog);
+            if (table != null && methodDescriptor.getParameterCount() == 0 && methodDescriptor.hasDefaultMessage()) {
+                table.constants[methodDescriptor.getOrdinal()] = message;
+            }
+        }
+        return message;
+    }
+
+    /**
+     * Returns the unformatted message of the given method as it is stored in
+     * the resource bundle, or the default message of the method if the key is
+     * missing.
+     *
+     * @param methodDescriptor the descriptor of the method
+     * @return the message or null if neither the key nor a default message exists
+     */
+    public String getPattern(MethodDescriptor methodDescriptor) {
+        String message = getCatalog(methodDescriptor.getResourceBundleName()).getMessage(methodDescriptor.getResourceKey());
+        if (message == null && methodDescriptor.hasDefaultMessage()) {
+            message = methodDescriptor.getDefaultMessage();
+        }
+        return message;
+    }
+
+    private MessageTable getMessageTable(MethodDescriptor[] messageResourceMethods) {
+        MessageTable table = messageTable;
+        if (table == null || !table.isValid(messageResourceMethods, getGeneration())) {
+            table = createMessageTable(messageResourceMethods);
+            messageTable = table;
+        }
+        return table;
+    }
+
+    private MessageTable createMessageTable(MethodDescriptor[] messageResourceMethods) {
+        // read the generation first, so that a concurrent reload invalidates the new table
+        long generation = getGeneration();
+        JB5nConfiguration configuration = JB5n.getConfiguration();
+        String[] messages = new String[messageResourceMethods.length];
+        for (int i = 0; i < messageResourceMethods.length; i++) {
+            MethodDescriptor methodDescriptor = messageResourceMethods[i];
+            messages[i] = getCatalog(methodDescriptor.getResourceBundleName()).getMessage(methodDescriptor.getResourceKey());
+        }
+        return new MessageTable(messageResourceMethods, generation, configuration, MessageTablePool.getInstance().intern(messages));
+    }
+
+    /**
+     * Resolves the given method, loads its resource bundle and compiles its
+     * message, so that the first invocation of the method does not have to.
+     *
+     * @param method the method of the MessageResource interface
+     * @return false if the resource bundle or the key is missing
+     */
+    public boolean preload(Method method) {
+        return preload(method.getDeclaringClass(), method);
+    }
+
+    /**
+     * Like {@link #preload(Method)}, but numbers the methods of the given
+     * interface, so that its messages are resolved via a message table.
+     *
+     * @param messageResource the MessageResource interface
+     * @param method          a method of the interface
+     * @return false if the resource bundle or the key is missing
+     */
+    public boolean preload(Class<?> messageResource, Method method) {
+        return preload(getMethodDescriptor(messageResource, method));
+    }
+
+    /**
+     * Like {@link #preload(Method)}, but for the descriptor a generated class
+     * passes to {@link #getMessage(MethodDescriptor, Object[])}. For numbered
+     * descriptors the message table of their interface is built and the
+     * template of the message is kept in it.
+     *
+     * @param methodDescriptor the descriptor of the method
+     * @return false if the resource bundle or the key is missing
+     */
+    public boolean preload(MethodDescriptor methodDescriptor) {
+        MethodDescriptor[] messageResourceMethods = methodDescriptor.getMessageResourceMethods();
+        String message;
+        if (messageResourceMethods != null) {
+            message = getMessageTable(messageResourceMethods).messages.get(methodDescriptor.getOrdinal());
+        } else {
+            message = getCatalog(methodDescriptor.getResourceBundleName()).getMessage(methodDescriptor.getResourceKey());
+        }
+        if (message == null) {
+            return false;
+        }
+        if (methodDescriptor.isFormatted()) {
+            getTableTemplate(methodDescriptor, message);
+        }
+        return true;
+    }
+
+    /**
+     * Returns the compiled template of the given message. Subclasses whose
+     * messages may differ from the ones of the resource bundle for the same
+     * key can override it to cache their templates separately.
+     *
+     * @param methodDescriptor the descriptor of the method
+     * @param message          the unformatted message
+     * @return the template
+     */
+    protected MessageTemplate getMessageTemplate(MethodDescriptor methodDescriptor, String message) {
+        return messageTemplateCache.get(methodDescriptor.getResourceBundleName(), locale, methodDescriptor.getResourceKey(), message);
+    }
+
+    /**
+     * Returns a counter that changes whenever a catalog of this handler may
+     * have changed, so that the resolved messages are discarded. Subclasses
+     * that publish catalogs of their own add their changes to the generation
+     * of the repository.
+     *
+     * @return the generation
+     */
+    protected long getGeneration() {
+        return MessageCatalogRepository.getInstance().getGeneration();
+    }
+
+    /**
+     * Returns the current catalog of the given resource bundle. The reference
+     * is looked up once per resource bundle; the catalog it holds is replaced
+     * if the resource bundle is reloaded.
+     *
+     * @param resourceBundleName the base name of the resource bundle
+     * @return the catalog
+     */
+    protected MessageCatalog getCatalog(String resourceBundleName) {
+        MessageCatalogReference reference = catalogs.get(resourceBundleName);
+        if (reference == null) {
+            reference = lookupCatalog(resourceBundleName, locale, classLoader);
+            catalogs.put(resourceBundleName, reference);
+        }
+        return reference.get();
+    }
+
+    /**
+     * Looks up the catalog of the given resource bundle. Subclasses can
+     * override this method to read the messages from another source.
+     *
+     * @param resourceBundleName the base name of the resource bundle
+     * @param locale             the locale of this handler
+     * @param classLoader        the class loader of this handler
+     * @return the reference to the catalog
+     */
+    protected MessageCatalogReference lookupCatalog(String resourceBundleName, Locale locale, ClassLoader classLoader) {
+        return MessageCatalogRepository.getInstance().getCatalog(resourceBundleName, locale, classLoader);
+    }
+
+    /**
+     * Returns the descriptor of the given method. All methods of the given
+     * interface are numbered on the first call, so that their messages are
+     * resolved via a message table.
+     *
+     * @param messageResource the MessageResource interface or null if it is unknown
+     * @param method          a method of the interface
+     * @return the descriptor
+     */
+    public MethodDescriptor getMethodDescriptor(Class<?> messageResource, Method method) {
+        MethodDescriptor methodDescriptor = methodDescriptors.get(method);
+        if (methodDescriptor == null && messageResource != null) {
+            Method[] methods = messageResource.getMethods();
+            MethodDescriptor[] messageResourceMethods = MethodDescriptor.forMethods(messageResource, methods);
+            for (int i = 0; i < methods.length; i++) {
+                methodDescriptors.putIfAbsent(methods[i], messageResourceMethods[i]);
+            }
+            methodDescriptor = methodDescriptors.get(method);
+        }
+        if (methodDescriptor == null) {
+            methodDescriptor = MethodDescriptor.forMethod(method);
+            MethodDescriptor existingDescriptor = methodDescriptors.putIfAbsent(method, methodDescriptor);
+            if (existingDescriptor != null) {
+                methodDescriptor = existingDescriptor;
+            }
+        }
+        return methodDescriptor;
+    }
+
     protected static String deriveResourceKey(String methodName, Message messageAnnotationFromMethod) {
         String resourceKey = methodName;
         if (messageAnnotationFromMethod != null) {
@@ -74,18 +434,37 @@ public class JB5nPropertiesInvocationHandler implements JB5nInvocationHandler {
         }
     }
 
-    private String handleMissingResourceException(String methodName, Message messageAnnotationFromMethod, String message) {
-        String returnValue;
-        if (messageAnnotationFromMethod != null) {
-            returnValue = messageAnnotationFromMethod.defaultMessage();
+    /**
+     * Returns the default message or the error value for a method whose key or
+     * resource bundle is missing. The result is remembered until the catalog
+     * is reloaded, and the missing resource is logged only the first time.
+     */
+    private String getFallbackMessage(MethodDescriptor methodDescriptor, MessageCatalog catalog) {
+        boolean raiseException = !methodDescriptor.hasDefaultMessage() && JB5n.getConfiguration().isRaiseExceptionForMissingResource();
+        MissingMessage missingMessage = missingMessages.get(methodDescriptor);
+        if (missingMessage != null && missingMessage.catalog == catalog && !raiseException) {
+            return missingMessage.fallbackMessage;
+        }
+        String message;
+        if (catalog.exists()) {
+            message = String.format("Missing key '%s' in resource bundle '%s' for locale '%s'.", methodDescriptor.getResourceKey(), methodDescriptor.getResourceBundleName(), locale);
         } else {
-            boolean raiseExceptionForMissingResource = JB5n.getConfiguration().isRaiseExceptionForMissingResource();
-            if (raiseExceptionForMissingResource) {
-                throw new JB5nException(Reason.MissingResource, message);
-            }
-            returnValue = createDefaultErrorReturnValue(methodName);
+            message = String.format("Missing resource bundle '%s' for locale '%s'.", methodDescriptor.getResourceBundleName(), locale);
         }
-        return returnValue;
+        if (raiseException) {
+            throw new JB5nException(Reason.MissingResource, message);
+        }
+        String fallbackMessage;
+        if (methodDescriptor.hasDefaultMessage()) {
+            fallbackMessage = methodDescriptor.getDefaultMessage();
+        } else {
+            fallbackMessage = createDefaultErrorReturnValue(methodDescriptor.getMethodName());
+        }
+        MissingMessage previousMissingMessage = missingMessages.put(methodDescriptor, new MissingMessage(catalog, fallbackMessage));
+        if (previousMissingMessage == null || previousMissingMessage.catalog != catalog) {
+            logger.warn(String.format("%s Returning '%s' instead.", message, fallbackMessage));
+        }
+        return fallbackMessage;
     }
 
     protected static String deriveResourceBundleName(Class<?> declaringClass) {
@@ -103,26 +482,15 @@ public class JB5nPropertiesInvocationHandler implements JB5nInvocationHandler {
         return "???" + methodName + "???";
     }
 
-    private Message getMessageAnnotationFromMethod(Method method, Object[] args) throws NoSuchMethodException {
-        Method methodOnClass = getCorrespondingMethod(method, args);
-        return methodOnClass.getAnnotation(Message.class);
-    }
-
-    private Method getCorrespondingMethod(Method method, Object[] args) throws NoSuchMethodException {
-        Class<?> declaringClass = method.getDeclaringClass();
-        try {
-            return declaringClass.getMethod(method.getName(), method.getParameterTypes());
-        } catch (Exception e) {
-            throw new JB5nException(Reason.InternalError, String.format("Unable to find matching method for type %s with name %s and args %s.",
-                    declaringClass.getSimpleName(), method.getName(), method.getParameterTypes()));
-        }
-    }
-
     public void setLocale(Locale locale) {
         this.locale = locale;
+        catalogs.clear();
+        messageTable = null;
     }
 
     public void setClassLoader(ClassLoader loader) {
         this.classLoader = loader;
+        catalogs.clear();
+        messageTable = null;
     }
 }
@@ -22,10 +22,21 @@ public class JB5nPropertiesSync {
         }
     }
 
+    /**
+     * Returns the name of the resource bundle that is verified for the given
+     * interface.
+     *
+     * @param clazz the MessageResource interface
+     * @return the base name of the resource bundle
+     */
+    public static String getResourceBundleName(Class<?> clazz) {
+        return JB5nPropertiesInvocationHandler.deriveResourceBundleName(clazz);
+    }
+
     public static <T> JB5nPropertiesSyncResult sync(Class<T> clazz, Locale locale, ClassLoader classLoader) {
         JB5nPropertiesSyncResult result = new JB5nPropertiesSyncResult();
         MessageResourceVerification.verify(clazz, locale, classLoader);
-        String resourceBundleName = JB5nPropertiesInvocationHandler.deriveResourceBundleName(clazz);
+        String resourceBundleName = getResourceBundleName(clazz);
         ResourceBundle resourceBundle = null;
         try {
             resourceBundle = ResourceBundle.getBundle(resourceBundleName, locale, classLoader);
@@ -0,0 +1,180 @@
+package jb5n.api.properties;
+
+import java.lang.reflect.Method;
+
+import jb5n.api.JB5nException;
+import jb5n.api.JB5nException.Reason;
+import jb5n.api.Message;
+
+/**
+ * Describes how a method of a MessageResource interface maps onto its
+ * resource bundle. A descriptor is resolved once per method and is immutable,
+ * so it can be shared between threads without synchronization.
+ */
+public class MethodDescriptor {
+    private final String methodName;
+    private final String resourceBundleName;
+    private final String resourceKey;
+    private final String defaultMessage;
+    private final int parameterCount;
+    private final String messageResourceName;
+    private final MethodDescriptor[] messageResourceMethods;
+    private final int ordinal;
+
+    /**
+     * Creates a new descriptor.
+     *
+     * @param methodName         the name of the interface method
+     * @param resourceBundleName the base name of the resource bundle
+     * @param resourceKey        the key within the resource bundle
+     * @param defaultMessage     the default message or null if the method is not annotated with @see Message
+     * @param parameterCount     the number of arguments the method takes
+     */
+    public MethodDescriptor(String methodName, String resourceBundleName, String resourceKey, String defaultMessage, int parameterCount) {
+        this.methodName = methodName;
+        this.resourceBundleName = resourceBundleName;
+        this.resourceKey = resourceKey;
+        this.defaultMessage = defaultMessage;
+        this.parameterCount = parameterCount;
+        this.messageResourceName = null;
+        this.messageResourceMethods = null;
+        this.ordinal = -1;
+    }
+
+    private MethodDescriptor(MethodDescriptor methodDescriptor, String messageResourceName, MethodDescriptor[] messageResourceMethods, int ordinal) {
+        this.methodName = methodDescriptor.methodName;
+        this.resourceBundleName = methodDescriptor.resourceBundleName;
+        this.resourceKey = methodDescriptor.resourceKey;
+        this.defaultMessage = methodDescriptor.defaultMessage;
+        this.parameterCount = methodDescriptor.parameterCount;
+        this.messageResourceName = messageResourceName;
+        this.messageResourceMethods = messageResourceMethods;
+        this.ordinal = ordinal;
+    }
+
+    /**
+     * Numbers the descriptors of all methods of a MessageResource interface.
+     * The returned descriptors know their position within the interface, so
+     * that the messages of the interface can be stored in an array per
+     * locale.
+     *
+     * @param messageResourceName the binary name of the interface
+     * @param methodDescriptors   the descriptors of all methods of the interface
+     * @return the numbered descriptors in the same order
+     */
+    public static MethodDescriptor[] forMessageResource(String messageResourceName, MethodDescriptor... methodDescriptors) {
+        MethodDescriptor[] messageResourceMethods = new MethodDescriptor[methodDescriptors.length];
+        for (int i = 0; i < methodDescriptors.length; i++) {
+            messageResourceMethods[i] = new MethodDescriptor(methodDescriptors[i], messageResourceName, messageResourceMethods, i);
+        }
+        return messageResourceMethods;
+    }
+
+    /**
+     * Resolves and numbers the descriptors for the given methods of a
+     * MessageResource interface (see {@link #forMessageResource(String, MethodDescriptor...)}).
+     *
+     * @param messageResource the interface
+     * @param methods         all methods of the interface
+     * @return the numbered descriptors in the same order
+     */
+    public static MethodDescriptor[] forMethods(Class<?> messageResource, Method[] methods) {
+        MethodDescriptor[] methodDescriptors = new MethodDescriptor[methods.length];
+        for (int i = 0; i < methods.length; i++) {
+            methodDescriptors[i] = forMethod(methods[i]);
+        }
+        return forMessageResource(messageResource.getName(), methodDescriptors);
+    }
+
+    /**
+     * Resolves the descriptor for the given method of a MessageResource interface.
+     *
+     * @param method the interface method
+     * @return the descriptor
+     */
+    public static MethodDescriptor forMethod(Method method) {
+        Class<?> declaringClass = method.getDeclaringClass();
+        Message messageAnnotation = getCorrespondingMethod(method).getAnnotation(Message.class);
+        String methodName = method.getName();
+        String resourceBundleName = JB5nPropertiesInvocationHandler.deriveResourceBundleName(declaringClass);
+        String resourceKey = JB5nPropertiesInvocationHandler.deriveResourceKey(methodName, messageAnnotation);
+        String defaultMessage = messageAnnotation != null ? messageAnnotation.defaultMessage() : null;
+        return new MethodDescriptor(methodName, resourceBundleName, resourceKey, defaultMessage, method.getParameterTypes().length);
+    }
+
+    private static Method getCorrespondingMethod(Method method) {
+        Class<?> declaringClass = method.getDeclaringClass();
+        try {
+            return declaringClass.getMethod(method.getName(), method.getParameterTypes());
+        } catch (Exception e) {
+            throw new JB5nException(Reason.InternalError, String.format("Unable to find matching method for type %s with name %s and args %s.",
+                    declaringClass.getSimpleName(), method.getName(), method.getParameterTypes()));
+        }
+    }
+
+    public String getMethodName() {
+        return methodName;
+    }
+
+    public String getResourceBundleName() {
+        return resourceBundleName;
+    }
+
+    public String getResourceKey() {
+        return resourceKey;
+    }
+
+    /**
+     * Returns the default message of the @see Message annotation.
+     *
+     * @return the default message or null if the method is not annotated
+     */
+    public String getDefaultMessage() {
+        return defaultMessage;
+    }
+
+    public boolean hasDefaultMessage() {
+        return defaultMessage != null;
+    }
+
+    public int getParameterCount() {
+        return parameterCount;
+    }
+
+    /**
+     * Returns the binary name of the MessageResource interface the descriptor
+     * has been numbered for.
+     *
+     * @return the name of the interface or null if the descriptor has not been numbered
+     */
+    public String getMessageResourceName() {
+        return messageResourceName;
+    }
+
+    /**
+     * Returns the position of the method within its MessageResource interface.
+     *
+     * @return the position or -1 if the descriptor has not been numbered
+     */
+    public int getOrdinal() {
+        return ordinal;
+    }
+
+    /**
+     * Returns the numbered descriptors of all methods of the MessageResource
+     * interface this descriptor belongs to.
+     */
+    MethodDescriptor[] getMessageResourceMethods() {
+        return messageResourceMethods;
+    }
+
+    /**
+     * Returns true if the message has to be formatted with the method
+     * arguments via MessageFormat.
+     *
+     * @return true if the method takes arguments
+     */
+    public boolean isFormatted() {
+        return parameterCount > 0;
+    }
+}
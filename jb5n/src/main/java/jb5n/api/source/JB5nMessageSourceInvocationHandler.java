@@ -0,0 +1,48 @@
+package jb5n.api.source;
+
+import java.util.Locale;
+
+import jb5n.api.JB5nException;
+import jb5n.api.JB5nException.Reason;
+import jb5n.api.properties.JB5nPropertiesInvocationHandler;
+import jb5n.internal.catalog.MessageCatalogReference;
+
+/**
+ * Invocation handler that reads the messages from a {@link MessageSource}
+ * through a {@link MessageSourceCache}. Messages are formatted and default
+ * messages are applied like for properties files. As handlers are created by
+ * jb5n, subclass it with a constructor that passes the cache shared by all
+ * handlers of the source:
+ * <pre>
+ * public class DatabaseInvocationHandler extends JB5nMessageSourceInvocationHandler {
+ *     private static final MessageSourceCache CACHE = new MessageSourceCache(new DatabaseMessageSource());
+ *
+ *     public DatabaseInvocationHandler() {
+ *         super(CACHE);
+ *     }
+ * }
+ *
+ * &#064;MessageResource(invocationHandler = DatabaseInvocationHandler.class)
+ * </pre>
+ * The class loader of the MessageResource is not passed to the source.
+ */
+public class JB5nMessageSourceInvocationHandler extends JB5nPropertiesInvocationHandler {
+    private final MessageSourceCache messageSourceCache;
+
+    public JB5nMessageSourceInvocationHandler(MessageSourceCache messageSourceCache) {
+        if (messageSourceCache == null) {
+            throw new JB5nException(Reason.InvalidArgument, "Argument messageSourceCache should not be null.");
+        }
+        this.messageSourceCache = messageSourceCache;
+    }
+
+    @Override
+    protected MessageCatalogReference lookupCatalog(String resourceBundleName, Locale locale, ClassLoader classLoader) {
+        return messageSourceCache.getCatalog(resourceBundleName, locale);
+    }
+
+    @Override
+    protected long getGeneration() {
+        return super.getGeneration() + messageSourceCache.getGeneration();
+    }
+}
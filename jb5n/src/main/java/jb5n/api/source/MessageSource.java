@@ -0,0 +1,38 @@
+package jb5n.api.source;
+
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Reads messages from a backend other than properties files, e.g. a database
+ * or a key-value store. A source is only called by a
+ * {@link MessageSourceCache}, which caches the messages and reloads them
+ * when they expire. Implementations must be thread-safe.
+ */
+public interface MessageSource {
+
+    /**
+     * Loads all messages of the given resource bundle and locale at once,
+     * e.g. with a single query. The result must not be modified afterwards.
+     * Sources that cannot enumerate their messages return null, so that each
+     * message is loaded with {@link #loadMessage(String, Locale, String)}.
+     *
+     * @param resourceBundleName the name of the resource bundle
+     * @param locale             the locale
+     * @return the messages by key, an empty map if the resource bundle does not exist, or null
+     * @throws Exception if the backend fails
+     */
+    Map<String, String> loadMessages(String resourceBundleName, Locale locale) throws Exception;
+
+    /**
+     * Loads a single message. Only called if
+     * {@link #loadMessages(String, Locale)} returned null.
+     *
+     * @param resourceBundleName the name of the resource bundle
+     * @param locale             the locale
+     * @param key                the key of the message
+     * @return the message or null if it does not exist
+     * @throws Exception if the backend fails
+     */
+    String loadMessage(String resourceBundleName, Locale locale, String key) throws Exception;
+}
@@ -0,0 +1,411 @@
+package jb5n.api.source;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import jb5n.api.JB5nException;
+import jb5n.api.JB5nException.Reason;
+import jb5n.internal.catalog.MessageCatalog;
+import jb5n.internal.catalog.MessageCatalogReference;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Caches the messages of a {@link MessageSource} per resource bundle and
+ * locale. The messages of a resource bundle are loaded when they are first
+ * accessed, if possible with a single call of
+ * {@link MessageSource#loadMessages(String, Locale)}; concurrent first
+ * requests wait for one load. A background thread
+ * maintains the cache:
+ * <ul>
+ * <li>Resource bundles older than the refresh interval are reloaded, while
+ * the old messages are still served.</li>
+ * <li>Resource bundles older than the time to live are evicted and loaded
+ * again on their next request, e.g. if refreshing failed.</li>
+ * <li>If more resource bundles are loaded than the maximum size, the ones
+ * loaded first are evicted.</li>
+ * <li>Resource bundles whose loading failed are loaded again, first on the
+ * next run and then with a delay that doubles with each failure, starting
+ * with the maintenance interval and limited to the refresh interval, if
+ * set.</li>
+ * </ul>
+ * One cache is usually shared by all handlers of a source, see
+ * {@link JB5nMessageSourceInvocationHandler}. Replacing the messages of a
+ * resource bundle only discards the resolved messages of the handlers of this
+ * cache.
+ */
+public class MessageSourceCache {
+    private static final Logger logger = LoggerFactory.getLogger(MessageSourceCache.class);
+    private final MessageSource messageSource;
+    private final ConcurrentMap<CacheKey, CacheEntry> entries = new ConcurrentHashMap<CacheKey, CacheEntry>();
+    private final AtomicLong generation = new AtomicLong();
+    private volatile long timeToLiveMillis = 0;
+    private volatile long refreshAfterMillis = 0;
+    private volatile int maximumSize = 0;
+    private long maintenanceIntervalMillis = 1000;
+    private ScheduledExecutorService maintenanceExecutor;
+
+    private static class CacheKey {
+        private final String resourceBundleName;
+        private final Locale locale;
+
+        private CacheKey(String resourceBundleName, Locale locale) {
+            this.resourceBundleName = resourceBundleName;
+            this.locale = locale;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * resourceBundleName.hashCode() + locale.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj)
+                return true;
+            if (!(obj instanceof CacheKey))
+                return false;
+            CacheKey other = (CacheKey) obj;
+            return resourceBundleName.equals(other.resourceBundleName) && locale.equals(other.locale);
+        }
+    }
+
+    /**
+     * The reference to the messages of one resource bundle and locale. It
+     * starts with an {@link EvictedCatalog}, so that the messages are only
+     * loaded once they are accessed.
+     */
+    private class CacheEntry extends MessageCatalogReference {
+        private volatile long loadedMillis;
+        private volatile int failures;
+        private volatile long retryMillis;
+
+        private CacheEntry(String resourceBundleName, Locale locale) {
+            super(resourceBundleName, locale, null, false, null);
+            set(new EvictedCatalog(this, -1));
+        }
+
+        private boolean isEvicted() {
+            return get() instanceof EvictedCatalog;
+        }
+
+        private void evict() {
+            replace(new EvictedCatalog(this, get().getVersion()));
+        }
+
+        /**
+         * Loads the messages of an evicted entry. Concurrent requests wait
+         * for the first one.
+         */
+        private synchronized MessageCatalog reload() {
+            MessageCatalog catalog = get();
+            if (catalog instanceof EvictedCatalog) {
+                catalog = load(getResourceBundleName(), getLocale(), catalog.getVersion() + 1);
+                loadedMillis = System.currentTimeMillis();
+                replace(catalog);
+                recordLoad(isFailed(catalog));
+            }
+            return catalog;
+        }
+
+        private void refresh() {
+            MessageCatalog oldCatalog = get();
+            MessageSourceCatalog catalog = load(getResourceBundleName(), getLocale(), oldCatalog.getVersion() + 1);
+            if (catalog.isFailed() && !isFailed(oldCatalog)) {
+                // keep serving the old messages until they expire
+                recordLoad(true);
+                return;
+            }
+            synchronized (this) {
+                if (get() == oldCatalog) {
+                    loadedMillis = System.currentTimeMillis();
+                    replace(catalog);
+                    recordLoad(catalog.isFailed());
+                }
+            }
+        }
+
+        private boolean isDue(long now) {
+            return now >= retryMillis;
+        }
+
+        private synchronized void recordLoad(boolean failed) {
+            if (failed) {
+                failures++;
+                retryMillis = System.currentTimeMillis() + getRetryDelayMillis(failures);
+            } else {
+                failures = 0;
+                retryMillis = 0;
+            }
+        }
+
+        private void replace(MessageCatalog catalog) {
+            set(catalog);
+            generation.incrementAndGet();
+        }
+    }
+
+    /**
+     * Placeholder of a resource bundle that has not been loaded yet or has
+     * been evicted. It loads the messages when it is accessed.
+     */
+    private static class EvictedCatalog extends MessageCatalog {
+        private final CacheEntry entry;
+
+        private EvictedCatalog(CacheEntry entry, long version) {
+            super(version);
+            this.entry = entry;
+        }
+
+        @Override
+        public String getMessage(String key) {
+            return entry.reload().getMessage(key);
+        }
+
+        @Override
+        public Enumeration<String> getKeys() {
+            return entry.reload().getKeys();
+        }
+
+        @Override
+        public boolean exists() {
+            return entry.reload().exists();
+        }
+    }
+
+    private static class MaintenanceThreadFactory implements ThreadFactory {
+
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "jb5n-message-source");
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+    public MessageSourceCache(MessageSource messageSource) {
+        if (messageSource == null) {
+            throw new JB5nException(Reason.InvalidArgument, "Argument messageSource should not be null.");
+        }
+        this.messageSource = messageSource;
+    }
+
+    /**
+     * Returns the reference to the cached messages of the given resource
+     * bundle. The messages are loaded when the catalog of the reference is
+     * accessed for the first time.
+     *
+     * @param resourceBundleName the name of the resource bundle
+     * @param locale             the locale
+     * @return the reference to the catalog
+     */
+    MessageCatalogReference getCatalog(String resourceBundleName, Locale locale) {
+        CacheKey key = new CacheKey(resourceBundleName, locale);
+        CacheEntry entry = entries.get(key);
+        if (entry == null) {
+            entry = new CacheEntry(resourceBundleName, locale);
+            CacheEntry existingEntry = entries.putIfAbsent(key, entry);
+            if (existingEntry != null) {
+                entry = existingEntry;
+            } else {
+                startMaintenance();
+            }
+        }
+        return entry;
+    }
+
+    /**
+     * Returns a counter that is incremented each time the messages of a
+     * resource bundle of this cache are replaced.
+     *
+     * @return the generation
+     */
+    long getGeneration() {
+        return generation.get();
+    }
+
+    private MessageSourceCatalog load(String resourceBundleName, Locale locale, long version) {
+        try {
+            Map<String, String> messages = messageSource.loadMessages(resourceBundleName, locale);
+            return new MessageSourceCatalog(messageSource, resourceBundleName, locale, messages, false, version);
+        } catch (Exception e) {
+            logger.warn(String.format("Failed to load resource bundle '%s' for locale '%s': %s", resourceBundleName, locale, e.getMessage()));
+            return new MessageSourceCatalog(messageSource, resourceBundleName, locale, null, true, version);
+        }
+    }
+
+    /**
+     * Returns the delay before a resource bundle is loaded again after the
+     * given number of failed loads in a row.
+     */
+    private long getRetryDelayMillis(int failures) {
+        if (failures <= 1) {
+            return 0;
+        }
+        long intervalMillis = getMaintenanceIntervalMillis();
+        long maximumDelayMillis = refreshAfterMillis > 0 ? refreshAfterMillis : 64 * intervalMillis;
+        return Math.min(intervalMillis << Math.min(failures - 2, 16), maximumDelayMillis);
+    }
+
+    private static boolean isFailed(MessageCatalog catalog) {
+        return catalog instanceof MessageSourceCatalog && ((MessageSourceCatalog) catalog).isFailed();
+    }
+
+    /**
+     * Refreshes, reloads and evicts the resource bundles as configured. This
+     * is done periodically by a background thread, but can also be triggered
+     * explicitly.
+     */
+    public void cleanUp() {
+        List<CacheEntry> loadedEntries = new ArrayList<CacheEntry>();
+        for (CacheEntry entry : entries.values()) {
+            if (entry.isEvicted()) {
+                continue;
+            }
+            long now = System.currentTimeMillis();
+            long age = now - entry.loadedMillis;
+            if ((isFailed(entry.get()) || (refreshAfterMillis > 0 && age >= refreshAfterMillis)) && entry.isDue(now)) {
+                entry.refresh();
+            }
+            if (timeToLiveMillis > 0 && System.currentTimeMillis() - entry.loadedMillis >= timeToLiveMillis) {
+                entry.evict();
+            } else {
+                loadedEntries.add(entry);
+            }
+        }
+        int excessEntries = maximumSize > 0 ? loadedEntries.size() - maximumSize : 0;
+        if (excessEntries > 0) {
+            Collections.sort(loadedEntries, new Comparator<CacheEntry>() {
+                public int compare(CacheEntry entry1, CacheEntry entry2) {
+                    return entry1.loadedMillis < entry2.loadedMillis ? -1 : (entry1.loadedMillis == entry2.loadedMillis ? 0 : 1);
+                }
+            });
+            for (int i = 0; i < excessEntries; i++) {
+                loadedEntries.get(i).evict();
+            }
+        }
+    }
+
+    /**
+     * Evicts all resource bundles, so that they are loaded again on their
+     * next request.
+     */
+    public void invalidateAll() {
+        for (CacheEntry entry : entries.values()) {
+            if (!entry.isEvicted()) {
+                entry.evict();
+            }
+        }
+    }
+
+    /**
+     * Returns the number of resource bundles whose messages are currently
+     * loaded.
+     *
+     * @return the number of loaded resource bundles
+     */
+    public int size() {
+        int size = 0;
+        for (CacheEntry entry : entries.values()) {
+            if (!entry.isEvicted()) {
+                size++;
+            }
+        }
+        return size;
+    }
+
+    private synchronized void startMaintenance() {
+        if (maintenanceExecutor == null) {
+            maintenanceExecutor = Executors.newSingleThreadScheduledExecutor(new MaintenanceThreadFactory());
+            maintenanceExecutor.scheduleWithFixedDelay(new Runnable() {
+                public void run() {
+                    try {
+                        cleanUp();
+                    } catch (RuntimeException e) {
+                        logger.warn("Failed to maintain the message source cache: " + e.getMessage(), e);
+                    }
+                }
+            }, maintenanceIntervalMillis, maintenanceIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Stops the background thread. It is started again when the next
+     * resource bundle is loaded.
+     */
+    public synchronized void shutdown() {
+        if (maintenanceExecutor != null) {
+            maintenanceExecutor.shutdownNow();
+            maintenanceExecutor = null;
+        }
+    }
+
+    public long getTimeToLiveMillis() {
+        return timeToLiveMillis;
+    }
+
+    /**
+     * Sets the time after loading after which the messages of a resource
+     * bundle are evicted, unless they have been refreshed before.
+     *
+     * @param timeToLiveMillis the time in milliseconds or 0 to never evict messages
+     */
+    public void setTimeToLiveMillis(long timeToLiveMillis) {
+        this.timeToLiveMillis = timeToLiveMillis;
+    }
+
+    public long getRefreshAfterMillis() {
+        return refreshAfterMillis;
+    }
+
+    /**
+     * Sets the time after loading after which the messages of a resource
+     * bundle are reloaded in the background. Until the reload has finished,
+     * the old messages are returned.
+     *
+     * @param refreshAfterMillis the time in milliseconds or 0 to never refresh messages
+     */
+    public void setRefreshAfterMillis(long refreshAfterMillis) {
+        this.refreshAfterMillis = refreshAfterMillis;
+    }
+
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    /**
+     * Sets the maximum number of resource bundles whose messages are kept
+     * loaded.
+     *
+     * @param maximumSize the maximum number or 0 for no limit
+     */
+    public void setMaximumSize(int maximumSize) {
+        this.maximumSize = maximumSize;
+    }
+
+    public synchronized long getMaintenanceIntervalMillis() {
+        return maintenanceIntervalMillis;
+    }
+
+    /**
+     * Sets the interval in which the background thread checks the resource
+     * bundles. It takes effect when the thread is started.
+     *
+     * @param maintenanceIntervalMillis the interval in milliseconds
+     */
+    public synchronized void setMaintenanceIntervalMillis(long maintenanceIntervalMillis) {
+        this.maintenanceIntervalMillis = maintenanceIntervalMillis;
+    }
+}
@@ -0,0 +1,94 @@
+package jb5n.api.source;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import jb5n.internal.catalog.MessageCatalog;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The messages of one resource bundle and locale loaded from a
+ * {@link MessageSource}. If the source loads all messages at once, the catalog
+ * is an immutable snapshot; otherwise each message is loaded on its first
+ * request and remembered, including the missing ones.
+ */
+class MessageSourceCatalog extends MessageCatalog {
+    private static final Logger logger = LoggerFactory.getLogger(MessageSourceCatalog.class);
+    private static final String MISSING = new String("missing");
+    private final MessageSource messageSource;
+    private final String resourceBundleName;
+    private final Locale locale;
+    private final Map<String, String> messages;
+    private final ConcurrentMap<String, String> loadedMessages;
+    private final boolean failed;
+
+    MessageSourceCatalog(MessageSource messageSource, String resourceBundleName, Locale locale, Map<String, String> messages, boolean failed, long version) {
+        super(version);
+        this.messageSource = messageSource;
+        this.resourceBundleName = resourceBundleName;
+        this.locale = locale;
+        this.messages = messages;
+        this.loadedMessages = messages == null && !failed ? new ConcurrentHashMap<String, String>() : null;
+        this.failed = failed;
+    }
+
+    @Override
+    public String getMessage(String key) {
+        if (messages != null) {
+            return messages.get(key);
+        }
+        if (failed) {
+            return null;
+        }
+        String message = loadedMessages.get(key);
+        if (message == null) {
+            try {
+                message = messageSource.loadMessage(resourceBundleName, locale, key);
+            } catch (Exception e) {
+                logger.warn(String.format("Failed to load message '%s' of resource bundle '%s' for locale '%s': %s", key, resourceBundleName, locale, e.getMessage()));
+                return null;
+            }
+            loadedMessages.putIfAbsent(key, message != null ? message : MISSING);
+        }
+        return message != MISSING ? message : null;
+    }
+
+    @Override
+    public Enumeration<String> getKeys() {
+        if (messages != null) {
+            return Collections.enumeration(messages.keySet());
+        }
+        List<String> keys = new ArrayList<String>();
+        if (loadedMessages != null) {
+            for (Map.Entry<String, String> entry : loadedMessages.entrySet()) {
+                if (entry.getValue() != MISSING) {
+                    keys.add(entry.getKey());
+                }
+            }
+        }
+        return Collections.enumeration(keys);
+    }
+
+    @Override
+    public boolean exists() {
+        return !failed && (messages == null || !messages.isEmpty());
+    }
+
+    /**
+     * Returns true if the source failed to load the messages, so that the
+     * catalog is empty.
+     *
+     * @return true if loading failed
+     */
+    boolean isFailed() {
+        return failed;
+    }
+}
@@ -0,0 +1,387 @@
+package jb5n.internal;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javassist.bytecode.AccessFlag;
+import javassist.bytecode.Bytecode;
+import javassist.bytecode.ClassFile;
+import javassist.bytecode.ConstPool;
+import javassist.bytecode.FieldInfo;
+import javassist.bytecode.MethodInfo;
+import javassist.bytecode.Opcode;
+import jb5n.api.JB5nException;
+import jb5n.api.JB5nException.Reason;
+import jb5n.api.JB5nInvocationHandler;
+import jb5n.api.properties.JB5nPropertiesInvocationHandler;
+import jb5n.api.properties.MethodDescriptor;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Generates an implementation class of a MessageResource interface at runtime
+ * for each combination of interface and invocation handler class. Each method
+ * of the generated class is bound to a precomputed slot: the
+ * {@link JB5nPropertiesInvocationHandler} is called directly with the
+ * {@link MethodDescriptor} of the method, all other handlers are called via
+ * {@link JB5nInvocationHandler#invoke(Object, Method, Object[])} with the
+ * Method of the slot. In contrast to a proxy, the methods equals(), hashCode()
+ * and toString() are not passed to the handler.
+ * <p>
+ * The generated classes and their constructors are kept per interface in a
+ * {@link ClassValueMap}, so that they are looked up without locking and are
+ * not generated again when their instances are collected. As the map holds
+ * them softly, they do not prevent the class loader of the interface from
+ * being unloaded.
+ */
+public class BytecodeImplementations {
+    private static final Logger logger = LoggerFactory.getLogger(BytecodeImplementations.class);
+    private static final String HANDLER_FIELD = "handler";
+    private static final String SLOTS_FIELD = "SLOTS";
+    private static final Implementation NO_IMPLEMENTATION = new Implementation(null);
+    private static final AtomicInteger classCounter = new AtomicInteger();
+    private static final ClassValueMap<ConcurrentMap<Class<?>, Implementation>> implementations = new ClassValueMap<ConcurrentMap<Class<?>, Implementation>>() {
+        @Override
+        protected ConcurrentMap<Class<?>, Implementation> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<Class<?>, Implementation>();
+        }
+    };
+
+    /**
+     * The generated class of an interface for a handler class, or none if no
+     * class can be generated for them.
+     */
+    private static class Implementation {
+        private final Constructor<?> constructor;
+
+        private Implementation(Constructor<?> constructor) {
+            this.constructor = constructor;
+        }
+    }
+
+    private static class BytecodeClassLoader extends ClassLoader {
+
+        private BytecodeClassLoader(ClassLoader parent) {
+            super(parent);
+        }
+
+        private Class<?> defineClass(String name, byte[] bytecode) {
+            return defineClass(name, bytecode, 0, bytecode.length);
+        }
+    }
+
+    /**
+     * Creates an instance of the generated implementation of the given
+     * interface that delegates to the given handler.
+     *
+     * @param clazz             the MessageResource interface
+     * @param invocationHandler the handler
+     * @return the instance or null if no class can be generated for the interface
+     */
+    public static <T> T newInstance(Class<T> clazz, JB5nInvocationHandler invocationHandler) {
+        Constructor<?> constructor = getImplementation(clazz, invocationHandler.getClass()).constructor;
+        if (constructor == null) {
+            return null;
+        }
+        try {
+            Object instance = constructor.newInstance(invocationHandler);
+            return clazz.cast(instance);
+        } catch (Exception e) {
+            throw new JB5nException(Reason.InternalError, String.format("Creating an instance of the generated class %s failed: %s", constructor.getDeclaringClass().getName(), e.getMessage()), e);
+        }
+    }
+
+    /**
+     * Returns the handler the given instance delegates to if it is an
+     * instance of a generated class.
+     *
+     * @param instance the instance
+     * @return the handler or null if the instance is not of a generated class
+     */
+    public static JB5nInvocationHandler getInvocationHandler(Object instance) {
+        if (!(instance.getClass().getClassLoader() instanceof BytecodeClassLoader)) {
+            return null;
+        }
+        return (JB5nInvocationHandler) GeneratedImplementations.getFieldValue(instance.getClass(), HANDLER_FIELD, instance);
+    }
+
+    /**
+     * Returns the descriptors the methods of the given generated class pass
+     * to a {@link JB5nPropertiesInvocationHandler}.
+     *
+     * @param implementationClass the generated class
+     * @return the descriptors or null if the methods call invoke() instead
+     */
+    public static MethodDescriptor[] getMethodDescriptors(Class<?> implementationClass) {
+        Object slots = GeneratedImplementations.getFieldValue(implementationClass, SLOTS_FIELD, null);
+        return slots instanceof MethodDescriptor[] ? (MethodDescriptor[]) slots : null;
+    }
+
+    /**
+     * Returns the implementation of the given interface for the given handler
+     * class. It is generated on the first call; concurrent first calls may
+     * both generate a class, but only one of them is kept.
+     */
+    private static Implementation getImplementation(Class<?> clazz, Class<?> handlerClass) {
+        ConcurrentMap<Class<?>, Implementation> implementationsOfInterface = implementations.get(clazz);
+        Implementation implementation = implementationsOfInterface.get(handlerClass);
+        if (implementation == null) {
+            implementation = generate(clazz, handlerClass);
+            Implementation existingImplementation = implementationsOfInterface.putIfAbsent(handlerClass, implementation);
+            if (existingImplementation != null) {
+                implementation = existingImplementation;
+            }
+        }
+        return implementation;
+    }
+
+    private static Implementation generate(Class<?> clazz, Class<?> handlerClass) {
+        ClassLoader classLoader = clazz.getClassLoader();
+        if (!isAccessible(clazz) || !isAccessible(handlerClass) || !isVisible(JB5nInvocationHandler.class, classLoader) || !isVisible(handlerClass, classLoader)) {
+            logger.debug(String.format("Cannot generate an implementation of %s for %s, a proxy is used instead.", clazz.getName(), handlerClass.getName()));
+            return NO_IMPLEMENTATION;
+        }
+        Method[] methods = getAbstractMethods(clazz);
+        boolean propertiesHandler = GeneratedImplementations.callsGetMessage(handlerClass);
+        Object[] slots;
+        if (propertiesHandler) {
+            MethodDescriptor[] methodDescriptors = MethodDescriptor.forMethods(clazz, methods);
+            slots = methodDescriptors;
+        } else {
+            slots = methods;
+        }
+        String className = clazz.getName() + "$$JB5n" + classCounter.incrementAndGet();
+        try {
+            byte[] bytecode = generateBytecode(className, clazz, handlerClass, methods, propertiesHandler);
+            Class<?> implementationClass = new BytecodeClassLoader(classLoader).defineClass(className, bytecode);
+            Field slotsField = implementationClass.getDeclaredField(SLOTS_FIELD);
+            slotsField.setAccessible(true);
+            slotsField.set(null, slots);
+            logger.debug(String.format("Generated class %s for %s.", className, clazz.getName()));
+            return new Implementation(implementationClass.getConstructor(handlerClass));
+        } catch (Exception e) {
+            throw new JB5nException(Reason.InternalError, String.format("Generating an implementation of %s failed: %s", clazz.getName(), e.getMessage()), e);
+        }
+    }
+
+    private static byte[] generateBytecode(String className, Class<?> clazz, Class<?> handlerClass, Method[] methods, boolean propertiesHandler) throws IOException {
+        ClassFile classFile = new ClassFile(false, className, Object.class.getName());
+        classFile.setMajorVersion(ClassFile.JAVA_5);
+        classFile.setAccessFlags(AccessFlag.PUBLIC | AccessFlag.FINAL | AccessFlag.SUPER);
+        classFile.setInterfaces(new String[]{clazz.getName()});
+        ConstPool constPool = classFile.getConstPool();
+        String handlerDescriptor = descriptorOf(handlerClass);
+        String slotsDescriptor = descriptorOf(propertiesHandler ? MethodDescriptor[].class : Method[].class);
+        addField(classFile, AccessFlag.PRIVATE | AccessFlag.FINAL, HANDLER_FIELD, handlerDescriptor);
+        addField(classFile, AccessFlag.PRIVATE | AccessFlag.STATIC, SLOTS_FIELD, slotsDescriptor);
+
+        MethodInfo constructor = new MethodInfo(constPool, MethodInfo.nameInit, "(" + handlerDescriptor + ")V");
+        constructor.setAccessFlags(AccessFlag.PUBLIC);
+        Bytecode code = new Bytecode(constPool);
+        code.addAload(0);
+        code.addInvokespecial(Object.class.getName(), MethodInfo.nameInit, "()V");
+        code.addAload(0);
+        code.addAload(1);
+        code.addPutfield(className, HANDLER_FIELD, handlerDescriptor);
+        code.addOpcode(Opcode.RETURN);
+        code.setMaxLocals(2);
+        constructor.setCodeAttribute(code.toCodeAttribute());
+        classFile.addMethod2(constructor);
+
+        for (int i = 0; i < methods.length; i++) {
+            Method method = methods[i];
+            Class<?>[] parameterTypes = method.getParameterTypes();
+            StringBuilder methodDescriptor = new StringBuilder("(");
+            for (Class<?> parameterType : parameterTypes) {
+                methodDescriptor.append(descriptorOf(parameterType));
+            }
+            methodDescriptor.append(")").append(descriptorOf(String.class));
+            MethodInfo methodInfo = new MethodInfo(constPool, method.getName(), methodDescriptor.toString());
+            methodInfo.setAccessFlags(AccessFlag.PUBLIC);
+            code = new Bytecode(constPool);
+            int start = code.currentPc();
+            code.addAload(0);
+            code.addGetfield(className, HANDLER_FIELD, handlerDescriptor);
+            if (!propertiesHandler) {
+                code.addAload(0);
+            }
+            code.addGetstatic(className, SLOTS_FIELD, slotsDescriptor);
+            code.addIconst(i);
+            code.addOpcode(Opcode.AALOAD);
+            int locals = addArguments(code, parameterTypes);
+            if (propertiesHandler) {
+                code.addInvokevirtual(handlerClass.getName(), "getMessage", "(" + descriptorOf(MethodDescriptor.class) + "[Ljava/lang/Object;)Ljava/lang/String;");
+                code.addOpcode(Opcode.ARETURN);
+            } else {
+                code.addInvokevirtual(handlerClass.getName(), "invoke", "(Ljava/lang/Object;Ljava/lang/reflect/Method;[Ljava/lang/Object;)Ljava/lang/Object;");
+                code.addCheckcast(String.class.getName());
+                int end = code.currentPc();
+                code.addOpcode(Opcode.ARETURN);
+                addUndeclaredThrowableHandler(code, method, start, end, locals);
+                locals++;
+            }
+            code.setMaxLocals(locals);
+            methodInfo.setCodeAttribute(code.toCodeAttribute());
+            classFile.addMethod2(methodInfo);
+        }
+        ByteArrayOutputStream bytecode = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytecode);
+        classFile.write(out);
+        out.close();
+        return bytecode.toByteArray();
+    }
+
+    private static int addArguments(Bytecode code, Class<?>[] parameterTypes) {
+        int local = 1;
+        if (parameterTypes.length == 0) {
+            code.addOpcode(Opcode.ACONST_NULL);
+            return local;
+        }
+        code.addIconst(parameterTypes.length);
+        code.addAnewarray(Object.class.getName());
+        for (int i = 0; i < parameterTypes.length; i++) {
+            Class<?> parameterType = parameterTypes[i];
+            code.addOpcode(Opcode.DUP);
+            code.addIconst(i);
+            if (parameterType == long.class) {
+                code.addLload(local);
+                local += 2;
+            } else if (parameterType == double.class) {
+                code.addDload(local);
+                local += 2;
+            } else if (parameterType == float.class) {
+                code.addFload(local++);
+            } else if (parameterType.isPrimitive()) {
+                code.addIload(local++);
+            } else {
+                code.addAload(local++);
+            }
+            if (parameterType.isPrimitive()) {
+                Class<?> wrapperType = getWrapperType(parameterType);
+                code.addInvokestatic(wrapperType.getName(), "valueOf", "(" + descriptorOf(parameterType) + ")" + descriptorOf(wrapperType));
+            }
+            code.addOpcode(Opcode.AASTORE);
+        }
+        return local;
+    }
+
+    /**
+     * Like a proxy, rethrows unchecked exceptions and the exceptions declared
+     * by the method and wraps all other exceptions into an
+     * {@link UndeclaredThrowableException}.
+     */
+    private static void addUndeclaredThrowableHandler(Bytecode code, Method method, int start, int end, int local) {
+        int rethrow = code.currentPc();
+        code.setStackDepth(1);
+        code.addOpcode(Opcode.ATHROW);
+        code.addExceptionHandler(start, end, rethrow, RuntimeException.class.getName());
+        code.addExceptionHandler(start, end, rethrow, Error.class.getName());
+        for (Class<?> exceptionType : method.getExceptionTypes()) {
+            code.addExceptionHandler(start, end, rethrow, exceptionType.getName());
+        }
+        int wrap = code.currentPc();
+        code.setStackDepth(1);
+        code.addAstore(local);
+        code.addNew(UndeclaredThrowableException.class.getName());
+        code.addOpcode(Opcode.DUP);
+        code.addAload(local);
+        code.addInvokespecial(UndeclaredThrowableException.class.getName(), MethodInfo.nameInit, "(Ljava/lang/Throwable;)V");
+        code.addOpcode(Opcode.ATHROW);
+        code.addExceptionHandler(start, end, wrap, Throwable.class.getName());
+    }
+
+    private static void addField(ClassFile classFile, int accessFlags, String name, String descriptor) {
+        FieldInfo fieldInfo = new FieldInfo(classFile.getConstPool(), name, descriptor);
+        fieldInfo.setAccessFlags(accessFlags);
+        classFile.addField2(fieldInfo);
+    }
+
+    private static Method[] getAbstractMethods(Class<?> clazz) {
+        Map<String, Method> methods = new LinkedHashMap<String, Method>();
+        for (Method method : clazz.getMethods()) {
+            String signature = method.getName() + Arrays.toString(method.getParameterTypes());
+            if (Modifier.isAbstract(method.getModifiers()) && !methods.containsKey(signature)) {
+                methods.put(signature, method);
+            }
+        }
+        return methods.values().toArray(new Method[methods.size()]);
+    }
+
+    private static boolean isAccessible(Class<?> clazz) {
+        for (Class<?> c = clazz; c != null; c = c.getDeclaringClass()) {
+            if (!Modifier.isPublic(c.getModifiers())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isVisible(Class<?> clazz, ClassLoader classLoader) {
+        if (classLoader == null) {
+            return false;
+        }
+        try {
+            return Class.forName(clazz.getName(), false, classLoader) == clazz;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    private static Class<?> getWrapperType(Class<?> primitiveType) {
+        if (primitiveType == int.class) {
+            return Integer.class;
+        } else if (primitiveType == long.class) {
+            return Long.class;
+        } else if (primitiveType == boolean.class) {
+            return Boolean.class;
+        } else if (primitiveType == double.class) {
+            return Double.class;
+        } else if (primitiveType == float.class) {
+            return Float.class;
+        } else if (primitiveType == char.class) {
+            return Character.class;
+        } else if (primitiveType == byte.class) {
+            return Byte.class;
+        }
+        return Short.class;
+    }
+
+    private static String descriptorOf(Class<?> type) {
+        if (type.isArray()) {
+            return type.getName().replace('.', '/');
+        } else if (type.isPrimitive()) {
+            if (type == int.class) {
+                return "I";
+            } else if (type == long.class) {
+                return "J";
+            } else if (type == boolean.class) {
+                return "Z";
+            } else if (type == double.class) {
+                return "D";
+            } else if (type == float.class) {
+                return "F";
+            } else if (type == char.class) {
+                return "C";
+            } else if (type == byte.class) {
+                return "B";
+            } else if (type == short.class) {
+                return "S";
+            }
+            return "V";
+        }
+        return "L" + type.getName().replace('.', '/') + ";";
+    }
+}
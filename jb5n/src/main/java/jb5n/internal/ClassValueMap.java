@@ -0,0 +1,136 @@
+package jb5n.internal;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Associates a lazily computed value with a class, like ClassValue of Java 7,
+ * which is not available on the supported Java versions. Lookups do not lock.
+ * The classes are only weakly and the values only softly referenced, so that
+ * a value that references its class does not prevent the class from being
+ * unloaded. A value that has been cleared is computed again.
+ *
+ * @param <V> the type of the values
+ */
+public abstract class ClassValueMap<V> {
+    private final ConcurrentMap<ClassKey, Reference<V>> values = new ConcurrentHashMap<ClassKey, Reference<V>>();
+    private final ReferenceQueue<Class<?>> referenceQueue = new ReferenceQueue<Class<?>>();
+
+    private static abstract class ClassKey {
+
+        abstract Class<?> getType();
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj)
+                return true;
+            if (!(obj instanceof ClassKey))
+                return false;
+            Class<?> type = getType();
+            return type != null && type == ((ClassKey) obj).getType();
+        }
+    }
+
+    private static class LookupKey extends ClassKey {
+        private final Class<?> type;
+
+        private LookupKey(Class<?> type) {
+            this.type = type;
+        }
+
+        @Override
+        Class<?> getType() {
+            return type;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(type);
+        }
+    }
+
+    private static class WeakKey extends ClassKey {
+        private final KeyReference reference;
+        private final int hashCode;
+
+        private WeakKey(Class<?> type, ReferenceQueue<Class<?>> referenceQueue) {
+            this.reference = new KeyReference(type, this, referenceQueue);
+            this.hashCode = System.identityHashCode(type);
+        }
+
+        @Override
+        Class<?> getType() {
+            return reference.get();
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    private static class KeyReference extends WeakReference<Class<?>> {
+        private final WeakKey key;
+
+        private KeyReference(Class<?> type, WeakKey key, ReferenceQueue<Class<?>> referenceQueue) {
+            super(type, referenceQueue);
+            this.key = key;
+        }
+    }
+
+    /**
+     * Computes the value for the given class. It may be called concurrently
+     * for the same class; only one of the results is kept.
+     *
+     * @param type the class
+     * @return the value, not null
+     */
+    protected abstract V computeValue(Class<?> type);
+
+    /**
+     * Returns the value of the given class and computes it if necessary.
+     *
+     * @param type the class
+     * @return the value
+     */
+    public V get(Class<?> type) {
+        Reference<V> reference = values.get(new LookupKey(type));
+        V value = reference != null ? reference.get() : null;
+        if (value != null) {
+            return value;
+        }
+        expungeStaleEntries();
+        value = computeValue(type);
+        WeakKey key = new WeakKey(type, referenceQueue);
+        Reference<V> newReference = new SoftReference<V>(value);
+        while (true) {
+            Reference<V> existingReference = values.putIfAbsent(key, newReference);
+            if (existingReference == null) {
+                return value;
+            }
+            V existingValue = existingReference.get();
+            if (existingValue != null) {
+                return existingValue;
+            }
+            if (values.replace(key, existingReference, newReference)) {
+                return value;
+            }
+        }
+    }
+
+    private void expungeStaleEntries() {
+        Reference<? extends Class<?>> reference;
+        while ((reference = referenceQueue.poll()) != null) {
+            values.remove(((KeyReference) reference).key);
+        }
+    }
+
+    public int size() {
+        expungeStaleEntries();
+        return values.size();
+    }
+}
@@ -0,0 +1,104 @@
+package jb5n.internal;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import jb5n.api.JB5nException;
+import jb5n.api.JB5nException.Reason;
+import jb5n.api.JB5nInvocationHandler;
+import jb5n.api.LocaleContext;
+
+/**
+ * Holds one invocation handler per locale for an instance created by
+ * {@link jb5n.api.JB5n#createContextualInstance(Class, LocaleContext)}. The
+ * handler for the locale of the current context is looked up without
+ * locking; handlers are created on the first call for a locale.
+ */
+public class ContextualHandlers {
+    /**
+     * The locale of a context may come from a request, so the number of
+     * cached handlers is limited. For further locales the least recently
+     * used handler is replaced.
+     */
+    static final int MAXIMUM_LOCALES = 256;
+    private final Class<? extends JB5nInvocationHandler> invocationHandlerClass;
+    private final ClassLoader classLoader;
+    private final LocaleContext localeContext;
+    private final ConcurrentMap<Locale, HandlerEntry> invocationHandlers = new ConcurrentHashMap<Locale, HandlerEntry>();
+
+    private static class HandlerEntry {
+        private final JB5nInvocationHandler invocationHandler;
+        private volatile long lastUse;
+
+        private HandlerEntry(JB5nInvocationHandler invocationHandler) {
+            this.invocationHandler = invocationHandler;
+            this.lastUse = System.currentTimeMillis();
+        }
+    }
+
+    public ContextualHandlers(Class<? extends JB5nInvocationHandler> invocationHandlerClass, ClassLoader classLoader, LocaleContext localeContext) {
+        this.invocationHandlerClass = invocationHandlerClass;
+        this.classLoader = classLoader;
+        this.localeContext = localeContext;
+    }
+
+    /**
+     * Returns the handler for the locale of the current context.
+     *
+     * @return the invocation handler
+     */
+    public JB5nInvocationHandler getInvocationHandler() {
+        Locale locale = localeContext.getLocale();
+        if (locale == null) {
+            locale = Locale.getDefault();
+        }
+        HandlerEntry entry = invocationHandlers.get(locale);
+        if (entry != null) {
+            long now = System.currentTimeMillis();
+            if (entry.lastUse != now) {
+                entry.lastUse = now;
+            }
+            return entry.invocationHandler;
+        }
+        if (invocationHandlers.size() >= MAXIMUM_LOCALES) {
+            evictLeastRecentlyUsed();
+        }
+        entry = new HandlerEntry(createInvocationHandler(locale));
+        HandlerEntry existingEntry = invocationHandlers.putIfAbsent(locale, entry);
+        return existingEntry != null ? existingEntry.invocationHandler : entry.invocationHandler;
+    }
+
+    /**
+     * Removes the handler that has not been used for the longest time. It is
+     * only called for locales beyond the maximum, so the scan is bounded.
+     */
+    private void evictLeastRecentlyUsed() {
+        Map.Entry<Locale, HandlerEntry> leastRecentlyUsed = null;
+        for (Map.Entry<Locale, HandlerEntry> entry : invocationHandlers.entrySet()) {
+            if (leastRecentlyUsed == null || entry.getValue().lastUse < leastRecentlyUsed.getValue().lastUse) {
+                leastRecentlyUsed = entry;
+            }
+        }
+        if (leastRecentlyUsed != null) {
+            invocationHandlers.remove(leastRecentlyUsed.getKey(), leastRecentlyUsed.getValue());
+        }
+    }
+
+    int size() {
+        return invocationHandlers.size();
+    }
+
+    private JB5nInvocationHandler createInvocationHandler(Locale locale) {
+        JB5nInvocationHandler invocationHandler;
+        try {
+            invocationHandler = invocationHandlerClass.newInstance();
+        } catch (Exception e) {
+            throw new JB5nException(Reason.InvalidArgument, String.format("Creating an instance of %s failed: %s", invocationHandlerClass.getSimpleName(), e.getMessage()), e);
+        }
+        invocationHandler.setLocale(locale);
+        invocationHandler.setClassLoader(classLoader);
+        return invocationHandler;
+    }
+}
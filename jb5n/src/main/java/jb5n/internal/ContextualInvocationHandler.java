@@ -0,0 +1,21 @@
+package jb5n.internal;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+
+/**
+ * Proxy handler of contextual instances whose invocation handler is not a
+ * {@link jb5n.api.properties.JB5nPropertiesInvocationHandler}. Each call is
+ * delegated to the handler for the locale of the context.
+ */
+public class ContextualInvocationHandler implements InvocationHandler {
+    private final ContextualHandlers contextualHandlers;
+
+    public ContextualInvocationHandler(ContextualHandlers contextualHandlers) {
+        this.contextualHandlers = contextualHandlers;
+    }
+
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        return contextualHandlers.getInvocationHandler().invoke(proxy, method, args);
+    }
+}
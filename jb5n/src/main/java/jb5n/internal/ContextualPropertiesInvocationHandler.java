@@ -0,0 +1,45 @@
+package jb5n.internal;
+
+import java.lang.reflect.Method;
+
+import jb5n.api.properties.JB5nPropertiesInvocationHandler;
+import jb5n.api.properties.MethodDescriptor;
+
+/**
+ * Handler of contextual instances whose invocation handler is a
+ * {@link JB5nPropertiesInvocationHandler}. As it is one itself, it can be
+ * used with generated implementation classes. Each message is retrieved from
+ * the handler for the locale of the context.
+ */
+public class ContextualPropertiesInvocationHandler extends JB5nPropertiesInvocationHandler {
+    private final ContextualHandlers contextualHandlers;
+
+    public ContextualPropertiesInvocationHandler(ContextualHandlers contextualHandlers) {
+        this.contextualHandlers = contextualHandlers;
+    }
+
+    @Override
+    public String getMessage(MethodDescriptor methodDescriptor, Object[] methodArgs) {
+        return ((JB5nPropertiesInvocationHandler) contextualHandlers.getInvocationHandler()).getMessage(methodDescriptor, methodArgs);
+    }
+
+    @Override
+    public void appendMessage(MethodDescriptor methodDescriptor, Object[] methodArgs, StringBuffer result) {
+        ((JB5nPropertiesInvocationHandler) contextualHandlers.getInvocationHandler()).appendMessage(methodDescriptor, methodArgs, result);
+    }
+
+    @Override
+    public void appendMessage(MethodDescriptor methodDescriptor, Object[] methodArgs, String[] convertedArguments, StringBuffer result) {
+        ((JB5nPropertiesInvocationHandler) contextualHandlers.getInvocationHandler()).appendMessage(methodDescriptor, methodArgs, convertedArguments, result);
+    }
+
+    @Override
+    public String getPattern(MethodDescriptor methodDescriptor) {
+        return ((JB5nPropertiesInvocationHandler) contextualHandlers.getInvocationHandler()).getPattern(methodDescriptor);
+    }
+
+    @Override
+    public boolean preload(Class<?> messageResource, Method method) {
+        return ((JB5nPropertiesInvocationHandler) contextualHandlers.getInvocationHandler()).preload(messageResource, method);
+    }
+}
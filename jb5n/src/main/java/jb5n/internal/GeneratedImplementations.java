@@ -0,0 +1,144 @@
+package jb5n.internal;
+
+import java.lang.ref.Reference;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import jb5n.api.JB5nException;
+import jb5n.api.JB5nException.Reason;
+import jb5n.api.properties.JB5nPropertiesInvocationHandler;
+import jb5n.api.properties.MethodDescriptor;
+
+/**
+ * Looks up the implementations of MessageResource interfaces that have been
+ * generated at compile time by the jb5n annotation processor. The generated
+ * class resides in the package of the interface and has a public constructor
+ * that takes the {@link JB5nPropertiesInvocationHandler}. It keeps the
+ * handler in the field <code>handler</code> and the descriptors of its methods
+ * in the static field <code>METHODS</code>, so that they can be preloaded.
+ */
+public class GeneratedImplementations {
+    public static final String CLASS_NAME_SUFFIX = "_JB5n";
+    private static final String HANDLER_FIELD = "handler";
+    private static final String METHODS_FIELD = "METHODS";
+    private static final Reference<Class<?>> NO_IMPLEMENTATION = new WeakReference<Class<?>>(null);
+    private static final Map<Class<?>, Reference<Class<?>>> implementations = Collections.synchronizedMap(new WeakHashMap<Class<?>, Reference<Class<?>>>());
+
+    /**
+     * Derives the name of the generated class from the binary name of the
+     * interface, e.g. <code>a.b.Outer$Inner</code> becomes
+     * <code>a.b.Outer_Inner_JB5n</code>.
+     *
+     * @param interfaceName the binary name of the interface
+     * @return the binary name of the generated class
+     */
+    public static String getImplementationClassName(String interfaceName) {
+        int packageEnd = interfaceName.lastIndexOf('.');
+        String packagePrefix = interfaceName.substring(0, packageEnd + 1);
+        String simpleName = interfaceName.substring(packageEnd + 1).replace('$', '_');
+        return packagePrefix + simpleName + CLASS_NAME_SUFFIX;
+    }
+
+    /**
+     * Creates an instance of the generated implementation of the given
+     * interface.
+     *
+     * @param clazz             the MessageResource interface
+     * @param invocationHandler the handler the generated class delegates to
+     * @return the instance or null if no implementation has been generated
+     */
+    public static <T> T newInstance(Class<T> clazz, JB5nPropertiesInvocationHandler invocationHandler) {
+        Class<?> implementationClass = findImplementation(clazz);
+        if (implementationClass == null) {
+            return null;
+        }
+        try {
+            Object instance = implementationClass.getConstructor(JB5nPropertiesInvocationHandler.class).newInstance(invocationHandler);
+            return clazz.cast(instance);
+        } catch (Exception e) {
+            throw new JB5nException(Reason.InternalError, String.format("Creating an instance of the generated class %s failed: %s", implementationClass.getName(), e.getMessage()), e);
+        }
+    }
+
+    /**
+     * Returns true if generated classes can call
+     * {@link JB5nPropertiesInvocationHandler#getMessage(jb5n.api.properties.MethodDescriptor, Object[])}
+     * of the given handler instead of invoke(), i.e. if the handler is a
+     * {@link JB5nPropertiesInvocationHandler} that does not override invoke().
+     *
+     * @param handlerClass the class of the invocation handler
+     * @return true if the handler can be called via getMessage()
+     */
+    public static boolean callsGetMessage(Class<?> handlerClass) {
+        if (!JB5nPropertiesInvocationHandler.class.isAssignableFrom(handlerClass)) {
+            return false;
+        }
+        try {
+            return handlerClass.getMethod("invoke", Object.class, Method.class, Object[].class).getDeclaringClass() == JB5nPropertiesInvocationHandler.class;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Returns the handler the given instance delegates to if it is an
+     * instance of the generated implementation of the given interface.
+     *
+     * @param clazz    the MessageResource interface
+     * @param instance the instance
+     * @return the handler or null if the instance is not of a generated class
+     */
+    public static JB5nPropertiesInvocationHandler getInvocationHandler(Class<?> clazz, Object instance) {
+        if (instance.getClass() != findImplementation(clazz)) {
+            return null;
+        }
+        return (JB5nPropertiesInvocationHandler) getFieldValue(instance.getClass(), HANDLER_FIELD, instance);
+    }
+
+    /**
+     * Returns the descriptors the methods of the given generated class pass
+     * to the handler.
+     *
+     * @param implementationClass the generated class
+     * @return the descriptors
+     */
+    public static MethodDescriptor[] getMethodDescriptors(Class<?> implementationClass) {
+        return (MethodDescriptor[]) getFieldValue(implementationClass, METHODS_FIELD, null);
+    }
+
+    static Object getFieldValue(Class<?> implementationClass, String name, Object instance) {
+        try {
+            Field field = implementationClass.getDeclaredField(name);
+            field.setAccessible(true);
+            return field.get(instance);
+        } catch (Exception e) {
+            throw new JB5nException(Reason.InternalError, String.format("Reading the field %s of the generated class %s failed: %s", name, implementationClass.getName(), e.getMessage()), e);
+        }
+    }
+
+    private static Class<?> findImplementation(Class<?> clazz) {
+        Reference<Class<?>> reference = implementations.get(clazz);
+        if (reference == null) {
+            reference = NO_IMPLEMENTATION;
+            ClassLoader classLoader = clazz.getClassLoader();
+            if (classLoader != null) {
+                try {
+                    Class<?> implementationClass = Class.forName(getImplementationClassName(clazz.getName()), true, classLoader);
+                    if (clazz.isAssignableFrom(implementationClass)) {
+                        reference = new WeakReference<Class<?>>(implementationClass);
+                    }
+                } catch (ClassNotFoundException e) {
+                    // no implementation has been generated for this interface
+                } catch (LinkageError e) {
+                    // the generated class does not match the interface
+                }
+            }
+            implementations.put(clazz, reference);
+        }
+        return reference.get();
+    }
+}
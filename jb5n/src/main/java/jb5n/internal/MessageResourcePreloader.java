@@ -0,0 +1,145 @@
+package jb5n.internal;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import jb5n.api.JB5n;
+import jb5n.api.JB5nException;
+import jb5n.api.JB5nException.Reason;
+import jb5n.api.JB5nPreloadReport;
+import jb5n.api.JB5nPreloadReport.MissingResource;
+import jb5n.api.properties.JB5nPropertiesInvocationHandler;
+import jb5n.api.properties.MethodDescriptor;
+
+/**
+ * Creates the instances of MessageResource interfaces for a set of locales in
+ * parallel and loads the messages of all their methods, so that the caches of
+ * jb5n and the resource bundle cache of the JDK are populated.
+ */
+public class MessageResourcePreloader {
+    private final int parallelism;
+
+    private static class PreloadResult {
+        private final List<MissingResource> missingResources = new LinkedList<MissingResource>();
+        private JB5nException error;
+    }
+
+    private static class PreloadThreadFactory implements ThreadFactory {
+        private final AtomicInteger threadCounter = new AtomicInteger();
+
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "jb5n-preload-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+    public MessageResourcePreloader(int parallelism) {
+        if (parallelism < 1) {
+            throw new JB5nException(Reason.InvalidArgument, "Argument parallelism should be at least 1.");
+        }
+        this.parallelism = parallelism;
+    }
+
+    public JB5nPreloadReport preload(Collection<Class<?>> classes, Collection<Locale> locales, final ClassLoader classLoader) {
+        if (classes == null || locales == null) {
+            throw new JB5nException(Reason.InvalidArgument, "Arguments classes and locales should not be null.");
+        }
+        long start = System.currentTimeMillis();
+        ExecutorService executorService = Executors.newFixedThreadPool(parallelism, new PreloadThreadFactory());
+        try {
+            List<Future<PreloadResult>> futures = new ArrayList<Future<PreloadResult>>();
+            for (final Class<?> clazz : classes) {
+                for (final Locale locale : locales) {
+                    futures.add(executorService.submit(new Callable<PreloadResult>() {
+                        public PreloadResult call() {
+                            return preload(clazz, locale, classLoader);
+                        }
+                    }));
+                }
+            }
+            int preloadedCount = 0;
+            List<MissingResource> missingResources = new ArrayList<MissingResource>();
+            List<JB5nException> errors = new ArrayList<JB5nException>();
+            for (Future<PreloadResult> future : futures) {
+                PreloadResult result = getResult(future);
+                if (result.error != null) {
+                    errors.add(result.error);
+                } else {
+                    preloadedCount++;
+                    missingResources.addAll(result.missingResources);
+                }
+            }
+            return new JB5nPreloadReport(System.currentTimeMillis() - start, preloadedCount, missingResources, errors);
+        } finally {
+            executorService.shutdown();
+        }
+    }
+
+    private PreloadResult getResult(Future<PreloadResult> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new JB5nException(Reason.InternalError, "Preloading message resources was interrupted.", e);
+        } catch (ExecutionException e) {
+            throw new JB5nException(Reason.InternalError, String.format("Preloading message resources failed: %s", e.getCause().getMessage()), e.getCause());
+        }
+    }
+
+    /**
+     * Loads the messages into the handler of the cached instance, so that
+     * its message table is built before the first call. Instances of
+     * generated classes are preloaded via the descriptors their methods pass
+     * to the handler, proxies via the methods of the interface. Handlers that
+     * do not extend {@link JB5nPropertiesInvocationHandler} are not preloaded.
+     */
+    private static PreloadResult preload(Class<?> clazz, Locale locale, ClassLoader classLoader) {
+        PreloadResult result = new PreloadResult();
+        try {
+            Object instance = JB5n.createInstance(clazz, locale, classLoader);
+            Object invocationHandler;
+            MethodDescriptor[] methodDescriptors = null;
+            if (Proxy.isProxyClass(instance.getClass())) {
+                invocationHandler = Proxy.getInvocationHandler(instance);
+            } else if ((invocationHandler = BytecodeImplementations.getInvocationHandler(instance)) != null) {
+                methodDescriptors = BytecodeImplementations.getMethodDescriptors(instance.getClass());
+            } else if ((invocationHandler = GeneratedImplementations.getInvocationHandler(clazz, instance)) != null) {
+                methodDescriptors = GeneratedImplementations.getMethodDescriptors(instance.getClass());
+            }
+            if (invocationHandler instanceof JB5nPropertiesInvocationHandler) {
+                JB5nPropertiesInvocationHandler propertiesInvocationHandler = (JB5nPropertiesInvocationHandler) invocationHandler;
+                if (methodDescriptors != null) {
+                    for (MethodDescriptor methodDescriptor : methodDescriptors) {
+                        preload(propertiesInvocationHandler, methodDescriptor, clazz, locale, result);
+                    }
+                } else {
+                    for (Method method : clazz.getMethods()) {
+                        preload(propertiesInvocationHandler, propertiesInvocationHandler.getMethodDescriptor(clazz, method), clazz, locale, result);
+                    }
+                }
+            }
+        } catch (JB5nException e) {
+            result.error = e;
+        }
+        return result;
+    }
+
+    private static void preload(JB5nPropertiesInvocationHandler invocationHandler, MethodDescriptor methodDescriptor, Class<?> clazz, Locale locale, PreloadResult result) {
+        if (!invocationHandler.preload(methodDescriptor)) {
+            result.missingResources.add(new MissingResource(clazz, locale, methodDescriptor.getResourceKey()));
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package jb5n.internal;
+
+import java.util.Locale;
+
+import jb5n.api.properties.JB5nPropertiesInvocationHandler;
+import jb5n.api.properties.MethodDescriptor;
+import jb5n.internal.catalog.MessageCatalog;
+import jb5n.internal.catalog.MessageCatalogReference;
+import jb5n.internal.catalog.MessageCatalogRepository;
+import jb5n.internal.catalog.OverlayCatalog;
+import jb5n.internal.catalog.OverlayLayer;
+import jb5n.internal.format.MessageTemplate;
+
+/**
+ * Handler of instances created by {@link jb5n.api.MessageOverlays}. The
+ * messages are read from the merged views of an {@link OverlayLayer} on top
+ * of the resource bundles. The resolved messages are discarded if a resource
+ * bundle is reloaded or the overrides of the layer or of one of its parents
+ * are updated, but not if other layers are updated.
+ */
+public class OverlayPropertiesInvocationHandler extends JB5nPropertiesInvocationHandler {
+    private final OverlayLayer layer;
+
+    public OverlayPropertiesInvocationHandler(OverlayLayer layer) {
+        this.layer = layer;
+    }
+
+    @Override
+    protected MessageCatalogReference lookupCatalog(String resourceBundleName, Locale locale, ClassLoader classLoader) {
+        return layer.getView(super.lookupCatalog(resourceBundleName, locale, classLoader));
+    }
+
+    @Override
+    protected long getGeneration() {
+        return MessageCatalogRepository.getInstance().getGeneration() + layer.getPathVersion();
+    }
+
+    @Override
+    protected MessageTemplate getMessageTemplate(MethodDescriptor methodDescriptor, String message) {
+        MessageCatalog catalog = getCatalog(methodDescriptor.getResourceBundleName());
+        if (catalog instanceof OverlayCatalog && ((OverlayCatalog) catalog).isOverridden(methodDescriptor.getResourceKey())) {
+            return ((OverlayCatalog) catalog).getMessageTemplate(methodDescriptor.getResourceKey(), message);
+        }
+        return super.getMessageTemplate(methodDescriptor, message);
+    }
+}
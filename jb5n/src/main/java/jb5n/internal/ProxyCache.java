@@ -1,29 +1,60 @@
 package jb5n.internal;
 
-import java.util.HashMap;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
+import jb5n.api.JB5nCacheStatistics;
+import jb5n.api.JB5nConfiguration;
+import jb5n.internal.metrics.StripedCounter;
+
+/**
+ * Cache for the instances created by {@link jb5n.api.JB5n}. Lookups do not
+ * lock. The classes and class loaders are only weakly referenced, so that the
+ * cache does not prevent them from being unloaded (e.g. on redeployment of a
+ * web application). Instances whose class or class loader is not visible from
+ * the class loader of jb5n are held via a {@link SoftReference}, as they
+ * would otherwise keep their class loader reachable.
+ * <p>
+ * Eviction is amortized: idle entries are searched at most once per expiry
+ * interval, and if the maximum size is exceeded, the least recently used
+ * entries are evicted in one pass until the cache is a sixteenth below its
+ * maximum size, so that the following puts do not have to scan the cache.
+ */
 public class ProxyCache {
-    private Map<ProxyKey, Object> cache = new HashMap<ProxyKey, Object>();
+    private final ConcurrentMap<AbstractProxyKey, CacheEntry> cache = new ConcurrentHashMap<AbstractProxyKey, CacheEntry>();
+    private final ReferenceQueue<Object> referenceQueue = new ReferenceQueue<Object>();
+    private final Lock evictionLock = new ReentrantLock();
+    private volatile long nextExpiryScan;
+    // striped, so that concurrent hits do not contend on one counter
+    private final StripedCounter hits = new StripedCounter();
+    private final StripedCounter misses = new StripedCounter();
+    private final StripedCounter evictions = new StripedCounter();
 
-    public static class ProxyKey {
-        private final Class<?> clazz;
-        private final Locale locale;
-        private final ClassLoader classLoader;
+    private static abstract class AbstractProxyKey {
 
-        public ProxyKey(Class<?> clazz, Locale locale, ClassLoader classLoader) {
-            this.clazz = clazz;
-            this.locale = locale;
-            this.classLoader = classLoader;
-        }
+        abstract Class<?> getClazz();
 
-        @Override
-        public int hashCode() {
+        abstract Locale getLocale();
+
+        abstract ClassLoader getClassLoader();
+
+        static int hashCode(Class<?> clazz, Locale locale, ClassLoader classLoader) {
             final int prime = 31;
             int result = 1;
-            result = prime * result + ((classLoader == null) ? 0 : classLoader.hashCode());
-            result = prime * result + ((clazz == null) ? 0 : clazz.hashCode());
+            result = prime * result + System.identityHashCode(classLoader);
+            result = prime * result + System.identityHashCode(clazz);
             result = prime * result + ((locale == null) ? 0 : locale.hashCode());
             return result;
         }
@@ -32,33 +63,265 @@ public class ProxyCache {
         public boolean equals(Object obj) {
             if (this == obj)
                 return true;
-            if (obj == null)
+            if (!(obj instanceof AbstractProxyKey))
                 return false;
-            if (getClass() != obj.getClass())
+            AbstractProxyKey other = (AbstractProxyKey) obj;
+            if (isCleared() || other.isCleared()) {
                 return false;
-            ProxyKey other = (ProxyKey) obj;
-            if (classLoader != other.classLoader) {
+            }
+            if (getClazz() != other.getClazz()) {
                 return false;
             }
-            if (clazz != other.clazz) {
+            if (getClassLoader() != other.getClassLoader()) {
                 return false;
             }
+            Locale locale = getLocale();
             if (locale == null) {
-                if (other.locale != null) {
-                    return false;
+                return other.getLocale() == null;
+            }
+            return locale.equals(other.getLocale());
+        }
+
+        boolean isCleared() {
+            return false;
+        }
+    }
+
+    public static class ProxyKey extends AbstractProxyKey {
+        private final Class<?> clazz;
+        private final Locale locale;
+        private final ClassLoader classLoader;
+
+        public ProxyKey(Class<?> clazz, Locale locale, ClassLoader classLoader) {
+            this.clazz = clazz;
+            this.locale = locale;
+            this.classLoader = classLoader;
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode(clazz, locale, classLoader);
+        }
+
+        @Override
+        Class<?> getClazz() {
+            return clazz;
+        }
+
+        @Override
+        Locale getLocale() {
+            return locale;
+        }
+
+        @Override
+        ClassLoader getClassLoader() {
+            return classLoader;
+        }
+    }
+
+    private static class WeakProxyKey extends AbstractProxyKey {
+        private final KeyReference<Class<?>> clazz;
+        private final Locale locale;
+        private final KeyReference<ClassLoader> classLoader;
+        private final int hashCode;
+
+        private WeakProxyKey(ProxyKey key, ReferenceQueue<Object> referenceQueue) {
+            this.clazz = new KeyReference<Class<?>>(key.getClazz(), this, referenceQueue);
+            this.locale = key.getLocale();
+            this.classLoader = key.getClassLoader() != null ? new KeyReference<ClassLoader>(key.getClassLoader(), this, referenceQueue) : null;
+            this.hashCode = key.hashCode();
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        Class<?> getClazz() {
+            return clazz.get();
+        }
+
+        @Override
+        Locale getLocale() {
+            return locale;
+        }
+
+        @Override
+        ClassLoader getClassLoader() {
+            return classLoader != null ? classLoader.get() : null;
+        }
+
+        @Override
+        boolean isCleared() {
+            return clazz.get() == null || (classLoader != null && classLoader.get() == null);
+        }
+    }
+
+    private static class KeyReference<T> extends WeakReference<T> {
+        private final WeakProxyKey key;
+
+        private KeyReference(T referent, WeakProxyKey key, ReferenceQueue<Object> referenceQueue) {
+            super(referent, referenceQueue);
+            this.key = key;
+        }
+    }
+
+    private static class EvictionCandidate implements Comparable<EvictionCandidate> {
+        private final AbstractProxyKey key;
+        private final CacheEntry entry;
+        private final long lastAccess;
+
+        private EvictionCandidate(AbstractProxyKey key, CacheEntry entry) {
+            this.key = key;
+            this.entry = entry;
+            this.lastAccess = entry.lastAccess;
+        }
+
+        public int compareTo(EvictionCandidate other) {
+            return lastAccess < other.lastAccess ? -1 : (lastAccess == other.lastAccess ? 0 : 1);
+        }
+    }
+
+    private static class CacheEntry {
+        private final Object value;
+        private final Reference<Object> valueReference;
+        private volatile long lastAccess;
+
+        private CacheEntry(Object value, boolean strong) {
+            this.value = strong ? value : null;
+            this.valueReference = strong ? null : new SoftReference<Object>(value);
+            this.lastAccess = System.currentTimeMillis();
+        }
+
+        private Object getValue() {
+            return valueReference != null ? valueReference.get() : value;
+        }
+    }
+
+    /**
+     * Returns the cached instance for the given key.
+     *
+     * @param key           the key
+     * @param configuration the configuration that defines the eviction policy
+     * @return the cached instance or null
+     */
+    public Object get(ProxyKey key, JB5nConfiguration configuration) {
+        expungeStaleEntries();
+        CacheEntry entry = cache.get(key);
+        if (entry != null) {
+            Object value = entry.getValue();
+            long expireAfterAccessMillis = configuration.getMessageResourceCacheExpireAfterAccessMillis();
+            long maximumSize = configuration.getMessageResourceCacheMaximumSize();
+            if (expireAfterAccessMillis > 0 || maximumSize > 0) {
+                long now = System.currentTimeMillis();
+                if (expireAfterAccessMillis > 0 && now - entry.lastAccess > expireAfterAccessMillis) {
+                    if (cache.remove(key, entry)) {
+                        evictions.increment();
+                    }
+                    value = null;
+                } else if (entry.lastAccess != now) {
+                    entry.lastAccess = now;
                 }
-            } else if (!locale.equals(other.locale)) {
-                return false;
             }
-            return true;
+            if (value != null) {
+                hits.increment();
+                return value;
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Adds the given instance to the cache and evicts entries according to the
+     * configured eviction policy.
+     *
+     * @param key           the key
+     * @param value         the instance
+     * @param configuration the configuration that defines the eviction policy
+     * @return the instance previously stored for the key or null
+     */
+    public Object put(ProxyKey key, Object value, JB5nConfiguration configuration) {
+        expungeStaleEntries();
+        boolean strong = isVisible(key.getClazz().getClassLoader()) && isVisible(key.getClassLoader());
+        CacheEntry previousEntry = cache.put(new WeakProxyKey(key, referenceQueue), new CacheEntry(value, strong));
+        evict(configuration.getMessageResourceCacheMaximumSize(), configuration.getMessageResourceCacheExpireAfterAccessMillis());
+        return previousEntry != null ? previousEntry.getValue() : null;
+    }
+
+    private void evict(int maximumSize, long expireAfterAccessMillis) {
+        long now = expireAfterAccessMillis > 0 ? System.currentTimeMillis() : 0;
+        boolean expire = expireAfterAccessMillis > 0 && now >= nextExpiryScan;
+        boolean shrink = maximumSize > 0 && cache.size() > maximumSize;
+        // another thread that is already evicting takes care of the new entry
+        if ((!expire && !shrink) || !evictionLock.tryLock()) {
+            return;
+        }
+        try {
+            if (expire) {
+                nextExpiryScan = now + expireAfterAccessMillis;
+                long expiredBefore = now - expireAfterAccessMillis;
+                for (Iterator<CacheEntry> iterator = cache.values().iterator(); iterator.hasNext(); ) {
+                    if (iterator.next().lastAccess < expiredBefore) {
+                        iterator.remove();
+                        evictions.increment();
+                    }
+                }
+            }
+            if (maximumSize > 0 && cache.size() > maximumSize) {
+                evictLeastRecentlyUsed(maximumSize - maximumSize / 16);
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private void evictLeastRecentlyUsed(int targetSize) {
+        List<EvictionCandidate> candidates = new ArrayList<EvictionCandidate>(cache.size());
+        for (Map.Entry<AbstractProxyKey, CacheEntry> entry : cache.entrySet()) {
+            candidates.add(new EvictionCandidate(entry.getKey(), entry.getValue()));
         }
+        Collections.sort(candidates);
+        int size = cache.size();
+        for (int i = 0; i < candidates.size() && size > targetSize; i++) {
+            EvictionCandidate candidate = candidates.get(i);
+            if (cache.remove(candidate.key, candidate.entry)) {
+                evictions.increment();
+                size--;
+            }
+        }
+    }
+
+    private void expungeStaleEntries() {
+        Reference<?> reference;
+        while ((reference = referenceQueue.poll()) != null) {
+            if (cache.remove(((KeyReference<?>) reference).key) != null) {
+                evictions.increment();
+            }
+        }
+    }
+
+    private static boolean isVisible(ClassLoader classLoader) {
+        ClassLoader ownClassLoader = ProxyCache.class.getClassLoader();
+        while (ownClassLoader != null) {
+            if (ownClassLoader == classLoader) {
+                return true;
+            }
+            ownClassLoader = ownClassLoader.getParent();
+        }
+        return classLoader == null;
+    }
+
+    public void clear() {
+        cache.clear();
     }
 
-    public synchronized Object get(ProxyKey key) {
-        return this.cache.get(key);
+    public int size() {
+        return cache.size();
     }
 
-    public synchronized Object put(ProxyKey key, Object value) {
-        return this.cache.put(key, value);
+    public JB5nCacheStatistics getStatistics() {
+        return new JB5nCacheStatistics(hits.sum(), misses.sum(), evictions.sum(), cache.size());
     }
 }
@@ -0,0 +1,224 @@
+package jb5n.internal.catalog;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Enumeration;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Catalog that is read from the binary format written by
+ * {@link BinaryCatalogWriter}. The buffer is usually a memory mapped file, so
+ * the messages do not occupy heap space until they are requested. The
+ * messages are decoded on first access; keys are compared directly against
+ * the UTF-8 bytes in the buffer.
+ * <p>
+ * Layout (big endian):
+ * <pre>
+ * int magic, int format version, int entry count, int slot count
+ * int[slot count] slots         (entry index + 1, 0 for an empty slot)
+ * entry[entry count] entries    (int key hash, int key offset, int key length, int value offset, int value length)
+ * byte[] string pool            (UTF-8, offsets are relative to the start of the pool)
+ * </pre>
+ * The slots form an open addressing hash table with linear probing over
+ * {@link String#hashCode()} of the keys.
+ */
+public class BinaryCatalog extends MessageCatalog {
+    static final int MAGIC = 0x4A42354E;
+    static final int FORMAT_VERSION = 1;
+    static final int HEADER_SIZE = 16;
+    static final int ENTRY_SIZE = 20;
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private final ByteBuffer buffer;
+    private final int entryCount;
+    private final int slotMask;
+    private final int entriesOffset;
+    private final int poolOffset;
+    private final String[] values;
+    private final StringPool stringPool;
+    private final AtomicInteger deduplicatedCount = new AtomicInteger();
+    private final AtomicLong bytesSaved = new AtomicLong();
+
+    public BinaryCatalog(ByteBuffer buffer, long version) {
+        this(buffer, version, null);
+    }
+
+    /**
+     * Creates a catalog for the given buffer. The buffer is only accessed by
+     * absolute index, so it may be shared between threads.
+     *
+     * @param buffer  the buffer containing the catalog
+     * @param version    the version of the catalog
+     * @param stringPool the pool to intern the decoded messages into or null
+     * @throws IllegalArgumentException if the buffer does not contain a valid catalog
+     */
+    public BinaryCatalog(ByteBuffer buffer, long version, StringPool stringPool) {
+        super(version);
+        this.stringPool = stringPool;
+        if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IllegalArgumentException("Not a jb5n catalog.");
+        }
+        if (buffer.getInt(4) != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Unsupported catalog format version " + buffer.getInt(4) + ".");
+        }
+        this.buffer = buffer;
+        this.entryCount = buffer.getInt(8);
+        int slotCount = buffer.getInt(12);
+        if (entryCount < 0 || slotCount <= entryCount || Integer.bitCount(slotCount) != 1) {
+            throw new IllegalArgumentException("Corrupt catalog header.");
+        }
+        if (HEADER_SIZE + 4L * slotCount + (long) ENTRY_SIZE * entryCount > buffer.limit()) {
+            throw new IllegalArgumentException("Truncated catalog.");
+        }
+        this.slotMask = slotCount - 1;
+        this.entriesOffset = HEADER_SIZE + 4 * slotCount;
+        this.poolOffset = entriesOffset + ENTRY_SIZE * entryCount;
+        validate(slotCount);
+        this.values = new String[entryCount];
+    }
+
+    /**
+     * Checks the slots and entries once, so that lookups neither loop forever
+     * nor read outside of the buffer.
+     */
+    private void validate(int slotCount) {
+        int emptySlots = 0;
+        for (int slot = 0; slot < slotCount; slot++) {
+            int entry = buffer.getInt(HEADER_SIZE + 4 * slot);
+            if (entry == 0) {
+                emptySlots++;
+            } else if (entry < 0 || entry > entryCount) {
+                throw new IllegalArgumentException("Corrupt catalog slot " + slot + ".");
+            }
+        }
+        if (emptySlots == 0) {
+            throw new IllegalArgumentException("Corrupt catalog slots: no empty slot.");
+        }
+        long poolSize = buffer.limit() - poolOffset;
+        for (int entry = 0; entry < entryCount; entry++) {
+            int base = entriesOffset + ENTRY_SIZE * entry;
+            if (!isInPool(buffer.getInt(base + 4), buffer.getInt(base + 8), poolSize) || !isInPool(buffer.getInt(base + 12), buffer.getInt(base + 16), poolSize)) {
+                throw new IllegalArgumentException("Corrupt catalog entry " + entry + ".");
+            }
+        }
+    }
+
+    private static boolean isInPool(int offset, int length, long poolSize) {
+        return offset >= 0 && length >= 0 && (long) offset + length <= poolSize;
+    }
+
+    @Override
+    public String getMessage(String key) {
+        int entry = find(key);
+        if (entry < 0) {
+            return null;
+        }
+        String value = values[entry];
+        if (value == null) {
+            int base = entriesOffset + ENTRY_SIZE * entry;
+            value = decode(buffer.getInt(base + 12), buffer.getInt(base + 16));
+            if (stringPool != null) {
+                String pooled = stringPool.intern(value);
+                if (pooled != value) {
+                    deduplicatedCount.incrementAndGet();
+                    bytesSaved.addAndGet(StringPool.estimateSize(value));
+                    value = pooled;
+                }
+            }
+            // strings are immutable, so publishing them without synchronization is safe
+            values[entry] = value;
+        }
+        return value;
+    }
+
+    private int find(String key) {
+        int hash = key.hashCode();
+        int slot = hash & slotMask;
+        while (true) {
+            int entry = buffer.getInt(HEADER_SIZE + 4 * slot) - 1;
+            if (entry < 0) {
+                return -1;
+            }
+            int base = entriesOffset + ENTRY_SIZE * entry;
+            if (buffer.getInt(base) == hash && keyEquals(poolOffset + buffer.getInt(base + 4), buffer.getInt(base + 8), key)) {
+                return entry;
+            }
+            slot = (slot + 1) & slotMask;
+        }
+    }
+
+    private boolean keyEquals(int offset, int length, String key) {
+        int end = offset + length;
+        int index = 0;
+        int keyLength = key.length();
+        int position = offset;
+        while (position < end) {
+            int b = buffer.get(position++) & 0xFF;
+            int c;
+            if (b < 0x80) {
+                c = b;
+            } else if (b < 0xE0) {
+                c = ((b & 0x1F) << 6) | (buffer.get(position++) & 0x3F);
+            } else if (b < 0xF0) {
+                c = ((b & 0x0F) << 12) | ((buffer.get(position++) & 0x3F) << 6) | (buffer.get(position++) & 0x3F);
+            } else {
+                int codePoint = ((b & 0x07) << 18) | ((buffer.get(position++) & 0x3F) << 12) | ((buffer.get(position++) & 0x3F) << 6) | (buffer.get(position++) & 0x3F);
+                codePoint -= 0x10000;
+                if (index >= keyLength || key.charAt(index++) != (char) (0xD800 + (codePoint >> 10))) {
+                    return false;
+                }
+                c = 0xDC00 + (codePoint & 0x3FF);
+            }
+            if (index >= keyLength || key.charAt(index++) != c) {
+                return false;
+            }
+        }
+        return index == keyLength;
+    }
+
+    private String decode(int offset, int length) {
+        ByteBuffer slice = buffer.duplicate();
+        slice.position(poolOffset + offset);
+        slice.limit(poolOffset + offset + length);
+        return UTF8.decode(slice).toString();
+    }
+
+    @Override
+    public Enumeration<String> getKeys() {
+        return new Enumeration<String>() {
+            private int entry = 0;
+
+            public boolean hasMoreElements() {
+                return entry < entryCount;
+            }
+
+            public String nextElement() {
+                if (entry >= entryCount) {
+                    throw new NoSuchElementException();
+                }
+                int base = entriesOffset + ENTRY_SIZE * entry++;
+                return decode(buffer.getInt(base + 4), buffer.getInt(base + 8));
+            }
+        };
+    }
+
+    @Override
+    public boolean exists() {
+        return true;
+    }
+
+    @Override
+    public int getDeduplicatedCount() {
+        return deduplicatedCount.get();
+    }
+
+    @Override
+    public long getBytesSaved() {
+        return bytesSaved.get();
+    }
+
+    public int size() {
+        return entryCount;
+    }
+}
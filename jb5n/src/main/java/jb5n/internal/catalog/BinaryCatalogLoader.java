@@ -0,0 +1,108 @@
+package jb5n.internal.catalog;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Loads a {@link BinaryCatalog} written by {@link BinaryCatalogWriter}. Each
+ * binary catalog already contains the messages of its parent bundles, so only
+ * the most specific candidate is loaded. Catalogs located in the file system
+ * are memory mapped; others (e.g. within a jar file) are read into a buffer.
+ */
+public class BinaryCatalogLoader {
+
+    /**
+     * Loads the binary catalog for the given resource bundle and locale.
+     *
+     * @param resourceBundleName the base name of the resource bundle
+     * @param locale             the locale
+     * @param classLoader        the class loader to load the catalog with
+     * @param stringPool         the pool to intern the decoded messages into or null
+     * @return the catalog or null if no binary catalog exists for the resource bundle
+     * @throws IOException if the catalog cannot be read
+     */
+    public BinaryCatalog load(String resourceBundleName, Locale locale, ClassLoader classLoader, StringPool stringPool) throws IOException {
+        URL url = findCatalog(resourceBundleName.replace('.', '/'), locale, classLoader);
+        if (url == null) {
+            return null;
+        }
+        try {
+            return new BinaryCatalog(read(url), 0, stringPool);
+        } catch (IllegalArgumentException e) {
+            throw new IOException(String.format("Invalid catalog %s: %s", url, e.getMessage()));
+        }
+    }
+
+    /**
+     * Searches the candidates in the order of {@link PropertiesCatalogLoader}.
+     * The first candidate that has a catalog or a properties file decides: if
+     * it was not compiled (e.g. its locale was not configured for the build),
+     * the properties files have to be read instead of a catalog of a less
+     * specific locale.
+     */
+    private URL findCatalog(String baseName, Locale locale, ClassLoader classLoader) {
+        List<String> candidates = new ArrayList<String>(PropertiesCatalogLoader.getCandidateSuffixes(locale));
+        Locale defaultLocale = Locale.getDefault();
+        if (!defaultLocale.equals(locale)) {
+            candidates.addAll(PropertiesCatalogLoader.getCandidateSuffixes(defaultLocale));
+        }
+        candidates.add("");
+        for (String suffix : candidates) {
+            URL url = getResource(classLoader, baseName + suffix + BinaryCatalogWriter.FILE_SUFFIX);
+            if (url != null) {
+                return url;
+            }
+            if (getResource(classLoader, baseName + suffix + PropertiesCatalogLoader.SUFFIX) != null) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    private static URL getResource(ClassLoader classLoader, String name) {
+        return classLoader != null ? classLoader.getResource(name) : ClassLoader.getSystemResource(name);
+    }
+
+    private ByteBuffer read(URL url) throws IOException {
+        if ("file".equals(url.getProtocol())) {
+            try {
+                return map(new File(url.toURI()));
+            } catch (URISyntaxException e) {
+                // read the catalog via the stream below
+            }
+        }
+        InputStream inputStream = url.openStream();
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                bytes.write(buffer, 0, read);
+            }
+            return ByteBuffer.wrap(bytes.toByteArray());
+        } finally {
+            inputStream.close();
+        }
+    }
+
+    private ByteBuffer map(File file) throws IOException {
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = randomAccessFile.getChannel();
+            // the mapping stays valid after the channel has been closed
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } finally {
+            randomAccessFile.close();
+        }
+    }
+}
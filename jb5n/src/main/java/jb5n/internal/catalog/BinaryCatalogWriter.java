@@ -0,0 +1,69 @@
+package jb5n.internal.catalog;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Writes messages in the binary format read by {@link BinaryCatalog}. Equal
+ * values are stored only once in the string pool.
+ */
+public class BinaryCatalogWriter {
+    public static final String FILE_SUFFIX = ".jb5n";
+
+    public void write(Map<String, String> messages, OutputStream outputStream) throws IOException {
+        // sorted, so that the same messages always result in the same file
+        List<Map.Entry<String, String>> entries = new ArrayList<Map.Entry<String, String>>(new TreeMap<String, String>(messages).entrySet());
+        int slotCount = Integer.highestOneBit(Math.max(entries.size(), 1) * 2);
+        if (slotCount <= entries.size() * 2 - 1) {
+            slotCount <<= 1;
+        }
+        int[] slots = new int[slotCount];
+        int[] entryData = new int[entries.size() * 5];
+        ByteArrayOutputStream pool = new ByteArrayOutputStream();
+        Map<String, Integer> valueOffsets = new HashMap<String, Integer>();
+        for (int i = 0; i < entries.size(); i++) {
+            Map.Entry<String, String> entry = entries.get(i);
+            String key = entry.getKey();
+            int hash = key.hashCode();
+            int slot = hash & (slotCount - 1);
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & (slotCount - 1);
+            }
+            slots[slot] = i + 1;
+            byte[] keyBytes = key.getBytes("UTF-8");
+            entryData[i * 5] = hash;
+            entryData[i * 5 + 1] = pool.size();
+            entryData[i * 5 + 2] = keyBytes.length;
+            pool.write(keyBytes);
+            byte[] valueBytes = entry.getValue().getBytes("UTF-8");
+            Integer valueOffset = valueOffsets.get(entry.getValue());
+            if (valueOffset == null) {
+                valueOffset = Integer.valueOf(pool.size());
+                valueOffsets.put(entry.getValue(), valueOffset);
+                pool.write(valueBytes);
+            }
+            entryData[i * 5 + 3] = valueOffset.intValue();
+            entryData[i * 5 + 4] = valueBytes.length;
+        }
+        DataOutputStream out = new DataOutputStream(outputStream);
+        out.writeInt(BinaryCatalog.MAGIC);
+        out.writeInt(BinaryCatalog.FORMAT_VERSION);
+        out.writeInt(entries.size());
+        out.writeInt(slotCount);
+        for (int slot : slots) {
+            out.writeInt(slot);
+        }
+        for (int value : entryData) {
+            out.writeInt(value);
+        }
+        pool.writeTo(out);
+        out.flush();
+    }
+}
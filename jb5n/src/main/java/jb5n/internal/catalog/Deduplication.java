@@ -0,0 +1,32 @@
+package jb5n.internal.catalog;
+
+/**
+ * Interns the strings of one catalog into the {@link StringPool} and counts
+ * the strings that were replaced by an already pooled instance.
+ */
+class Deduplication {
+    private final StringPool stringPool;
+    private int deduplicatedCount;
+    private long bytesSaved;
+
+    Deduplication(StringPool stringPool) {
+        this.stringPool = stringPool;
+    }
+
+    String intern(String string) {
+        String pooled = stringPool.intern(string);
+        if (pooled != string) {
+            deduplicatedCount++;
+            bytesSaved += StringPool.estimateSize(string);
+        }
+        return pooled;
+    }
+
+    int getDeduplicatedCount() {
+        return deduplicatedCount;
+    }
+
+    long getBytesSaved() {
+        return bytesSaved;
+    }
+}
@@ -0,0 +1,75 @@
+package jb5n.internal.catalog;
+
+import java.util.Enumeration;
+
+/**
+ * Immutable snapshot of the messages of a resource bundle for one locale,
+ * including the messages inherited from its parent bundles. A catalog is
+ * never modified; if the underlying files change, a new catalog is published
+ * via the {@link MessageCatalogReference}.
+ */
+public abstract class MessageCatalog {
+    private final long version;
+
+    protected MessageCatalog(long version) {
+        this.version = version;
+    }
+
+    /**
+     * Returns the message for the given key.
+     *
+     * @param key the key
+     * @return the message or null if the key is missing
+     */
+    public abstract String getMessage(String key);
+
+    public abstract Enumeration<String> getKeys();
+
+    /**
+     * Returns false if no resource bundle exists for the base name and
+     * locale of this catalog.
+     *
+     * @return true if the resource bundle exists
+     */
+    public abstract boolean exists();
+
+    /**
+     * Returns true if the files the catalog has been loaded from have changed
+     * since then.
+     *
+     * @return true if the catalog needs to be reloaded
+     */
+    public boolean isModified() {
+        return false;
+    }
+
+    /**
+     * Returns the number of keys and messages of this catalog that have been
+     * replaced by an equal string of another catalog (or of this catalog).
+     *
+     * @return the number of deduplicated strings
+     */
+    public int getDeduplicatedCount() {
+        return 0;
+    }
+
+    /**
+     * Returns the estimated number of bytes the deduplication of keys and
+     * messages saves on the heap.
+     *
+     * @return the estimated number of bytes saved
+     */
+    public long getBytesSaved() {
+        return 0;
+    }
+
+    /**
+     * Returns the version of the catalog, which is incremented each time the
+     * catalog is reloaded.
+     *
+     * @return the version
+     */
+    public long getVersion() {
+        return version;
+    }
+}
@@ -0,0 +1,61 @@
+package jb5n.internal.catalog;
+
+import java.lang.ref.WeakReference;
+import java.util.Locale;
+
+/**
+ * Holds the current {@link MessageCatalog} of a resource bundle for one
+ * locale and class loader. Readers never block: a reloaded catalog is
+ * published by replacing the reference, so readers see either the old or the
+ * new catalog, but never a partially loaded one.
+ */
+public class MessageCatalogReference {
+    private final String resourceBundleName;
+    private final Locale locale;
+    private final WeakReference<ClassLoader> classLoader;
+    private final boolean reloadable;
+    private volatile MessageCatalog catalog;
+
+    public MessageCatalogReference(String resourceBundleName, Locale locale, ClassLoader classLoader, boolean reloadable, MessageCatalog catalog) {
+        this.resourceBundleName = resourceBundleName;
+        this.locale = locale;
+        this.classLoader = classLoader != null ? new WeakReference<ClassLoader>(classLoader) : null;
+        this.reloadable = reloadable;
+        this.catalog = catalog;
+    }
+
+    public MessageCatalog get() {
+        return catalog;
+    }
+
+    /**
+     * Publishes a new catalog. Data derived from the old catalog has to be
+     * discarded by the caller, see
+     * {@link MessageCatalogRepository#replaceCatalog(MessageCatalogReference, MessageCatalog)}.
+     *
+     * @param catalog the new catalog
+     */
+    protected void set(MessageCatalog catalog) {
+        this.catalog = catalog;
+    }
+
+    public String getResourceBundleName() {
+        return resourceBundleName;
+    }
+
+    public Locale getLocale() {
+        return locale;
+    }
+
+    ClassLoader getClassLoader() {
+        return classLoader != null ? classLoader.get() : null;
+    }
+
+    boolean isCleared() {
+        return classLoader != null && classLoader.get() == null;
+    }
+
+    public boolean isReloadable() {
+        return reloadable;
+    }
+}
@@ -0,0 +1,321 @@
+package jb5n.internal.catalog;
+
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.MissingResourceException;
+import java.util.ResourceBundle;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import jb5n.api.JB5n;
+import jb5n.api.JB5nConfiguration;
+import jb5n.api.JB5nException;
+import jb5n.api.JB5nException.Reason;
+import jb5n.api.metrics.JB5nMetrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Loads and caches the {@link MessageCatalog}s of the resource bundles. By
+ * default the catalogs are backed by the resource bundles of the JDK. If
+ * {@link JB5nConfiguration#isReloadResourceBundles()} is set, the properties
+ * files are loaded by jb5n itself and a background thread periodically checks
+ * them for modifications. If {@link JB5nConfiguration#isDeduplicateMessages()}
+ * is set, the properties files are loaded by jb5n as well and equal keys and
+ * messages of all catalogs share the same string instance. Modified files are loaded into a new catalog that
+ * replaces the old one atomically, so that readers never block.
+ */
+public class MessageCatalogRepository {
+    private static final Logger logger = LoggerFactory.getLogger(MessageCatalogRepository.class);
+    private static final MessageCatalogRepository instance = new MessageCatalogRepository();
+    private final ConcurrentMap<CatalogKey, MessageCatalogReference> catalogs = new ConcurrentHashMap<CatalogKey, MessageCatalogReference>();
+    private final PropertiesCatalogLoader propertiesCatalogLoader = new PropertiesCatalogLoader();
+    private final BinaryCatalogLoader binaryCatalogLoader = new BinaryCatalogLoader();
+    private final AtomicLong generation = new AtomicLong();
+    private ScheduledExecutorService reloadExecutor;
+
+    private static class CatalogKey {
+        private final String resourceBundleName;
+        private final Locale locale;
+        private final WeakReference<ClassLoader> classLoader;
+        private final boolean binary;
+        private final int hashCode;
+
+        private CatalogKey(String resourceBundleName, Locale locale, ClassLoader classLoader, boolean binary) {
+            this.resourceBundleName = resourceBundleName;
+            this.locale = locale;
+            this.classLoader = classLoader != null ? new WeakReference<ClassLoader>(classLoader) : null;
+            this.binary = binary;
+            this.hashCode = ((31 * resourceBundleName.hashCode() + locale.hashCode()) * 31 + System.identityHashCode(classLoader)) * 31 + (binary ? 1 : 0);
+        }
+
+        private ClassLoader getClassLoader() {
+            return classLoader != null ? classLoader.get() : null;
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj)
+                return true;
+            if (!(obj instanceof CatalogKey))
+                return false;
+            CatalogKey other = (CatalogKey) obj;
+            if (binary != other.binary || (classLoader == null) != (other.classLoader == null)) {
+                return false;
+            }
+            ClassLoader loader = getClassLoader();
+            if (classLoader != null && loader == null) {
+                return false;
+            }
+            return loader == other.getClassLoader() && resourceBundleName.equals(other.resourceBundleName) && locale.equals(other.locale);
+        }
+    }
+
+    private static class ReloadThreadFactory implements ThreadFactory {
+
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "jb5n-reload");
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+    public static MessageCatalogRepository getInstance() {
+        return instance;
+    }
+
+    /**
+     * Returns the reference to the current catalog of the given resource
+     * bundle. The catalog is loaded if it has not been requested before.
+     *
+     * @param resourceBundleName the base name of the resource bundle
+     * @param locale             the locale
+     * @param classLoader        the class loader to load the resource bundle with
+     * @return the reference to the catalog
+     */
+    public MessageCatalogReference getCatalog(String resourceBundleName, Locale locale, ClassLoader classLoader) {
+        return getCatalog(resourceBundleName, locale, classLoader, false);
+    }
+
+    /**
+     * Like {@link #getCatalog(String, Locale, ClassLoader)}, but prefers the
+     * binary catalog compiled by the maven plugin. If no binary catalog exists
+     * for the resource bundle, the properties files are used. Binary catalogs
+     * are not reloaded.
+     *
+     * @param resourceBundleName the base name of the resource bundle
+     * @param locale             the locale
+     * @param classLoader        the class loader to load the catalog with
+     * @return the reference to the catalog
+     */
+    public MessageCatalogReference getBinaryCatalog(String resourceBundleName, Locale locale, ClassLoader classLoader) {
+        return getCatalog(resourceBundleName, locale, classLoader, true);
+    }
+
+    private MessageCatalogReference getCatalog(String resourceBundleName, Locale locale, ClassLoader classLoader, boolean binary) {
+        CatalogKey key = new CatalogKey(resourceBundleName, locale, classLoader, binary);
+        MessageCatalogReference reference = catalogs.get(key);
+        JB5nMetrics metrics = JB5n.getConfiguration().getMetrics();
+        if (metrics != null) {
+            metrics.resourceBundleCacheAccessed(resourceBundleName, locale, reference != null);
+        }
+        if (reference == null) {
+            long start = System.nanoTime();
+            reference = binary ? loadBinary(resourceBundleName, locale, classLoader) : null;
+            if (reference == null) {
+                reference = load(resourceBundleName, locale, classLoader);
+            }
+            if (metrics != null) {
+                metrics.resourceBundleLoaded(resourceBundleName, locale, System.nanoTime() - start);
+            }
+            MessageCatalogReference existingReference = catalogs.putIfAbsent(key, reference);
+            if (existingReference != null) {
+                reference = existingReference;
+            } else {
+                expungeStaleEntries();
+                if (reference.isReloadable()) {
+                    startReloading();
+                }
+            }
+        }
+        return reference;
+    }
+
+    private MessageCatalogReference loadBinary(String resourceBundleName, Locale locale, ClassLoader classLoader) {
+        try {
+            BinaryCatalog catalog = binaryCatalogLoader.load(resourceBundleName, locale, classLoader, getStringPool());
+            if (catalog == null) {
+                logger.debug(String.format("No binary catalog found for resource bundle '%s' and locale '%s'.", resourceBundleName, locale));
+                return null;
+            }
+            return new MessageCatalogReference(resourceBundleName, locale, classLoader, false, catalog);
+        } catch (IOException e) {
+            throw new JB5nException(Reason.InternalError, String.format("Failed to load catalog of resource bundle '%s' for locale '%s': %s", resourceBundleName, locale, e.getMessage()), e);
+        }
+    }
+
+    private MessageCatalogReference load(String resourceBundleName, Locale locale, ClassLoader classLoader) {
+        JB5nConfiguration configuration = JB5n.getConfiguration();
+        if (configuration.isReloadResourceBundles() || configuration.isDeduplicateMessages()) {
+            try {
+                PropertiesCatalog catalog = propertiesCatalogLoader.load(resourceBundleName, locale, classLoader, 0, getStringPool());
+                if (catalog != null) {
+                    return new MessageCatalogReference(resourceBundleName, locale, classLoader, configuration.isReloadResourceBundles(), catalog);
+                }
+            } catch (IOException e) {
+                throw new JB5nException(Reason.InternalError, String.format("Failed to load resource bundle '%s' for locale '%s': %s", resourceBundleName, locale, e.getMessage()), e);
+            }
+        }
+        ResourceBundle resourceBundle;
+        try {
+            resourceBundle = ResourceBundle.getBundle(resourceBundleName, locale, classLoader);
+        } catch (MissingResourceException e) {
+            resourceBundle = null;
+        }
+        return new MessageCatalogReference(resourceBundleName, locale, classLoader, false, new ResourceBundleCatalog(resourceBundle, 0));
+    }
+
+    /**
+     * Checks all reloadable catalogs for modified files and replaces the
+     * catalogs whose files have changed.
+     *
+     * @return the number of reloaded catalogs
+     */
+    public int reloadModifiedCatalogs() {
+        int reloaded = 0;
+        for (MessageCatalogReference reference : catalogs.values()) {
+            if (reference.isReloadable() && !reference.isCleared() && reference.get().isModified()) {
+                if (reload(reference)) {
+                    reloaded++;
+                }
+            }
+        }
+        expungeStaleEntries();
+        return reloaded;
+    }
+
+    private boolean reload(MessageCatalogReference reference) {
+        MessageCatalog oldCatalog = reference.get();
+        try {
+            long start = System.nanoTime();
+            PropertiesCatalog catalog = propertiesCatalogLoader.load(reference.getResourceBundleName(), reference.getLocale(), reference.getClassLoader(), oldCatalog.getVersion() + 1, getStringPool());
+            JB5nMetrics metrics = JB5n.getConfiguration().getMetrics();
+            if (metrics != null) {
+                metrics.resourceBundleLoaded(reference.getResourceBundleName(), reference.getLocale(), System.nanoTime() - start);
+            }
+            if (catalog == null) {
+                logger.warn(String.format("Resource bundle '%s' for locale '%s' has been removed, keeping the loaded messages.", reference.getResourceBundleName(), reference.getLocale()));
+                return false;
+            }
+            replaceCatalog(reference, catalog);
+            logger.info(String.format("Reloaded resource bundle '%s' for locale '%s'.", reference.getResourceBundleName(), reference.getLocale()));
+            return true;
+        } catch (IOException e) {
+            logger.warn(String.format("Failed to reload resource bundle '%s' for locale '%s': %s", reference.getResourceBundleName(), reference.getLocale(), e.getMessage()));
+            return false;
+        }
+    }
+
+    /**
+     * Publishes a new catalog for the given reference and increments the
+     * generation, so that data derived from the old catalog is discarded. Used
+     * by sources that reload their catalogs themselves.
+     *
+     * @param reference the reference to update
+     * @param catalog   the new catalog
+     */
+    public void replaceCatalog(MessageCatalogReference reference, MessageCatalog catalog) {
+        reference.set(catalog);
+        generation.incrementAndGet();
+    }
+
+    /**
+     * Returns a counter that is incremented each time a catalog is reloaded.
+     * Data derived from catalogs is still valid as long as the generation has
+     * not changed.
+     *
+     * @return the current generation
+     */
+    public long getGeneration() {
+        return generation.get();
+    }
+
+    private StringPool getStringPool() {
+        return JB5n.getConfiguration().isDeduplicateMessages() ? StringPool.getInstance() : null;
+    }
+
+    /**
+     * Returns the catalogs that are currently loaded.
+     *
+     * @return the references to the loaded catalogs
+     */
+    public List<MessageCatalogReference> getCatalogs() {
+        List<MessageCatalogReference> references = new ArrayList<MessageCatalogReference>();
+        for (MessageCatalogReference reference : catalogs.values()) {
+            if (!reference.isCleared()) {
+                references.add(reference);
+            }
+        }
+        return references;
+    }
+
+    private synchronized void startReloading() {
+        if (reloadExecutor == null) {
+            long interval = JB5n.getConfiguration().getResourceBundleReloadIntervalMillis();
+            reloadExecutor = Executors.newSingleThreadScheduledExecutor(new ReloadThreadFactory());
+            reloadExecutor.scheduleWithFixedDelay(new Runnable() {
+                public void run() {
+                    try {
+                        reloadModifiedCatalogs();
+                    } catch (RuntimeException e) {
+                        logger.warn("Failed to reload resource bundles: " + e.getMessage(), e);
+                    }
+                }
+            }, interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Stops the background thread that checks the catalogs for modifications.
+     * It is started again when the next reloadable catalog is loaded.
+     */
+    public synchronized void stopReloading() {
+        if (reloadExecutor != null) {
+            reloadExecutor.shutdownNow();
+            reloadExecutor = null;
+        }
+    }
+
+    private void expungeStaleEntries() {
+        Iterator<Map.Entry<CatalogKey, MessageCatalogReference>> iterator = catalogs.entrySet().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().getValue().isCleared()) {
+                iterator.remove();
+            }
+        }
+    }
+
+    public void clear() {
+        catalogs.clear();
+    }
+
+    public int size() {
+        return catalogs.size();
+    }
+}
@@ -0,0 +1,79 @@
+package jb5n.internal.catalog;
+
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Pool of the resolved messages of MessageResource interfaces, so that
+ * locales whose messages resolve to the same content (e.g. de_AT and de_CH
+ * without own translations for an interface) share one array. The arrays are
+ * only weakly referenced.
+ */
+public class MessageTablePool {
+    private static final MessageTablePool instance = new MessageTablePool();
+    private final Map<Messages, WeakReference<Messages>> pool = new WeakHashMap<Messages, WeakReference<Messages>>();
+
+    /**
+     * Wraps an array of messages, so that it can be compared by content.
+     * The array must not be modified after it has been pooled.
+     */
+    public static final class Messages {
+        private final String[] values;
+        private final int hashCode;
+
+        private Messages(String[] values) {
+            this.values = values;
+            this.hashCode = Arrays.hashCode(values);
+        }
+
+        public String get(int index) {
+            return values[index];
+        }
+
+        public int size() {
+            return values.length;
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj)
+                return true;
+            if (!(obj instanceof Messages))
+                return false;
+            Messages other = (Messages) obj;
+            return hashCode == other.hashCode && Arrays.equals(values, other.values);
+        }
+    }
+
+    public static MessageTablePool getInstance() {
+        return instance;
+    }
+
+    /**
+     * Returns the pooled messages that equal the given array.
+     *
+     * @param values the resolved messages, null for missing messages
+     * @return the pooled messages
+     */
+    public synchronized Messages intern(String[] values) {
+        Messages messages = new Messages(values);
+        WeakReference<Messages> reference = pool.get(messages);
+        Messages pooled = reference != null ? reference.get() : null;
+        if (pooled == null) {
+            pool.put(messages, new WeakReference<Messages>(messages));
+            pooled = messages;
+        }
+        return pooled;
+    }
+
+    public synchronized int size() {
+        return pool.size();
+    }
+}
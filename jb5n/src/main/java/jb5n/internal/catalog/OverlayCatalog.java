@@ -0,0 +1,73 @@
+package jb5n.internal.catalog;
+
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import jb5n.internal.format.MessageTemplate;
+
+/**
+ * The merged view of the overrides of an {@link OverlayLayer} and its parent
+ * layers on top of the catalog of a resource bundle. Only the overrides are
+ * copied into the view; all other messages are read from the current catalog
+ * of the resource bundle, so that a reloaded resource bundle is visible
+ * without rebuilding the view.
+ */
+public class OverlayCatalog extends MessageCatalog {
+    private final MessageCatalogReference base;
+    private final Locale locale;
+    private final Map<String, String> overrides;
+    private final ConcurrentMap<String, MessageTemplate> templates = new ConcurrentHashMap<String, MessageTemplate>();
+
+    OverlayCatalog(MessageCatalogReference base, Locale locale, Map<String, String> overrides, long version) {
+        super(version);
+        this.base = base;
+        this.locale = locale;
+        this.overrides = overrides;
+    }
+
+    @Override
+    public String getMessage(String key) {
+        String message = overrides.get(key);
+        return message != null ? message : base.get().getMessage(key);
+    }
+
+    @Override
+    public Enumeration<String> getKeys() {
+        Set<String> keys = new LinkedHashSet<String>(Collections.list(base.get().getKeys()));
+        keys.addAll(overrides.keySet());
+        return Collections.enumeration(keys);
+    }
+
+    @Override
+    public boolean exists() {
+        return !overrides.isEmpty() || base.get().exists();
+    }
+
+    public boolean isOverridden(String key) {
+        return overrides.containsKey(key);
+    }
+
+    /**
+     * Returns the compiled template of an overridden message. The templates
+     * are cached with the view, as the same key may have another message in
+     * other layers.
+     *
+     * @param key     the key of the message
+     * @param message the overridden message
+     * @return the template
+     */
+    public MessageTemplate getMessageTemplate(String key, String message) {
+        MessageTemplate template = templates.get(key);
+        if (template == null || !message.equals(template.getPattern())) {
+            template = MessageTemplate.compile(message, locale);
+            templates.put(key, template);
+        }
+        return template;
+    }
+}
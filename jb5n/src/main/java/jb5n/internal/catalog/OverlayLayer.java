@@ -0,0 +1,271 @@
+package jb5n.internal.catalog;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A layer of message overrides, e.g. of a tenant or of a user of a tenant, on
+ * top of the resource bundles and the overrides of its parent layers. The
+ * overrides are replaced as a whole on each update (copy-on-write), so that
+ * readers never lock.
+ * <p>
+ * For each resource bundle and locale that is requested, the layer publishes
+ * a merged view via a {@link MessageCatalogReference}. A view only copies the
+ * overrides of the layer and its parents and is built on its first request.
+ * An update of a layer increments its version; the views of the layer and of
+ * its sub-layers notice the new path version and are built again on their
+ * next request. Other layers are not affected.
+ */
+public class OverlayLayer {
+    private static final Map<String, String> NO_OVERRIDES = Collections.emptyMap();
+    private final OverlayLayer parent;
+    private final String id;
+    private final ConcurrentMap<String, OverlayLayer> children = new ConcurrentHashMap<String, OverlayLayer>();
+    private final ConcurrentMap<BundleKey, View> views = new ConcurrentHashMap<BundleKey, View>();
+    private volatile Map<BundleKey, Map<String, String>> overrides = Collections.emptyMap();
+    private volatile long version;
+
+    private static class BundleKey {
+        private final String resourceBundleName;
+        private final Locale locale;
+
+        private BundleKey(String resourceBundleName, Locale locale) {
+            this.resourceBundleName = resourceBundleName;
+            this.locale = locale;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * resourceBundleName.hashCode() + locale.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj)
+                return true;
+            if (!(obj instanceof BundleKey))
+                return false;
+            BundleKey other = (BundleKey) obj;
+            return resourceBundleName.equals(other.resourceBundleName) && locale.equals(other.locale);
+        }
+    }
+
+    /**
+     * The reference to the merged view of one resource bundle and locale. The
+     * view is built again if the path version of the layer has changed.
+     */
+    private class View extends MessageCatalogReference {
+        private final MessageCatalogReference base;
+
+        private View(MessageCatalogReference base) {
+            super(base.getResourceBundleName(), base.getLocale(), null, false, null);
+            this.base = base;
+        }
+
+        @Override
+        public MessageCatalog get() {
+            MessageCatalog catalog = super.get();
+            if (catalog == null || catalog.getVersion() != getPathVersion()) {
+                catalog = build();
+            }
+            return catalog;
+        }
+
+        private synchronized MessageCatalog build() {
+            // read the version first, so that a concurrent update builds the view again
+            long pathVersion = getPathVersion();
+            MessageCatalog catalog = super.get();
+            if (catalog == null || catalog.getVersion() != pathVersion) {
+                catalog = new OverlayCatalog(base, getLocale(), merge(getResourceBundleName(), getLocale()), pathVersion);
+                set(catalog);
+            }
+            return catalog;
+        }
+    }
+
+    /**
+     * @param parent the parent layer or null for the root layer
+     * @param id     the id of the layer within its parent
+     */
+    public OverlayLayer(OverlayLayer parent, String id) {
+        this.parent = parent;
+        this.id = id;
+    }
+
+    public OverlayLayer getParent() {
+        return parent;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Returns the sub-layer with the given id.
+     *
+     * @param id     the id of the sub-layer
+     * @param create true to create a missing sub-layer
+     * @return the sub-layer or null if it does not exist and create is false
+     */
+    public OverlayLayer getChild(String id, boolean create) {
+        OverlayLayer child = children.get(id);
+        if (child == null && create) {
+            child = new OverlayLayer(this, id);
+            OverlayLayer existingChild = children.putIfAbsent(id, child);
+            if (existingChild != null) {
+                child = existingChild;
+            }
+        }
+        return child;
+    }
+
+    /**
+     * Removes the sub-layer with the given id. The overrides of the sub-layer
+     * and of its own sub-layers are cleared, so that views that are still
+     * referenced fall back to the messages of this layer.
+     *
+     * @param id the id of the sub-layer
+     * @return the removed sub-layer or null if it does not exist
+     */
+    public OverlayLayer removeChild(String id) {
+        OverlayLayer child = children.remove(id);
+        if (child != null) {
+            child.clear();
+        }
+        return child;
+    }
+
+    private void clear() {
+        for (OverlayLayer child : children.values()) {
+            child.clear();
+        }
+        synchronized (this) {
+            overrides = Collections.emptyMap();
+            version++;
+        }
+    }
+
+    /**
+     * Replaces the overrides of the given resource bundle and locale. The
+     * overrides of a locale also apply to its more specific locales, e.g. the
+     * ones of de to de_AT, unless they are overridden for that locale.
+     *
+     * @param resourceBundleName the base name of the resource bundle
+     * @param locale             the locale
+     * @param messages           the messages by key; an empty map removes the overrides
+     */
+    public synchronized void setOverrides(String resourceBundleName, Locale locale, Map<String, String> messages) {
+        Map<BundleKey, Map<String, String>> newOverrides = new HashMap<BundleKey, Map<String, String>>(overrides);
+        BundleKey key = new BundleKey(resourceBundleName, locale);
+        if (messages.isEmpty()) {
+            newOverrides.remove(key);
+        } else {
+            newOverrides.put(key, Collections.unmodifiableMap(new HashMap<String, String>(messages)));
+        }
+        overrides = newOverrides;
+        version++;
+    }
+
+    /**
+     * Returns the overrides of this layer for the given resource bundle and
+     * locale.
+     *
+     * @param resourceBundleName the base name of the resource bundle
+     * @param locale             the locale
+     * @return the messages by key, an empty map if there are no overrides
+     */
+    public Map<String, String> getOverrides(String resourceBundleName, Locale locale) {
+        Map<String, String> messages = overrides.get(new BundleKey(resourceBundleName, locale));
+        return messages != null ? messages : NO_OVERRIDES;
+    }
+
+    /**
+     * Returns the sum of the versions of this layer and its parents, which
+     * changes whenever the overrides of one of them are updated.
+     *
+     * @return the path version
+     */
+    public long getPathVersion() {
+        long pathVersion = 0;
+        for (OverlayLayer layer = this; layer != null; layer = layer.parent) {
+            pathVersion += layer.version;
+        }
+        return pathVersion;
+    }
+
+    /**
+     * Returns the reference to the merged view of this layer on top of the
+     * given catalog. The reference is the same for all calls with the same
+     * resource bundle and locale.
+     *
+     * @param base the reference to the catalog of the resource bundle
+     * @return the reference to the merged view
+     */
+    public MessageCatalogReference getView(MessageCatalogReference base) {
+        BundleKey key = new BundleKey(base.getResourceBundleName(), base.getLocale());
+        View view = views.get(key);
+        if (view == null) {
+            view = new View(base);
+            View existingView = views.putIfAbsent(key, view);
+            if (existingView != null) {
+                view = existingView;
+            }
+        }
+        if (view.base != base) {
+            // the catalogs of the repository have been cleared or another class loader is used
+            view = new View(base);
+            views.put(key, view);
+        }
+        return view;
+    }
+
+    private Map<String, String> merge(String resourceBundleName, Locale locale) {
+        List<OverlayLayer> path = new LinkedList<OverlayLayer>();
+        for (OverlayLayer layer = this; layer != null; layer = layer.parent) {
+            path.add(0, layer);
+        }
+        List<Locale> candidateLocales = getCandidateLocales(locale);
+        Map<String, String> merged = null;
+        for (OverlayLayer layer : path) {
+            Map<BundleKey, Map<String, String>> layerOverrides = layer.overrides;
+            if (layerOverrides.isEmpty()) {
+                continue;
+            }
+            for (Locale candidateLocale : candidateLocales) {
+                Map<String, String> messages = layerOverrides.get(new BundleKey(resourceBundleName, candidateLocale));
+                if (messages != null) {
+                    if (merged == null) {
+                        merged = new HashMap<String, String>();
+                    }
+                    merged.putAll(messages);
+                }
+            }
+        }
+        return merged != null ? merged : NO_OVERRIDES;
+    }
+
+    /**
+     * Returns the given locale and its parents, the least specific first.
+     */
+    private static List<Locale> getCandidateLocales(Locale locale) {
+        List<Locale> candidateLocales = new ArrayList<Locale>(4);
+        candidateLocales.add(new Locale(""));
+        if (locale.getLanguage().length() > 0) {
+            candidateLocales.add(new Locale(locale.getLanguage()));
+        }
+        if (locale.getCountry().length() > 0) {
+            candidateLocales.add(new Locale(locale.getLanguage(), locale.getCountry()));
+        }
+        if (locale.getVariant().length() > 0) {
+            candidateLocales.add(locale);
+        }
+        return candidateLocales;
+    }
+}
@@ -0,0 +1,66 @@
+package jb5n.internal.catalog;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.Map;
+
+/**
+ * Catalog that has been loaded by the {@link PropertiesCatalogLoader} from
+ * properties files. The messages of the parent bundles are merged into a
+ * single map. The modification times of the files are recorded, so that the
+ * catalog can be reloaded if one of them changes.
+ */
+public class PropertiesCatalog extends MessageCatalog {
+    private final Map<String, String> messages;
+    private final Map<File, Long> watchedFiles;
+    private final int deduplicatedCount;
+    private final long bytesSaved;
+
+    public PropertiesCatalog(Map<String, String> messages, Map<File, Long> watchedFiles, long version) {
+        this(messages, watchedFiles, version, 0, 0);
+    }
+
+    PropertiesCatalog(Map<String, String> messages, Map<File, Long> watchedFiles, long version, int deduplicatedCount, long bytesSaved) {
+        super(version);
+        this.messages = messages;
+        this.watchedFiles = watchedFiles;
+        this.deduplicatedCount = deduplicatedCount;
+        this.bytesSaved = bytesSaved;
+    }
+
+    @Override
+    public String getMessage(String key) {
+        return messages.get(key);
+    }
+
+    @Override
+    public Enumeration<String> getKeys() {
+        return Collections.enumeration(messages.keySet());
+    }
+
+    @Override
+    public boolean exists() {
+        return true;
+    }
+
+    @Override
+    public int getDeduplicatedCount() {
+        return deduplicatedCount;
+    }
+
+    @Override
+    public long getBytesSaved() {
+        return bytesSaved;
+    }
+
+    @Override
+    public boolean isModified() {
+        for (Map.Entry<File, Long> watchedFile : watchedFiles.entrySet()) {
+            if (watchedFile.getKey().lastModified() != watchedFile.getValue().longValue()) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,241 @@
+package jb5n.internal.catalog;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Loads a {@link PropertiesCatalog} from the properties files of a resource
+ * bundle. The candidate bundle names are resolved like
+ * {@link java.util.ResourceBundle#getBundle(String, Locale, ClassLoader)}
+ * does: first the requested locale, then the default locale and at last the
+ * base bundle. The properties files are decoded like
+ * {@link java.util.PropertyResourceBundle} does since Java 9: as UTF-8, or
+ * as ISO-8859-1 if they are no valid UTF-8 or if the system property
+ * java.util.PropertyResourceBundle.encoding is set to ISO-8859-1.
+ */
+public class PropertiesCatalogLoader {
+    static final String SUFFIX = ".properties";
+    private static final String ENCODING_PROPERTY = "java.util.PropertyResourceBundle.encoding";
+    private static final String ISO_8859_1 = "ISO-8859-1";
+
+    /**
+     * Loads the catalog for the given resource bundle and locale.
+     *
+     * @param resourceBundleName the base name of the resource bundle
+     * @param locale             the locale
+     * @param classLoader        the class loader to load the files with
+     * @param version            the version of the new catalog
+     * @param stringPool         the pool to intern the keys and messages into or null
+     * @return the catalog or null if no properties file exists for the resource bundle
+     * @throws IOException if a properties file cannot be read
+     */
+    public PropertiesCatalog load(String resourceBundleName, Locale locale, ClassLoader classLoader, long version, StringPool stringPool) throws IOException {
+        List<String> candidates = new ArrayList<String>();
+        List<URL> urls = findResources(resourceBundleName, locale, classLoader, true, candidates);
+        if (urls.isEmpty()) {
+            return null;
+        }
+        Map<String, String> messages = merge(urls);
+        Map<File, Long> watchedFiles = getWatchedFiles(resourceBundleName.replace('.', '/'), candidates, urls);
+        if (stringPool == null) {
+            return new PropertiesCatalog(messages, watchedFiles, version);
+        }
+        Deduplication deduplication = new Deduplication(stringPool);
+        Map<String, String> internedMessages = new HashMap<String, String>(messages.size() * 4 / 3 + 1);
+        for (Map.Entry<String, String> entry : messages.entrySet()) {
+            internedMessages.put(deduplication.intern(entry.getKey()), deduplication.intern(entry.getValue()));
+        }
+        return new PropertiesCatalog(internedMessages, watchedFiles, version, deduplication.getDeduplicatedCount(), deduplication.getBytesSaved());
+    }
+
+    /**
+     * Loads the messages of the given resource bundle and its parents into a
+     * single map. Unlike {@link #load(String, Locale, ClassLoader, long, StringPool)} the
+     * default locale is not used as fallback, so that the result does not
+     * depend on the environment (e.g. when the messages are compiled during
+     * the build).
+     *
+     * @param resourceBundleName the base name of the resource bundle
+     * @param locale             the locale
+     * @param classLoader        the class loader to load the files with
+     * @return the messages or null if no properties file exists for the resource bundle
+     * @throws IOException if a properties file cannot be read
+     */
+    public Map<String, String> loadMessages(String resourceBundleName, Locale locale, ClassLoader classLoader) throws IOException {
+        List<URL> urls = findResources(resourceBundleName, locale, classLoader, false, new ArrayList<String>());
+        if (urls.isEmpty()) {
+            return null;
+        }
+        return merge(urls);
+    }
+
+    private List<URL> findResources(String resourceBundleName, Locale locale, ClassLoader classLoader, boolean fallbackToDefaultLocale, List<String> candidates) {
+        String baseName = resourceBundleName.replace('.', '/');
+        candidates.addAll(getCandidateSuffixes(locale));
+        List<URL> urls = findResources(baseName, candidates, classLoader);
+        Locale defaultLocale = Locale.getDefault();
+        if (fallbackToDefaultLocale && urls.isEmpty() && !defaultLocale.equals(locale)) {
+            List<String> defaultCandidates = getCandidateSuffixes(defaultLocale);
+            urls = findResources(baseName, defaultCandidates, classLoader);
+            candidates.addAll(defaultCandidates);
+        }
+        URL baseUrl = getResource(classLoader, baseName + SUFFIX);
+        if (baseUrl != null) {
+            urls.add(baseUrl);
+        }
+        candidates.add("");
+        return urls;
+    }
+
+    private Map<String, String> merge(List<URL> urls) throws IOException {
+        Map<String, String> messages = new HashMap<String, String>();
+        for (int i = urls.size() - 1; i >= 0; i--) {
+            Properties properties = loadProperties(urls.get(i));
+            for (Map.Entry<Object, Object> entry : properties.entrySet()) {
+                messages.put((String) entry.getKey(), (String) entry.getValue());
+            }
+        }
+        return messages;
+    }
+
+    public static List<String> getCandidateSuffixes(Locale locale) {
+        List<String> suffixes = new ArrayList<String>(3);
+        String language = locale.getLanguage();
+        String country = locale.getCountry();
+        String variant = locale.getVariant();
+        if (variant.length() > 0) {
+            suffixes.add("_" + language + "_" + country + "_" + variant);
+        }
+        if (country.length() > 0) {
+            suffixes.add("_" + language + "_" + country);
+        }
+        if (language.length() > 0) {
+            suffixes.add("_" + language);
+        }
+        return suffixes;
+    }
+
+    private List<URL> findResources(String baseName, List<String> suffixes, ClassLoader classLoader) {
+        List<URL> urls = new ArrayList<URL>(suffixes.size() + 1);
+        for (String suffix : suffixes) {
+            URL url = getResource(classLoader, baseName + suffix + SUFFIX);
+            if (url != null) {
+                urls.add(url);
+            }
+        }
+        return urls;
+    }
+
+    private URL getResource(ClassLoader classLoader, String name) {
+        if (classLoader == null) {
+            return ClassLoader.getSystemResource(name);
+        }
+        return classLoader.getResource(name);
+    }
+
+    private Properties loadProperties(URL url) throws IOException {
+        byte[] content = read(url);
+        if (!ISO_8859_1.equalsIgnoreCase(System.getProperty(ENCODING_PROPERTY))) {
+            try {
+                CharBuffer characters = Charset.forName("UTF-8").newDecoder()
+                        .onMalformedInput(CodingErrorAction.REPORT)
+                        .onUnmappableCharacter(CodingErrorAction.REPORT)
+                        .decode(ByteBuffer.wrap(content));
+                content = toIso88591(characters);
+            } catch (CharacterCodingException e) {
+                // no valid UTF-8, read as ISO-8859-1
+            }
+        }
+        Properties properties = new Properties();
+        properties.load(new ByteArrayInputStream(content));
+        return properties;
+    }
+
+    private static byte[] read(URL url) throws IOException {
+        InputStream inputStream = url.openStream();
+        try {
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int length;
+            while ((length = inputStream.read(buffer)) >= 0) {
+                outputStream.write(buffer, 0, length);
+            }
+            return outputStream.toByteArray();
+        } finally {
+            inputStream.close();
+        }
+    }
+
+    /**
+     * Converts decoded characters into the ISO-8859-1 form that
+     * {@link Properties#load(InputStream)} reads. Characters outside of
+     * ISO-8859-1 are written as unicode escapes; a backslash that escapes
+     * such a character is dropped, as {@link Properties} would drop it.
+     */
+    private static byte[] toIso88591(CharBuffer characters) throws IOException {
+        StringBuilder result = new StringBuilder(characters.length());
+        int backslashes = 0;
+        while (characters.hasRemaining()) {
+            char c = characters.get();
+            if (c <= 0xff) {
+                result.append(c);
+                backslashes = c == '\\' ? backslashes + 1 : 0;
+                continue;
+            }
+            if (backslashes % 2 == 1) {
+                result.setLength(result.length() - 1);
+            }
+            result.append(String.format("\\u%04x", (int) c));
+            backslashes = 0;
+        }
+        return result.toString().getBytes(ISO_8859_1);
+    }
+
+    /**
+     * Returns the modification times of all candidate files in the directories
+     * of the files that have been found, so that changed, added and removed
+     * files are detected. Files that are not located in the file system (e.g.
+     * in a jar file) are not watched.
+     */
+    private Map<File, Long> getWatchedFiles(String baseName, List<String> candidates, List<URL> urls) {
+        Map<File, Long> watchedFiles = new LinkedHashMap<File, Long>();
+        String simpleName = baseName.substring(baseName.lastIndexOf('/') + 1);
+        for (URL url : urls) {
+            if (!"file".equals(url.getProtocol())) {
+                continue;
+            }
+            File directory;
+            try {
+                directory = new File(url.toURI()).getParentFile();
+            } catch (URISyntaxException e) {
+                continue;
+            } catch (IllegalArgumentException e) {
+                continue;
+            }
+            for (String suffix : candidates) {
+                File file = new File(directory, simpleName + suffix + SUFFIX);
+                if (!watchedFiles.containsKey(file)) {
+                    watchedFiles.put(file, Long.valueOf(file.lastModified()));
+                }
+            }
+        }
+        return watchedFiles;
+    }
+}
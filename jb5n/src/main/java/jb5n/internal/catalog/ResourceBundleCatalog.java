@@ -0,0 +1,54 @@
+package jb5n.internal.catalog;
+
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.MissingResourceException;
+import java.util.ResourceBundle;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Catalog that is backed by a {@link ResourceBundle} loaded via
+ * {@link ResourceBundle#getBundle(String, java.util.Locale, ClassLoader)}.
+ * As the resource bundle signals a missing key with an exception, the
+ * missing keys are remembered, so that the exception is thrown only once per
+ * key.
+ */
+public class ResourceBundleCatalog extends MessageCatalog {
+    private static final int MAXIMUM_MISSING_KEYS = 10000;
+    private final ResourceBundle resourceBundle;
+    private final ConcurrentMap<String, Boolean> missingKeys = new ConcurrentHashMap<String, Boolean>();
+
+    public ResourceBundleCatalog(ResourceBundle resourceBundle, long version) {
+        super(version);
+        this.resourceBundle = resourceBundle;
+    }
+
+    @Override
+    public String getMessage(String key) {
+        if (resourceBundle == null || missingKeys.containsKey(key)) {
+            return null;
+        }
+        try {
+            return (String) resourceBundle.getObject(key);
+        } catch (MissingResourceException e) {
+            if (missingKeys.size() < MAXIMUM_MISSING_KEYS) {
+                missingKeys.put(key, Boolean.TRUE);
+            }
+            return null;
+        }
+    }
+
+    @Override
+    public Enumeration<String> getKeys() {
+        if (resourceBundle == null) {
+            return Collections.enumeration(Collections.<String>emptyList());
+        }
+        return resourceBundle.getKeys();
+    }
+
+    @Override
+    public boolean exists() {
+        return resourceBundle != null;
+    }
+}
@@ -0,0 +1,56 @@
+package jb5n.internal.catalog;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Pool of canonical string instances, used to share equal keys and messages
+ * between the catalogs of different locales and resource bundles. The strings
+ * are only weakly referenced, so that strings of unloaded catalogs are
+ * garbage collected. The pool is only accessed while catalogs are loaded.
+ */
+public class StringPool {
+    /**
+     * Estimated size of a string object and its character array without the
+     * characters (64 bit JVM with compressed references).
+     */
+    static final int STRING_OVERHEAD = 40;
+    private static final StringPool instance = new StringPool();
+    private final Map<String, WeakReference<String>> pool = new WeakHashMap<String, WeakReference<String>>();
+
+    public static StringPool getInstance() {
+        return instance;
+    }
+
+    /**
+     * Returns the canonical instance of the given string.
+     *
+     * @param string the string
+     * @return the pooled instance that equals the given string
+     */
+    public synchronized String intern(String string) {
+        WeakReference<String> reference = pool.get(string);
+        String pooled = reference != null ? reference.get() : null;
+        if (pooled == null) {
+            pool.put(string, new WeakReference<String>(string));
+            pooled = string;
+        }
+        return pooled;
+    }
+
+    public synchronized int size() {
+        return pool.size();
+    }
+
+    /**
+     * Returns the estimated number of bytes a copy of the given string
+     * occupies on the heap.
+     *
+     * @param string the string
+     * @return the estimated size in bytes
+     */
+    static long estimateSize(String string) {
+        return STRING_OVERHEAD + 2L * string.length();
+    }
+}
@@ -0,0 +1,123 @@
+package jb5n.internal.format;
+
+import java.text.ChoiceFormat;
+import java.text.DateFormat;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.text.Format;
+import java.text.NumberFormat;
+import java.text.SimpleDateFormat;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Pool of the {@link Format} instances for one format element of a message
+ * pattern (e.g. <code>{0,number,#.##}</code>). Format instances are not
+ * thread-safe, hence each caller acquires an instance for a locale and
+ * releases it afterwards. The instances are created the same way
+ * {@link java.text.MessageFormat} creates them.
+ */
+public class FormatPool {
+    public static final FormatPool DEFAULT_NUMBER = new FormatPool(FormatType.Number, "");
+    public static final FormatPool DEFAULT_DATE_TIME = new FormatPool(FormatType.DateTime, "");
+    private static final String[] NUMBER_MODIFIER_KEYWORDS = {"", "currency", "percent", "integer"};
+    private static final String[] DATE_TIME_MODIFIER_KEYWORDS = {"", "short", "medium", "long", "full"};
+    private static final int[] DATE_TIME_MODIFIERS = {DateFormat.DEFAULT, DateFormat.SHORT, DateFormat.MEDIUM, DateFormat.LONG, DateFormat.FULL};
+    private final ConcurrentMap<Locale, Queue<Format>> formats = new ConcurrentHashMap<Locale, Queue<Format>>();
+    private final FormatType formatType;
+    private final String modifier;
+
+    public enum FormatType {
+        Number, Date, Time, Choice, DateTime
+    }
+
+    public FormatPool(FormatType formatType, String modifier) {
+        this.formatType = formatType;
+        this.modifier = modifier;
+    }
+
+    public Format acquire(Locale locale) {
+        Queue<Format> queue = formats.get(locale);
+        if (queue != null) {
+            Format format = queue.poll();
+            if (format != null) {
+                return format;
+            }
+        }
+        return createFormat(locale);
+    }
+
+    public void release(Locale locale, Format format) {
+        Queue<Format> queue = formats.get(locale);
+        if (queue == null) {
+            queue = new ConcurrentLinkedQueue<Format>();
+            Queue<Format> existingQueue = formats.putIfAbsent(locale, queue);
+            if (existingQueue != null) {
+                queue = existingQueue;
+            }
+        }
+        queue.offer(format);
+    }
+
+    public FormatType getFormatType() {
+        return formatType;
+    }
+
+    public String getModifier() {
+        return modifier;
+    }
+
+    Format createFormat(Locale locale) {
+        switch (formatType) {
+            case Number:
+                switch (findKeyword(modifier, NUMBER_MODIFIER_KEYWORDS)) {
+                    case 0:
+                        return NumberFormat.getInstance(locale);
+                    case 1:
+                        return NumberFormat.getCurrencyInstance(locale);
+                    case 2:
+                        return NumberFormat.getPercentInstance(locale);
+                    case 3:
+                        return NumberFormat.getIntegerInstance(locale);
+                    default:
+                        return new DecimalFormat(modifier, new DecimalFormatSymbols(locale));
+                }
+            case Date:
+            case Time:
+                int dateTimeModifier = findKeyword(modifier, DATE_TIME_MODIFIER_KEYWORDS);
+                if (dateTimeModifier >= 0) {
+                    if (formatType == FormatType.Date) {
+                        return DateFormat.getDateInstance(DATE_TIME_MODIFIERS[dateTimeModifier], locale);
+                    }
+                    return DateFormat.getTimeInstance(DATE_TIME_MODIFIERS[dateTimeModifier], locale);
+                }
+                return new SimpleDateFormat(modifier, locale);
+            case Choice:
+                try {
+                    return new ChoiceFormat(modifier);
+                } catch (Exception e) {
+                    throw new IllegalArgumentException("Choice Pattern incorrect: " + modifier, e);
+                }
+            default:
+                return DateFormat.getDateTimeInstance(DateFormat.SHORT, DateFormat.SHORT, locale);
+        }
+    }
+
+    static int findKeyword(String s, String[] keywords) {
+        for (int i = 0; i < keywords.length; i++) {
+            if (s.equals(keywords[i])) {
+                return i;
+            }
+        }
+        String trimmedLowerCase = s.trim().toLowerCase(Locale.ENGLISH);
+        for (int i = 0; i < keywords.length; i++) {
+            if (trimmedLowerCase.equals(keywords[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
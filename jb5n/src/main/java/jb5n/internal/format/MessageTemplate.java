@@ -0,0 +1,367 @@
+package jb5n.internal.format;
+
+import java.text.ChoiceFormat;
+import java.text.FieldPosition;
+import java.text.Format;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import jb5n.internal.format.FormatPool.FormatType;
+
+/**
+ * A message pattern in the syntax of {@link java.text.MessageFormat} that is
+ * parsed once into its literal segments and argument slots. Templates are
+ * immutable and can be used by several threads at the same time; the format
+ * instances for number, date and choice arguments are borrowed from a
+ * {@link FormatPool} per locale. The output is the same as the one of
+ * <code>new MessageFormat(pattern, locale).format(arguments)</code>.
+ * <p>
+ * In addition, plural and select arguments select a sub-message, e.g.
+ * <code>{0,plural,=0{no files} one{# file} other{# files}}</code> or
+ * <code>{1,select,female{her} male{his} other{their}}</code>. A plural argument
+ * selects the sub-message by the CLDR plural category of the number in the
+ * language of the template; a '#' in its sub-messages is replaced by the
+ * number. Sub-messages are compiled with the template.
+ */
+public class MessageTemplate {
+    private static final String[] TYPE_KEYWORDS = {"", "number", "date", "time", "choice", "plural", "select"};
+    private static final FormatType[] TYPES = {null, FormatType.Number, FormatType.Date, FormatType.Time, FormatType.Choice, null, null};
+    private static final int TYPE_PLURAL = 5;
+    private static final int TYPE_SELECT = 6;
+    private static final int SEG_RAW = 0;
+    private static final int SEG_INDEX = 1;
+    private static final int SEG_TYPE = 2;
+    private static final int SEG_MODIFIER = 3;
+    private final String pattern;
+    private final String[] literals;
+    private final ArgumentSlot[] slots;
+
+    private static class ArgumentSlot {
+        private final int argumentIndex;
+        private final FormatPool formatPool;
+        private final SubMessages subMessages;
+        private final PluralRules pluralRules;
+        private final ConcurrentMap<String, MessageTemplate> choiceTemplates;
+
+        private ArgumentSlot(int argumentIndex, FormatPool formatPool, SubMessages subMessages, PluralRules pluralRules) {
+            this.argumentIndex = argumentIndex;
+            this.formatPool = formatPool;
+            this.subMessages = subMessages;
+            this.pluralRules = pluralRules;
+            if (formatPool != null && formatPool.getFormatType() == FormatType.Choice) {
+                this.choiceTemplates = new ConcurrentHashMap<String, MessageTemplate>();
+            } else {
+                this.choiceTemplates = null;
+            }
+        }
+
+        private MessageTemplate getChoiceTemplate(String choicePattern) {
+            MessageTemplate template = choiceTemplates.get(choicePattern);
+            if (template == null) {
+                template = compile(choicePattern, pluralRules, -1);
+                choiceTemplates.putIfAbsent(choicePattern, template);
+            }
+            return template;
+        }
+    }
+
+    private MessageTemplate(String pattern, String[] literals, ArgumentSlot[] slots) {
+        this.pattern = pattern;
+        this.literals = literals;
+        this.slots = slots;
+    }
+
+    /**
+     * Parses the given pattern. Plural arguments use the rules of the default
+     * locale.
+     *
+     * @param pattern the pattern in the syntax of {@link java.text.MessageFormat}
+     * @return the compiled template
+     * @throws IllegalArgumentException if the pattern is invalid
+     */
+    public static MessageTemplate compile(String pattern) {
+        return compile(pattern, Locale.getDefault());
+    }
+
+    /**
+     * Parses the given pattern of a message in the language of the given
+     * locale.
+     *
+     * @param pattern the pattern in the syntax of {@link java.text.MessageFormat}
+     * @param locale  the locale whose plural rules select the sub-messages of plural arguments
+     * @return the compiled template
+     * @throws IllegalArgumentException if the pattern is invalid
+     */
+    public static MessageTemplate compile(String pattern, Locale locale) {
+        return compile(pattern, PluralRules.forLocale(locale), -1);
+    }
+
+    /**
+     * @param hashArgumentIndex the index of the argument that replaces a '#', or -1 if '#' is no placeholder
+     */
+    static MessageTemplate compile(String pattern, PluralRules pluralRules, int hashArgumentIndex) {
+        List<String> literals = new ArrayList<String>();
+        List<ArgumentSlot> slots = new ArrayList<ArgumentSlot>();
+        StringBuilder[] segments = new StringBuilder[4];
+        segments[SEG_RAW] = new StringBuilder();
+        int part = SEG_RAW;
+        boolean inQuote = false;
+        int braceStack = 0;
+        for (int i = 0; i < pattern.length(); i++) {
+            char ch = pattern.charAt(i);
+            if (part == SEG_RAW) {
+                if (ch == '\'') {
+                    if (i + 1 < pattern.length() && pattern.charAt(i + 1) == '\'') {
+                        segments[part].append(ch);
+                        i++;
+                    } else {
+                        inQuote = !inQuote;
+                    }
+                } else if (ch == '{' && !inQuote) {
+                    part = SEG_INDEX;
+                    segments[SEG_INDEX] = new StringBuilder();
+                } else if (ch == '#' && !inQuote && hashArgumentIndex >= 0) {
+                    literals.add(segments[SEG_RAW].toString());
+                    segments[SEG_RAW].setLength(0);
+                    slots.add(new ArgumentSlot(hashArgumentIndex, FormatPool.DEFAULT_NUMBER, null, pluralRules));
+                } else {
+                    segments[part].append(ch);
+                }
+            } else if (inQuote) {
+                segments[part].append(ch);
+                if (ch == '\'') {
+                    inQuote = false;
+                }
+            } else {
+                switch (ch) {
+                    case ',':
+                        if (part < SEG_MODIFIER) {
+                            part++;
+                            if (segments[part] == null) {
+                                segments[part] = new StringBuilder();
+                            }
+                        } else {
+                            segments[part].append(ch);
+                        }
+                        break;
+                    case '{':
+                        braceStack++;
+                        segments[part].append(ch);
+                        break;
+                    case '}':
+                        if (braceStack == 0) {
+                            part = SEG_RAW;
+                            literals.add(segments[SEG_RAW].toString());
+                            segments[SEG_RAW].setLength(0);
+                            slots.add(createArgumentSlot(segments, pluralRules, hashArgumentIndex));
+                            segments[SEG_INDEX] = null;
+                            segments[SEG_TYPE] = null;
+                            segments[SEG_MODIFIER] = null;
+                        } else {
+                            braceStack--;
+                            segments[part].append(ch);
+                        }
+                        break;
+                    case ' ':
+                        if (part != SEG_TYPE || segments[SEG_TYPE].length() > 0) {
+                            segments[part].append(ch);
+                        }
+                        break;
+                    case '\'':
+                        inQuote = true;
+                        segments[part].append(ch);
+                        break;
+                    default:
+                        segments[part].append(ch);
+                        break;
+                }
+            }
+        }
+        if (braceStack == 0 && part != SEG_RAW) {
+            throw new IllegalArgumentException("Unmatched braces in the pattern.");
+        }
+        literals.add(segments[SEG_RAW].toString());
+        return new MessageTemplate(pattern, literals.toArray(new String[literals.size()]), slots.toArray(new ArgumentSlot[slots.size()]));
+    }
+
+    private static ArgumentSlot createArgumentSlot(StringBuilder[] segments, PluralRules pluralRules, int hashArgumentIndex) {
+        String index = segmentToString(segments[SEG_INDEX]);
+        String type = segmentToString(segments[SEG_TYPE]);
+        String modifier = segmentToString(segments[SEG_MODIFIER]);
+        int argumentIndex;
+        try {
+            argumentIndex = Integer.parseInt(index);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("can't parse argument number: " + index, e);
+        }
+        if (argumentIndex < 0) {
+            throw new IllegalArgumentException("negative argument number: " + argumentIndex);
+        }
+        FormatPool formatPool = null;
+        SubMessages subMessages = null;
+        if (type.length() > 0) {
+            int typeIndex = FormatPool.findKeyword(type, TYPE_KEYWORDS);
+            if (typeIndex < 0) {
+                throw new IllegalArgumentException("unknown format type: " + type);
+            }
+            if (typeIndex == TYPE_PLURAL) {
+                subMessages = SubMessages.plural(argumentIndex, modifier, pluralRules);
+            } else if (typeIndex == TYPE_SELECT) {
+                subMessages = SubMessages.select(argumentIndex, modifier, hashArgumentIndex, pluralRules);
+            } else if (TYPES[typeIndex] != null) {
+                formatPool = new FormatPool(TYPES[typeIndex], modifier);
+                // validates the modifier and primes the pool for the default locale
+                Locale locale = Locale.getDefault();
+                formatPool.release(locale, formatPool.createFormat(locale));
+            }
+        }
+        return new ArgumentSlot(argumentIndex, formatPool, subMessages, pluralRules);
+    }
+
+    private static String segmentToString(StringBuilder segment) {
+        return segment != null ? segment.toString() : "";
+    }
+
+    /**
+     * Formats the given arguments.
+     *
+     * @param arguments the arguments
+     * @param locale    the locale used for number, date and choice arguments
+     * @return the formatted message
+     */
+    public String format(Object[] arguments, Locale locale) {
+        if (slots.length == 0) {
+            return literals[0];
+        }
+        StringBuffer result = new StringBuffer(pattern.length() + 16 * slots.length);
+        format(arguments, locale, result);
+        return result.toString();
+    }
+
+    /**
+     * Formats the given arguments and appends the result to the given buffer.
+     *
+     * @param arguments the arguments
+     * @param locale    the locale used for number, date and choice arguments
+     * @param result    the buffer the formatted message is appended to
+     */
+    public void format(Object[] arguments, Locale locale, StringBuffer result) {
+        format(arguments, null, locale, result);
+    }
+
+    /**
+     * Like {@link #format(Object[], Locale, StringBuffer)}, but arguments that
+     * are inserted without a format type are taken from the given converted
+     * arguments, so that they are not converted again for each message.
+     *
+     * @param arguments          the arguments
+     * @param convertedArguments the result of {@link #convertArguments(Object[], Locale)} for the given arguments and locale, or null
+     * @param locale             the locale used for number, date and choice arguments
+     * @param result             the buffer the formatted message is appended to
+     */
+    public void format(Object[] arguments, String[] convertedArguments, Locale locale, StringBuffer result) {
+        FieldPosition fieldPosition = null;
+        for (int i = 0; i < slots.length; i++) {
+            result.append(literals[i]);
+            ArgumentSlot slot = slots[i];
+            int argumentIndex = slot.argumentIndex;
+            if (arguments == null || argumentIndex >= arguments.length) {
+                result.append('{').append(argumentIndex).append('}');
+                continue;
+            }
+            Object argument = arguments[argumentIndex];
+            FormatPool formatPool = slot.formatPool;
+            if (argument == null) {
+                result.append("null");
+                continue;
+            } else if (slot.subMessages != null) {
+                slot.subMessages.select(argument).format(arguments, convertedArguments, locale, result);
+                continue;
+            } else if (formatPool == null && convertedArguments != null) {
+                result.append(convertedArguments[argumentIndex]);
+                continue;
+            } else if (formatPool == null) {
+                if (argument instanceof Number) {
+                    formatPool = FormatPool.DEFAULT_NUMBER;
+                } else if (argument instanceof Date) {
+                    formatPool = FormatPool.DEFAULT_DATE_TIME;
+                } else {
+                    String string = argument.toString();
+                    result.append(string != null ? string : "null");
+                    continue;
+                }
+            }
+            Format format = formatPool.acquire(locale);
+            try {
+                if (format instanceof ChoiceFormat) {
+                    String choice = format.format(argument);
+                    if (choice.indexOf('{') >= 0) {
+                        slot.getChoiceTemplate(choice).format(arguments, convertedArguments, locale, result);
+                    } else {
+                        result.append(choice);
+                    }
+                } else {
+                    if (fieldPosition == null) {
+                        fieldPosition = new FieldPosition(0);
+                    } else {
+                        fieldPosition.setBeginIndex(0);
+                        fieldPosition.setEndIndex(0);
+                    }
+                    format.format(argument, result, fieldPosition);
+                }
+            } finally {
+                formatPool.release(locale, format);
+            }
+        }
+        result.append(literals[slots.length]);
+    }
+
+    /**
+     * Converts the arguments to the text they are formatted to if they are
+     * inserted without a format type, e.g. as {0}. This does not depend on
+     * the pattern, so the result can be used to format the same arguments
+     * into several templates.
+     *
+     * @param arguments the arguments
+     * @param locale    the locale used for number and date arguments
+     * @return the converted arguments
+     */
+    public static String[] convertArguments(Object[] arguments, Locale locale) {
+        String[] convertedArguments = new String[arguments.length];
+        StringBuffer result = new StringBuffer();
+        for (int i = 0; i < arguments.length; i++) {
+            Object argument = arguments[i];
+            FormatPool formatPool;
+            if (argument instanceof Number) {
+                formatPool = FormatPool.DEFAULT_NUMBER;
+            } else if (argument instanceof Date) {
+                formatPool = FormatPool.DEFAULT_DATE_TIME;
+            } else {
+                String string = argument != null ? argument.toString() : null;
+                convertedArguments[i] = string != null ? string : "null";
+                continue;
+            }
+            Format format = formatPool.acquire(locale);
+            try {
+                result.setLength(0);
+                format.format(argument, result, new FieldPosition(0));
+                convertedArguments[i] = result.toString();
+            } finally {
+                formatPool.release(locale, format);
+            }
+        }
+        return convertedArguments;
+    }
+
+    public String getPattern() {
+        return pattern;
+    }
+
+    public int getArgumentCount() {
+        return slots.length;
+    }
+}
@@ -0,0 +1,81 @@
+package jb5n.internal.format;
+
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Cache for the compiled templates of the messages of all resource bundles.
+ * A cached template is only returned if it still matches the pattern that is
+ * currently stored in the resource bundle, otherwise it is compiled again.
+ */
+public class MessageTemplateCache {
+    private final ConcurrentMap<TemplateKey, MessageTemplate> cache = new ConcurrentHashMap<TemplateKey, MessageTemplate>();
+
+    public static class TemplateKey {
+        private final String resourceBundleName;
+        private final Locale locale;
+        private final String resourceKey;
+        private final int hashCode;
+
+        public TemplateKey(String resourceBundleName, Locale locale, String resourceKey) {
+            this.resourceBundleName = resourceBundleName;
+            this.locale = locale;
+            this.resourceKey = resourceKey;
+            final int prime = 31;
+            int result = 1;
+            result = prime * result + ((resourceBundleName == null) ? 0 : resourceBundleName.hashCode());
+            result = prime * result + ((locale == null) ? 0 : locale.hashCode());
+            result = prime * result + ((resourceKey == null) ? 0 : resourceKey.hashCode());
+            this.hashCode = result;
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj)
+                return true;
+            if (obj == null)
+                return false;
+            if (getClass() != obj.getClass())
+                return false;
+            TemplateKey other = (TemplateKey) obj;
+            return equal(resourceKey, other.resourceKey) && equal(resourceBundleName, other.resourceBundleName) && equal(locale, other.locale);
+        }
+
+        private static boolean equal(Object o1, Object o2) {
+            return o1 == null ? o2 == null : o1.equals(o2);
+        }
+    }
+
+    /**
+     * Returns the compiled template for the given message.
+     *
+     * @param resourceBundleName the name of the resource bundle
+     * @param locale             the locale of the resource bundle
+     * @param resourceKey        the key of the message
+     * @param pattern            the message as stored in the resource bundle
+     * @return the compiled template
+     */
+    public MessageTemplate get(String resourceBundleName, Locale locale, String resourceKey, String pattern) {
+        TemplateKey key = new TemplateKey(resourceBundleName, locale, resourceKey);
+        MessageTemplate template = cache.get(key);
+        if (template == null || !pattern.equals(template.getPattern())) {
+            template = MessageTemplate.compile(pattern, locale);
+            cache.put(key, template);
+        }
+        return template;
+    }
+
+    public int size() {
+        return cache.size();
+    }
+
+    public void clear() {
+        cache.clear();
+    }
+}
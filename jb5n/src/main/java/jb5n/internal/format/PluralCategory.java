@@ -0,0 +1,27 @@
+package jb5n.internal.format;
+
+import java.util.Locale;
+
+/**
+ * The plural categories of the CLDR plural rules. The keyword is the name of
+ * the category as used in the sub-messages of a plural argument, e.g.
+ * <code>one{# file}</code>.
+ */
+public enum PluralCategory {
+    Zero, One, Two, Few, Many, Other;
+
+    private final String keyword = name().toLowerCase(Locale.ENGLISH);
+
+    public String getKeyword() {
+        return keyword;
+    }
+
+    public static PluralCategory forKeyword(String keyword) {
+        for (PluralCategory category : values()) {
+            if (category.keyword.equals(keyword)) {
+                return category;
+            }
+        }
+        return null;
+    }
+}
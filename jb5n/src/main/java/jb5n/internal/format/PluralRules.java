@@ -0,0 +1,202 @@
+package jb5n.internal.format;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The CLDR plural rules of the supported languages for cardinal numbers.
+ * Languages that share the same rules share one constant; languages without
+ * rules only use {@link PluralCategory#Other}. The rules are evaluated on the
+ * absolute value of a number. For numbers with a fraction only the integer
+ * part is known, so rules that depend on the fraction digits treat every
+ * fraction alike. The category many of multiples of a million in e.g. French
+ * and Spanish is not supported; these numbers use other.
+ */
+public enum PluralRules {
+    /** ja, ko, zh, ... */
+    Other,
+    /** en, de, es, it, nl, ... */
+    One,
+    /** fr, pt, hy: i = 0,1 */
+    ZeroOrOne,
+    /** hi, bn, fa, ...: i = 0 or n = 1 */
+    ZeroOrExactlyOne,
+    /** ru, uk, be */
+    EastSlavic,
+    /** hr, sr, bs */
+    SouthSlavic,
+    /** pl */
+    Polish,
+    /** cs, sk */
+    Czech,
+    /** ro */
+    Romanian,
+    /** lt */
+    Lithuanian,
+    /** sl */
+    Slovenian,
+    /** he */
+    Hebrew,
+    /** ar */
+    Arabic;
+
+    private static final Map<String, PluralRules> rulesByLanguage = new HashMap<String, PluralRules>();
+
+    static {
+        register(One, "af", "bg", "ca", "da", "de", "el", "en", "eo", "es", "et", "eu", "fi", "fy", "gl", "hu", "is", "it", "ka", "kk", "ky", "lb", "ml", "mn", "nb", "ne",
+                "nl", "nn", "no", "sq", "sv", "sw", "ta", "te", "tr", "ur", "uz");
+        register(ZeroOrOne, "fr", "hy", "pt");
+        register(ZeroOrExactlyOne, "am", "bn", "fa", "gu", "hi", "kn", "zu");
+        register(EastSlavic, "be", "ru", "uk");
+        register(SouthSlavic, "bs", "hr", "sh", "sr");
+        register(Polish, "pl");
+        register(Czech, "cs", "sk");
+        register(Romanian, "mo", "ro");
+        register(Lithuanian, "lt");
+        register(Slovenian, "sl");
+        // Locale.getLanguage() returns "iw" for Hebrew on older Java versions
+        register(Hebrew, "he", "iw");
+        register(Arabic, "ar");
+    }
+
+    private static void register(PluralRules rules, String... languages) {
+        for (String language : languages) {
+            rulesByLanguage.put(language, rules);
+        }
+    }
+
+    /**
+     * Returns the plural rules of the language of the given locale.
+     *
+     * @param locale the locale or null
+     * @return the rules, {@link #Other} for unknown languages
+     */
+    public static PluralRules forLocale(Locale locale) {
+        PluralRules rules = locale != null ? rulesByLanguage.get(locale.getLanguage()) : null;
+        return rules != null ? rules : Other;
+    }
+
+    /**
+     * Returns the category of the given integer.
+     *
+     * @param number the number
+     * @return the category
+     */
+    public PluralCategory select(long number) {
+        long n = number < 0 ? -number : number;
+        if (n < 0) {
+            // Long.MIN_VALUE
+            return PluralCategory.Other;
+        }
+        long mod10 = n % 10;
+        long mod100 = n % 100;
+        switch (this) {
+            case One:
+                return n == 1 ? PluralCategory.One : PluralCategory.Other;
+            case ZeroOrOne:
+            case ZeroOrExactlyOne:
+                return n <= 1 ? PluralCategory.One : PluralCategory.Other;
+            case EastSlavic:
+            case SouthSlavic:
+                if (mod10 == 1 && mod100 != 11) {
+                    return PluralCategory.One;
+                }
+                if (mod10 >= 2 && mod10 <= 4 && (mod100 < 12 || mod100 > 14)) {
+                    return PluralCategory.Few;
+                }
+                return this == EastSlavic ? PluralCategory.Many : PluralCategory.Other;
+            case Polish:
+                if (n == 1) {
+                    return PluralCategory.One;
+                }
+                if (mod10 >= 2 && mod10 <= 4 && (mod100 < 12 || mod100 > 14)) {
+                    return PluralCategory.Few;
+                }
+                return PluralCategory.Many;
+            case Czech:
+                if (n == 1) {
+                    return PluralCategory.One;
+                }
+                return n >= 2 && n <= 4 ? PluralCategory.Few : PluralCategory.Other;
+            case Romanian:
+                if (n == 1) {
+                    return PluralCategory.One;
+                }
+                return n == 0 || (mod100 >= 1 && mod100 <= 19) ? PluralCategory.Few : PluralCategory.Other;
+            case Lithuanian:
+                if (mod100 >= 11 && mod100 <= 19) {
+                    return PluralCategory.Other;
+                }
+                if (mod10 == 1) {
+                    return PluralCategory.One;
+                }
+                return mod10 >= 2 ? PluralCategory.Few : PluralCategory.Other;
+            case Slovenian:
+                if (mod100 == 1) {
+                    return PluralCategory.One;
+                }
+                if (mod100 == 2) {
+                    return PluralCategory.Two;
+                }
+                return mod100 == 3 || mod100 == 4 ? PluralCategory.Few : PluralCategory.Other;
+            case Hebrew:
+                if (n == 1) {
+                    return PluralCategory.One;
+                }
+                return n == 2 ? PluralCategory.Two : PluralCategory.Other;
+            case Arabic:
+                if (n <= 2) {
+                    return n == 0 ? PluralCategory.Zero : n == 1 ? PluralCategory.One : PluralCategory.Two;
+                }
+                if (mod100 >= 3 && mod100 <= 10) {
+                    return PluralCategory.Few;
+                }
+                return mod100 >= 11 ? PluralCategory.Many : PluralCategory.Other;
+            default:
+                return PluralCategory.Other;
+        }
+    }
+
+    /**
+     * Returns the category of the given number. Numbers without a fraction
+     * are treated like integers.
+     *
+     * @param number the number
+     * @return the category
+     */
+    public PluralCategory select(double number) {
+        double n = Math.abs(number);
+        if (n >= Long.MAX_VALUE || Double.isNaN(n)) {
+            return PluralCategory.Other;
+        }
+        if (n == Math.floor(n)) {
+            return select((long) n);
+        }
+        return selectFraction((long) n);
+    }
+
+    /**
+     * Returns the category of a number with a fraction, e.g. 2.5.
+     *
+     * @param integerPart the absolute value of the integer part of the number
+     * @return the category
+     */
+    private PluralCategory selectFraction(long integerPart) {
+        switch (this) {
+            case ZeroOrOne:
+                return integerPart <= 1 ? PluralCategory.One : PluralCategory.Other;
+            case ZeroOrExactlyOne:
+            case Hebrew:
+                return integerPart == 0 ? PluralCategory.One : PluralCategory.Other;
+            case Czech:
+            case Lithuanian:
+                return PluralCategory.Many;
+            case Romanian:
+            case Slovenian:
+                return PluralCategory.Few;
+            default:
+                return PluralCategory.Other;
+        }
+    }
+}
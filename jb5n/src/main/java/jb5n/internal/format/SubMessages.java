@@ -0,0 +1,187 @@
+package jb5n.internal.format;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The sub-messages of a plural or select argument, e.g.
+ * <code>{0,plural,=0{no files} one{# file} other{# files}}</code> or
+ * <code>{1,select,female{her} male{his} other{their}}</code>. The sub-messages
+ * are compiled once with their argument; selecting one of them does not
+ * allocate.
+ */
+class SubMessages {
+    private static final String OTHER = "other";
+    private final PluralRules pluralRules;
+    private final double[] exactValues;
+    private final MessageTemplate[] exactTemplates;
+    private final MessageTemplate[] categoryTemplates;
+    private final Map<String, MessageTemplate> keywordTemplates;
+    private final MessageTemplate otherTemplate;
+
+    private SubMessages(PluralRules pluralRules, double[] exactValues, MessageTemplate[] exactTemplates, MessageTemplate[] categoryTemplates,
+                        Map<String, MessageTemplate> keywordTemplates, MessageTemplate otherTemplate) {
+        this.pluralRules = pluralRules;
+        this.exactValues = exactValues;
+        this.exactTemplates = exactTemplates;
+        this.categoryTemplates = categoryTemplates;
+        this.keywordTemplates = keywordTemplates;
+        this.otherTemplate = otherTemplate;
+    }
+
+    /**
+     * Parses the sub-messages of a plural argument. A '#' in a sub-message is
+     * replaced by the number.
+     *
+     * @param argumentIndex the index of the argument
+     * @param modifier      the sub-messages, e.g. <code>one{# file} other{# files}</code>
+     * @param pluralRules   the rules that select the category of a number
+     * @return the parsed sub-messages
+     * @throws IllegalArgumentException if the sub-messages are invalid
+     */
+    static SubMessages plural(int argumentIndex, String modifier, PluralRules pluralRules) {
+        List<String> selectors = new ArrayList<String>();
+        List<MessageTemplate> templates = new ArrayList<MessageTemplate>();
+        parse(modifier, argumentIndex, pluralRules, selectors, templates);
+        List<Double> exactValues = new ArrayList<Double>();
+        List<MessageTemplate> exactTemplates = new ArrayList<MessageTemplate>();
+        MessageTemplate[] categoryTemplates = new MessageTemplate[PluralCategory.values().length];
+        for (int i = 0; i < selectors.size(); i++) {
+            String selector = selectors.get(i);
+            if (selector.startsWith("=")) {
+                try {
+                    exactValues.add(Double.valueOf(selector.substring(1)));
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("invalid plural value: " + selector, e);
+                }
+                exactTemplates.add(templates.get(i));
+            } else {
+                PluralCategory category = PluralCategory.forKeyword(selector);
+                if (category == null) {
+                    throw new IllegalArgumentException("unknown plural category: " + selector);
+                }
+                categoryTemplates[category.ordinal()] = templates.get(i);
+            }
+        }
+        MessageTemplate otherTemplate = categoryTemplates[PluralCategory.Other.ordinal()];
+        if (otherTemplate == null) {
+            throw new IllegalArgumentException("missing 'other' sub-message in plural argument " + argumentIndex);
+        }
+        double[] exactValueArray = new double[exactValues.size()];
+        for (int i = 0; i < exactValueArray.length; i++) {
+            exactValueArray[i] = exactValues.get(i);
+        }
+        return new SubMessages(pluralRules, exactValueArray, exactTemplates.toArray(new MessageTemplate[exactTemplates.size()]), categoryTemplates, null, otherTemplate);
+    }
+
+    /**
+     * Parses the sub-messages of a select argument. The sub-message is selected
+     * by the text of the argument.
+     *
+     * @param argumentIndex     the index of the argument
+     * @param modifier          the sub-messages, e.g. <code>female{her} other{their}</code>
+     * @param hashArgumentIndex the index of the argument of an enclosing plural argument or -1
+     * @param pluralRules       the rules for nested plural arguments
+     * @return the parsed sub-messages
+     * @throws IllegalArgumentException if the sub-messages are invalid
+     */
+    static SubMessages select(int argumentIndex, String modifier, int hashArgumentIndex, PluralRules pluralRules) {
+        List<String> selectors = new ArrayList<String>();
+        List<MessageTemplate> templates = new ArrayList<MessageTemplate>();
+        parse(modifier, hashArgumentIndex, pluralRules, selectors, templates);
+        Map<String, MessageTemplate> keywordTemplates = new HashMap<String, MessageTemplate>();
+        for (int i = 0; i < selectors.size(); i++) {
+            keywordTemplates.put(selectors.get(i), templates.get(i));
+        }
+        MessageTemplate otherTemplate = keywordTemplates.get(OTHER);
+        if (otherTemplate == null) {
+            throw new IllegalArgumentException("missing 'other' sub-message in select argument " + argumentIndex);
+        }
+        return new SubMessages(pluralRules, null, null, null, keywordTemplates, otherTemplate);
+    }
+
+    private static void parse(String modifier, int hashArgumentIndex, PluralRules pluralRules, List<String> selectors, List<MessageTemplate> templates) {
+        int length = modifier.length();
+        int i = skipWhitespace(modifier, 0);
+        while (i < length) {
+            int start = i;
+            while (i < length && modifier.charAt(i) != '{' && !Character.isWhitespace(modifier.charAt(i))) {
+                i++;
+            }
+            String selector = modifier.substring(start, i);
+            i = skipWhitespace(modifier, i);
+            if (i == length || modifier.charAt(i) != '{') {
+                throw new IllegalArgumentException("missing sub-message for selector: " + selector);
+            }
+            int end = findClosingBrace(modifier, i);
+            selectors.add(selector);
+            templates.add(MessageTemplate.compile(modifier.substring(i + 1, end), pluralRules, hashArgumentIndex));
+            i = skipWhitespace(modifier, end + 1);
+        }
+    }
+
+    private static int skipWhitespace(String modifier, int i) {
+        while (i < modifier.length() && Character.isWhitespace(modifier.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static int findClosingBrace(String modifier, int openingBrace) {
+        int depth = 0;
+        boolean inQuote = false;
+        for (int i = openingBrace; i < modifier.length(); i++) {
+            char ch = modifier.charAt(i);
+            if (ch == '\'') {
+                inQuote = !inQuote;
+            } else if (!inQuote && ch == '{') {
+                depth++;
+            } else if (!inQuote && ch == '}' && --depth == 0) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Unmatched braces in the sub-messages.");
+    }
+
+    /**
+     * Selects the sub-message for the given argument.
+     *
+     * @param argument the argument, not null
+     * @return the template of the sub-message
+     * @throws IllegalArgumentException if the argument of a plural argument is not a number
+     */
+    MessageTemplate select(Object argument) {
+        if (keywordTemplates != null) {
+            MessageTemplate template = keywordTemplates.get(argument.toString());
+            return template != null ? template : otherTemplate;
+        }
+        if (!(argument instanceof Number)) {
+            throw new IllegalArgumentException("Cannot format given Object as a Number");
+        }
+        Number number = (Number) argument;
+        PluralCategory category;
+        if (number instanceof Integer || number instanceof Long || number instanceof Short || number instanceof Byte
+                || (number instanceof BigInteger && ((BigInteger) number).bitLength() < 64)) {
+            long value = number.longValue();
+            for (int i = 0; i < exactValues.length; i++) {
+                if (exactValues[i] == value) {
+                    return exactTemplates[i];
+                }
+            }
+            category = pluralRules.select(value);
+        } else {
+            double value = number.doubleValue();
+            for (int i = 0; i < exactValues.length; i++) {
+                if (exactValues[i] == value) {
+                    return exactTemplates[i];
+                }
+            }
+            category = pluralRules.select(value);
+        }
+        MessageTemplate template = categoryTemplates[category.ordinal()];
+        return template != null ? template : otherTemplate;
+    }
+}
@@ -0,0 +1,82 @@
+package jb5n.internal.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collects the metrics of the caches and of the loading of resource bundles.
+ */
+public class CacheMetrics implements CacheMetricsMBean {
+    private final StripedCounter messageResourceCacheHits = new StripedCounter();
+    private final StripedCounter messageResourceCacheMisses = new StripedCounter();
+    private final StripedCounter resourceBundleCacheHits = new StripedCounter();
+    private final StripedCounter resourceBundleCacheMisses = new StripedCounter();
+    private final AtomicLong resourceBundleLoadCount = new AtomicLong();
+    private final AtomicLong resourceBundleLoadNanos = new AtomicLong();
+    private final AtomicLong resourceBundleLoadMaxNanos = new AtomicLong();
+
+    public void recordMessageResourceCacheAccess(boolean hit) {
+        if (hit) {
+            messageResourceCacheHits.increment();
+        } else {
+            messageResourceCacheMisses.increment();
+        }
+    }
+
+    public void recordResourceBundleCacheAccess(boolean hit) {
+        if (hit) {
+            resourceBundleCacheHits.increment();
+        } else {
+            resourceBundleCacheMisses.increment();
+        }
+    }
+
+    public void recordResourceBundleLoad(long nanos) {
+        resourceBundleLoadCount.incrementAndGet();
+        resourceBundleLoadNanos.addAndGet(nanos);
+        long max = resourceBundleLoadMaxNanos.get();
+        while (nanos > max && !resourceBundleLoadMaxNanos.compareAndSet(max, nanos)) {
+            max = resourceBundleLoadMaxNanos.get();
+        }
+    }
+
+    public long getMessageResourceCacheHitCount() {
+        return messageResourceCacheHits.sum();
+    }
+
+    public long getMessageResourceCacheMissCount() {
+        return messageResourceCacheMisses.sum();
+    }
+
+    public double getMessageResourceCacheHitRate() {
+        return hitRate(getMessageResourceCacheHitCount(), getMessageResourceCacheMissCount());
+    }
+
+    public long getResourceBundleCacheHitCount() {
+        return resourceBundleCacheHits.sum();
+    }
+
+    public long getResourceBundleCacheMissCount() {
+        return resourceBundleCacheMisses.sum();
+    }
+
+    public double getResourceBundleCacheHitRate() {
+        return hitRate(getResourceBundleCacheHitCount(), getResourceBundleCacheMissCount());
+    }
+
+    public long getResourceBundleLoadCount() {
+        return resourceBundleLoadCount.get();
+    }
+
+    public long getResourceBundleLoadTimeTotalMillis() {
+        return resourceBundleLoadNanos.get() / 1000000;
+    }
+
+    public long getResourceBundleLoadTimeMaxMillis() {
+        return resourceBundleLoadMaxNanos.get() / 1000000;
+    }
+
+    private static double hitRate(long hits, long misses) {
+        long requests = hits + misses;
+        return requests == 0 ? 1.0 : (double) hits / requests;
+    }
+}
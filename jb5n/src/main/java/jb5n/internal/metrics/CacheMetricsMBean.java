@@ -0,0 +1,26 @@
+package jb5n.internal.metrics;
+
+/**
+ * The metrics of the caches for MessageResource instances and resource
+ * bundles and of the loading of resource bundles.
+ */
+public interface CacheMetricsMBean {
+
+    long getMessageResourceCacheHitCount();
+
+    long getMessageResourceCacheMissCount();
+
+    double getMessageResourceCacheHitRate();
+
+    long getResourceBundleCacheHitCount();
+
+    long getResourceBundleCacheMissCount();
+
+    double getResourceBundleCacheHitRate();
+
+    long getResourceBundleLoadCount();
+
+    long getResourceBundleLoadTimeTotalMillis();
+
+    long getResourceBundleLoadTimeMaxMillis();
+}
@@ -0,0 +1,79 @@
+package jb5n.internal.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts durations in buckets of powers of two: bucket 0 holds durations of
+ * 0ns, bucket i durations from 2^(i-1) up to 2^i - 1 nanoseconds and the last
+ * bucket all longer durations. Like {@link StripedCounter} each thread
+ * updates its own set of buckets.
+ */
+public final class LatencyHistogram {
+    private final int bucketCount;
+    private final AtomicLongArray counts;
+
+    /**
+     * @param bucketCount the number of buckets, e.g. 24 to distinguish
+     *                    durations up to about 8 milliseconds
+     */
+    public LatencyHistogram(int bucketCount) {
+        this.bucketCount = bucketCount;
+        this.counts = new AtomicLongArray(StripedCounter.STRIPES * bucketCount);
+    }
+
+    public void record(long nanos) {
+        int bucket = nanos <= 0 ? 0 : Math.min(64 - Long.numberOfLeadingZeros(nanos), bucketCount - 1);
+        counts.getAndIncrement(StripedCounter.stripe() * bucketCount + bucket);
+    }
+
+    /**
+     * Returns the number of recorded durations per bucket.
+     *
+     * @return the counts
+     */
+    public long[] getCounts() {
+        long[] sums = new long[bucketCount];
+        for (int stripe = 0; stripe < StripedCounter.STRIPES; stripe++) {
+            for (int bucket = 0; bucket < bucketCount; bucket++) {
+                sums[bucket] += counts.get(stripe * bucketCount + bucket);
+            }
+        }
+        return sums;
+    }
+
+    public long getCount() {
+        long count = 0;
+        for (long bucketCount : getCounts()) {
+            count += bucketCount;
+        }
+        return count;
+    }
+
+    /**
+     * Returns the upper bound of the bucket that contains the given
+     * percentile. If the percentile lies in the last bucket, its lower bound
+     * is returned.
+     *
+     * @param percentile the percentile between 0 and 1
+     * @return the duration in nanoseconds or 0 if nothing has been recorded
+     */
+    public long getPercentile(double percentile) {
+        long[] sums = getCounts();
+        long count = 0;
+        for (long sum : sums) {
+            count += sum;
+        }
+        if (count == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(percentile * count);
+        long cumulated = 0;
+        for (int bucket = 0; bucket < bucketCount - 1; bucket++) {
+            cumulated += sums[bucket];
+            if (cumulated >= rank) {
+                return bucket == 0 ? 0 : (1L << bucket) - 1;
+            }
+        }
+        return 1L << (bucketCount - 2);
+    }
+}
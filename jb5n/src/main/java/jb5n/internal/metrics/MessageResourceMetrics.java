@@ -0,0 +1,74 @@
+package jb5n.internal.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collects the metrics of one MessageResource interface and locale. The
+ * number of invocations is derived from the lookup histogram, so that a call
+ * updates only a single counter if its message is not formatted.
+ */
+public class MessageResourceMetrics implements MessageResourceMetricsMBean {
+    private static final int BUCKET_COUNT = 24;
+    private final LatencyHistogram lookupLatencies = new LatencyHistogram(BUCKET_COUNT);
+    private final LatencyHistogram formatLatencies = new LatencyHistogram(BUCKET_COUNT);
+    private final AtomicLong missingMessageCount = new AtomicLong();
+    private final AtomicLong defaultMessageCount = new AtomicLong();
+
+    /**
+     * @param lookupNanos the time to look up the message
+     * @param formatNanos the time to format the message or a negative value if it has not been formatted
+     */
+    public void recordInvocation(long lookupNanos, long formatNanos) {
+        lookupLatencies.record(lookupNanos);
+        if (formatNanos >= 0) {
+            formatLatencies.record(formatNanos);
+        }
+    }
+
+    public void recordMissingMessage(boolean defaultMessageUsed) {
+        missingMessageCount.incrementAndGet();
+        if (defaultMessageUsed) {
+            defaultMessageCount.incrementAndGet();
+        }
+    }
+
+    public long getInvocationCount() {
+        return lookupLatencies.getCount();
+    }
+
+    public long getMissingMessageCount() {
+        return missingMessageCount.get();
+    }
+
+    public long getDefaultMessageCount() {
+        return defaultMessageCount.get();
+    }
+
+    public long getLookupLatencyMedianNanos() {
+        return lookupLatencies.getPercentile(0.5);
+    }
+
+    public long getLookupLatency99thPercentileNanos() {
+        return lookupLatencies.getPercentile(0.99);
+    }
+
+    public long[] getLookupLatencyHistogram() {
+        return lookupLatencies.getCounts();
+    }
+
+    public long getFormatCount() {
+        return formatLatencies.getCount();
+    }
+
+    public long getFormatLatencyMedianNanos() {
+        return formatLatencies.getPercentile(0.5);
+    }
+
+    public long getFormatLatency99thPercentileNanos() {
+        return formatLatencies.getPercentile(0.99);
+    }
+
+    public long[] getFormatLatencyHistogram() {
+        return formatLatencies.getCounts();
+    }
+}
@@ -0,0 +1,28 @@
+package jb5n.internal.metrics;
+
+/**
+ * The metrics of one MessageResource interface and locale. Latencies are
+ * approximated by the upper bound of their power-of-two bucket.
+ */
+public interface MessageResourceMetricsMBean {
+
+    long getInvocationCount();
+
+    long getMissingMessageCount();
+
+    long getDefaultMessageCount();
+
+    long getLookupLatencyMedianNanos();
+
+    long getLookupLatency99thPercentileNanos();
+
+    long[] getLookupLatencyHistogram();
+
+    long getFormatCount();
+
+    long getFormatLatencyMedianNanos();
+
+    long getFormatLatency99thPercentileNanos();
+
+    long[] getFormatLatencyHistogram();
+}
@@ -0,0 +1,59 @@
+package jb5n.internal.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A counter that is cheap to increment from many threads. Each thread adds to
+ * one of several cells selected by its id, so that concurrent updates do not
+ * contend on the same cache line. The cells are summed up when the counter is
+ * read.
+ */
+public final class StripedCounter {
+    /**
+     * The number of cells, a power of two that matches the number of
+     * processors but is at most 8.
+     */
+    static final int STRIPES = stripes();
+    /**
+     * The distance between two cells in longs, so that each cell resides in
+     * its own cache line.
+     */
+    private static final int PADDING = 8;
+    private final AtomicLongArray cells = new AtomicLongArray(STRIPES * PADDING);
+
+    private static int stripes() {
+        int processors = Math.min(Runtime.getRuntime().availableProcessors(), 8);
+        int stripes = 1;
+        while (stripes < processors) {
+            stripes <<= 1;
+        }
+        return stripes;
+    }
+
+    /**
+     * Returns the cell of the current thread.
+     *
+     * @return a value between 0 and {@link #STRIPES} - 1
+     */
+    static int stripe() {
+        long id = Thread.currentThread().getId();
+        int hash = (int) (id ^ (id >>> 32)) * 0x9E3779B9;
+        return (hash >>> 16) & (STRIPES - 1);
+    }
+
+    public void increment() {
+        cells.getAndIncrement(stripe() * PADDING);
+    }
+
+    public void add(long value) {
+        cells.getAndAdd(stripe() * PADDING, value);
+    }
+
+    public long sum() {
+        long sum = 0;
+        for (int i = 0; i < STRIPES; i++) {
+            sum += cells.get(i * PADDING);
+        }
+        return sum;
+    }
+}
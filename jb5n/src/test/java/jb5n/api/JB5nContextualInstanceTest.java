@@ -0,0 +1,93 @@
+package jb5n.api;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class JB5nContextualInstanceTest {
+	private final ThreadLocalLocaleContext localeContext = new ThreadLocalLocaleContext();
+
+	@After
+	public void after() {
+		localeContext.clear();
+		JB5n.setConfiguration(new JB5nConfiguration());
+	}
+
+	@Test
+	public void localeIsTakenFromContext() {
+		MyMessageResource messageResource = JB5n.createContextualInstance(MyMessageResource.class, localeContext);
+		localeContext.setLocale(Locale.GERMAN);
+		assertThat(messageResource.cancel(), is("Abbruch"));
+		assertThat(messageResource.youHaveNREtries(3), is("Du hast noch 3 Versuche."));
+		localeContext.setLocale(Locale.ENGLISH);
+		assertThat(messageResource.cancel(), is("Cancel"));
+		assertThat(messageResource.ok(), is("OK"));
+	}
+
+	@Test
+	public void generatedImplementationUsesContext() {
+		JB5nConfiguration configuration = new JB5nConfiguration();
+		configuration.setGenerateImplementationsAtRuntime(true);
+		JB5n.setConfiguration(configuration);
+		MyMessageResource messageResource = JB5n.createContextualInstance(MyMessageResource.class, localeContext);
+		localeContext.setLocale(Locale.GERMAN);
+		assertThat(messageResource.cancel(), is("Abbruch"));
+		localeContext.setLocale(Locale.ENGLISH);
+		assertThat(messageResource.cancel(), is("Cancel"));
+	}
+
+	@Test
+	public void localesOfThreadsAreIndependent() throws Exception {
+		final MyMessageResource messageResource = JB5n.createContextualInstance(MyMessageResource.class, localeContext);
+		ExecutorService executorService = Executors.newFixedThreadPool(2);
+		try {
+			Future<String> german = executorService.submit(createTask(messageResource, Locale.GERMAN));
+			Future<String> english = executorService.submit(createTask(messageResource, Locale.ENGLISH));
+			assertThat(german.get(), is("Abbruch"));
+			assertThat(english.get(), is("Cancel"));
+		} finally {
+			executorService.shutdown();
+		}
+	}
+
+	private Callable<String> createTask(final MyMessageResource messageResource, final Locale locale) {
+		return new Callable<String>() {
+			public String call() throws Exception {
+				localeContext.setLocale(locale);
+				try {
+					String message = null;
+					for (int i = 0; i < 1000; i++) {
+						message = messageResource.cancel();
+					}
+					return message;
+				} finally {
+					localeContext.clear();
+				}
+			}
+		};
+	}
+
+	@MessageResource(invocationHandler = MyInvocationHandler.class)
+	public interface MyInvocationHandlerAnnotation {
+		String ok();
+	}
+
+	@Test
+	public void ownInvocationHandlerIsCalled() {
+		MyInvocationHandlerAnnotation messageResource = JB5n.createContextualInstance(MyInvocationHandlerAnnotation.class, localeContext);
+		assertThat(messageResource.ok(), is("ok"));
+	}
+
+	@Test(expected = JB5nException.class)
+	public void localeContextIsRequired() {
+		JB5n.createContextualInstance(MyMessageResource.class, null);
+	}
+}
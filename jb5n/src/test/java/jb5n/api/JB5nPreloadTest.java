@@ -0,0 +1,132 @@
+package jb5n.api;
+
+import static org.hamcrest.CoreMatchers.hasItems;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.junit.Assert.assertThat;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import jb5n.api.JB5nException.Reason;
+import jb5n.api.JB5nPreloadReport.MissingResource;
+import jb5n.api.properties.JB5nPropertiesInvocationHandler;
+import jb5n.api.properties.MethodDescriptor;
+import jb5n.internal.catalog.MessageCatalog;
+import jb5n.internal.format.MessageTemplate;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class JB5nPreloadTest {
+	private static final Collection<Locale> LOCALES = Arrays.asList(new Locale("de"), new Locale("en"));
+
+	@MessageResource(resourceBundleName = "jb5n.api.MyMessageResource", invocationHandler = CountingInvocationHandler.class)
+	public interface CountedMessageResource {
+
+		String cancel();
+
+		String youHaveNREtries(int numberOfRetries);
+	}
+
+	public static class CountingInvocationHandler extends JB5nPropertiesInvocationHandler {
+		private static final AtomicInteger catalogLookups = new AtomicInteger();
+		private static final AtomicInteger templateLookups = new AtomicInteger();
+
+		@Override
+		protected MessageCatalog getCatalog(String resourceBundleName) {
+			catalogLookups.incrementAndGet();
+			return super.getCatalog(resourceBundleName);
+		}
+
+		@Override
+		protected MessageTemplate getMessageTemplate(MethodDescriptor methodDescriptor, String message) {
+			templateLookups.incrementAndGet();
+			return super.getMessageTemplate(methodDescriptor, message);
+		}
+	}
+
+	@After
+	public void resetConfiguration() {
+		JB5n.setConfiguration(new JB5nConfiguration());
+	}
+
+	@Test
+	public void reportsMissingKeys() {
+		JB5nConfiguration configuration = new JB5nConfiguration();
+		configuration.setRaiseExceptionForMissingResource(true);
+		JB5n.setConfiguration(configuration);
+		List<Class<?>> classes = new ArrayList<Class<?>>();
+		classes.add(MyMessageResource.class);
+		classes.add(MessageResourceWithOwnPropertiesFile.class);
+		JB5nPreloadReport report = JB5n.preload(classes, LOCALES, JB5nPreloadTest.class.getClassLoader(), 2);
+		assertThat(report.getPreloadedCount(), is(4));
+		assertThat(report.getErrors().isEmpty(), is(true));
+		assertThat(report.isSuccessful(), is(false));
+		List<String> missingKeys = new ArrayList<String>();
+		for (MissingResource missingResource : report.getMissingResources()) {
+			assertThat(missingResource.getMessageResource() == MyMessageResource.class, is(true));
+			missingKeys.add(missingResource.getResourceKey());
+		}
+		assertThat(missingKeys.size(), is(4));
+		assertThat(missingKeys, hasItems("ok", "missingResource"));
+	}
+
+	@Test
+	public void reportsInvalidMessageResources() {
+		List<Class<?>> classes = new ArrayList<Class<?>>();
+		classes.add(MessageResourceWithOwnPropertiesFile.class);
+		classes.add(MessageResourceWithWrongMethodSignature.class);
+		JB5nPreloadReport report = JB5n.preload(classes, LOCALES, JB5nPreloadTest.class.getClassLoader());
+		assertThat(report.getPreloadedCount(), is(2));
+		assertThat(report.getErrors().size(), is(2));
+		assertThat(report.getErrors().get(0).getReason(), is(Reason.InvalidMethodSignature));
+		assertThat(report.getMissingResources().isEmpty(), is(true));
+	}
+
+	@Test
+	public void populatesTheHandlerOfTheCachedProxy() {
+		CountedMessageResource instance = preloadCountedMessageResource(new JB5nConfiguration(), Locale.GERMAN);
+		assertThat(Proxy.isProxyClass(instance.getClass()), is(true));
+		assertMessagesAreServedByTheHandler(instance);
+	}
+
+	@Test
+	public void populatesTheHandlerOfTheCachedGeneratedClass() {
+		JB5nConfiguration configuration = new JB5nConfiguration();
+		configuration.setGenerateImplementationsAtRuntime(true);
+		CountedMessageResource instance = preloadCountedMessageResource(configuration, new Locale("de", "AT"));
+		assertThat(instance, not(instanceOf(Proxy.class)));
+		assertMessagesAreServedByTheHandler(instance);
+	}
+
+	/**
+	 * Each test uses a locale of its own, as the cached instances outlive the
+	 * configuration.
+	 */
+	private CountedMessageResource preloadCountedMessageResource(JB5nConfiguration configuration, Locale locale) {
+		JB5n.setConfiguration(configuration);
+		ClassLoader classLoader = JB5nPreloadTest.class.getClassLoader();
+		List<Class<?>> classes = new ArrayList<Class<?>>();
+		classes.add(CountedMessageResource.class);
+		JB5nPreloadReport report = JB5n.preload(classes, Collections.singletonList(locale), classLoader);
+		assertThat(report.isSuccessful(), is(true));
+		CountingInvocationHandler.catalogLookups.set(0);
+		CountingInvocationHandler.templateLookups.set(0);
+		return JB5n.createInstance(CountedMessageResource.class, locale, classLoader);
+	}
+
+	private void assertMessagesAreServedByTheHandler(CountedMessageResource instance) {
+		assertThat(instance.cancel(), is("Abbruch"));
+		assertThat(instance.youHaveNREtries(3), is("Du hast noch 3 Versuche."));
+		assertThat(CountingInvocationHandler.catalogLookups.get(), is(0));
+		assertThat(CountingInvocationHandler.templateLookups.get(), is(0));
+	}
+}
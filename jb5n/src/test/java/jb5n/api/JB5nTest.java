@@ -9,12 +9,18 @@ import java.util.Locale;
 
 import jb5n.api.JB5nException.Reason;
 
+import org.junit.After;
 import org.junit.Test;
 
 public class JB5nTest {
 	private static final Locale LOCALE_DE = new Locale("de");
 	private static final Locale LOCALE_EN = new Locale("en");
 
+	@After
+	public void after() {
+		JB5n.setConfiguration(new JB5nConfiguration());
+	}
+
 	@Test
 	public void proxyIsCreated() {
 		MyMessageResource myMessageResource = JB5n.createInstance(MyMessageResource.class);
@@ -58,6 +64,23 @@ public class JB5nTest {
 		assertThat(instance.youHaveNREtries(5), is("Du hast noch 5 Versuche."));
 	}
 
+	@MessageResource(resourceBundleName = "jb5n.api.MyPluralMessageResource")
+	public interface MyPluralMessageResource {
+		String filesDeleted(int count, String directory);
+	}
+
+	@Test
+	public void pluralMessage() {
+		MyPluralMessageResource instance = JB5n.createInstance(MyPluralMessageResource.class, LOCALE_EN);
+		assertThat(instance.filesDeleted(0, "tmp"), is("No files deleted in tmp."));
+		assertThat(instance.filesDeleted(1, "tmp"), is("1 file deleted in tmp."));
+		assertThat(instance.filesDeleted(3, "tmp"), is("3 files deleted in tmp."));
+		instance = JB5n.createInstance(MyPluralMessageResource.class, new Locale("ru"));
+		assertThat(instance.filesDeleted(21, "tmp"), is("21 \u0444\u0430\u0439\u043b \u0443\u0434\u0430\u043b\u0451\u043d \u0432 tmp."));
+		assertThat(instance.filesDeleted(3, "tmp"), is("3 \u0444\u0430\u0439\u043b\u0430 \u0443\u0434\u0430\u043b\u0435\u043d\u043e \u0432 tmp."));
+		assertThat(instance.filesDeleted(5, "tmp"), is("5 \u0444\u0430\u0439\u043b\u043e\u0432 \u0443\u0434\u0430\u043b\u0435\u043d\u043e \u0432 tmp."));
+	}
+
 	@Test
 	public void noDefaultKey() {
 		MyMessageResource instance = JB5n.createInstance(MyMessageResource.class, LOCALE_EN);
@@ -101,6 +124,34 @@ public class JB5nTest {
 		instance.missingResource();
 	}
 
+	@Test(expected = JB5nException.class)
+	public void missingResourceRaisesExceptionAfterConfigurationChanged() {
+		MyMessageResource instance = JB5n.createInstance(MyMessageResource.class);
+		assertThat(instance.missingResource(), is("???missingResource???"));
+		assertThat(instance.missingResource(), is("???missingResource???"));
+		JB5nConfiguration jb5nConfiguration = new JB5nConfiguration();
+		jb5nConfiguration.setRaiseExceptionForMissingResource(true);
+		JB5n.setConfiguration(jb5nConfiguration);
+		instance.missingResource();
+	}
+
+	@Test
+	public void missingResourceRaisesExceptionAfterCurrentConfigurationChanged() {
+		JB5n.setConfiguration(new JB5nConfiguration());
+		MyMessageResource instance = JB5n.createInstance(MyMessageResource.class);
+		assertThat(instance.missingResource(), is("???missingResource???"));
+		assertThat(instance.missingResource(), is("???missingResource???"));
+		boolean exceptionThrown = false;
+		try {
+			JB5n.getConfiguration().setRaiseExceptionForMissingResource(true);
+			instance.missingResource();
+		} catch (JB5nException e) {
+			exceptionThrown = true;
+			assertThat(e.getReason(), is(Reason.MissingResource));
+		}
+		assertThat(exceptionThrown, is(true));
+	}
+
 	@Test
 	public void messageResourceWithOwnResourceBundleName() {
 		MessageResourceWithOwnPropertiesFile instance = JB5n.createInstance(MessageResourceWithOwnPropertiesFile.class);
@@ -0,0 +1,56 @@
+package jb5n.api;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.Locale;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class MessageBatchTest {
+
+	@After
+	public void after() {
+		JB5n.setConfiguration(new JB5nConfiguration());
+	}
+
+	@Test
+	public void messagesAreRenderedBySegment() throws Exception {
+		MessageBatch batch = JB5n.createBatch(MyMessageResource.class, Locale.GERMAN);
+		batch.add("cancel").add("youHaveNREtries", 3).add("no.default.key").add(MyMessageResource.class.getMethod("ok"));
+		assertThat(batch.size(), is(4));
+		assertThat(batch.render(), is(Arrays.asList("Abbruch", "Du hast noch 3 Versuche.", "Kein default Schlüssel.", "OK")));
+	}
+
+	@Test
+	public void batchIsReusedForDocuments() throws Exception {
+		MessageBatch batch = JB5n.createBatch(MyMessageResource.class, Locale.GERMAN);
+		batch.add("cancel").add("youHaveNREtries", 3);
+		assertThat(batch.renderDocument("\n"), is("Abbruch\nDu hast noch 3 Versuche."));
+		batch.clear();
+		batch.add("youHaveNREtries", 1);
+		StringWriter writer = new StringWriter();
+		batch.renderDocument("\n", writer);
+		assertThat(writer.toString(), is("Du hast noch 1 Versuche."));
+	}
+
+	@Test(expected = JB5nException.class)
+	public void unknownMethodIsRejected() {
+		JB5n.createBatch(MyMessageResource.class, Locale.GERMAN).add("unknown");
+	}
+
+	@Test(expected = JB5nException.class)
+	public void wrongNumberOfArgumentsIsRejected() {
+		JB5n.createBatch(MyMessageResource.class, Locale.GERMAN).add("youHaveNREtries");
+	}
+
+	@Test
+	public void customInvocationHandlerIsCalled() {
+		MessageBatch batch = JB5n.createBatch(JB5nContextualInstanceTest.MyInvocationHandlerAnnotation.class, Locale.GERMAN);
+		batch.add("ok").add("ok");
+		assertThat(batch.renderDocument(","), is("ok,ok"));
+	}
+}
@@ -0,0 +1,64 @@
+package jb5n.api;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+import java.util.Locale;
+import java.util.Properties;
+
+import jb5n.api.MessageExport.Format;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class MessageExportTest {
+
+	@After
+	public void after() {
+		JB5n.setConfiguration(new JB5nConfiguration());
+	}
+
+	@Test
+	public void messagesAreExportedAsJson() throws Exception {
+		MessageExport export = JB5n.createExport(MyMessageResource.class, Locale.GERMAN, Format.JSON);
+		StringWriter writer = new StringWriter();
+		export.writeTo(writer);
+		assertThat(writer.toString(), is("{\"cancel\":\"Abbruch\",\"myMessageResource\":\"myMessageResource\",\"no.default.key\":\"Kein default Schlüssel.\","
+				+ "\"ok\":\"OK\",\"youHaveNREtries\":\"Du hast noch {0} Versuche.\"}"));
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		export.writeTo(outputStream);
+		assertThat(new String(outputStream.toByteArray(), "UTF-8"), is(writer.toString()));
+	}
+
+	@Test
+	public void messagesAreExportedAsProperties() throws Exception {
+		MessageExport export = JB5n.createExport(MyMessageResource.class, Locale.GERMAN, Format.PROPERTIES);
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		export.writeTo(outputStream);
+		String content = new String(outputStream.toByteArray(), "ISO-8859-1");
+		assertThat(content.contains("no.default.key=Kein default Schl\\u00fcssel.\n"), is(true));
+		Properties properties = new Properties();
+		properties.load(new ByteArrayInputStream(outputStream.toByteArray()));
+		assertThat(properties.getProperty("no.default.key"), is("Kein default Schlüssel."));
+		assertThat(properties.getProperty("youHaveNREtries"), is("Du hast noch {0} Versuche."));
+		assertThat(properties.size(), is(5));
+	}
+
+	@Test
+	public void eTagDependsOnContent() {
+		String eTag = JB5n.createExport(MyMessageResource.class, Locale.GERMAN, Format.JSON).getETag();
+		assertThat(eTag.length(), is(18));
+		assertThat(JB5n.createExport(MyMessageResource.class, Locale.GERMAN, Format.JSON).getETag(), is(eTag));
+		assertThat(JB5n.createExport(MyMessageResource.class, Locale.GERMAN, Format.PROPERTIES).getETag(), is(not(eTag)));
+		assertThat(JB5n.createExport(MyMessageResource.class, Locale.ENGLISH, Format.JSON).getETag(), is(not(eTag)));
+	}
+
+	@Test(expected = JB5nException.class)
+	public void customInvocationHandlerCannotBeExported() {
+		JB5n.createExport(JB5nContextualInstanceTest.MyInvocationHandlerAnnotation.class, Locale.GERMAN, Format.JSON);
+	}
+}
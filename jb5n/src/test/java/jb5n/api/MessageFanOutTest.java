@@ -0,0 +1,73 @@
+package jb5n.api;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class MessageFanOutTest {
+
+	@After
+	public void after() {
+		JB5n.setConfiguration(new JB5nConfiguration());
+	}
+
+	@Test
+	public void messagesAreRenderedForAllLocales() throws Exception {
+		MessageFanOut fanOut = JB5n.createFanOut(MyMessageResource.class, Arrays.asList(Locale.GERMAN, Locale.ENGLISH));
+		Map<Locale, String> messages = fanOut.render("youHaveNREtries", 3);
+		assertThat(new ArrayList<Locale>(messages.keySet()), is(Arrays.asList(Locale.GERMAN, Locale.ENGLISH)));
+		assertThat(messages.get(Locale.GERMAN), is("Du hast noch 3 Versuche."));
+		assertThat(messages.get(Locale.ENGLISH), is("You still have 3 retries."));
+		messages = fanOut.render(MyMessageResource.class.getMethod("cancel"));
+		assertThat(messages.get(Locale.GERMAN), is("Abbruch"));
+		assertThat(messages.get(Locale.ENGLISH), is("Cancel"));
+		assertThat(fanOut.render("no.default.key").get(Locale.ENGLISH), is("No default key."));
+	}
+
+	@Test
+	public void manyLocalesAreRenderedInParallel() {
+		List<Locale> locales = new ArrayList<Locale>();
+		for (int i = 0; i < 100; i++) {
+			locales.add(new Locale(i % 2 == 0 ? "de" : "en", "", "V" + i));
+		}
+		MessageFanOut fanOut = JB5n.createFanOut(MyMessageResource.class, locales);
+		ExecutorService executorService = Executors.newFixedThreadPool(4);
+		try {
+			fanOut.setExecutorService(executorService);
+			Map<Locale, String> messages = fanOut.render("youHaveNREtries", 5);
+			assertThat(new ArrayList<Locale>(messages.keySet()), is(locales));
+			for (int i = 0; i < 100; i++) {
+				assertThat(messages.get(locales.get(i)), is(i % 2 == 0 ? "Du hast noch 5 Versuche." : "You still have 5 retries."));
+			}
+		} finally {
+			executorService.shutdown();
+		}
+	}
+
+	@Test
+	public void customInvocationHandlerIsCalled() {
+		MessageFanOut fanOut = JB5n.createFanOut(JB5nContextualInstanceTest.MyInvocationHandlerAnnotation.class, Arrays.asList(Locale.GERMAN, Locale.ENGLISH));
+		assertThat(new ArrayList<String>(fanOut.render("ok").values()), is(Arrays.asList("ok", "ok")));
+	}
+
+	@Test(expected = JB5nException.class)
+	public void wrongNumberOfArgumentsIsRejected() {
+		JB5n.createFanOut(MyMessageResource.class, Arrays.asList(Locale.GERMAN)).render("youHaveNREtries");
+	}
+
+	@Test(expected = JB5nException.class)
+	public void emptyLocalesAreRejected() {
+		JB5n.createFanOut(MyMessageResource.class, Collections.<Locale> emptyList());
+	}
+}
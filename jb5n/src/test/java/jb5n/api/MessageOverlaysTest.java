@@ -0,0 +1,105 @@
+package jb5n.api;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import jb5n.api.JB5nException.Reason;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class MessageOverlaysTest {
+
+	@After
+	public void after() {
+		JB5n.setConfiguration(new JB5nConfiguration());
+	}
+
+	@Test
+	public void layersOverrideTheirParents() {
+		MessageOverlays overlays = new MessageOverlays();
+		overlays.setOverrides(MyMessageResource.class, Locale.GERMAN, Collections.singletonMap("cancel", "Abbrechen"), "acme");
+		Map<String, String> userMessages = new HashMap<String, String>();
+		userMessages.put("cancel", "Lass es");
+		userMessages.put("youHaveNREtries", "Noch {0,plural,one{# Versuch} other{# Versuche}}!");
+		overlays.setOverrides(MyMessageResource.class, Locale.GERMAN, userMessages, "acme", "alice");
+		MyMessageResource acme = overlays.getInstance(MyMessageResource.class, Locale.GERMAN, "acme");
+		MyMessageResource alice = overlays.getInstance(MyMessageResource.class, new Locale("de", "AT"), "acme", "alice");
+		MyMessageResource other = overlays.getInstance(MyMessageResource.class, Locale.GERMAN, "other");
+		assertThat(acme.cancel(), is("Abbrechen"));
+		assertThat(acme.youHaveNREtries(3), is("Du hast noch 3 Versuche."));
+		assertThat(alice.cancel(), is("Lass es"));
+		assertThat(alice.youHaveNREtries(1), is("Noch 1 Versuch!"));
+		assertThat(alice.noDefaultKey(), is("Kein default Schlüssel."));
+		assertThat(other.cancel(), is("Abbruch"));
+		assertThat(JB5n.createInstance(MyMessageResource.class, Locale.GERMAN).cancel(), is("Abbruch"));
+		assertThat(overlays.getInstance(MyMessageResource.class, Locale.ENGLISH, "acme").cancel(), is("Cancel"));
+		assertThat(overlays.getInstance(MyMessageResource.class, Locale.GERMAN, "acme") == acme, is(true));
+	}
+
+	@Test
+	public void updatesAreVisibleToExistingInstances() {
+		MessageOverlays overlays = new MessageOverlays();
+		overlays.setOverrides(MyMessageResource.class, Locale.GERMAN, Collections.singletonMap("cancel", "Abbrechen"), "acme");
+		MyMessageResource acme = overlays.getInstance(MyMessageResource.class, Locale.GERMAN, "acme", "alice");
+		MyMessageResource other = overlays.getInstance(MyMessageResource.class, Locale.GERMAN, "other");
+		assertThat(acme.cancel(), is("Abbrechen"));
+		overlays.setOverrides(MyMessageResource.class, Locale.GERMAN, Collections.singletonMap("cancel", "Halt"), "acme");
+		assertThat(acme.cancel(), is("Halt"));
+		assertThat(other.cancel(), is("Abbruch"));
+		overlays.setOverrides(MyMessageResource.class, new Locale(""), Collections.singletonMap("cancel", "Stopp"));
+		assertThat(other.cancel(), is("Stopp"));
+		assertThat(acme.cancel(), is("Halt"));
+		overlays.setOverrides(MyMessageResource.class, Locale.GERMAN, Collections.<String, String> emptyMap(), "acme");
+		assertThat(acme.cancel(), is("Stopp"));
+		assertThat(overlays.getOverrides("jb5n.api.MyMessageResource", new Locale("")).get("cancel"), is("Stopp"));
+	}
+
+	@Test
+	public void layersWithoutOverridesShareTheInstanceOfTheirParent() {
+		MessageOverlays overlays = new MessageOverlays();
+		MyMessageResource root = overlays.getInstance(MyMessageResource.class, Locale.GERMAN);
+		assertThat(overlays.getInstance(MyMessageResource.class, Locale.GERMAN, "other") == root, is(true));
+		overlays.setOverrides(MyMessageResource.class, Locale.GERMAN, Collections.<String, String> emptyMap(), "other");
+		assertThat(overlays.getInstance(MyMessageResource.class, Locale.GERMAN, "other") == root, is(true));
+		overlays.setOverrides(MyMessageResource.class, Locale.GERMAN, Collections.singletonMap("cancel", "Abbrechen"), "acme");
+		MyMessageResource acme = overlays.getInstance(MyMessageResource.class, Locale.GERMAN, "acme");
+		assertThat(acme == root, is(false));
+		assertThat(overlays.getInstance(MyMessageResource.class, Locale.GERMAN, "acme", "alice") == acme, is(true));
+		assertThat(overlays.getInstance(MyMessageResource.class, Locale.GERMAN, "acme", "bob") == acme, is(true));
+		overlays.setOverrides(MyMessageResource.class, Locale.GERMAN, Collections.singletonMap("cancel", "Lass es"), "acme", "alice");
+		MyMessageResource alice = overlays.getInstance(MyMessageResource.class, Locale.GERMAN, "acme", "alice");
+		assertThat(alice.cancel(), is("Lass es"));
+		assertThat(overlays.getInstance(MyMessageResource.class, Locale.GERMAN, "acme", "bob").cancel(), is("Abbrechen"));
+		assertThat(overlays.getOverrides("jb5n.api.MyMessageResource", Locale.GERMAN, "acme", "bob").isEmpty(), is(true));
+	}
+
+	@Test
+	public void removedLayerFallsBackToParent() {
+		MessageOverlays overlays = new MessageOverlays();
+		overlays.setOverrides(MyMessageResource.class, Locale.GERMAN, Collections.singletonMap("cancel", "Abbrechen"), "acme");
+		MyMessageResource acme = overlays.getInstance(MyMessageResource.class, Locale.GERMAN, "acme");
+		assertThat(acme.cancel(), is("Abbrechen"));
+		overlays.removeLayer("acme");
+		assertThat(acme.cancel(), is("Abbruch"));
+		assertThat(overlays.getOverrides("jb5n.api.MyMessageResource", Locale.GERMAN, "acme").isEmpty(), is(true));
+		assertThat(overlays.getInstance(MyMessageResource.class, Locale.GERMAN, "acme") == acme, is(false));
+	}
+
+	@Test
+	public void customInvocationHandlerIsRejected() {
+		boolean exceptionThrown = false;
+		try {
+			new MessageOverlays().getInstance(JB5nContextualInstanceTest.MyInvocationHandlerAnnotation.class, Locale.GERMAN, "acme");
+		} catch (JB5nException e) {
+			exceptionThrown = true;
+			assertThat(e.getReason(), is(Reason.InvalidArgument));
+		}
+		assertThat(exceptionThrown, is(true));
+	}
+}
@@ -0,0 +1,59 @@
+package jb5n.api;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import java.util.Locale;
+
+import jb5n.api.JB5nException.Reason;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class MessageResourceFactoryTest {
+
+	@After
+	public void after() {
+		JB5n.setConfiguration(new JB5nConfiguration());
+	}
+
+	@Test
+	public void factoryReturnsOneInstancePerLocale() {
+		MessageResourceFactory<MyMessageResource> factory = JB5n.factory(MyMessageResource.class);
+		MyMessageResource german = factory.get(Locale.GERMAN);
+		MyMessageResource english = factory.get(Locale.ENGLISH);
+		assertThat(german.cancel(), is("Abbruch"));
+		assertThat(english.cancel(), is("Cancel"));
+		assertThat(factory.get(new Locale("de")), sameInstance(german));
+		assertThat(factory.get(Locale.ENGLISH), sameInstance(english));
+		assertThat(JB5n.factory(MyMessageResource.class), sameInstance(factory));
+	}
+
+	@Test
+	public void instancesAreCreatedAgainForNewConfiguration() {
+		MessageResourceFactory<MyMessageResource> factory = JB5n.factory(MyMessageResource.class);
+		MyMessageResource instance = factory.get(Locale.GERMAN);
+		JB5n.setConfiguration(new JB5nConfiguration());
+		assertThat(factory.get(Locale.GERMAN), not(sameInstance(instance)));
+		assertThat(factory.get(Locale.GERMAN).cancel(), is("Abbruch"));
+	}
+
+	@Test
+	public void interfaceIsVerifiedWhenFactoryIsCreated() {
+		boolean exceptionThrown = false;
+		try {
+			JB5n.factory(MessageResourceWithWrongMethodSignature.class, MessageResourceFactoryTest.class.getClassLoader());
+		} catch (JB5nException e) {
+			exceptionThrown = true;
+			assertThat(e.getReason(), is(Reason.InvalidMethodSignature));
+		}
+		assertThat(exceptionThrown, is(true));
+	}
+
+	@Test(expected = JB5nException.class)
+	public void nullLocaleIsRejected() {
+		JB5n.factory(MyMessageResource.class).get(null);
+	}
+}
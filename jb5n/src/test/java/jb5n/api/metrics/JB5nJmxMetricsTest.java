@@ -0,0 +1,76 @@
+package jb5n.api.metrics;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.util.Locale;
+
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+
+import jb5n.api.JB5n;
+import jb5n.api.JB5nConfiguration;
+import jb5n.api.MyMessageResource;
+import jb5n.internal.metrics.MessageResourceMetricsMBean;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class JB5nJmxMetricsTest {
+	private static final Locale LOCALE_DE = new Locale("de");
+	private final MBeanServer mBeanServer = MBeanServerFactory.newMBeanServer();
+	private final JB5nJmxMetrics metrics = new JB5nJmxMetrics(mBeanServer, "jb5n.test");
+
+	@After
+	public void after() {
+		metrics.unregister();
+		JB5n.setConfiguration(new JB5nConfiguration());
+	}
+
+	@Test
+	public void invocationsAreCountedPerInterfaceAndLocale() throws Exception {
+		JB5nConfiguration configuration = new JB5nConfiguration();
+		configuration.setMetrics(metrics);
+		JB5n.setConfiguration(configuration);
+		MyMessageResource instance = JB5n.createInstance(MyMessageResource.class, LOCALE_DE);
+		assertThat(instance.cancel(), is("Abbruch"));
+		assertThat(instance.youHaveNREtries(3), is("Du hast noch 3 Versuche."));
+		assertThat(instance.ok(), is("OK"));
+		MessageResourceMetricsMBean messageResourceMetrics = metrics.getMessageResourceMetrics(MyMessageResource.class.getName(), LOCALE_DE);
+		assertThat(messageResourceMetrics.getInvocationCount(), is(3L));
+		assertThat(messageResourceMetrics.getFormatCount(), is(1L));
+		assertThat(messageResourceMetrics.getMissingMessageCount(), is(1L));
+		assertThat(messageResourceMetrics.getDefaultMessageCount(), is(1L));
+		assertThat(metrics.getMessageResourceMetrics(MyMessageResource.class.getName(), Locale.ENGLISH), is(nullValue()));
+		ObjectName objectName = new ObjectName("jb5n.test:type=MessageResource,name=" + MyMessageResource.class.getName() + ",locale=de");
+		assertThat((Long) mBeanServer.getAttribute(objectName, "InvocationCount"), is(3L));
+	}
+
+	@Test
+	public void cacheAccessesAreCounted() throws Exception {
+		JB5nConfiguration configuration = new JB5nConfiguration();
+		configuration.setMetrics(metrics);
+		JB5n.setConfiguration(configuration);
+		JB5n.createInstance(MyMessageResource.class, Locale.CHINESE).cancel();
+		JB5n.createInstance(MyMessageResource.class, Locale.CHINESE).cancel();
+		assertThat(metrics.getCacheMetrics().getMessageResourceCacheHitCount(), is(1L));
+		assertThat(metrics.getCacheMetrics().getMessageResourceCacheMissCount(), is(1L));
+		assertThat(metrics.getCacheMetrics().getMessageResourceCacheHitRate(), is(0.5));
+		assertThat((Long) mBeanServer.getAttribute(new ObjectName("jb5n.test:type=Caches"), "MessageResourceCacheHitCount"), is(1L));
+	}
+
+	@Test
+	public void metricsAreDisabledByDefault() {
+		JB5n.createInstance(MyMessageResource.class, LOCALE_DE).cancel();
+		assertThat(metrics.getMessageResourceMetrics(MyMessageResource.class.getName(), LOCALE_DE), is(nullValue()));
+		assertThat(metrics.getCacheMetrics().getMessageResourceCacheMissCount(), is(0L));
+	}
+
+	@Test
+	public void unregisterRemovesMBeans() throws Exception {
+		metrics.unregister();
+		assertThat(mBeanServer.isRegistered(new ObjectName("jb5n.test:type=Caches")), is(false));
+	}
+}
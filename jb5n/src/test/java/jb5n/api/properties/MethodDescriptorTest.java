@@ -0,0 +1,54 @@
+package jb5n.api.properties;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.lang.reflect.Method;
+
+import jb5n.api.Message;
+import jb5n.api.MessageResource;
+import jb5n.api.MyMessageResource;
+
+import org.junit.Test;
+
+public class MethodDescriptorTest {
+
+	@MessageResource(resourceBundleName = "jb5n.api.MySpecificMessageResource")
+	public interface MySpecificMessageResource extends MyMessageResource {
+		@Message(key = "specific.message ", defaultMessage = "Specific")
+		String specificMessage(String arg);
+	}
+
+	@Test
+	public void methodWithoutAnnotation() throws Exception {
+		MethodDescriptor descriptor = MethodDescriptor.forMethod(MySpecificMessageResource.class.getMethod("cancel"));
+		assertThat(descriptor.getResourceBundleName(), is(MyMessageResource.class.getName()));
+		assertThat(descriptor.getResourceKey(), is("cancel"));
+		assertThat(descriptor.hasDefaultMessage(), is(false));
+		assertThat(descriptor.getDefaultMessage(), is(nullValue()));
+		assertThat(descriptor.isFormatted(), is(false));
+	}
+
+	@Test
+	public void methodWithAnnotation() throws Exception {
+		MethodDescriptor descriptor = MethodDescriptor.forMethod(MySpecificMessageResource.class.getMethod("specificMessage", String.class));
+		assertThat(descriptor.getResourceBundleName(), is("jb5n.api.MySpecificMessageResource"));
+		assertThat(descriptor.getResourceKey(), is("specific.message "));
+		assertThat(descriptor.getDefaultMessage(), is("Specific"));
+		assertThat(descriptor.getParameterCount(), is(1));
+		assertThat(descriptor.isFormatted(), is(true));
+	}
+
+	@Test
+	public void methodsOfMessageResourceAreNumbered() throws Exception {
+		MethodDescriptor[] descriptors = MethodDescriptor.forMethods(MySpecificMessageResource.class, new Method[]{
+				MySpecificMessageResource.class.getMethod("cancel"), MySpecificMessageResource.class.getMethod("specificMessage", String.class)});
+		assertThat(descriptors[0].getOrdinal(), is(0));
+		assertThat(descriptors[1].getOrdinal(), is(1));
+		assertThat(descriptors[1].getResourceKey(), is("specific.message "));
+		assertThat(descriptors[1].getMessageResourceName(), is(MySpecificMessageResource.class.getName()));
+		assertThat(descriptors[0].getMessageResourceMethods() == descriptors, is(true));
+		assertThat(MethodDescriptor.forMethod(MySpecificMessageResource.class.getMethod("cancel")).getOrdinal(), is(-1));
+	}
+}
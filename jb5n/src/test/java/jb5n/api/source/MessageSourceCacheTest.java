@@ -0,0 +1,252 @@
+package jb5n.api.source;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import jb5n.api.JB5n;
+import jb5n.api.JB5nConfiguration;
+import jb5n.api.Message;
+import jb5n.api.MessageResource;
+import jb5n.internal.catalog.MessageCatalogRepository;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.Test;
+
+public class MessageSourceCacheTest {
+	private static final InMemoryMessageSource messageSource = new InMemoryMessageSource();
+	private static final MessageSourceCache cache = new MessageSourceCache(messageSource);
+
+	static {
+		cache.setMaintenanceIntervalMillis(60000);
+	}
+
+	public static class InMemoryMessageSource implements MessageSource {
+		private final Map<Locale, Map<String, String>> messages = new ConcurrentHashMap<Locale, Map<String, String>>();
+		private final AtomicInteger bulkLoads = new AtomicInteger();
+		private final AtomicInteger singleLoads = new AtomicInteger();
+		private final AtomicInteger failedLoads = new AtomicInteger();
+		private volatile boolean bulk = true;
+		private volatile boolean failing = false;
+
+		public Map<String, String> loadMessages(String resourceBundleName, Locale locale) throws Exception {
+			if (failing) {
+				failedLoads.incrementAndGet();
+				throw new Exception("Connection refused");
+			}
+			if (!bulk) {
+				return null;
+			}
+			bulkLoads.incrementAndGet();
+			Map<String, String> messagesOfLocale = messages.get(locale);
+			return messagesOfLocale != null ? new HashMap<String, String>(messagesOfLocale) : new HashMap<String, String>();
+		}
+
+		public String loadMessage(String resourceBundleName, Locale locale, String key) throws Exception {
+			singleLoads.incrementAndGet();
+			Map<String, String> messagesOfLocale = messages.get(locale);
+			return messagesOfLocale != null ? messagesOfLocale.get(key) : null;
+		}
+
+		private void put(Locale locale, String key, String message) {
+			Map<String, String> messagesOfLocale = messages.get(locale);
+			if (messagesOfLocale == null) {
+				messagesOfLocale = new ConcurrentHashMap<String, String>();
+				messages.put(locale, messagesOfLocale);
+			}
+			messagesOfLocale.put(key, message);
+		}
+
+		private void reset() {
+			messages.clear();
+			bulkLoads.set(0);
+			singleLoads.set(0);
+			failedLoads.set(0);
+			bulk = true;
+			failing = false;
+		}
+	}
+
+	public static class InMemoryInvocationHandler extends JB5nMessageSourceInvocationHandler {
+
+		public InMemoryInvocationHandler() {
+			super(cache);
+		}
+	}
+
+	@MessageResource(invocationHandler = InMemoryInvocationHandler.class)
+	public interface DatabaseMessages {
+
+		String title();
+
+		String greeting(String name);
+
+		@Message(defaultMessage = "Default")
+		String missing();
+	}
+
+	@Before
+	public void before() {
+		messageSource.put(Locale.GERMAN, "title", "Titel");
+		messageSource.put(Locale.GERMAN, "greeting", "Hallo {0}");
+		messageSource.put(Locale.ENGLISH, "title", "Title");
+	}
+
+	@After
+	public void after() {
+		cache.invalidateAll();
+		cache.setRefreshAfterMillis(0);
+		cache.setTimeToLiveMillis(0);
+		cache.setMaximumSize(0);
+		messageSource.reset();
+		JB5n.setConfiguration(new JB5nConfiguration());
+	}
+
+	@AfterClass
+	public static void afterClass() {
+		cache.shutdown();
+	}
+
+	@Test
+	public void messagesOfResourceBundleAreLoadedAtOnce() {
+		DatabaseMessages messages = JB5n.createInstance(DatabaseMessages.class, Locale.GERMAN);
+		assertThat(messages.title(), is("Titel"));
+		assertThat(messages.greeting("Duke"), is("Hallo Duke"));
+		assertThat(messages.missing(), is("Default"));
+		assertThat(messages.title(), is("Titel"));
+		assertThat(messageSource.bulkLoads.get(), is(1));
+		assertThat(messageSource.singleLoads.get(), is(0));
+	}
+
+	@Test
+	public void singleMessagesAreLoadedOnce() {
+		messageSource.bulk = false;
+		DatabaseMessages messages = JB5n.createInstance(DatabaseMessages.class, Locale.GERMAN);
+		assertThat(messages.title(), is("Titel"));
+		assertThat(messages.title(), is("Titel"));
+		assertThat(messages.missing(), is("Default"));
+		assertThat(messages.missing(), is("Default"));
+		// the message table of the interface loads each of its three keys once
+		assertThat(messageSource.singleLoads.get(), is(3));
+	}
+
+	@Test
+	public void refreshServesOldMessagesUntilReloaded() throws InterruptedException {
+		cache.setRefreshAfterMillis(1);
+		DatabaseMessages messages = JB5n.createInstance(DatabaseMessages.class, Locale.GERMAN);
+		assertThat(messages.title(), is("Titel"));
+		messageSource.put(Locale.GERMAN, "title", "Neuer Titel");
+		assertThat(messages.title(), is("Titel"));
+		Thread.sleep(5);
+		cache.cleanUp();
+		assertThat(messages.title(), is("Neuer Titel"));
+		assertThat(messageSource.bulkLoads.get(), is(2));
+	}
+
+	@Test
+	public void refreshDoesNotChangeTheGenerationOfTheRepository() throws InterruptedException {
+		cache.setRefreshAfterMillis(1);
+		DatabaseMessages messages = JB5n.createInstance(DatabaseMessages.class, Locale.GERMAN);
+		assertThat(messages.title(), is("Titel"));
+		long generation = MessageCatalogRepository.getInstance().getGeneration();
+		messageSource.put(Locale.GERMAN, "title", "Neuer Titel");
+		Thread.sleep(5);
+		cache.cleanUp();
+		assertThat(messages.title(), is("Neuer Titel"));
+		cache.invalidateAll();
+		assertThat(messages.title(), is("Neuer Titel"));
+		assertThat(MessageCatalogRepository.getInstance().getGeneration(), is(generation));
+	}
+
+	@Test
+	public void concurrentFirstRequestsLoadOnce() throws InterruptedException {
+		assertThat(cache.getCatalog("concurrent", Locale.GERMAN) != null, is(true));
+		assertThat(messageSource.bulkLoads.get(), is(0));
+		final CountDownLatch start = new CountDownLatch(1);
+		final List<String> titles = new ArrayList<String>();
+		List<Thread> threads = new ArrayList<Thread>();
+		for (int i = 0; i < 8; i++) {
+			Thread thread = new Thread() {
+				@Override
+				public void run() {
+					try {
+						start.await();
+					} catch (InterruptedException e) {
+						return;
+					}
+					String title = cache.getCatalog("concurrent", Locale.GERMAN).get().getMessage("title");
+					synchronized (titles) {
+						titles.add(title);
+					}
+				}
+			};
+			thread.start();
+			threads.add(thread);
+		}
+		start.countDown();
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertThat(titles.size(), is(8));
+		for (String title : titles) {
+			assertThat(title, is("Titel"));
+		}
+		assertThat(messageSource.bulkLoads.get(), is(1));
+	}
+
+	@Test
+	public void expiredMessagesAreLoadedOnNextRequest() throws InterruptedException {
+		cache.setTimeToLiveMillis(1);
+		DatabaseMessages messages = JB5n.createInstance(DatabaseMessages.class, Locale.GERMAN);
+		assertThat(messages.title(), is("Titel"));
+		Thread.sleep(5);
+		cache.cleanUp();
+		assertThat(cache.size(), is(0));
+		assertThat(messages.title(), is("Titel"));
+		assertThat(cache.size(), is(1));
+		assertThat(messageSource.bulkLoads.get(), is(2));
+	}
+
+	@Test
+	public void failedResourceBundleIsLoadedAgain() {
+		messageSource.failing = true;
+		DatabaseMessages messages = JB5n.createInstance(DatabaseMessages.class, Locale.GERMAN);
+		assertThat(messages.title(), is("???title???"));
+		messageSource.failing = false;
+		cache.cleanUp();
+		assertThat(messages.title(), is("Titel"));
+	}
+
+	@Test
+	public void failedResourceBundleIsLoadedAgainWithBackoff() {
+		messageSource.failing = true;
+		DatabaseMessages messages = JB5n.createInstance(DatabaseMessages.class, Locale.ENGLISH);
+		assertThat(messages.title(), is("???title???"));
+		assertThat(messageSource.failedLoads.get(), is(1));
+		cache.cleanUp();
+		assertThat(messageSource.failedLoads.get(), is(2));
+		cache.cleanUp();
+		cache.cleanUp();
+		assertThat(messageSource.failedLoads.get(), is(2));
+	}
+
+	@Test
+	public void resourceBundlesBeyondMaximumSizeAreEvicted() {
+		cache.setMaximumSize(1);
+		assertThat(JB5n.createInstance(DatabaseMessages.class, Locale.GERMAN).title(), is("Titel"));
+		assertThat(JB5n.createInstance(DatabaseMessages.class, Locale.ENGLISH).title(), is("Title"));
+		cache.cleanUp();
+		assertThat(cache.size(), is(1));
+		assertThat(JB5n.createInstance(DatabaseMessages.class, Locale.GERMAN).title(), is("Titel"));
+	}
+}
@@ -0,0 +1,121 @@
+package jb5n.internal;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.Arrays;
+import java.util.Locale;
+
+import jb5n.api.JB5n;
+import jb5n.api.JB5nConfiguration;
+import jb5n.api.JB5nInvocationHandler;
+import jb5n.api.MyMessageResource;
+import jb5n.api.properties.JB5nPropertiesInvocationHandler;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class BytecodeImplementationsTest {
+
+	public interface ArgumentsMessageResource {
+		String arguments(int i, long l, double d, float f, boolean b, char c, byte by, short s, String string, int[] array);
+
+		String declaredException() throws IOException;
+
+		String undeclaredException();
+	}
+
+	public static class EchoInvocationHandler implements JB5nInvocationHandler {
+
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			if (method.getName().equals("declaredException")) {
+				throw new IOException("declared");
+			} else if (method.getName().equals("undeclaredException")) {
+				throw new Exception("undeclared");
+			}
+			return method.getName() + Arrays.deepToString(args);
+		}
+
+		public void setLocale(Locale locale) {
+
+		}
+
+		public void setClassLoader(ClassLoader loader) {
+
+		}
+	}
+
+	@After
+	public void resetConfiguration() {
+		JB5n.setConfiguration(new JB5nConfiguration());
+	}
+
+	@Test
+	public void propertiesInvocationHandler() {
+		JB5nPropertiesInvocationHandler invocationHandler = new JB5nPropertiesInvocationHandler();
+		invocationHandler.setLocale(Locale.ENGLISH);
+		invocationHandler.setClassLoader(MyMessageResource.class.getClassLoader());
+		MyMessageResource instance = BytecodeImplementations.newInstance(MyMessageResource.class, invocationHandler);
+		assertThat(Proxy.isProxyClass(instance.getClass()), is(false));
+		assertThat(instance.ok(), is("OK"));
+		assertThat(instance.cancel(), is("Cancel"));
+		assertThat(instance.noDefaultKey(), is("No default key."));
+		assertThat(instance.youHaveNREtries(3), is("You still have 3 retries."));
+	}
+
+	@Test
+	public void customInvocationHandler() {
+		ArgumentsMessageResource instance = BytecodeImplementations.newInstance(ArgumentsMessageResource.class, new EchoInvocationHandler());
+		String result = instance.arguments(1, 2L, 3.5, 4.5f, true, 'c', (byte) 5, (short) 6, "string", new int[] { 7 });
+		assertThat(result, is("arguments[1, 2, 3.5, 4.5, true, c, 5, 6, string, [7]]"));
+	}
+
+	@Test
+	public void exceptionsAreHandledLikeByAProxy() {
+		ArgumentsMessageResource instance = BytecodeImplementations.newInstance(ArgumentsMessageResource.class, new EchoInvocationHandler());
+		try {
+			instance.declaredException();
+			fail();
+		} catch (IOException e) {
+			assertThat(e.getMessage(), is("declared"));
+		}
+		try {
+			instance.undeclaredException();
+			fail();
+		} catch (UndeclaredThrowableException e) {
+			assertThat(e.getCause().getMessage(), is("undeclared"));
+		}
+	}
+
+	@Test
+	public void createInstanceUsesGeneratedClass() {
+		JB5nConfiguration configuration = new JB5nConfiguration();
+		configuration.setGenerateImplementationsAtRuntime(true);
+		configuration.setCacheMessageResources(false);
+		JB5n.setConfiguration(configuration);
+		MyMessageResource instance = JB5n.createInstance(MyMessageResource.class, Locale.GERMAN);
+		assertThat(instance, not(instanceOf(Proxy.class)));
+		assertThat(instance.cancel(), is("Abbruch"));
+		MyMessageResource otherInstance = JB5n.createInstance(MyMessageResource.class, Locale.ENGLISH);
+		assertThat(otherInstance.getClass() == instance.getClass(), is(true));
+	}
+
+	@Test
+	public void generatedClassIsKeptWhenItsInstancesAreCollected() {
+		ArgumentsMessageResource instance = BytecodeImplementations.newInstance(ArgumentsMessageResource.class, new EchoInvocationHandler());
+		String className = instance.getClass().getName();
+		instance = null;
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+		}
+		instance = BytecodeImplementations.newInstance(ArgumentsMessageResource.class, new EchoInvocationHandler());
+		assertThat(instance.getClass().getName(), is(className));
+	}
+}
@@ -0,0 +1,42 @@
+package jb5n.internal;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.Locale;
+
+import jb5n.api.JB5nInvocationHandler;
+import jb5n.api.LocaleContext;
+import jb5n.api.properties.JB5nPropertiesInvocationHandler;
+
+import org.junit.Test;
+
+public class ContextualHandlersTest {
+
+	private static class FixedLocaleContext implements LocaleContext {
+		private Locale locale;
+
+		public Locale getLocale() {
+			return locale;
+		}
+	}
+
+	@Test
+	public void leastRecentlyUsedHandlerIsReplacedBeyondTheMaximum() throws InterruptedException {
+		FixedLocaleContext localeContext = new FixedLocaleContext();
+		ContextualHandlers contextualHandlers = new ContextualHandlers(JB5nPropertiesInvocationHandler.class, ContextualHandlersTest.class.getClassLoader(), localeContext);
+		for (int i = 0; i < ContextualHandlers.MAXIMUM_LOCALES; i++) {
+			localeContext.locale = new Locale("l" + i);
+			contextualHandlers.getInvocationHandler();
+		}
+		Thread.sleep(5);
+		localeContext.locale = new Locale("l0");
+		JB5nInvocationHandler recentlyUsedHandler = contextualHandlers.getInvocationHandler();
+		localeContext.locale = new Locale("further");
+		JB5nInvocationHandler furtherHandler = contextualHandlers.getInvocationHandler();
+		assertThat(contextualHandlers.getInvocationHandler() == furtherHandler, is(true));
+		assertThat(contextualHandlers.size(), is(ContextualHandlers.MAXIMUM_LOCALES));
+		localeContext.locale = new Locale("l0");
+		assertThat(contextualHandlers.getInvocationHandler() == recentlyUsedHandler, is(true));
+	}
+}
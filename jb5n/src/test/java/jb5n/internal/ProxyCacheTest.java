@@ -0,0 +1,84 @@
+package jb5n.internal;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.util.Locale;
+
+import jb5n.api.JB5nCacheStatistics;
+import jb5n.api.JB5nConfiguration;
+import jb5n.internal.ProxyCache.ProxyKey;
+
+import org.junit.Test;
+
+public class ProxyCacheTest {
+	private final ClassLoader classLoader = ProxyCacheTest.class.getClassLoader();
+
+	@Test
+	public void hitsAndMisses() {
+		ProxyCache proxyCache = new ProxyCache();
+		JB5nConfiguration configuration = new JB5nConfiguration();
+		Object value = new Object();
+		assertThat(proxyCache.get(new ProxyKey(String.class, Locale.ENGLISH, classLoader), configuration), is(nullValue()));
+		proxyCache.put(new ProxyKey(String.class, Locale.ENGLISH, classLoader), value, configuration);
+		assertThat(proxyCache.get(new ProxyKey(String.class, Locale.ENGLISH, classLoader), configuration), is(value));
+		assertThat(proxyCache.get(new ProxyKey(String.class, Locale.GERMAN, classLoader), configuration), is(nullValue()));
+		JB5nCacheStatistics statistics = proxyCache.getStatistics();
+		assertThat(statistics.getHitCount(), is(1L));
+		assertThat(statistics.getMissCount(), is(2L));
+		assertThat(statistics.getSize(), is(1));
+	}
+
+	@Test
+	public void leastRecentlyUsedEntryIsEvicted() throws InterruptedException {
+		ProxyCache proxyCache = new ProxyCache();
+		JB5nConfiguration configuration = new JB5nConfiguration();
+		configuration.setMessageResourceCacheMaximumSize(2);
+		proxyCache.put(new ProxyKey(String.class, Locale.ENGLISH, classLoader), "en", configuration);
+		Thread.sleep(5);
+		proxyCache.put(new ProxyKey(String.class, Locale.GERMAN, classLoader), "de", configuration);
+		Thread.sleep(5);
+		proxyCache.get(new ProxyKey(String.class, Locale.ENGLISH, classLoader), configuration);
+		proxyCache.put(new ProxyKey(String.class, Locale.FRENCH, classLoader), "fr", configuration);
+		assertThat(proxyCache.size(), is(2));
+		assertThat(proxyCache.get(new ProxyKey(String.class, Locale.GERMAN, classLoader), configuration), is(nullValue()));
+		assertThat(proxyCache.get(new ProxyKey(String.class, Locale.ENGLISH, classLoader), configuration), is((Object) "en"));
+		assertThat(proxyCache.getStatistics().getEvictionCount(), is(1L));
+	}
+
+	@Test
+	public void idleEntryExpires() throws InterruptedException {
+		ProxyCache proxyCache = new ProxyCache();
+		JB5nConfiguration configuration = new JB5nConfiguration();
+		configuration.setMessageResourceCacheExpireAfterAccessMillis(10);
+		proxyCache.put(new ProxyKey(String.class, Locale.ENGLISH, classLoader), "en", configuration);
+		Thread.sleep(50);
+		assertThat(proxyCache.get(new ProxyKey(String.class, Locale.ENGLISH, classLoader), configuration), is(nullValue()));
+		assertThat(proxyCache.size(), is(0));
+		assertThat(proxyCache.getStatistics().getEvictionCount(), is(1L));
+	}
+
+	@Test
+	public void leastRecentlyUsedEntriesAreEvictedInOnePass() throws InterruptedException {
+		ProxyCache proxyCache = new ProxyCache();
+		JB5nConfiguration configuration = new JB5nConfiguration();
+		configuration.setMessageResourceCacheMaximumSize(32);
+		for (int i = 0; i < 32; i++) {
+			proxyCache.put(new ProxyKey(String.class, new Locale("l" + i), classLoader), "l" + i, configuration);
+		}
+		assertThat(proxyCache.size(), is(32));
+		Thread.sleep(5);
+		proxyCache.get(new ProxyKey(String.class, new Locale("l0"), classLoader), configuration);
+		Thread.sleep(5);
+		proxyCache.put(new ProxyKey(String.class, new Locale("l32"), classLoader), "l32", configuration);
+		assertThat(proxyCache.size(), is(30));
+		assertThat(proxyCache.getStatistics().getEvictionCount(), is(3L));
+		assertThat(proxyCache.get(new ProxyKey(String.class, new Locale("l0"), classLoader), configuration), is((Object) "l0"));
+		assertThat(proxyCache.get(new ProxyKey(String.class, new Locale("l32"), classLoader), configuration), is((Object) "l32"));
+		proxyCache.put(new ProxyKey(String.class, new Locale("l33"), classLoader), "l33", configuration);
+		proxyCache.put(new ProxyKey(String.class, new Locale("l34"), classLoader), "l34", configuration);
+		assertThat(proxyCache.size(), is(32));
+		assertThat(proxyCache.getStatistics().getEvictionCount(), is(3L));
+	}
+}
@@ -0,0 +1,86 @@
+package jb5n.internal.catalog;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Collections;
+import java.util.Locale;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class BinaryCatalogLoaderTest {
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+	private URLClassLoader classLoader;
+	private Locale defaultLocale;
+
+	@Before
+	public void before() throws IOException {
+		defaultLocale = Locale.getDefault();
+		Locale.setDefault(Locale.ENGLISH);
+		classLoader = new URLClassLoader(new URL[]{temporaryFolder.getRoot().toURI().toURL()}, BinaryCatalogLoaderTest.class.getClassLoader());
+		write("Compiled.properties", "greeting=Hello");
+		writeCatalog("Compiled.jb5n", "Hello");
+		write("Compiled_de.properties", "greeting=Hallo");
+		writeCatalog("Compiled_de.jb5n", "Hallo");
+		write("Compiled_fr.properties", "greeting=Bonjour");
+	}
+
+	@After
+	public void after() {
+		Locale.setDefault(defaultLocale);
+	}
+
+	@Test
+	public void catalogOfTheLocaleIsLoaded() throws IOException {
+		BinaryCatalog catalog = new BinaryCatalogLoader().load("Compiled", Locale.GERMAN, classLoader, null);
+		assertThat(catalog.getMessage("greeting"), is("Hallo"));
+	}
+
+	@Test
+	public void catalogOfTheParentLocaleIsLoaded() throws IOException {
+		BinaryCatalog catalog = new BinaryCatalogLoader().load("Compiled", new Locale("de", "AT"), classLoader, null);
+		assertThat(catalog.getMessage("greeting"), is("Hallo"));
+	}
+
+	@Test
+	public void rootCatalogIsLoadedForLocalesWithoutPropertiesFile() throws IOException {
+		BinaryCatalog catalog = new BinaryCatalogLoader().load("Compiled", Locale.ITALIAN, classLoader, null);
+		assertThat(catalog.getMessage("greeting"), is("Hello"));
+	}
+
+	@Test
+	public void propertiesFileThatWasNotCompiledIsNotHidden() throws IOException {
+		assertThat(new BinaryCatalogLoader().load("Compiled", Locale.FRENCH, classLoader, null), is(nullValue()));
+		assertThat(new BinaryCatalogLoader().load("Compiled", Locale.CANADA_FRENCH, classLoader, null), is(nullValue()));
+	}
+
+	private void write(String name, String content) throws IOException {
+		OutputStream outputStream = new FileOutputStream(new File(temporaryFolder.getRoot(), name));
+		try {
+			outputStream.write(content.getBytes("ISO-8859-1"));
+		} finally {
+			outputStream.close();
+		}
+	}
+
+	private void writeCatalog(String name, String greeting) throws IOException {
+		OutputStream outputStream = new FileOutputStream(new File(temporaryFolder.getRoot(), name));
+		try {
+			new BinaryCatalogWriter().write(Collections.singletonMap("greeting", greeting), outputStream);
+		} finally {
+			outputStream.close();
+		}
+	}
+}
@@ -0,0 +1,94 @@
+package jb5n.internal.catalog;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class BinaryCatalogTest {
+
+	@Test
+	public void messagesCanBeReadAfterWriting() throws IOException {
+		Map<String, String> messages = new HashMap<String, String>();
+		for (int i = 0; i < 1000; i++) {
+			messages.put("key." + i, "Message " + i);
+		}
+		messages.put("schlüssel", "Grüße");
+		messages.put("emoji.😀", "日本語");
+		messages.put("", "empty key");
+		BinaryCatalog catalog = write(messages);
+		assertThat(catalog.size(), is(messages.size()));
+		for (Map.Entry<String, String> entry : messages.entrySet()) {
+			assertThat(catalog.getMessage(entry.getKey()), is(entry.getValue()));
+		}
+		assertThat(catalog.getMessage("key.1000"), is(nullValue()));
+		assertThat(catalog.getMessage("schlüsse"), is(nullValue()));
+		assertThat(catalog.getMessage("emoji.\uD83D"), is(nullValue()));
+		List<String> keys = Collections.list(catalog.getKeys());
+		assertThat(keys.size(), is(messages.size()));
+		assertThat(keys.containsAll(messages.keySet()), is(true));
+	}
+
+	@Test
+	public void equalValuesAreStoredOnce() throws IOException {
+		Map<String, String> messages = new HashMap<String, String>();
+		messages.put("a", "The same message");
+		ByteArrayOutputStream single = new ByteArrayOutputStream();
+		new BinaryCatalogWriter().write(messages, single);
+		messages.put("b", "The same message");
+		ByteArrayOutputStream twice = new ByteArrayOutputStream();
+		new BinaryCatalogWriter().write(messages, twice);
+		// one slot, one entry and the key, but not the value again
+		assertThat(twice.size() - single.size() <= 4 * 2 + BinaryCatalog.ENTRY_SIZE + 1, is(true));
+		assertThat(write(messages).getMessage("b"), is("The same message"));
+	}
+
+	@Test
+	public void emptyCatalog() throws IOException {
+		BinaryCatalog catalog = write(new HashMap<String, String>());
+		assertThat(catalog.getMessage("key"), is(nullValue()));
+		assertThat(catalog.getKeys().hasMoreElements(), is(false));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void invalidCatalogIsRejected() {
+		new BinaryCatalog(ByteBuffer.wrap(new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16}), 0);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void slotTableWithoutEmptySlotIsRejected() throws IOException {
+		ByteBuffer buffer = writeBuffer(Collections.singletonMap("key", "value"));
+		int slotCount = buffer.getInt(12);
+		for (int slot = 0; slot < slotCount; slot++) {
+			buffer.putInt(BinaryCatalog.HEADER_SIZE + 4 * slot, 1);
+		}
+		new BinaryCatalog(buffer, 0);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void entryOutsideOfTheBufferIsRejected() throws IOException {
+		ByteBuffer buffer = writeBuffer(Collections.singletonMap("key", "value"));
+		int entriesOffset = BinaryCatalog.HEADER_SIZE + 4 * buffer.getInt(12);
+		buffer.putInt(entriesOffset + 12, buffer.limit());
+		new BinaryCatalog(buffer, 0);
+	}
+
+	private BinaryCatalog write(Map<String, String> messages) throws IOException {
+		return new BinaryCatalog(writeBuffer(messages), 0);
+	}
+
+	private ByteBuffer writeBuffer(Map<String, String> messages) throws IOException {
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		new BinaryCatalogWriter().write(messages, outputStream);
+		return ByteBuffer.wrap(outputStream.toByteArray());
+	}
+}
@@ -0,0 +1,177 @@
+package jb5n.internal.catalog;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Locale;
+import java.util.ResourceBundle;
+
+import jb5n.api.JB5n;
+import jb5n.api.JB5nConfiguration;
+import jb5n.api.JB5nDeduplicationStatistics;
+import jb5n.api.MessageResource;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class MessageCatalogRepositoryTest {
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+	private URLClassLoader classLoader;
+
+	@MessageResource(resourceBundleName = "reload.ReloadMessages")
+	public interface ReloadMessages {
+
+		String greeting();
+
+		String welcome(String name);
+	}
+
+	@Before
+	public void before() throws IOException {
+		JB5nConfiguration configuration = new JB5nConfiguration();
+		configuration.setReloadResourceBundles(true);
+		configuration.setResourceBundleReloadIntervalMillis(60000);
+		JB5n.setConfiguration(configuration);
+		classLoader = new URLClassLoader(new URL[]{temporaryFolder.getRoot().toURI().toURL()}, MessageCatalogRepositoryTest.class.getClassLoader());
+	}
+
+	@After
+	public void after() {
+		JB5n.setConfiguration(new JB5nConfiguration());
+		MessageCatalogRepository.getInstance().stopReloading();
+	}
+
+	@Test
+	public void modifiedPropertiesFileIsReloaded() throws IOException {
+		File file = writeProperties("ReloadMessages_de.properties", "greeting=Hallo\nwelcome=Willkommen {0}", 1000);
+		ReloadMessages messages = JB5n.createInstance(ReloadMessages.class, Locale.GERMAN, classLoader);
+		assertThat(messages.greeting(), is("Hallo"));
+		assertThat(messages.welcome("Anna"), is("Willkommen Anna"));
+		writeProperties("ReloadMessages_de.properties", "greeting=Guten Tag\nwelcome=Herzlich willkommen {0}", file.lastModified() + 10000);
+		assertThat(MessageCatalogRepository.getInstance().reloadModifiedCatalogs(), is(1));
+		assertThat(messages.greeting(), is("Guten Tag"));
+		assertThat(messages.welcome("Anna"), is("Herzlich willkommen Anna"));
+		assertThat(MessageCatalogRepository.getInstance().reloadModifiedCatalogs(), is(0));
+	}
+
+	@Test
+	public void missingKeyIsResolvedAfterReload() throws IOException {
+		File file = writeProperties("ReloadMessages_nl.properties", "greeting=Hallo", 1000);
+		ReloadMessages messages = JB5n.createInstance(ReloadMessages.class, new Locale("nl"), classLoader);
+		assertThat(messages.welcome("Anna"), is("???welcome???"));
+		assertThat(messages.welcome("Anna"), is("???welcome???"));
+		writeProperties("ReloadMessages_nl.properties", "greeting=Hallo\nwelcome=Welkom {0}", file.lastModified() + 10000);
+		assertThat(MessageCatalogRepository.getInstance().reloadModifiedCatalogs(), is(1));
+		assertThat(messages.welcome("Anna"), is("Welkom Anna"));
+	}
+
+	@Test
+	public void missingKeyOfMethodWithoutArgumentsIsResolvedAfterReload() throws IOException {
+		File file = writeProperties("ReloadMessages_fr.properties", "welcome=Bienvenue {0}", 1000);
+		ReloadMessages messages = JB5n.createInstance(ReloadMessages.class, Locale.FRENCH, classLoader);
+		assertThat(messages.greeting(), is("???greeting???"));
+		assertThat(messages.greeting(), is("???greeting???"));
+		writeProperties("ReloadMessages_fr.properties", "greeting=Bonjour\nwelcome=Bienvenue {0}", file.lastModified() + 10000);
+		assertThat(MessageCatalogRepository.getInstance().reloadModifiedCatalogs(), is(1));
+		assertThat(messages.greeting(), is("Bonjour"));
+	}
+
+	@Test
+	public void addedLocaleSpecificFileIsReloaded() throws IOException {
+		File file = writeProperties("ReloadMessages.properties", "greeting=Hello\nwelcome=Welcome {0}", 1000);
+		MessageCatalogReference reference = MessageCatalogRepository.getInstance().getCatalog("reload.ReloadMessages", Locale.FRENCH, classLoader);
+		assertThat(reference.get().getMessage("greeting"), is("Hello"));
+		writeProperties("ReloadMessages_fr.properties", "greeting=Bonjour", file.lastModified() + 10000);
+		assertThat(MessageCatalogRepository.getInstance().reloadModifiedCatalogs(), is(1));
+		assertThat(reference.get().getMessage("greeting"), is("Bonjour"));
+		assertThat(reference.get().getMessage("welcome"), is("Welcome {0}"));
+		assertThat(reference.get().getMessage("missing"), is(nullValue()));
+		assertThat(reference.get().getVersion(), is(1L));
+	}
+
+	@Test
+	public void utf8PropertiesFileIsDecodedLikeResourceBundle() throws IOException {
+		writeProperties("ReloadMessages_pt.properties", "greeting=Ol\u00e1\nwelcome=Sauda\u00e7\u00f5es {0}", 1000, "UTF-8");
+		ReloadMessages messages = JB5n.createInstance(ReloadMessages.class, new Locale("pt"), classLoader);
+		assertThat(messages.greeting(), is("Ol\u00e1"));
+		assertThat(messages.welcome("Ana"), is("Sauda\u00e7\u00f5es Ana"));
+		assertThat(messages.greeting(), is(ResourceBundle.getBundle("reload.ReloadMessages", new Locale("pt"), classLoader).getString("greeting")));
+	}
+
+	@Test
+	public void catalogsAreNotReloadedIfDisabled() throws IOException {
+		JB5n.setConfiguration(new JB5nConfiguration());
+		writeProperties("ReloadMessages_it.properties", "greeting=Ciao", 1000);
+		MessageCatalogReference reference = MessageCatalogRepository.getInstance().getCatalog("reload.ReloadMessages", Locale.ITALIAN, classLoader);
+		assertThat(reference.get().getMessage("greeting"), is("Ciao"));
+		assertThat(reference.isReloadable(), is(false));
+	}
+
+	@Test
+	public void keysAndMessagesAreDeduplicated() throws IOException {
+		JB5nConfiguration configuration = new JB5nConfiguration();
+		configuration.setDeduplicateMessages(true);
+		JB5n.setConfiguration(configuration);
+		writeProperties("Dedup.properties", "dedup.ok=Dedup OK\ndedup.cancel=Dedup Abbrechen", 1000);
+		writeProperties("Dedup_de_AT.properties", "dedup.greeting=Servus", 1000);
+		writeProperties("Dedup_de_CH.properties", "dedup.greeting=Gr\\u00fcezi", 1000);
+		MessageCatalogReference austria = MessageCatalogRepository.getInstance().getCatalog("reload.Dedup", new Locale("de", "AT"), classLoader);
+		MessageCatalogReference switzerland = MessageCatalogRepository.getInstance().getCatalog("reload.Dedup", new Locale("de", "CH"), classLoader);
+		assertThat(austria.isReloadable(), is(false));
+		assertThat(switzerland.get().getMessage("dedup.greeting"), is("Gr\u00fcezi"));
+		assertThat(austria.get().getMessage("dedup.ok") == switzerland.get().getMessage("dedup.ok"), is(true));
+		assertThat(switzerland.get().getDeduplicatedCount(), is(5));
+		long bytesSaved = 0;
+		for (JB5nDeduplicationStatistics statistics : JB5n.getDeduplicationStatistics()) {
+			if (statistics.getResourceBundleName().equals("reload.Dedup") && statistics.getLocale().equals(new Locale("de", "CH"))) {
+				bytesSaved += statistics.getBytesSaved();
+			}
+		}
+		assertThat(bytesSaved, is(switzerland.get().getBytesSaved()));
+		assertThat(bytesSaved > 0, is(true));
+	}
+
+	@Test
+	public void deduplicationDoesNotChangeUtf8Messages() throws IOException {
+		JB5nConfiguration configuration = new JB5nConfiguration();
+		configuration.setDeduplicateMessages(true);
+		JB5n.setConfiguration(configuration);
+		writeProperties("DedupUtf8.properties", "dedup.greeting=Gr\u00fc\u00dfe\ndedup.japanese=\u65e5\u672c", 1000, "UTF-8");
+		writeProperties("DedupUtf8_de.properties", "dedup.farewell=Tsch\u00fcss", 1000, "UTF-8");
+		MessageCatalogReference reference = MessageCatalogRepository.getInstance().getCatalog("reload.DedupUtf8", Locale.GERMAN, classLoader);
+		ResourceBundle resourceBundle = ResourceBundle.getBundle("reload.DedupUtf8", Locale.GERMAN, classLoader);
+		assertThat(reference.get().getMessage("dedup.greeting"), is("Gr\u00fc\u00dfe"));
+		for (String key : new String[]{"dedup.greeting", "dedup.japanese", "dedup.farewell"}) {
+			assertThat(reference.get().getMessage(key), is(resourceBundle.getString(key)));
+		}
+	}
+
+	private File writeProperties(String name, String content, long lastModified) throws IOException {
+		return writeProperties(name, content, lastModified, "ISO-8859-1");
+	}
+
+	private File writeProperties(String name, String content, long lastModified, String encoding) throws IOException {
+		File directory = new File(temporaryFolder.getRoot(), "reload");
+		directory.mkdirs();
+		File file = new File(directory, name);
+		OutputStream outputStream = new FileOutputStream(file);
+		try {
+			outputStream.write(content.getBytes(encoding));
+		} finally {
+			outputStream.close();
+		}
+		file.setLastModified(lastModified);
+		return file;
+	}
+}
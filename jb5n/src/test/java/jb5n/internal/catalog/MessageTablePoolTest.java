@@ -0,0 +1,23 @@
+package jb5n.internal.catalog;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+
+public class MessageTablePoolTest {
+
+	@Test
+	public void equalMessagesAreShared() {
+		MessageTablePool pool = MessageTablePool.getInstance();
+		MessageTablePool.Messages austria = pool.intern(new String[]{"Servus", null, "Abbrechen"});
+		MessageTablePool.Messages switzerland = pool.intern(new String[]{new String("Servus"), null, "Abbrechen"});
+		MessageTablePool.Messages germany = pool.intern(new String[]{"Hallo", null, "Abbrechen"});
+		assertThat(austria == switzerland, is(true));
+		assertThat(austria == germany, is(false));
+		assertThat(switzerland.get(0), is("Servus"));
+		assertThat(switzerland.get(1), is(nullValue()));
+		assertThat(germany.size(), is(3));
+	}
+}
@@ -0,0 +1,83 @@
+package jb5n.internal.catalog;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Locale;
+import java.util.Map;
+import java.util.ResourceBundle;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class PropertiesCatalogLoaderTest {
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+	private static final Locale ROOT = new Locale("");
+	private URLClassLoader classLoader;
+	private Locale defaultLocale;
+
+	@Before
+	public void before() throws IOException {
+		defaultLocale = Locale.getDefault();
+		Locale.setDefault(Locale.ENGLISH);
+		classLoader = new URLClassLoader(new URL[]{temporaryFolder.getRoot().toURI().toURL()}, PropertiesCatalogLoaderTest.class.getClassLoader());
+		write("Utf8.properties", "hello=Grüße\njapanese=日本\nescaped=\\日 \\\\本\nunicode=\\u00e4", "UTF-8");
+		write("Utf8_de.properties", "hello=Grüß Gott", "UTF-8");
+		write("Latin1.properties", "hello=Grüße\nunicode=\\u65e5", "ISO-8859-1");
+	}
+
+	@After
+	public void after() {
+		Locale.setDefault(defaultLocale);
+	}
+
+	@Test
+	public void utf8FilesAreDecodedLikeResourceBundle() throws IOException {
+		PropertiesCatalog catalog = new PropertiesCatalogLoader().load("Utf8", ROOT, classLoader, 0, null);
+		assertThat(catalog.getMessage("hello"), is("Grüße"));
+		assertThat(catalog.getMessage("escaped"), is("日 \\本"));
+		assertSameAsResourceBundle(catalog, "Utf8", ROOT, "hello", "japanese", "escaped", "unicode");
+		assertSameAsResourceBundle(new PropertiesCatalogLoader().load("Utf8", Locale.GERMAN, classLoader, 0, null), "Utf8", Locale.GERMAN, "hello", "japanese");
+	}
+
+	@Test
+	public void filesThatAreNoValidUtf8AreReadAsIso88591() throws IOException {
+		PropertiesCatalog catalog = new PropertiesCatalogLoader().load("Latin1", ROOT, classLoader, 0, null);
+		assertThat(catalog.getMessage("hello"), is("Grüße"));
+		assertSameAsResourceBundle(catalog, "Latin1", ROOT, "hello", "unicode");
+	}
+
+	@Test
+	public void messagesForCompilationAreDecodedLikeResourceBundle() throws IOException {
+		Map<String, String> messages = new PropertiesCatalogLoader().loadMessages("Utf8", Locale.GERMAN, classLoader);
+		ResourceBundle resourceBundle = ResourceBundle.getBundle("Utf8", Locale.GERMAN, classLoader);
+		assertThat(messages.get("hello"), is(resourceBundle.getString("hello")));
+		assertThat(messages.get("japanese"), is(resourceBundle.getString("japanese")));
+	}
+
+	private void assertSameAsResourceBundle(PropertiesCatalog catalog, String resourceBundleName, Locale locale, String... keys) {
+		ResourceBundle resourceBundle = ResourceBundle.getBundle(resourceBundleName, locale, classLoader);
+		for (String key : keys) {
+			assertThat(key, catalog.getMessage(key), is(resourceBundle.getString(key)));
+		}
+	}
+
+	private void write(String name, String content, String encoding) throws IOException {
+		OutputStream outputStream = new FileOutputStream(new File(temporaryFolder.getRoot(), name));
+		try {
+			outputStream.write(content.getBytes(encoding));
+		} finally {
+			outputStream.close();
+		}
+	}
+}
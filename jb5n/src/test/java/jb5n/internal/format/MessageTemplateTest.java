@@ -0,0 +1,115 @@
+package jb5n.internal.format;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.math.BigDecimal;
+import java.text.MessageFormat;
+import java.util.Date;
+import java.util.Locale;
+
+import org.junit.Test;
+
+public class MessageTemplateTest {
+	private static final Object[] ARGUMENTS = new Object[] { 1234.5678, new Date(0), "text", null, 2, new BigDecimal("-0.5"), Boolean.TRUE };
+	private static final String[] PATTERNS = new String[] { "No arguments.", "You still have {0} retries.", "{0}{1}{2}{3}{4}{5}{6}{7}",
+			"It''s {2} at '{'{0}'}' and 'quoted {1}' text.", "{0,number} {0,number,integer} {0,number,percent} {0,number,currency} {0,number,#,##0.0#}",
+			"{1,date} {1,date,short} {1,date,long} {1,time} {1,time,full} {1,date,yyyy-MM-dd'T'HH}",
+			"{4,choice,0#no files|1#one file|1<{4,number,integer} files} in {2}", "{0,  Number , Integer} {0,,} {0,}",
+			"{4,number,'#'#} '{0}'' {5,number,0.00;(0.00)}", "{4,choice,0#none|1<{2} and {0,number,integer}}", "Unclosed quote '{0}" };
+
+	@Test
+	public void outputMatchesMessageFormat() {
+		for (Locale locale : new Locale[] { Locale.ENGLISH, Locale.GERMANY, new Locale("fr", "CH") }) {
+			for (String pattern : PATTERNS) {
+				String expected = new MessageFormat(pattern, locale).format(ARGUMENTS);
+				assertThat(pattern, MessageTemplate.compile(pattern).format(ARGUMENTS, locale), is(expected));
+			}
+		}
+	}
+
+	@Test
+	public void missingArguments() {
+		String pattern = "{0} and {3}";
+		Object[] arguments = new Object[] { "one" };
+		assertThat(MessageTemplate.compile(pattern).format(arguments, Locale.ENGLISH), is(new MessageFormat(pattern).format(arguments)));
+		assertThat(MessageTemplate.compile(pattern).format(null, Locale.ENGLISH), is("{0} and {3}"));
+	}
+
+	@Test
+	public void templateIsReusable() {
+		MessageTemplate template = MessageTemplate.compile("{0,number,0.00} / {0}");
+		for (int i = 0; i < 3; i++) {
+			assertThat(template.format(new Object[] { i }, Locale.ENGLISH), is(i + ".00 / " + i));
+		}
+		assertThat(template.getArgumentCount(), is(2));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void unknownFormatType() {
+		MessageTemplate.compile("{0,unknown}");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void unmatchedBraces() {
+		MessageTemplate.compile("{0");
+	}
+
+	@Test
+	public void pluralSelectsCategoryOfLocale() {
+		String pattern = "{0,plural,=0{no files} one{# file} few{# files (few)} many{# files (many)} other{# files}} in {1}";
+		MessageTemplate english = MessageTemplate.compile(pattern, Locale.ENGLISH);
+		assertThat(english.format(new Object[] { 0, "dir" }, Locale.ENGLISH), is("no files in dir"));
+		assertThat(english.format(new Object[] { 1, "dir" }, Locale.ENGLISH), is("1 file in dir"));
+		assertThat(english.format(new Object[] { 1234L, "dir" }, Locale.ENGLISH), is("1,234 files in dir"));
+		assertThat(english.format(new Object[] { 1.5, "dir" }, Locale.ENGLISH), is("1.5 files in dir"));
+		MessageTemplate russian = MessageTemplate.compile(pattern, new Locale("ru"));
+		assertThat(russian.format(new Object[] { 21, "dir" }, Locale.ENGLISH), is("21 file in dir"));
+		assertThat(russian.format(new Object[] { 23, "dir" }, Locale.ENGLISH), is("23 files (few) in dir"));
+		assertThat(russian.format(new Object[] { 11, "dir" }, Locale.ENGLISH), is("11 files (many) in dir"));
+		assertThat(russian.format(new Object[] { 2.5, "dir" }, Locale.ENGLISH), is("2.5 files in dir"));
+	}
+
+	@Test
+	public void pluralRulesOfLanguages() {
+		assertThat(PluralRules.forLocale(Locale.JAPANESE).select(1), is(PluralCategory.Other));
+		assertThat(PluralRules.forLocale(Locale.FRENCH).select(0), is(PluralCategory.One));
+		assertThat(PluralRules.forLocale(Locale.FRENCH).select(1.5), is(PluralCategory.One));
+		assertThat(PluralRules.forLocale(new Locale("pl")).select(22), is(PluralCategory.Few));
+		assertThat(PluralRules.forLocale(new Locale("pl")).select(25), is(PluralCategory.Many));
+		assertThat(PluralRules.forLocale(new Locale("cs")).select(0.5), is(PluralCategory.Many));
+		assertThat(PluralRules.forLocale(new Locale("ar")).select(2), is(PluralCategory.Two));
+		assertThat(PluralRules.forLocale(new Locale("ar")).select(111), is(PluralCategory.Many));
+		assertThat(PluralRules.forLocale(new Locale("he")).select(-2), is(PluralCategory.Two));
+	}
+
+	@Test
+	public void selectWithNestedPlural() {
+		MessageTemplate template = MessageTemplate.compile("{0,select,female{{1,plural,one{She has # '#' file} other{She has # files}}} other{They have {1} files}}.",
+				Locale.ENGLISH);
+		assertThat(template.format(new Object[] { "female", 1 }, Locale.ENGLISH), is("She has 1 # file."));
+		assertThat(template.format(new Object[] { "female", 3 }, Locale.ENGLISH), is("She has 3 files."));
+		assertThat(template.format(new Object[] { "male", 3 }, Locale.ENGLISH), is("They have 3 files."));
+		assertThat(template.format(new Object[] { null, 3 }, Locale.ENGLISH), is("null."));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void pluralWithoutOther() {
+		MessageTemplate.compile("{0,plural,one{# file}}");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void pluralWithUnknownCategory() {
+		MessageTemplate.compile("{0,plural,single{# file} other{# files}}");
+	}
+
+	@Test
+	public void cacheRecompilesChangedPattern() {
+		MessageTemplateCache cache = new MessageTemplateCache();
+		MessageTemplate template = cache.get("bundle", Locale.ENGLISH, "key", "{0} retries");
+		assertThat(cache.get("bundle", Locale.ENGLISH, "key", "{0} retries") == template, is(true));
+		MessageTemplate changedTemplate = cache.get("bundle", Locale.ENGLISH, "key", "{0} attempts");
+		assertThat(changedTemplate.format(new Object[] { 3 }, Locale.ENGLISH), is("3 attempts"));
+		assertThat(cache.size(), is(1));
+	}
+}
@@ -0,0 +1,132 @@
+package jb5n.internal.format;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.Locale;
+
+import org.junit.Test;
+
+public class PluralRulesTest {
+
+	@Test
+	public void forLocale() {
+		assertThat(PluralRules.forLocale(Locale.JAPANESE), is(PluralRules.Other));
+		assertThat(PluralRules.forLocale(Locale.GERMANY), is(PluralRules.One));
+		assertThat(PluralRules.forLocale(Locale.FRENCH), is(PluralRules.ZeroOrOne));
+		assertThat(PluralRules.forLocale(new Locale("hi", "IN")), is(PluralRules.ZeroOrExactlyOne));
+		assertThat(PluralRules.forLocale(new Locale("he")), is(PluralRules.Hebrew));
+		assertThat(PluralRules.forLocale(new Locale("xx")), is(PluralRules.Other));
+		assertThat(PluralRules.forLocale(null), is(PluralRules.Other));
+	}
+
+	@Test
+	public void other() {
+		assertSamples(PluralRules.Other, PluralCategory.Other, 0, 1, 15, 100, 0.5, 1.5);
+	}
+
+	@Test
+	public void one() {
+		assertSamples(PluralRules.One, PluralCategory.One, 1, -1);
+		assertSamples(PluralRules.One, PluralCategory.Other, 0, 2, 16, 100, 1000, 0.5, 1.5);
+	}
+
+	@Test
+	public void zeroOrOne() {
+		assertSamples(PluralRules.ZeroOrOne, PluralCategory.One, 0, 1, 0.5, 1.5);
+		assertSamples(PluralRules.ZeroOrOne, PluralCategory.Other, 2, 17, 100, 1000, 2.5);
+	}
+
+	@Test
+	public void zeroOrExactlyOne() {
+		assertSamples(PluralRules.ZeroOrExactlyOne, PluralCategory.One, 0, 1, 0.5);
+		assertSamples(PluralRules.ZeroOrExactlyOne, PluralCategory.Other, 2, 17, 100, 1000, 1.5, 2.5);
+	}
+
+	@Test
+	public void eastSlavic() {
+		assertSamples(PluralRules.EastSlavic, PluralCategory.One, 1, 21, 31, 101, 1001);
+		assertSamples(PluralRules.EastSlavic, PluralCategory.Few, 2, 3, 4, 22, 24, 102);
+		assertSamples(PluralRules.EastSlavic, PluralCategory.Many, 0, 5, 11, 12, 14, 19, 100, 111);
+		assertSamples(PluralRules.EastSlavic, PluralCategory.Other, 0.5, 1.5);
+	}
+
+	@Test
+	public void southSlavic() {
+		assertSamples(PluralRules.SouthSlavic, PluralCategory.One, 1, 21, 31, 101);
+		assertSamples(PluralRules.SouthSlavic, PluralCategory.Few, 2, 3, 4, 22, 102);
+		assertSamples(PluralRules.SouthSlavic, PluralCategory.Other, 0, 5, 11, 12, 14, 19, 100, 0.5, 1.5);
+	}
+
+	@Test
+	public void polish() {
+		assertSamples(PluralRules.Polish, PluralCategory.One, 1);
+		assertSamples(PluralRules.Polish, PluralCategory.Few, 2, 3, 4, 22, 24, 102);
+		assertSamples(PluralRules.Polish, PluralCategory.Many, 0, 5, 11, 12, 14, 21, 100, 101);
+		assertSamples(PluralRules.Polish, PluralCategory.Other, 0.5, 1.5);
+	}
+
+	@Test
+	public void czech() {
+		assertSamples(PluralRules.Czech, PluralCategory.One, 1);
+		assertSamples(PluralRules.Czech, PluralCategory.Few, 2, 3, 4);
+		assertSamples(PluralRules.Czech, PluralCategory.Many, 0.5, 1.5);
+		assertSamples(PluralRules.Czech, PluralCategory.Other, 0, 5, 19, 100);
+	}
+
+	@Test
+	public void romanian() {
+		assertSamples(PluralRules.Romanian, PluralCategory.One, 1);
+		assertSamples(PluralRules.Romanian, PluralCategory.Few, 0, 2, 16, 19, 101, 1001, 0.5, 1.5);
+		assertSamples(PluralRules.Romanian, PluralCategory.Other, 20, 35, 100, 1000);
+	}
+
+	@Test
+	public void lithuanian() {
+		assertSamples(PluralRules.Lithuanian, PluralCategory.One, 1, 21, 31, 101);
+		assertSamples(PluralRules.Lithuanian, PluralCategory.Few, 2, 9, 22, 102);
+		assertSamples(PluralRules.Lithuanian, PluralCategory.Many, 0.5, 1.5);
+		assertSamples(PluralRules.Lithuanian, PluralCategory.Other, 0, 10, 11, 19, 20, 30, 100, 111);
+	}
+
+	@Test
+	public void slovenian() {
+		assertSamples(PluralRules.Slovenian, PluralCategory.One, 1, 101, 201);
+		assertSamples(PluralRules.Slovenian, PluralCategory.Two, 2, 102);
+		assertSamples(PluralRules.Slovenian, PluralCategory.Few, 3, 4, 103, 0.5, 1.5);
+		assertSamples(PluralRules.Slovenian, PluralCategory.Other, 0, 5, 19, 100);
+	}
+
+	@Test
+	public void hebrew() {
+		assertSamples(PluralRules.Hebrew, PluralCategory.One, 1, 0.5);
+		assertSamples(PluralRules.Hebrew, PluralCategory.Two, 2);
+		assertSamples(PluralRules.Hebrew, PluralCategory.Other, 0, 3, 10, 17, 20, 100, 1.5, 2.5);
+	}
+
+	@Test
+	public void arabic() {
+		assertSamples(PluralRules.Arabic, PluralCategory.Zero, 0);
+		assertSamples(PluralRules.Arabic, PluralCategory.One, 1);
+		assertSamples(PluralRules.Arabic, PluralCategory.Two, 2);
+		assertSamples(PluralRules.Arabic, PluralCategory.Few, 3, 10, 103, 110);
+		assertSamples(PluralRules.Arabic, PluralCategory.Many, 11, 26, 111, 199);
+		assertSamples(PluralRules.Arabic, PluralCategory.Other, 100, 102, 200, 0.5, 1.5);
+	}
+
+	@Test
+	public void numbersOutOfRange() {
+		assertThat(PluralRules.One.select(Long.MIN_VALUE), is(PluralCategory.Other));
+		assertThat(PluralRules.One.select(Double.NaN), is(PluralCategory.Other));
+		assertThat(PluralRules.One.select(1e300), is(PluralCategory.Other));
+	}
+
+	private static void assertSamples(PluralRules rules, PluralCategory category, double... samples) {
+		for (double sample : samples) {
+			assertThat(rules + " " + sample, rules.select(sample), is(category));
+			if (sample == Math.floor(sample)) {
+				assertThat(rules + " " + sample, rules.select((long) sample), is(category));
+			}
+		}
+	}
+}